@@ -26,6 +26,7 @@ public class SenseConstants {
     public static final String EVENT_LISTENER_STARTED = "xxStartedxx";
     public static final String EVENT_LISTENER_FINISHED = "xxFinishedxx";
     public static final String EVENT_LISTENER_ONGOING = "xxOngoingxx";
+    public static final String COMPRESSED_DATA_TOPIC_SUFFIX = "/gzip";
 
     public final class Request {
         public final static String REQUEST_SUCCESSFUL = "200";
@@ -48,6 +48,8 @@ public class DataPublisherService extends Service {
     private static String KEY_TAG = "key";
     private static String TIME_TAG = "time";
     private static String VALUE_TAG = "value";
+    private static final int MAX_BATCHES_PER_CYCLE = 20;
+    private static final long REPLAY_INTERVAL_IN_MILLIS = 1000;
     public static Context context;
 
 
@@ -57,6 +59,36 @@ public class DataPublisherService extends Service {
         return null;
     }
 
+    /**
+     * Publishes the batches held in the store, oldest first. The batches are replayed at a limited rate, so that the
+     * backlog accumulated during a disconnection does not flood the broker once the connection is back. A batch is
+     * removed from the store only after it is published, hence the replay resumes from the same batch in the next
+     * cycle if publishing fails.
+     */
+    private static void publishPendingBatches(String user, String deviceId) throws TransportHandlerException {
+        MQTTTransportHandler mqttTransportHandler = AndroidSenseMQTTHandler.getInstance(context);
+        if (!mqttTransportHandler.isConnected()) {
+            // the stored batches are published in the next cycle, once the connection is established.
+            mqttTransportHandler.connect();
+            return;
+        }
+        EventBatchStore eventBatchStore = EventBatchStore.getInstance(context);
+        List<EventBatchStore.EventBatch> batches = eventBatchStore.getPendingBatches(MAX_BATCHES_PER_CYCLE);
+        for (int i = 0; i < batches.size(); i++) {
+            EventBatchStore.EventBatch batch = batches.get(i);
+            mqttTransportHandler.publishDeviceData(user, deviceId, batch.getPayload(), batch.getTopic());
+            eventBatchStore.removeBatch(batch);
+            if (i < batches.size() - 1) {
+                try {
+                    Thread.sleep(REPLAY_INTERVAL_IN_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
         context = this;
@@ -67,7 +99,7 @@ public class DataPublisherService extends Service {
                 try {
                     List<Event> events = new ArrayList<>();
                     //retreive sensor data.
-                    List<SensorData> sensorDataMap = SenseDataHolder.getSensorDataHolder();
+                    List<SensorData> sensorDataMap = SenseDataHolder.getSensorDataHolder().drain();
                     for (SensorData sensorData : sensorDataMap) {
                         Event event = new Event();
                         event.setTimestamp(sensorData.getTimestamp());
@@ -105,30 +137,27 @@ public class DataPublisherService extends Service {
                                 break;
                         }
                     }
-                    SenseDataHolder.resetSensorDataHolder();
 
                     //retreive batter data.
-                    List<BatteryData> batteryDataMap = SenseDataHolder.getBatteryDataHolder();
+                    List<BatteryData> batteryDataMap = SenseDataHolder.getBatteryDataHolder().drain();
                     for (BatteryData batteryData : batteryDataMap) {
                         Event event = new Event();
                         event.setTimestamp(batteryData.getTimestamp());
                         event.setBattery(batteryData.getLevel());
                         events.add(event);
                     }
-                    SenseDataHolder.resetBatteryDataHolder();
                     //retreive location data.
-                    List<LocationData> locationDataMap = SenseDataHolder.getLocationDataHolder();
+                    List<LocationData> locationDataMap = SenseDataHolder.getLocationDataHolder().drain();
                     for (LocationData locationData : locationDataMap) {
                         Event event = new Event();
                         event.setTimestamp(locationData.getTimeStamp());
                         event.setGps(new double[]{locationData.getLatitude(), locationData.getLongitude()});
                         events.add(event);
                     }
-                    SenseDataHolder.resetLocationDataHolder();
 
                     //retrieve words
                     ProcessWords.cleanAndPushToWordMap();
-                    List<WordData> wordDatMap = SenseDataHolder.getWordDataHolder();
+                    List<WordData> wordDatMap = SenseDataHolder.getWordDataHolder().drain();
                     for (WordData wordData : wordDatMap) {
                         if (wordData.getOccurences() == 0) {
                             continue;
@@ -147,7 +176,6 @@ public class DataPublisherService extends Service {
                             events.add(event);
                         }
                     }
-                    SenseDataHolder.resetWordDataHolder();
                     //publish the data
                     if (events.size() > 0 && LocalRegistry.isEnrolled(context)) {
                         String user = LocalRegistry.getUsername(context);
@@ -158,13 +186,12 @@ public class DataPublisherService extends Service {
                             event.setDeviceId(deviceId);
                             jsonArray.put(new JSONObject().put("event", event.getEvent()));
                         }
-                        MQTTTransportHandler mqttTransportHandler = AndroidSenseMQTTHandler.getInstance(context);
-                        if (!mqttTransportHandler.isConnected()) {
-                            mqttTransportHandler.connect();
-                        }
                         String topic = "wso2/" + LocalRegistry.getTenantDomain(context) + "/" + SenseConstants
                                 .DEVICE_TYPE + "/" + deviceId + "/data";
-                        mqttTransportHandler.publishDeviceData(user, deviceId, jsonArray.toString(), topic);
+                        EventBatchStore.getInstance(context).addBatch(topic, jsonArray.toString());
+                    }
+                    if (LocalRegistry.isEnrolled(context)) {
+                        publishPendingBatches(LocalRegistry.getUsername(context), LocalRegistry.getDeviceId(context));
                     }
                 } catch (JSONException e) {
                     Log.e(TAG, "Json Data Parsing Exception", e);
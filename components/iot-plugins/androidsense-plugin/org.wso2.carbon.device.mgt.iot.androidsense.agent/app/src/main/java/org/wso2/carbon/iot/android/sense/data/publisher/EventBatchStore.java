@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ */
+package org.wso2.carbon.iot.android.sense.data.publisher;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This persists the event batches that are yet to be published to the server, so that they survive a broker outage
+ * and a restart of the app. The store is bounded; once it holds the maximum number of batches, the oldest batches
+ * are discarded to make room for the new ones.
+ */
+public class EventBatchStore extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "senseEventBatches.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final String TABLE_NAME = "EVENT_BATCH";
+    private static final String COLUMN_ID = "ID";
+    private static final String COLUMN_TOPIC = "TOPIC";
+    private static final String COLUMN_PAYLOAD = "PAYLOAD";
+    private static final int MAX_STORED_BATCHES = 2880;    // a day worth of batches at the 30 seconds interval.
+    private static EventBatchStore instance;
+
+    private EventBatchStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized EventBatchStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new EventBatchStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_NAME + " (" + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                           + COLUMN_TOPIC + " TEXT NOT NULL, " + COLUMN_PAYLOAD + " TEXT NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_NAME);
+        onCreate(db);
+    }
+
+    /**
+     * @param topic   the topic to which the batch is to be published.
+     * @param payload the batch of events.
+     */
+    public synchronized void addBatch(String topic, String payload) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_TOPIC, topic);
+            values.put(COLUMN_PAYLOAD, payload);
+            db.insert(TABLE_NAME, null, values);
+            db.execSQL("DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_ID + " <= (SELECT MAX(" + COLUMN_ID
+                               + ") FROM " + TABLE_NAME + ") - " + MAX_STORED_BATCHES);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * @param limit the maximum number of batches to be returned.
+     * @return the oldest stored batches, in the order they were added.
+     */
+    public synchronized List<EventBatch> getPendingBatches(int limit) {
+        List<EventBatch> batches = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE_NAME, new String[]{COLUMN_ID, COLUMN_TOPIC, COLUMN_PAYLOAD},
+                                                    null, null, null, null, COLUMN_ID + " ASC",
+                                                    String.valueOf(limit));
+        try {
+            while (cursor.moveToNext()) {
+                batches.add(new EventBatch(cursor.getLong(0), cursor.getString(1), cursor.getString(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return batches;
+    }
+
+    /**
+     * @param batch the batch to be removed, once it has been published.
+     */
+    public synchronized void removeBatch(EventBatch batch) {
+        getWritableDatabase().delete(TABLE_NAME, COLUMN_ID + " = ?", new String[]{String.valueOf(batch.getId())});
+    }
+
+    /**
+     * A batch of events read from the store.
+     */
+    public static class EventBatch {
+        private final long id;
+        private final String topic;
+        private final String payload;
+
+        EventBatch(long id, String topic, String payload) {
+            this.id = id;
+            this.topic = topic;
+            this.payload = payload;
+        }
+
+        long getId() {
+            return id;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public String getPayload() {
+            return payload;
+        }
+    }
+}
@@ -24,12 +24,17 @@ import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.wso2.carbon.iot.android.sense.data.publisher.mqtt.transport.MQTTTransportHandler;
 import org.wso2.carbon.iot.android.sense.data.publisher.mqtt.transport.TransportHandlerException;
+import org.json.JSONException;
 import org.wso2.carbon.iot.android.sense.constants.SenseConstants;
+import org.wso2.carbon.iot.android.sense.event.streams.Sensor.SensorSamplingPolicy;
 import org.wso2.carbon.iot.android.sense.speech.detector.util.ProcessWords;
 import org.wso2.carbon.iot.android.sense.util.LocalRegistry;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * This is an example for the use of the MQTT capabilities provided by the IoT-Server. This example depicts the use
@@ -46,6 +51,8 @@ import java.util.Arrays;
  */
 public class AndroidSenseMQTTHandler extends MQTTTransportHandler {
     private static final String TAG = "AndroidSenseMQTTHandler";
+    // smaller payloads are published as they are, since gzip gains little on them.
+    private static final int COMPRESSION_THRESHOLD_IN_BYTES = 1024;
     private static volatile AndroidSenseMQTTHandler mInstance;
     private Context context;
 
@@ -72,6 +79,7 @@ public class AndroidSenseMQTTHandler extends MQTTTransportHandler {
      */
     private AndroidSenseMQTTHandler(Context context) {
         super(context);
+        this.context = context.getApplicationContext();
     }
 
     /**
@@ -131,6 +139,15 @@ public class AndroidSenseMQTTHandler extends MQTTTransportHandler {
             msg = mqttMessage.toString();
             Log.d(TAG, "MQTT: Received Message [" + msg + "] topic: [" + topic + "]");
             if (topic.contains("threshold")) {
+                if (msg.trim().startsWith("{") || msg.trim().startsWith("[")) {
+                    // sensor sampling policies are pushed through the threshold channel as JSON.
+                    try {
+                        SensorSamplingPolicy.updatePolicies(context, msg);
+                    } catch (JSONException e) {
+                        Log.e(TAG, "Invalid sampling policy " + msg, e);
+                    }
+                    return;
+                }
                 try {
                     ProcessWords.setThreshold(Integer.parseInt(msg));
                 } catch (NumberFormatException e) {
@@ -155,7 +172,10 @@ public class AndroidSenseMQTTHandler extends MQTTTransportHandler {
     /**
      * {@inheritDoc}
      * AndroidSense device-type specific implementation to publish data to the device. This method calls the
-     * {@link #publishToQueue(String, MqttMessage)} method of the "MQTTTransportHandler" class.
+     * {@link #publishToQueue(String, MqttMessage)} method of the "MQTTTransportHandler" class. If the server accepts
+     * compressed data, payloads larger than {@link #COMPRESSION_THRESHOLD_IN_BYTES} are gzip compressed and published
+     * to the compressed-data sub-topic of the given topic, from where the server decompresses them. Otherwise, all
+     * payloads are published as plain JSON to the given topic.
      */
     @Override
     public void publishDeviceData(String... publishData) throws TransportHandlerException {
@@ -172,14 +192,32 @@ public class AndroidSenseMQTTHandler extends MQTTTransportHandler {
 
         MqttMessage pushMessage = new MqttMessage();
         String publishTopic = publishData[3];
-        String actualMessage = resource;
-        pushMessage.setPayload(actualMessage.getBytes(StandardCharsets.UTF_8));
+        byte[] payload = resource.getBytes(StandardCharsets.UTF_8);
+        if (payload.length > COMPRESSION_THRESHOLD_IN_BYTES && LocalRegistry.isCompressionEnabled(context)) {
+            payload = compress(payload);
+            publishTopic = publishTopic + SenseConstants.COMPRESSED_DATA_TOPIC_SUFFIX;
+        }
+        pushMessage.setPayload(payload);
         pushMessage.setQos(DEFAULT_MQTT_QUALITY_OF_SERVICE);
         pushMessage.setRetained(false);
         publishToQueue(publishTopic, pushMessage);
     }
 
 
+    private static byte[] compress(byte[] payload) throws TransportHandlerException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(payload.length / 4);
+        try {
+            GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+            gzipOutputStream.write(payload);
+            gzipOutputStream.close();
+        } catch (IOException e) {
+            String errorMsg = "Failed to compress the MQTT message payload";
+            Log.e(TAG, errorMsg);
+            throw new TransportHandlerException(errorMsg, e);
+        }
+        return outputStream.toByteArray();
+    }
+
     /**
      * {@inheritDoc}
      * Android Sense device-type specific implementation to disconnect from the MQTT broker.
@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,6 +46,8 @@ public class SensorDataReader extends DataReader implements SensorEventListener
     private List<Sensor> sensorList = new ArrayList<>();
     private SupportedSensors supportedSensors = SupportedSensors.getInstance();
     private static final String TAG = SensorDataReader.class.getName();
+    // the windows outlive the readers, as a sampling interval spans several collection cycles.
+    private static final ConcurrentMap<Integer, SensorDataWindow> sensorDataWindows = new ConcurrentHashMap<>();
 
     public SensorDataReader(Context context) {
         ctx = context;
@@ -52,17 +56,50 @@ public class SensorDataReader extends DataReader implements SensorEventListener
         Set<String> selectedSet = sharedPreferences.getStringSet(SupportedSensors.SELECTED_SENSORS_BY_USER, null);
         mSensorManager = (SensorManager) ctx.getSystemService(Context.SENSOR_SERVICE);
         selectedSensorList(selectedSet);
+        long now = System.currentTimeMillis();
         for (Sensor sensor : sensorList) {
-            mSensorManager.registerListener(this, sensor, SensorManager.SENSOR_DELAY_NORMAL);
+            SensorSamplingPolicy policy = getSamplingPolicy(sensor.getType());
+            // sensors that are aggregated are listened to on every cycle so that their windows get filled, whilst
+            // the others are only listened to once their sampling interval elapses.
+            if (policy.getAggregation() != SensorSamplingPolicy.Aggregation.LATEST
+                    || getSensorDataWindow(sensor.getType()).isDue(now, policy.getSamplingInterval())) {
+                mSensorManager.registerListener(this, sensor, SensorManager.SENSOR_DELAY_NORMAL);
+            }
         }
 
     }
 
+    private SensorSamplingPolicy getSamplingPolicy(int sensorType) {
+        return SensorSamplingPolicy.getPolicy(ctx, supportedSensors.getType(sensorType));
+    }
+
+    private static SensorDataWindow getSensorDataWindow(int sensorType) {
+        SensorDataWindow sensorDataWindow = sensorDataWindows.get(sensorType);
+        if (sensorDataWindow == null) {
+            sensorDataWindows.putIfAbsent(sensorType, new SensorDataWindow());
+            sensorDataWindow = sensorDataWindows.get(sensorType);
+        }
+        return sensorDataWindow;
+    }
+
     private void collectSensorData() {
+        long now = System.currentTimeMillis();
         for (Sensor sensor : sensorList) {
             try {
                 if (senseDataStruct.containsKey(sensor.getName())) {
                     SensorData sensorInfo = senseDataStruct.get(sensor.getName());
+                    SensorSamplingPolicy policy = getSamplingPolicy(sensor.getType());
+                    SensorDataWindow sensorDataWindow = getSensorDataWindow(sensor.getType());
+                    if (!sensorDataWindow.isDue(now, policy.getSamplingInterval())) {
+                        continue;
+                    }
+                    if (policy.getAggregation() != SensorSamplingPolicy.Aggregation.LATEST) {
+                        float[] aggregatedValues = sensorDataWindow.aggregate(policy.getAggregation());
+                        if (aggregatedValues != null) {
+                            sensorInfo.setSensorValues(aggregatedValues);
+                        }
+                    }
+                    sensorDataWindow.close(now);
                     sensorVector.add(sensorInfo);
                     Log.d(TAG, "Sensor Name " + sensor.getName() + ", Type " + sensor.getType() + " " +
                             ", sensorValue :" + sensorInfo.getSensorValues());
@@ -92,6 +129,9 @@ public class SensorDataReader extends DataReader implements SensorEventListener
     @Override
     public void onSensorChanged(SensorEvent event) {
         senseDataStruct.put(event.sensor.getName(), new SensorData(event));
+        if (getSamplingPolicy(event.sensor.getType()).getAggregation() != SensorSamplingPolicy.Aggregation.LATEST) {
+            getSensorDataWindow(event.sensor.getType()).add(event.values);
+        }
     }
 
     @Override
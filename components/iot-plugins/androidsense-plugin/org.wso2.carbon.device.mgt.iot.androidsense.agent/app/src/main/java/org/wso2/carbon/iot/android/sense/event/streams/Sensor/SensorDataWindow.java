@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ */
+package org.wso2.carbon.iot.android.sense.event.streams.Sensor;
+
+/**
+ * This accumulates the readings of a sensor over a sampling interval, keeping the running minimum, maximum and sum
+ * of each value of the reading, so that the interval can be reduced to a single reading without retaining the
+ * individual readings.
+ */
+class SensorDataWindow {
+    private long windowStart = 0;
+    private int count = 0;
+    private float[] min;
+    private float[] max;
+    private double[] sum;
+
+    synchronized void add(float[] values) {
+        if (count == 0 || min.length != values.length) {
+            min = values.clone();
+            max = values.clone();
+            sum = new double[values.length];
+            count = 0;
+        }
+        for (int i = 0; i < values.length; i++) {
+            min[i] = Math.min(min[i], values[i]);
+            max[i] = Math.max(max[i], values[i]);
+            sum[i] += values[i];
+        }
+        count++;
+    }
+
+    /**
+     * @param now              the current time in milliseconds.
+     * @param samplingInterval the sampling interval of the sensor in milliseconds.
+     * @return true if the sampling interval has elapsed since the window was last closed.
+     */
+    synchronized boolean isDue(long now, long samplingInterval) {
+        return now - windowStart >= samplingInterval;
+    }
+
+    /**
+     * @param aggregation the function with which the readings are to be reduced.
+     * @return the reduced reading, or null if there were no readings in the window.
+     */
+    synchronized float[] aggregate(SensorSamplingPolicy.Aggregation aggregation) {
+        if (count == 0) {
+            return null;
+        }
+        switch (aggregation) {
+            case MIN:
+                return min.clone();
+            case MAX:
+                return max.clone();
+            default:
+                float[] mean = new float[sum.length];
+                for (int i = 0; i < sum.length; i++) {
+                    mean[i] = (float) (sum[i] / count);
+                }
+                return mean;
+        }
+    }
+
+    /**
+     * Discards the readings of the window and starts a new window.
+     *
+     * @param now the current time in milliseconds.
+     */
+    synchronized void close(long now) {
+        windowStart = now;
+        count = 0;
+    }
+}
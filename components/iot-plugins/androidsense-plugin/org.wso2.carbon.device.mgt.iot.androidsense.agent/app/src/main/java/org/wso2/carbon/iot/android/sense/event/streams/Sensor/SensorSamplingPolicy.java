@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ */
+package org.wso2.carbon.iot.android.sense.event.streams.Sensor;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This defines how often a sensor is sampled and how the readings within a sampling interval are reduced to the
+ * single reading that is published. The policies are pushed by the server as JSON, e.g.
+ * {"sensor":"accelerometer","interval":10000,"aggregation":"mean"}, and are persisted so that they survive restarts.
+ * Sensors without a policy are sampled on every collection cycle with their latest reading.
+ */
+public class SensorSamplingPolicy {
+    private static final String TAG = SensorSamplingPolicy.class.getName();
+    private static final String SAMPLING_POLICY_PREFERENCES = "senseSamplingPolicies";
+    private static final String SAMPLING_POLICY_KEY = "samplingPolicyKey";
+    private static final String SENSOR_TAG = "sensor";
+    private static final String INTERVAL_TAG = "interval";
+    private static final String AGGREGATION_TAG = "aggregation";
+    private static final SensorSamplingPolicy DEFAULT_POLICY = new SensorSamplingPolicy(0, Aggregation.LATEST);
+    private static final Map<String, SensorSamplingPolicy> policies = new ConcurrentHashMap<>();
+    private static volatile boolean loaded = false;
+
+    /**
+     * The function used to reduce the readings of a sampling interval.
+     */
+    public enum Aggregation {
+        LATEST, MEAN, MIN, MAX
+    }
+
+    private final long samplingInterval;
+    private final Aggregation aggregation;
+
+    private SensorSamplingPolicy(long samplingInterval, Aggregation aggregation) {
+        this.samplingInterval = samplingInterval;
+        this.aggregation = aggregation;
+    }
+
+    /**
+     * @return the minimum time in milliseconds between two published readings of the sensor.
+     */
+    public long getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * @param context    the android context object.
+     * @param sensorName the name of the sensor as listed in SupportedSensors.
+     * @return the sampling policy of the sensor.
+     */
+    public static SensorSamplingPolicy getPolicy(Context context, String sensorName) {
+        if (!loaded) {
+            load(context);
+        }
+        SensorSamplingPolicy policy = sensorName != null ? policies.get(sensorName) : null;
+        return policy != null ? policy : DEFAULT_POLICY;
+    }
+
+    /**
+     * Applies the policies pushed by the server and persists them.
+     *
+     * @param context the android context object.
+     * @param message a policy as a JSON object or a JSON array of policies.
+     * @throws JSONException if the message is not a valid policy.
+     */
+    public static void updatePolicies(Context context, String message) throws JSONException {
+        if (!loaded) {
+            load(context);
+        }
+        String trimmedMessage = message.trim();
+        if (trimmedMessage.startsWith("[")) {
+            JSONArray policyArray = new JSONArray(trimmedMessage);
+            for (int i = 0; i < policyArray.length(); i++) {
+                updatePolicy(policyArray.getJSONObject(i));
+            }
+        } else {
+            updatePolicy(new JSONObject(trimmedMessage));
+        }
+        store(context);
+    }
+
+    private static void updatePolicy(JSONObject policyObject) throws JSONException {
+        String sensorName = policyObject.getString(SENSOR_TAG).toLowerCase();
+        long samplingInterval = policyObject.optLong(INTERVAL_TAG, 0);
+        Aggregation aggregation;
+        try {
+            aggregation = Aggregation.valueOf(policyObject.optString(AGGREGATION_TAG, Aggregation.LATEST.name())
+                                                      .toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new JSONException("Invalid aggregation " + policyObject.optString(AGGREGATION_TAG));
+        }
+        if (samplingInterval <= 0 && aggregation == Aggregation.LATEST) {
+            policies.remove(sensorName);
+        } else {
+            policies.put(sensorName, new SensorSamplingPolicy(Math.max(samplingInterval, 0), aggregation));
+        }
+        Log.d(TAG, "Sampling policy of sensor " + sensorName + " set to interval " + samplingInterval + "ms, "
+                + aggregation);
+    }
+
+    private static synchronized void load(Context context) {
+        if (loaded) {
+            return;
+        }
+        SharedPreferences sharedPreferences = context.getSharedPreferences(SAMPLING_POLICY_PREFERENCES,
+                                                                           Context.MODE_PRIVATE);
+        String storedPolicies = sharedPreferences.getString(SAMPLING_POLICY_KEY, null);
+        if (storedPolicies != null) {
+            try {
+                JSONObject policyObjects = new JSONObject(storedPolicies);
+                Iterator<String> sensorNames = policyObjects.keys();
+                while (sensorNames.hasNext()) {
+                    String sensorName = sensorNames.next();
+                    JSONObject policyObject = policyObjects.getJSONObject(sensorName);
+                    policies.put(sensorName, new SensorSamplingPolicy(
+                            policyObject.getLong(INTERVAL_TAG),
+                            Aggregation.valueOf(policyObject.getString(AGGREGATION_TAG))));
+                }
+            } catch (JSONException | IllegalArgumentException e) {
+                Log.e(TAG, "Discarding the invalid stored sampling policies", e);
+                policies.clear();
+            }
+        }
+        loaded = true;
+    }
+
+    private static synchronized void store(Context context) throws JSONException {
+        JSONObject policyObjects = new JSONObject();
+        for (Map.Entry<String, SensorSamplingPolicy> policy : policies.entrySet()) {
+            policyObjects.put(policy.getKey(), new JSONObject()
+                    .put(INTERVAL_TAG, policy.getValue().getSamplingInterval())
+                    .put(AGGREGATION_TAG, policy.getValue().getAggregation().name()));
+        }
+        SharedPreferences sharedPreferences = context.getSharedPreferences(SAMPLING_POLICY_PREFERENCES,
+                                                                           Context.MODE_PRIVATE);
+        sharedPreferences.edit().putString(SAMPLING_POLICY_KEY, policyObjects.toString()).apply();
+    }
+}
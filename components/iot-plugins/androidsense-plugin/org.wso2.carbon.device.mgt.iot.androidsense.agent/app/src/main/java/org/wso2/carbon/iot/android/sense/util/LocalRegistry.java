@@ -37,6 +37,7 @@ public class LocalRegistry {
     private static final String MQTT_ENDPOINT_KEY = "mqttEndpointKey";
     private static final String IS_ENROLLED_KEY = "enrolledKey";
     private static final String TENANT_DOMAIN_KEY = "tenantDomainKey";
+    private static final String COMPRESSION_ENABLED_KEY = "compressionEnabledKey";
     private static boolean exists = false;
     private static String username;
     private static String deviceId;
@@ -47,6 +48,7 @@ public class LocalRegistry {
     private static String mqttEndpoint;
     private static boolean enrolled;
     private static String tenantDomain;
+    private static Boolean compressionEnabled;
 
     public static boolean isExist(Context context) {
         if (!exists) {
@@ -254,6 +256,25 @@ public class LocalRegistry {
         return LocalRegistry.tenantDomain;
     }
 
+    public static void setCompressionEnabled(Context context, boolean compressionEnabled) {
+        SharedPreferences sharedpreferences = context.getSharedPreferences(SENSE_SHARED_PREFERENCES, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = sharedpreferences.edit();
+        editor.putBoolean(COMPRESSION_ENABLED_KEY, compressionEnabled);
+        editor.commit();
+        LocalRegistry.compressionEnabled = compressionEnabled;
+    }
+
+    /**
+     * @return true if the server accepts gzip compressed data batches, as advertised when the device was enrolled.
+     */
+    public static boolean isCompressionEnabled(Context context) {
+        if (LocalRegistry.compressionEnabled == null) {
+            SharedPreferences sharedpreferences = context.getSharedPreferences(SENSE_SHARED_PREFERENCES, Context.MODE_PRIVATE);
+            LocalRegistry.compressionEnabled = sharedpreferences.getBoolean(COMPRESSION_ENABLED_KEY, false);
+        }
+        return LocalRegistry.compressionEnabled;
+    }
+
     public static String getServerHost(Context context) {
 
         URL url = null;
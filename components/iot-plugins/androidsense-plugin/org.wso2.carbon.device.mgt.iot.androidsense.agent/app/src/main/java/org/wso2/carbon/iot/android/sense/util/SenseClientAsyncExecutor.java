@@ -145,6 +145,7 @@ public class SenseClientAsyncExecutor extends AsyncTask<String, Void, Map<String
                 LocalRegistry.addRefreshToken(context, accessTokenInfo.getRefresh_token());
                 LocalRegistry.addMqttEndpoint(context, androidConfiguration.getMqttEndpoint());
                 LocalRegistry.addTenantDomain(context, androidConfiguration.getTenantDomain());
+                LocalRegistry.setCompressionEnabled(context, androidConfiguration.isCompressionEnabled());
             }
             return responseMap;
         } catch (FeignException e) {
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ *
+ */
+package org.wso2.carbon.iot.android.sense.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free ring buffer that holds the data collected by the readers until the publisher drains it.
+ * Each slot carries a sequence number which tells the writers and the readers whether the slot is free to be
+ * written or ready to be read, hence adding an entry is a single CAS regardless of the number of entries held.
+ * When the buffer is full new entries are dropped, so that a publisher that cannot keep up does not exhaust memory.
+ *
+ * @param <T> type of the data held in the buffer.
+ */
+public class SenseDataBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+
+    /**
+     * @param capacity the maximum number of entries held, rounded up to the next power of two.
+     */
+    public SenseDataBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.mask = size - 1;
+        this.entries = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @param entry the data to be added to the buffer.
+     * @return true if the entry was added, false if it was dropped as the buffer is full.
+     */
+    public boolean add(T entry) {
+        while (true) {
+            long position = writePosition.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (writePosition.compareAndSet(position, position + 1)) {
+                    entries.set(index, entry);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return the oldest entry in the buffer, or null if the buffer is empty.
+     */
+    public T poll() {
+        while (true) {
+            long position = readPosition.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (readPosition.compareAndSet(position, position + 1)) {
+                    T entry = entries.getAndSet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return entry;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries currently in the buffer.
+     *
+     * @return the removed entries in the order they were added.
+     */
+    public List<T> drain() {
+        List<T> drainedEntries = new ArrayList<>();
+        T entry;
+        while ((entry = poll()) != null) {
+            drainedEntries.add(entry);
+        }
+        return drainedEntries;
+    }
+}
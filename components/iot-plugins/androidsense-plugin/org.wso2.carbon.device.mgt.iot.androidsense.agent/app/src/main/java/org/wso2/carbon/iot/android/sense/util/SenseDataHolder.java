@@ -18,61 +18,38 @@ import org.wso2.carbon.iot.android.sense.event.streams.Sensor.SensorData;
 import org.wso2.carbon.iot.android.sense.event.streams.battery.BatteryData;
 import org.wso2.carbon.iot.android.sense.speech.detector.util.WordData;
 
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-
 /**
- * This holds the sensor,battery and location data inmemory.
+ * This holds the sensor,battery and location data inmemory, until it is drained by the data publisher.
  */
 public class SenseDataHolder {
 
-    private static List<SensorData> sensorDataHolder;
-    private static List<BatteryData> batteryDataHolder;
-    private static List<LocationData> locationDataHolder;
-    private static List<WordData> wordDataHolder;
+    private static final int SENSOR_DATA_CAPACITY = 16384;
+    private static final int BATTERY_DATA_CAPACITY = 256;
+    private static final int LOCATION_DATA_CAPACITY = 1024;
+    private static final int WORD_DATA_CAPACITY = 1024;
+
+    private static final SenseDataBuffer<SensorData> sensorDataHolder =
+            new SenseDataBuffer<>(SENSOR_DATA_CAPACITY);
+    private static final SenseDataBuffer<BatteryData> batteryDataHolder =
+            new SenseDataBuffer<>(BATTERY_DATA_CAPACITY);
+    private static final SenseDataBuffer<LocationData> locationDataHolder =
+            new SenseDataBuffer<>(LOCATION_DATA_CAPACITY);
+    private static final SenseDataBuffer<WordData> wordDataHolder = new SenseDataBuffer<>(WORD_DATA_CAPACITY);
 
-    public static List<SensorData> getSensorDataHolder(){
-        if(sensorDataHolder == null){
-            sensorDataHolder = new CopyOnWriteArrayList<>();
-        }
+    public static SenseDataBuffer<SensorData> getSensorDataHolder(){
         return sensorDataHolder;
     }
 
-    public static List<BatteryData> getBatteryDataHolder(){
-        if(batteryDataHolder == null){
-            batteryDataHolder = new CopyOnWriteArrayList<>();
-        }
+    public static SenseDataBuffer<BatteryData> getBatteryDataHolder(){
         return batteryDataHolder;
     }
 
-    public static List<LocationData> getLocationDataHolder(){
-        if(locationDataHolder == null){
-            locationDataHolder = new CopyOnWriteArrayList<>();
-        }
+    public static SenseDataBuffer<LocationData> getLocationDataHolder(){
         return locationDataHolder;
     }
 
-    public static List<WordData> getWordDataHolder(){
-        if(wordDataHolder == null){
-            wordDataHolder = new CopyOnWriteArrayList<>();
-        }
+    public static SenseDataBuffer<WordData> getWordDataHolder(){
         return wordDataHolder;
     }
 
-    public static void resetSensorDataHolder(){
-        sensorDataHolder = null;
-    }
-
-    public static void resetBatteryDataHolder(){
-        batteryDataHolder = null;
-    }
-
-    public static void resetLocationDataHolder(){
-        locationDataHolder = null;
-    }
-
-    public static void resetWordDataHolder() {
-        wordDataHolder = null;
-    }
-
 }
@@ -24,6 +24,7 @@ public class AndroidConfiguration {
 
     public String tenantDomain;
     public String mqttEndpoint;
+    public boolean compressionEnabled;
 
     public String getTenantDomain() {
         return tenantDomain;
@@ -40,4 +41,12 @@ public class AndroidConfiguration {
     public void setMqttEndpoint(String mqttEndpoint) {
         this.mqttEndpoint = mqttEndpoint;
     }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public void setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
 }
@@ -58,6 +58,23 @@ public interface AndroidSenseControllerService {
             type = "operation")
     Response sendThreshold(@PathParam("deviceId") String deviceId, @QueryParam("threshold") String threshold);
 
+    /**
+     * End point to set how often a sensor of the device is sampled and how its readings are aggregated. The policy is
+     * pushed to the device through the threshold command channel.
+     *
+     * @param deviceId         The registered device Id.
+     * @param sensor           The name of the sensor.
+     * @param samplingInterval The minimum time in milliseconds between two readings published by the device.
+     * @param aggregation      The function used to reduce the readings of an interval. (latest, mean, min or max)
+     */
+    @Path("device/{deviceId}/sensors/{sensorName}/sampling")
+    @POST
+    @Feature(code = "sampling", name = "Set Sampling Policy",
+            description = "Set the sampling interval and aggregation of a sensor in the device", type = "operation")
+    Response sendSamplingPolicy(@PathParam("deviceId") String deviceId, @PathParam("sensorName") String sensor,
+                                @QueryParam("interval") long samplingInterval,
+                                @QueryParam("aggregation") String aggregation);
+
     @Path("device/{deviceId}/words")
     @DELETE
     @Feature(code = "remove", name = "Remove Keywords", description = "Remove the keywords",
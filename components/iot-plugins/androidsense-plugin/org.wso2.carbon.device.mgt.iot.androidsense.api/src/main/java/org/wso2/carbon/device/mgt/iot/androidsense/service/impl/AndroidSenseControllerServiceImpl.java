@@ -20,6 +20,7 @@ package org.wso2.carbon.device.mgt.iot.androidsense.service.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.json.simple.JSONObject;
 import org.wso2.carbon.analytics.dataservice.commons.SORT;
 import org.wso2.carbon.analytics.dataservice.commons.SortByField;
 import org.wso2.carbon.analytics.datasource.commons.exception.AnalyticsException;
@@ -45,6 +46,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -54,6 +56,7 @@ public class AndroidSenseControllerServiceImpl implements AndroidSenseController
 
     private static Log log = LogFactory.getLog(AndroidSenseControllerServiceImpl.class);
     private static AndroidSenseMQTTConnector androidSenseMQTTConnector;
+    private static final List<String> SAMPLING_AGGREGATIONS = Arrays.asList("latest", "mean", "min", "max");
 
     @Path("device/{deviceId}/words")
     @POST
@@ -92,6 +95,37 @@ public class AndroidSenseControllerServiceImpl implements AndroidSenseController
         }
     }
 
+    @Path("device/{deviceId}/sensors/{sensorName}/sampling")
+    @POST
+    public Response sendSamplingPolicy(@PathParam("deviceId") String deviceId, @PathParam("sensorName") String sensor,
+                                       @QueryParam("interval") long samplingInterval,
+                                       @QueryParam("aggregation") String aggregation) {
+        if (aggregation == null) {
+            aggregation = SAMPLING_AGGREGATIONS.get(0);
+        }
+        if (samplingInterval < 0 || !SAMPLING_AGGREGATIONS.contains(aggregation.toLowerCase())) {
+            return Response.status(Response.Status.BAD_REQUEST.getStatusCode()).build();
+        }
+        try {
+            if (!APIUtil.getDeviceAccessAuthorizationService().isUserAuthorized(new DeviceIdentifier(deviceId,
+                    AndroidSenseConstants.DEVICE_TYPE))) {
+                return Response.status(Response.Status.UNAUTHORIZED.getStatusCode()).build();
+            }
+            JSONObject samplingPolicy = new JSONObject();
+            samplingPolicy.put("sensor", sensor);
+            samplingPolicy.put("interval", samplingInterval);
+            samplingPolicy.put("aggregation", aggregation.toLowerCase());
+            androidSenseMQTTConnector.publishDeviceData(deviceId, "threshold", samplingPolicy.toJSONString());
+            return Response.ok().build();
+        } catch (TransportHandlerException e) {
+            log.error(e.getErrorMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()).build();
+        } catch (DeviceAccessAuthorizationException e) {
+            log.error(e.getErrorMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()).build();
+        }
+    }
+
     @Path("device/{deviceId}/words")
     @DELETE
     public Response removeKeyWords(@PathParam("deviceId") String deviceId, @QueryParam("words") String words) {
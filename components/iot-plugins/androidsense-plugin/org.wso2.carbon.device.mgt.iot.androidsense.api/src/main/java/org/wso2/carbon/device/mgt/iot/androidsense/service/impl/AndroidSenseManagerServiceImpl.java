@@ -65,6 +65,7 @@ public class AndroidSenseManagerServiceImpl implements AndroidSenseManagerServic
                     mqttEndpoint = mqttEndpoint.replace(Constants.LOCALHOST, IoTUtil.getHostName());
                 }
                 androidConfiguration.setMqttEndpoint(mqttEndpoint);
+                androidConfiguration.setCompressionEnabled(isCompressionSupported());
                 return Response.status(Response.Status.ACCEPTED.getStatusCode()).entity(androidConfiguration.toString())
                         .build();
             }
@@ -88,6 +89,7 @@ public class AndroidSenseManagerServiceImpl implements AndroidSenseManagerServic
                     mqttEndpoint = mqttEndpoint.replace(Constants.LOCALHOST, IoTUtil.getHostName());
                 }
                 androidConfiguration.setMqttEndpoint(mqttEndpoint);
+                androidConfiguration.setCompressionEnabled(isCompressionSupported());
                 return Response.ok(androidConfiguration.toString()).build();
             } else {
                 return Response.status(Response.Status.NOT_ACCEPTABLE.getStatusCode()).entity(false).build();
@@ -179,4 +181,14 @@ public class AndroidSenseManagerServiceImpl implements AndroidSenseManagerServic
         }
     }
 
+    /**
+     * Compressed data batches are inflated by the MQTT connector and handed over to the analytics event receiver, both
+     * of which serve only the device-type provider tenant. Hence, the devices of other tenants publish plain JSON.
+     *
+     * @return true if the devices of the authenticated user's tenant may publish compressed data batches.
+     */
+    private static boolean isCompressionSupported() {
+        return AndroidSenseConstants.DEVICE_TYPE_PROVIDER_DOMAIN.equals(APIUtil.getAuthenticatedUserTenantDomain());
+    }
+
 }
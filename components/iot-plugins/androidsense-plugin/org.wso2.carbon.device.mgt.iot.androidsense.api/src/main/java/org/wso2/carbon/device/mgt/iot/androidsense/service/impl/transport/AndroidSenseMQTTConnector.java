@@ -36,17 +36,32 @@ import org.wso2.carbon.identity.jwt.client.extension.dto.AccessTokenInfo;
 import org.wso2.carbon.identity.jwt.client.extension.exception.JWTClientException;
 import org.wso2.carbon.user.api.UserStoreException;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 @SuppressWarnings("no JAX-WS annotation")
 public class AndroidSenseMQTTConnector extends MQTTTransportHandler {
     private static Log log = LogFactory.getLog(AndroidSenseMQTTConnector.class);
-    private static String subscribeTopic = AndroidSenseConstants.MQTT_SUBSCRIBE_WORDS_TOPIC;
+    private static String subscribeTopic = AndroidSenseConstants.MQTT_SUBSCRIBE_COMPRESSED_DATA_TOPIC;
     private static String iotServerSubscriber = UUID.randomUUID().toString().substring(0, 5);
     private static final String KEY_TYPE = "PRODUCTION";
     private static final String DEFAULT_PASSWORD = "";
 
+    // the cached access-token is renewed this long before its actual expiry, so that a reconnect never presents a
+    // token that lapses whilst the broker is validating it.
+    private static final long TOKEN_RENEWAL_BUFFER_IN_MILLIS = 60 * 1000;
+    private static final String MQTT_CONNECTOR_SCOPE = "device_mqtt_connector";
+    // upper bound on the size of a decompressed payload, guarding against payloads that inflate without limit.
+    private static final int MAX_DECOMPRESSED_PAYLOAD_SIZE = 10 * 1024 * 1024;
+
+    private ApiApplicationKey apiApplicationKey;
+    private AccessTokenInfo accessTokenInfo;
+    private long accessTokenRenewalTime;
+
     private AndroidSenseMQTTConnector() {
         super(iotServerSubscriber, AndroidSenseConstants.DEVICE_TYPE,
               MqttConfig.getInstance().getMqttQueueEndpoint(), subscribeTopic);
@@ -64,20 +79,14 @@ public class AndroidSenseMQTTConnector extends MQTTTransportHandler {
                         String applicationUsername = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUserRealm()
                                 .getRealmConfiguration().getAdminUserName();
                         PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(applicationUsername);
-                        APIManagementProviderService apiManagementProviderService = APIUtil
-                                .getAPIManagementProviderService();
-                        String[] tags = {AndroidSenseConstants.DEVICE_TYPE};
-                        ApiApplicationKey apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
-                                AndroidSenseConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
-                        JWTClient jwtClient = APIUtil.getJWTClientManagerService().getJWTClient();
-                        String scopes = "device_type_" + AndroidSenseConstants.DEVICE_TYPE + " device_mqtt_connector";
-                        AccessTokenInfo accessTokenInfo = jwtClient.getAccessToken(apiApplicationKey.getConsumerKey(),
-                            apiApplicationKey.getConsumerSecret(), applicationUsername, scopes);
-                        //create token
-                        String accessToken = accessTokenInfo.getAccessToken();
+                        String accessToken = getAccessToken(applicationUsername);
                         setUsernameAndPassword(accessToken, DEFAULT_PASSWORD);
                         connectToQueue();
+                        subscribeToQueue();
                     } catch (TransportHandlerException e) {
+                        if (isAuthenticationFailure(e)) {
+                            invalidateAccessToken();
+                        }
                         log.warn("Connection/Subscription to MQTT Broker at: " + mqttBrokerEndPoint + " failed");
                         try {
                             Thread.sleep(timeoutInterval);
@@ -103,6 +112,62 @@ public class AndroidSenseMQTTConnector extends MQTTTransportHandler {
         connectorThread.start();
     }
 
+    /**
+     * Returns the access-token to be used as the username of the MQTT connection. The OAuth client credentials of the
+     * connector's API application are retrieved only once and the access-token minted with them is reused until it is
+     * about to expire. Hence, reconnect attempts to a flapping broker do not hit the key manager.
+     *
+     * @param applicationUsername the admin user of the device-type provider tenant.
+     * @return a valid access-token with the scopes required by the MQTT connector.
+     * @throws APIManagerException if registering the API application and generating its keys fails.
+     * @throws JWTClientException  if minting the access-token fails.
+     */
+    private synchronized String getAccessToken(String applicationUsername)
+            throws APIManagerException, JWTClientException {
+        if (apiApplicationKey == null) {
+            APIManagementProviderService apiManagementProviderService = APIUtil.getAPIManagementProviderService();
+            String[] tags = {AndroidSenseConstants.DEVICE_TYPE};
+            apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
+                    AndroidSenseConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
+        }
+        if (accessTokenInfo == null || System.currentTimeMillis() >= accessTokenRenewalTime) {
+            JWTClient jwtClient = APIUtil.getJWTClientManagerService().getJWTClient();
+            String scopes = "device_type_" + AndroidSenseConstants.DEVICE_TYPE + " " + MQTT_CONNECTOR_SCOPE;
+            accessTokenInfo = jwtClient.getAccessToken(apiApplicationKey.getConsumerKey(),
+                    apiApplicationKey.getConsumerSecret(), applicationUsername, scopes);
+            accessTokenRenewalTime = System.currentTimeMillis() + (accessTokenInfo.getExpiresIn() * 1000)
+                    - TOKEN_RENEWAL_BUFFER_IN_MILLIS;
+            if (log.isDebugEnabled()) {
+                log.debug("Renewed the access-token of the MQTT connector for device-type - " +
+                        AndroidSenseConstants.DEVICE_TYPE);
+            }
+        }
+        return accessTokenInfo.getAccessToken();
+    }
+
+    /**
+     * Discards the cached access-token so that a fresh one is minted on the next connect attempt. The client
+     * credentials are kept, since a rejected token does not invalidate the API application.
+     */
+    private synchronized void invalidateAccessToken() {
+        accessTokenInfo = null;
+    }
+
+    /**
+     * Checks whether a failed connect attempt was due to the broker rejecting the credentials of the connector.
+     *
+     * @param e the exception thrown whilst connecting to the broker.
+     * @return `true` if the broker refused the connection for authentication or authorization reasons.
+     */
+    private static boolean isAuthenticationFailure(TransportHandlerException e) {
+        if (e.getCause() instanceof MqttException) {
+            int reasonCode = ((MqttException) e.getCause()).getReasonCode();
+            return reasonCode == MqttException.REASON_CODE_FAILED_AUTHENTICATION ||
+                    reasonCode == MqttException.REASON_CODE_NOT_AUTHORIZED;
+        }
+        return false;
+    }
+
     /**
      * @throws TransportHandlerException in the event of any exceptions that occur whilst processing the message.
      */
@@ -149,9 +214,67 @@ public class AndroidSenseMQTTConnector extends MQTTTransportHandler {
         publishToQueue(publishTopic, pushMessage);
     }
 
+    /**
+     * Decompresses the gzip compressed sensor data published by the devices to the compressed-data sub-topic, and
+     * re-publishes it as plain JSON to the data topic of the device. Hence, the analytics event receiver, which
+     * consumes the data topic, remains the only path into the Android Sense event stream, whether a device compresses
+     * its data or not, and its stream mapping and content validation apply to both. Since the event receiver only
+     * serves the device-type provider tenant, batches published under any other tenant are dropped.
+     *
+     * @param mqttMessage the compressed data message received from the device.
+     * @param topic       the topic to which the message was published.
+     * @throws TransportHandlerException if the message cannot be decompressed or re-published.
+     */
     @Override
-    public void processIncomingMessage(MqttMessage mqttMessage, String... strings) throws TransportHandlerException {
+    public void processIncomingMessage(MqttMessage mqttMessage, String... topic) throws TransportHandlerException {
+        if (topic.length == 0 || !topic[0].endsWith(AndroidSenseConstants.COMPRESSED_DATA_TOPIC_SUFFIX)) {
+            return;
+        }
+        // <Topic> = [ServerName/TenantDomain/DeviceType/DeviceId/"data"/"gzip"]
+        String[] topicParams = topic[0].split("/");
+        if (topicParams.length != 6) {
+            log.warn("MQTT message received on the unexpected topic [" + topic[0] + "] was dropped.");
+            return;
+        }
+        if (!AndroidSenseConstants.DEVICE_TYPE_PROVIDER_DOMAIN.equals(topicParams[1])) {
+            log.warn("Compressed data of device [" + topicParams[3] + "] of tenant [" + topicParams[1] + "] was " +
+                             "dropped, since the event receiver only serves the tenant [" +
+                             AndroidSenseConstants.DEVICE_TYPE_PROVIDER_DOMAIN + "]");
+            return;
+        }
+        String dataTopic = topic[0].substring(
+                0, topic[0].length() - AndroidSenseConstants.COMPRESSED_DATA_TOPIC_SUFFIX.length());
+        byte[] payload = mqttMessage.getPayload();
+        if (isCompressed(payload)) {
+            payload = decompress(payload);
+        }
+        MqttMessage dataMessage = new MqttMessage(payload);
+        dataMessage.setQos(DEFAULT_MQTT_QUALITY_OF_SERVICE);
+        dataMessage.setRetained(false);
+        publishToQueue(dataTopic, dataMessage);
+    }
+
+    private static boolean isCompressed(byte[] payload) {
+        return payload.length > 2 && (payload[0] & 0xff) == (GZIPInputStream.GZIP_MAGIC & 0xff)
+                && (payload[1] & 0xff) == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
 
+    private static byte[] decompress(byte[] payload) throws TransportHandlerException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(payload.length * 4);
+        byte[] buffer = new byte[8192];
+        try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            int length;
+            while ((length = gzipInputStream.read(buffer)) != -1) {
+                if (outputStream.size() + length > MAX_DECOMPRESSED_PAYLOAD_SIZE) {
+                    throw new TransportHandlerException("Decompressed MQTT message payload exceeds the maximum " +
+                                                                "size of " + MAX_DECOMPRESSED_PAYLOAD_SIZE + " bytes");
+                }
+                outputStream.write(buffer, 0, length);
+            }
+        } catch (IOException e) {
+            throw new TransportHandlerException("Failed to decompress the MQTT message payload", e);
+        }
+        return outputStream.toByteArray();
     }
 
     /**
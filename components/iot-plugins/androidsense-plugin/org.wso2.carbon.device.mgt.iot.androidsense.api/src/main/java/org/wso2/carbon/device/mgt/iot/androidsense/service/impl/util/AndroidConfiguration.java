@@ -27,6 +27,7 @@ import org.wso2.carbon.apimgt.application.extension.constants.ApiApplicationCons
 public class AndroidConfiguration {
 	public String tenantDomain;
 	public String mqttEndpoint;
+	public boolean compressionEnabled;
 
 	public String getTenantDomain() {
 		return tenantDomain;
@@ -44,10 +45,22 @@ public class AndroidConfiguration {
 		this.mqttEndpoint = mqttEndpoint;
 	}
 
+	/**
+	 * @return true if the agent may gzip its large data batches and publish them to the compressed-data sub-topic.
+	 */
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
 	public String toString() {
 		JSONObject obj = new JSONObject();
 		obj.put("tenantDomain", tenantDomain);
 		obj.put("mqttEndpoint", mqttEndpoint);
+		obj.put("compressionEnabled", compressionEnabled);
 		return obj.toString();
 	}
 }
@@ -48,6 +48,9 @@ public class AndroidSenseConstants {
     public static final String SENSOR_WORDCOUNT = "wordcounter";
     //MQTT Subscribe topic
     public static final String MQTT_SUBSCRIBE_WORDS_TOPIC = "wso2/+/android_sense/+/data";
+    public static final String COMPRESSED_DATA_TOPIC_SUFFIX = "/gzip";
+    public static final String MQTT_SUBSCRIBE_COMPRESSED_DATA_TOPIC =
+            MQTT_SUBSCRIBE_WORDS_TOPIC + COMPRESSED_DATA_TOPIC_SUFFIX;
     public static final String DATA_SOURCE_NAME = "jdbc/AndroidSenseDM_DB";
     public final static String DEVICE_TYPE_PROVIDER_DOMAIN = "carbon.super";
 }
@@ -18,7 +18,6 @@
 
 package org.wso2.carbon.device.mgt.iot.arduino.service.impl;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.application.extension.APIManagementProviderService;
@@ -49,19 +48,24 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Path("enrollment")
 public class ArduinoManagerServiceImpl implements ArduinoManagerService {
 
     private static final String KEY_TYPE = "PRODUCTION";
-    private static ApiApplicationKey apiApplicationKey;
+    // API application keys of the device-type against the tenant domain to which the application belongs.
+    private static final ConcurrentMap<String, ApiApplicationKey> apiApplicationKeys = new ConcurrentHashMap<>();
     private static Log log = LogFactory.getLog(ArduinoManagerServiceImpl.class);
 
     @Override
@@ -153,14 +157,18 @@ public class ArduinoManagerServiceImpl implements ArduinoManagerService {
     @Produces("application/zip")
     public Response downloadSketch(@QueryParam("deviceName") String deviceName) {
         try {
-            ZipArchive zipFile = createDownloadFile(APIUtil.getAuthenticatedUser(), deviceName);
-            Response.ResponseBuilder response = Response.ok(FileUtils.readFileToByteArray(zipFile.getZipFile()));
+            final ZipArchive zipFile = createDownloadFile(APIUtil.getAuthenticatedUser(), deviceName);
+            StreamingOutput sketchArchive = new StreamingOutput() {
+                @Override
+                public void write(OutputStream outputStream) throws IOException {
+                    zipFile.writeTo(outputStream);
+                }
+            };
+            Response.ResponseBuilder response = Response.ok(sketchArchive);
             response.status(Response.Status.OK);
             response.type("application/zip");
             response.header("Content-Disposition", "attachment; filename=\"" + zipFile.getFileName() + "\"");
-            Response resp = response.build();
-            zipFile.getZipFile().delete();
-            return resp;
+            return response.build();
         } catch (IllegalArgumentException ex) {
             return Response.status(400).entity(ex.getMessage()).build();//bad request
         } catch (DeviceManagementException ex) {
@@ -175,9 +183,6 @@ public class ArduinoManagerServiceImpl implements ArduinoManagerService {
         } catch (DeviceControllerException ex) {
             log.error(ex.getMessage(), ex);
             return Response.status(500).entity(ex.getMessage()).build();
-        } catch (IOException ex) {
-            log.error(ex.getMessage(), ex);
-            return Response.status(500).entity(ex.getMessage()).build();
         } catch (UserStoreException ex) {
             log.error(ex.getMessage(), ex);
             return Response.status(500).entity(ex.getMessage()).build();
@@ -192,15 +197,7 @@ public class ArduinoManagerServiceImpl implements ArduinoManagerService {
         }
         //create new device id
         String deviceId = shortUUID();
-        String applicationUsername =
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().getUserRealm().getRealmConfiguration()
-                        .getAdminUserName();
-        if (apiApplicationKey == null) {
-            APIManagementProviderService apiManagementProviderService = APIUtil.getAPIManagementProviderService();
-            String[] tags = {ArduinoConstants.DEVICE_TYPE};
-            apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
-                    ArduinoConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
-        }
+        ApiApplicationKey apiApplicationKey = getApiApplicationKey();
         JWTClient jwtClient = APIUtil.getJWTClientManagerService().getJWTClient();
         String scopes = "device_type_" + ArduinoConstants.DEVICE_TYPE + " device_" + deviceId;
         AccessTokenInfo accessTokenInfo = jwtClient.getAccessToken(apiApplicationKey.getConsumerKey(),
@@ -221,6 +218,31 @@ public class ArduinoManagerServiceImpl implements ArduinoManagerService {
         return zipFile;
     }
 
+    /**
+     * Returns the keys of the API application through which the tokens of the devices of this device-type are
+     * issued. The application is registered for the tenant admin, hence it is the same for every download within a
+     * tenant. Its keys are looked up once per tenant and reused, so that a download only needs to mint the device
+     * scoped access and refresh tokens.
+     *
+     * @return the consumer key and secret of the API application of the current tenant.
+     * @throws APIManagerException if registering the API application and generating its keys fails.
+     * @throws UserStoreException  if the admin user of the tenant could not be retrieved.
+     */
+    private static ApiApplicationKey getApiApplicationKey() throws APIManagerException, UserStoreException {
+        String tenantDomain = APIUtil.getTenantDomainOftheUser();
+        ApiApplicationKey apiApplicationKey = apiApplicationKeys.get(tenantDomain);
+        if (apiApplicationKey == null) {
+            String applicationUsername = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUserRealm()
+                    .getRealmConfiguration().getAdminUserName();
+            APIManagementProviderService apiManagementProviderService = APIUtil.getAPIManagementProviderService();
+            String[] tags = {ArduinoConstants.DEVICE_TYPE};
+            apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
+                    ArduinoConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
+            apiApplicationKeys.putIfAbsent(tenantDomain, apiApplicationKey);
+        }
+        return apiApplicationKey;
+    }
+
     private static String shortUUID() {
         UUID uuid = UUID.randomUUID();
         long l = ByteBuffer.wrap(uuid.toString().getBytes(StandardCharsets.UTF_8)).getLong();
@@ -41,6 +41,19 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class XmppServerClient {
 
@@ -54,102 +67,94 @@ public class XmppServerClient {
     private static final String APPLICATION_JSON_MT = "application/json";
     private static final String DEVICEMGT_CONFIG_FILE = "devicemgt-config.xml";
     private static final String APPLICATION_JSON = "application/json";
+    // maximum number of REST calls made to the XMPP server in parallel whilst executing bulk operations.
+    private static final int MAX_CONCURRENT_XMPP_REQUESTS = 10;
+    // maximum number of REST calls to the XMPP server queued for execution; any more are run by the calling thread.
+    private static final int MAX_QUEUED_XMPP_REQUESTS = 1000;
+    // seconds for which an idle thread of the bulk operation executor is kept alive.
+    private static final long XMPP_REQUEST_THREAD_KEEP_ALIVE = 60;
+    private static final ExecutorService xmppRequestExecutor = createXmppRequestExecutor();
+    private static volatile HttpClient httpClient;
     private String xmppEndpoint;
     private String xmppUsername;
     private String xmppPassword;
+    private String authorizationHeader;
     private boolean xmppEnabled = false;
 
     public XmppServerClient() {
     }
 
     public void initControlQueue() {
-        xmppEndpoint = XmppConfig.getInstance().getXmppEndpoint();
-        xmppUsername = XmppConfig.getInstance().getXmppUsername();
-        xmppPassword = XmppConfig.getInstance().getXmppPassword();
-        xmppEnabled = XmppConfig.getInstance().isEnabled();
+        XmppConfig xmppConfig = XmppConfig.getInstance();
+        initControlQueue(xmppConfig.getXmppEndpoint(), xmppConfig.getXmppUsername(), xmppConfig.getXmppPassword(),
+                         xmppConfig.isEnabled());
+    }
+
+    void initControlQueue(String xmppEndpoint, String xmppUsername, String xmppPassword, boolean xmppEnabled) {
+        this.xmppEndpoint = xmppEndpoint;
+        this.xmppUsername = xmppUsername;
+        this.xmppPassword = xmppPassword;
+        this.xmppEnabled = xmppEnabled;
+
+        String encodedString = xmppUsername + ":" + xmppPassword;
+        encodedString = new String(Base64.encodeBase64(encodedString.getBytes(StandardCharsets.UTF_8)));
+        authorizationHeader = "Basic " + encodedString;
     }
 
     public boolean createXMPPAccount(XmppAccount newUserAccount) throws DeviceControllerException {
         if (xmppEnabled) {
-            String xmppUsersAPIEndpoint = xmppEndpoint + XMPP_SERVER_API_CONTEXT + XMPP_USERS_API;
-            if (log.isDebugEnabled()) {
-                log.debug("The Create-UserAccount Endpoint URL of the XMPP Server is set to: " + xmppUsersAPIEndpoint);
-            }
-
-            String encodedString = xmppUsername + ":" + xmppPassword;
-            encodedString = new String(Base64.encodeBase64(encodedString.getBytes(StandardCharsets.UTF_8)));
-            String authorizationHeader = "Basic " + encodedString;
-            String jsonRequest = "{\n" +
-                                 "    \"username\": \"" + newUserAccount.getUsername() + "\"," +
-                                 "    \"password\": \"" + newUserAccount.getPassword() + "\"," +
-                                 "    \"name\": \"" + newUserAccount.getAccountName() + "\"," +
-                                 "    \"email\": \"" + newUserAccount.getEmail() + "\"," +
-                                 "    \"properties\": {" +
-                                 "        \"property\": [" +
-                                 "            {" +
-                                 "                \"@key\": \"console.rows_per_page\"," +
-                                 "                \"@value\": \"user-summary=8\"" +
-                                 "            }," +
-                                 "            {" +
-                                 "                \"@key\": \"console.order\"," +
-                                 "                \"@value\": \"session-summary=1\"" +
-                                 "            }" +
-                                 "        ]" +
-                                 "    }" +
-                                 "}";
-
-            StringEntity requestEntity;
-            try {
-                requestEntity = new StringEntity(jsonRequest, APPLICATION_JSON,
-                                                 StandardCharsets.UTF_8.toString());
-            } catch (UnsupportedEncodingException e) {
-                return false;
-            }
+            return postXMPPAccount(getHttpClient(), newUserAccount);
+        } else {
+            log.warn(String.format("XMPP <Enabled> set to false in [%s]", DEVICEMGT_CONFIG_FILE));
+            return false;
+        }
+    }
 
-            URL xmppUserApiUrl;
-            try {
-                xmppUserApiUrl = new URL(xmppUsersAPIEndpoint);
-            } catch (MalformedURLException e) {
-                String errMsg = "Malformed XMPP URL + " + xmppUsersAPIEndpoint;
-                log.error(errMsg);
-                throw new DeviceControllerException(errMsg);
-            }
-            HttpClient httpClient;
-            try {
-                httpClient = IoTUtil.getHttpClient(xmppUserApiUrl.getPort(), xmppUserApiUrl.getProtocol());
-            } catch (Exception e) {
-                log.error("Error on getting a http client for port :" + xmppUserApiUrl.getPort() + " protocol :"
-                          + xmppUserApiUrl.getProtocol());
-                return false;
+    /**
+     * Creates a number of XMPP accounts, making at most MAX_CONCURRENT_XMPP_REQUESTS calls to the XMPP server in
+     * parallel over the shared http client. The failure to create an account does not stop the creation of the others.
+     *
+     * @param newUserAccounts the accounts to be created.
+     * @return whether each account was created, against its username, in the order of the given accounts.
+     * @throws DeviceControllerException if the http client could not be created or interrupted whilst waiting for the
+     *                                   accounts to be created.
+     */
+    public Map<String, Boolean> createXMPPAccounts(List<XmppAccount> newUserAccounts)
+            throws DeviceControllerException {
+        Map<String, Boolean> accountStatus = new LinkedHashMap<>();
+        if (!xmppEnabled) {
+            log.warn(String.format("XMPP <Enabled> set to false in [%s]", DEVICEMGT_CONFIG_FILE));
+            for (XmppAccount newUserAccount : newUserAccounts) {
+                accountStatus.put(newUserAccount.getUsername(), false);
             }
+            return accountStatus;
+        }
 
-            HttpPost httpPost = new HttpPost(xmppUsersAPIEndpoint);
-            httpPost.addHeader(HttpHeaders.AUTHORIZATION, authorizationHeader);
-            httpPost.setEntity(requestEntity);
+        final HttpClient httpClient = getHttpClient();
+        List<Callable<Boolean>> accountCreators = new ArrayList<>();
+        for (final XmppAccount newUserAccount : newUserAccounts) {
+            accountCreators.add(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws DeviceControllerException {
+                    return postXMPPAccount(httpClient, newUserAccount);
+                }
+            });
+        }
 
+        List<Future<Boolean>> results = invokeConcurrently(accountCreators);
+        for (int i = 0; i < newUserAccounts.size(); i++) {
+            String username = newUserAccounts.get(i).getUsername();
             try {
-                HttpResponse httpResponse = httpClient.execute(httpPost);
-
-                if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_CREATED) {
-                    String response = IoTUtil.getResponseString(httpResponse);
-                    String errorMsg = "XMPP Server returned status: '" + httpResponse.getStatusLine().getStatusCode() +
-                                      "' for account creation with error:\n" + response;
-                    log.error(errorMsg);
-                    throw new DeviceControllerException(errorMsg);
-                } else {
-                    EntityUtils.consume(httpResponse.getEntity());
-                    return true;
-                }
-            } catch (IOException e) {
-                String errorMsg = "Error occured whilst trying a 'POST' at : " + xmppUsersAPIEndpoint;
-                log.error(errorMsg);
-                throw new DeviceControllerException(errorMsg, e);
+                accountStatus.put(username, results.get(i).get());
+            } catch (ExecutionException e) {
+                log.error("Failed to create the XMPP account for the username - [" + username + "].", e.getCause());
+                accountStatus.put(username, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeviceControllerException("Interrupted whilst creating XMPP accounts.", e);
             }
-
-        } else {
-            log.warn(String.format("XMPP <Enabled> set to false in [%s]", DEVICEMGT_CONFIG_FILE));
-            return false;
         }
+        return accountStatus;
     }
 
     public boolean doesXMPPUserAccountExist(String username) throws DeviceControllerException {
@@ -160,29 +165,7 @@ public class XmppServerClient {
                           xmppCheckUserAPIEndpoint);
             }
 
-            String encodedString = xmppUsername + ":" + xmppPassword;
-            encodedString = new String(Base64.encodeBase64(encodedString.getBytes(StandardCharsets.UTF_8)));
-            String authorizationHeader = "Basic " + encodedString;
-
-            URL xmppUserApiUrl;
-            try {
-                xmppUserApiUrl = new URL(xmppCheckUserAPIEndpoint);
-            } catch (MalformedURLException e) {
-                String errMsg = "Malformed XMPP URL + " + xmppCheckUserAPIEndpoint;
-                log.error(errMsg);
-                throw new DeviceControllerException(errMsg, e);
-            }
-
-            HttpClient httpClient;
-            try {
-                httpClient = IoTUtil.getHttpClient(xmppUserApiUrl.getPort(), xmppUserApiUrl.getProtocol());
-            } catch (Exception e) {
-                String errorMsg = "Error on getting a http client for port :" + xmppUserApiUrl.getPort() +
-                                  " protocol :" + xmppUserApiUrl.getProtocol();
-                log.error(errorMsg);
-                throw new DeviceControllerException(errorMsg, e);
-            }
-
+            HttpClient httpClient = getHttpClient();
             HttpGet httpGet = new HttpGet(xmppCheckUserAPIEndpoint);
             httpGet.addHeader(HttpHeaders.AUTHORIZATION, authorizationHeader);
 
@@ -198,6 +181,7 @@ public class XmppServerClient {
                     }
                     return false;
                 }
+                EntityUtils.consume(httpResponse.getEntity());
 
             } catch (IOException e) {
                 String errorMsg = "Error occured whilst trying a 'GET' at : " + xmppCheckUserAPIEndpoint;
@@ -225,29 +209,7 @@ public class XmppServerClient {
                 log.debug("The Get-Sessions Endpoint URL of the XMPP Server is set to: " + xmppSessionsAPIEndpoint);
             }
 
-            String encodedString = xmppUsername + ":" + xmppPassword;
-            encodedString = new String(Base64.encodeBase64(encodedString.getBytes(StandardCharsets.UTF_8)));
-            String authorizationHeader = "Basic " + encodedString;
-
-            URL xmppUserApiUrl;
-            try {
-                xmppUserApiUrl = new URL(xmppSessionsAPIEndpoint);
-            } catch (MalformedURLException e) {
-                String errMsg = "Malformed XMPP URL + " + xmppSessionsAPIEndpoint;
-                log.error(errMsg);
-                throw new DeviceControllerException(errMsg, e);
-            }
-
-            HttpClient httpClient;
-            try {
-                httpClient = IoTUtil.getHttpClient(xmppUserApiUrl.getPort(), xmppUserApiUrl.getProtocol());
-            } catch (Exception e) {
-                String errorMsg = "Error on getting a http client for port :" + xmppUserApiUrl.getPort() +
-                                  " protocol :" + xmppUserApiUrl.getProtocol();
-                log.error(errorMsg);
-                throw new DeviceControllerException(errorMsg, e);
-            }
-
+            HttpClient httpClient = getHttpClient();
             HttpGet httpGet = new HttpGet(xmppSessionsAPIEndpoint);
             httpGet.addHeader(HttpHeaders.AUTHORIZATION, authorizationHeader);
             httpGet.addHeader(HttpHeaders.ACCEPT, APPLICATION_JSON);
@@ -256,6 +218,7 @@ public class XmppServerClient {
                 HttpResponse httpResponse = httpClient.execute(httpGet);
 
                 if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                    EntityUtils.consumeQuietly(httpResponse.getEntity());
                     String errorMsg = "XMPP Server returned status: '" + httpResponse.getStatusLine().getStatusCode() +
                                       "' for checking current XMPP Sessions.";
                     log.error(errorMsg);
@@ -293,60 +256,205 @@ public class XmppServerClient {
         }
 
         if (xmppSessionsArray.length() != 0) {
-            String xmppSessionsAPIEndpoint = xmppEndpoint + XMPP_SERVER_API_CONTEXT + XMPP_SESSIONS_API;
-            String encodedString = xmppUsername + ":" + xmppPassword;
-            encodedString = new String(Base64.encodeBase64(encodedString.getBytes(StandardCharsets.UTF_8)));
-            String authorizationHeader = "Basic " + encodedString;
+            final String xmppSessionsAPIEndpoint = xmppEndpoint + XMPP_SERVER_API_CONTEXT + XMPP_SESSIONS_API;
 
             if (log.isDebugEnabled()) {
                 log.debug("The Get-Sessions Endpoint URL of the XMPP Server is set to: " + xmppSessionsAPIEndpoint);
             }
 
-            URL xmppUserApiUrl;
-            try {
-                xmppUserApiUrl = new URL(xmppSessionsAPIEndpoint);
-            } catch (MalformedURLException e) {
-                String errMsg = "Malformed XMPP URL + " + xmppSessionsAPIEndpoint;
-                log.error(errMsg);
-                throw new DeviceControllerException(errMsg, e);
+            final HttpClient httpClient = getHttpClient();
+            List<Callable<Void>> sessionTerminators = new ArrayList<>();
+            for (int i = 0; i < xmppSessionsArray.length(); i++) {
+                final String sessionName = xmppSessionsArray.getJSONObject(i).getString("username");
+                sessionTerminators.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws DeviceControllerException {
+                        deleteXmppSession(httpClient, xmppSessionsAPIEndpoint + "/" + sessionName, sessionName);
+                        return null;
+                    }
+                });
             }
 
-            HttpClient httpClient;
-            try {
-                httpClient = IoTUtil.getHttpClient(xmppUserApiUrl.getPort(), xmppUserApiUrl.getProtocol());
-            } catch (Exception e) {
-                String errorMsg = "Error on getting a http client for port :" + xmppUserApiUrl.getPort() +
-                                  " protocol :" + xmppUserApiUrl.getProtocol();
+            int failedDeletions = 0;
+            for (Future<Void> result : invokeConcurrently(sessionTerminators)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    failedDeletions++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DeviceControllerException("Interrupted whilst deleting current XMPP Sessions.", e);
+                }
+            }
+
+            if (failedDeletions != 0) {
+                String errorMsg = "Failed to delete " + failedDeletions + " out of " + sessionTerminators.size() +
+                                  " current XMPP Sessions at : " + xmppSessionsAPIEndpoint;
                 log.error(errorMsg);
-                throw new DeviceControllerException(errorMsg, e);
+                throw new DeviceControllerException(errorMsg);
             }
+        }
+    }
 
-            for (int i = 0; i < xmppSessionsArray.length(); i++) {
+    private boolean postXMPPAccount(HttpClient httpClient, XmppAccount newUserAccount)
+            throws DeviceControllerException {
+        String xmppUsersAPIEndpoint = xmppEndpoint + XMPP_SERVER_API_CONTEXT + XMPP_USERS_API;
+        if (log.isDebugEnabled()) {
+            log.debug("The Create-UserAccount Endpoint URL of the XMPP Server is set to: " + xmppUsersAPIEndpoint);
+        }
 
-                String sessionName = xmppSessionsArray.getJSONObject(i).getString("username");
-                String xmppUserSessionsAPIEndpoint = xmppSessionsAPIEndpoint + "/" + sessionName;
+        StringEntity requestEntity;
+        try {
+            requestEntity = new StringEntity(getAccountPayload(newUserAccount).toString(), APPLICATION_JSON,
+                                             StandardCharsets.UTF_8.toString());
+        } catch (UnsupportedEncodingException e) {
+            return false;
+        }
 
-                HttpDelete httpDelete = new HttpDelete(xmppUserSessionsAPIEndpoint);
-                httpDelete.addHeader(HttpHeaders.AUTHORIZATION, authorizationHeader);
+        HttpPost httpPost = new HttpPost(xmppUsersAPIEndpoint);
+        httpPost.addHeader(HttpHeaders.AUTHORIZATION, authorizationHeader);
+        httpPost.setEntity(requestEntity);
 
-                try {
-                    HttpResponse httpResponse = httpClient.execute(httpDelete);
+        try {
+            HttpResponse httpResponse = httpClient.execute(httpPost);
 
-                    if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-                        String errorMsg =
-                                "XMPP Server returned status: '" + httpResponse.getStatusLine().getStatusCode() +
-                                "' for checking current XMPP Sessions.";
-                        log.error(errorMsg);
-                        throw new DeviceControllerException(errorMsg);
+            if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_CREATED) {
+                String response = IoTUtil.getResponseString(httpResponse);
+                String errorMsg = "XMPP Server returned status: '" + httpResponse.getStatusLine().getStatusCode() +
+                                  "' for account creation with error:\n" + response;
+                log.error(errorMsg);
+                throw new DeviceControllerException(errorMsg);
+            } else {
+                EntityUtils.consume(httpResponse.getEntity());
+                return true;
+            }
+        } catch (IOException e) {
+            String errorMsg = "Error occured whilst trying a 'POST' at : " + xmppUsersAPIEndpoint;
+            log.error(errorMsg);
+            throw new DeviceControllerException(errorMsg, e);
+        }
+    }
+
+    private void deleteXmppSession(HttpClient httpClient, String xmppUserSessionsAPIEndpoint, String sessionName)
+            throws DeviceControllerException {
+        HttpDelete httpDelete = new HttpDelete(xmppUserSessionsAPIEndpoint);
+        httpDelete.addHeader(HttpHeaders.AUTHORIZATION, authorizationHeader);
+
+        try {
+            HttpResponse httpResponse = httpClient.execute(httpDelete);
+            EntityUtils.consume(httpResponse.getEntity());
+
+            if (httpResponse.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                String errorMsg = "XMPP Server returned status: '" + httpResponse.getStatusLine().getStatusCode() +
+                                  "' for deleting the XMPP Session of [" + sessionName + "].";
+                log.error(errorMsg);
+                throw new DeviceControllerException(errorMsg);
+            }
+
+        } catch (IOException e) {
+            String errorMsg = "Error occured whilst trying a 'DELETE' user-session [" + sessionName + "] " +
+                              "at : " + xmppUserSessionsAPIEndpoint;
+            log.error(errorMsg);
+            throw new DeviceControllerException(errorMsg, e);
+        }
+    }
+
+    /**
+     * Builds the JSON payload expected by the Users-API of the XMPP server for creating the given account.
+     *
+     * @param newUserAccount the account to be created.
+     * @return the JSON representation of the account.
+     */
+    private static JSONObject getAccountPayload(XmppAccount newUserAccount) {
+        JSONArray properties = new JSONArray();
+        properties.put(new JSONObject().put("@key", "console.rows_per_page").put("@value", "user-summary=8"));
+        properties.put(new JSONObject().put("@key", "console.order").put("@value", "session-summary=1"));
+
+        JSONObject accountPayload = new JSONObject();
+        accountPayload.put("username", newUserAccount.getUsername());
+        accountPayload.put("password", newUserAccount.getPassword());
+        accountPayload.put("name", newUserAccount.getAccountName());
+        accountPayload.put("email", newUserAccount.getEmail());
+        accountPayload.put("properties", new JSONObject().put("property", properties));
+        return accountPayload;
+    }
+
+    /**
+     * Executes the given REST calls to the XMPP server in parallel and waits until all of them complete.
+     *
+     * @param tasks the REST calls to be executed.
+     * @return the futures holding the results of the calls, in the same order as the given tasks.
+     * @throws DeviceControllerException if interrupted whilst waiting for the calls to complete.
+     */
+    private static <T> List<Future<T>> invokeConcurrently(List<Callable<T>> tasks)
+            throws DeviceControllerException {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return xmppRequestExecutor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DeviceControllerException("Interrupted whilst executing bulk XMPP Server operations.", e);
+        }
+    }
+
+    /**
+     * Creates the executor shared by all the instances of this class for the bulk operations. It runs at most as
+     * many calls in parallel as there are connections in the pool of the shared http client, and its threads are
+     * daemons which terminate once idle, hence it does not need to be shut down.
+     *
+     * @return the executor for the REST calls to the XMPP server.
+     */
+    private static ExecutorService createXmppRequestExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                MAX_CONCURRENT_XMPP_REQUESTS, MAX_CONCURRENT_XMPP_REQUESTS, XMPP_REQUEST_THREAD_KEEP_ALIVE,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(MAX_QUEUED_XMPP_REQUESTS), new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "XmppServerClient-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
                     }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
-                } catch (IOException e) {
-                    String errorMsg = "Error occured whilst trying a 'DELETE' user-session [" + sessionName + "] " +
-                                      "at : " + xmppUserSessionsAPIEndpoint;
-                    log.error(errorMsg);
-                    throw new DeviceControllerException(errorMsg, e);
+    /**
+     * Returns the http client shared by all the instances of this class for calls to the XMPP server. The client
+     * pools its connections, hence they are reused across requests instead of a new connection being set up for
+     * each of them.
+     *
+     * @return the shared http client.
+     * @throws DeviceControllerException if the XMPP endpoint is malformed or the client could not be created.
+     */
+    private HttpClient getHttpClient() throws DeviceControllerException {
+        URL xmppServerUrl;
+        try {
+            xmppServerUrl = new URL(xmppEndpoint);
+        } catch (MalformedURLException e) {
+            String errMsg = "Malformed XMPP URL + " + xmppEndpoint;
+            log.error(errMsg);
+            throw new DeviceControllerException(errMsg, e);
+        }
+
+        if (httpClient == null) {
+            synchronized (XmppServerClient.class) {
+                if (httpClient == null) {
+                    try {
+                        httpClient = IoTUtil.getPooledHttpClient(xmppServerUrl.getProtocol(),
+                                                                 MAX_CONCURRENT_XMPP_REQUESTS);
+                    } catch (Exception e) {
+                        String errorMsg = "Error on getting a http client for protocol :" + xmppServerUrl.getProtocol();
+                        log.error(errorMsg);
+                        throw new DeviceControllerException(errorMsg, e);
+                    }
                 }
             }
         }
+        return httpClient;
     }
 }
@@ -25,6 +25,7 @@ import org.apache.http.client.HttpClient;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLContextBuilder;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.util.EntityUtils;
 import org.wso2.carbon.base.ServerConfiguration;
@@ -64,6 +65,26 @@ public class IoTUtil {
         return httpclient;
     }
 
+    /**
+     * Return a http client instance backed by a connection pool, so that the same instance can be shared by
+     * concurrent callers and reuse its (TLS) connections across requests.
+     * @param protocol- service endpoint protocol http/https
+     * @param maxConnections- maximum number of connections the pool would keep open to the endpoint
+     * @return
+     */
+    public static HttpClient getPooledHttpClient(String protocol, int maxConnections)
+            throws IOException, KeyStoreException, NoSuchAlgorithmException, KeyManagementException {
+        HttpClientBuilder httpClientBuilder = HttpClients.custom().setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections);
+        if (HTTPS_PROTOCOL.equals(protocol)) {
+            SSLContextBuilder builder = new SSLContextBuilder();
+            builder.loadTrustMaterial(null, new TrustSelfSignedStrategy());
+            SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(builder.build());
+            httpClientBuilder.setSSLSocketFactory(sslsf);
+        }
+        return httpClientBuilder.build();
+    }
+
     public static String getResponseString(HttpResponse httpResponse) throws IOException {
         BufferedReader br = null;
         try {
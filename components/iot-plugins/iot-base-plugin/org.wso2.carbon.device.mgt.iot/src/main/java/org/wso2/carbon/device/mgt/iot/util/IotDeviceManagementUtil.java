@@ -19,7 +19,6 @@
 package  org.wso2.carbon.device.mgt.iot.util;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.w3c.dom.Document;
@@ -32,8 +31,8 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Provides utility methods required by the iot device management bundle.
@@ -41,6 +40,7 @@ import java.util.zip.ZipOutputStream;
 public class IotDeviceManagementUtil {
 
 	private static final Log log = LogFactory.getLog(IotDeviceManagementUtil.class.getName());
+	private static final ConcurrentMap<String, CachedSketchTemplate> sketchTemplates = new ConcurrentHashMap<>();
 
 	public static Document convertToDocument(File file) throws DeviceManagementException {
 		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -64,55 +64,71 @@ public class IotDeviceManagementUtil {
 		return null;
 	}
 
-	public static ZipArchive getSketchArchive(String archivesPath, String templateSketchPath, Map contextParams)
-			throws DeviceManagementException, IOException {
-
-		String sep = File.separator;
-		String sketchPath = CarbonUtils.getCarbonHome() + sep + templateSketchPath;
+	/**
+	 * Returns the agent archive of a device, built from the sketch at the given path. The sketch is read from disk
+	 * only on its first use and is kept in memory thereafter, so that an archive is merely a reference to the cached
+	 * sketch and the device specific context parameters until it is streamed out. The cached sketch is keyed on the
+	 * last modified time of the sketch folder and its files, hence a sketch that is updated on disk, e.g. by
+	 * re-deploying the device-type feature, is read again on its next use.
+	 *
+	 * @param templateSketchPath the path of the sketch folder relative to the carbon home.
+	 * @param contextParams      the values of the place-holders in the sketch templates against their names.
+	 * @return the archive of the device.
+	 * @throws DeviceManagementException if the sketch could not be read.
+	 */
+	public static ZipArchive getSketchArchive(String templateSketchPath, Map<String, String> contextParams)
+			throws DeviceManagementException {
+		File sketchFolder = new File(CarbonUtils.getCarbonHome() + File.separator + templateSketchPath);
+		long lastModified = getLastModified(sketchFolder);
+		CachedSketchTemplate cachedSketchTemplate = sketchTemplates.get(templateSketchPath);
+		if (cachedSketchTemplate == null || cachedSketchTemplate.lastModified != lastModified) {
+			if (cachedSketchTemplate != null && log.isDebugEnabled()) {
+				log.debug("The sketch at path: " + sketchFolder.getPath() + " has been modified, reloading it.");
+			}
+			cachedSketchTemplate = new CachedSketchTemplate(loadSketchTemplate(sketchFolder), lastModified);
+			sketchTemplates.put(templateSketchPath, cachedSketchTemplate);
+		}
+		String zipFileName = contextParams.get("DEVICE_NAME") + ".zip";
+		return new ZipArchive(zipFileName, cachedSketchTemplate.sketchTemplate, contextParams);
+	}
 
-		FileUtils.deleteDirectory(new File(archivesPath));//clear directory
-		FileUtils.deleteDirectory(new File(archivesPath + ".zip"));//clear zip
-		if (!new File(archivesPath).mkdirs()) { //new dir
-			String message = "Could not create directory at path: " + archivesPath;
-			log.error(message);
-			throw new DeviceManagementException(message);
+	/**
+	 * Returns the latest last modified time of the given folder, its sub folders and their files. A folder's own time
+	 * changes when files are added to or removed from it, whilst a file's time changes when it is written to.
+	 */
+	private static long getLastModified(File file) {
+		long lastModified = file.lastModified();
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (File child : files) {
+				lastModified = Math.max(lastModified, getLastModified(child));
+			}
 		}
+		return lastModified;
+	}
 
-		String zipFileName = "zipFile.zip";
+	private static SketchTemplate loadSketchTemplate(File sketchFolder) throws DeviceManagementException {
+		String sep = File.separator;
+		String sketchPath = sketchFolder.getPath();
 
 		try {
 			Map<String, List<String>> properties = getProperties(sketchPath + sep + "sketch" + ".properties");
 			List<String> templateFiles = properties.get("templates");
 
-//            zipFileName = properties.get("zipfilename").get(0);
-			zipFileName = contextParams.get("DEVICE_NAME") + ".zip";
-
+			Map<String, String> templates = new LinkedHashMap<>();
 			for (String templateFile : templateFiles) {
-				parseTemplate(templateSketchPath + sep + templateFile, archivesPath + sep + templateFile,
-							  contextParams);
+				File template = new File(sketchPath + sep + templateFile);
+				templates.put(templateFile, FileUtils.readFileToString(template, StandardCharsets.UTF_8.toString()));
 			}
 
 			templateFiles.add("sketch.properties");         // ommit copying the props file
-			copyFolder(new File(sketchPath), new File(archivesPath), templateFiles);
-
+			Map<String, byte[]> resources = new LinkedHashMap<>();
+			readFolder(sketchFolder, "", templateFiles, resources);
+			return new SketchTemplate(templates, resources);
 		} catch (IOException ex) {
 			throw new DeviceManagementException(
-					"Error occurred when trying to read property " + "file sketch.properties", ex);
-		}
-
-		try {
-			createZipArchive(archivesPath);
-		} catch (IOException e) {
-			String message = "Zip file for the specific device agent not found at path: " + archivesPath;
-			log.error(message);
-			log.error(e);
-			throw new DeviceManagementException(message, e);
+					"Error occurred when trying to read the sketch at path: " + sketchPath, ex);
 		}
-		FileUtils.deleteDirectory(new File(archivesPath));//clear folder
-
-		/* now get the zip file */
-		File zip = new File(archivesPath + ".zip");
-		return new ZipArchive(zipFileName, zip);
 	}
 
 	private static Map<String, List<String>> getProperties(String propertyFilePath) throws IOException {
@@ -149,198 +165,37 @@ public class IotDeviceManagementUtil {
 		}
 	}
 
-	private static void parseTemplate(String srcFile, String dstFile, Map contextParams) throws IOException {
-		//TODO add velocity 1.7, currently commented
-		//TODO conflicting when calling in CXF environment with the opensaml orbit
-
-		//		/*  create a context and add data */
-		//		VelocityContext context = new VelocityContext(contextParams);
-		//
-		//		/*  first, get and initialize an engine  */
-		//		VelocityEngine ve = new VelocityEngine();
-		//		ve.setProperty( RuntimeConstants.RUNTIME_LOG_LOGSYSTEM_CLASS,
-		//						"org.apache.velocity.runtime.log.Log4JLogChute" );
-		//		ve.setProperty("runtime.log.logsystem.log4j.logger", IotDeviceManagementUtil.class.getName());
-		//		ve.init();
-		//
-		//		String sep = File.separator;
-		//		Template t = ve.getTemplate(srcFile);
-		//		FileWriter writer = null;
-		//		try {
-		//			writer = new FileWriter(dstFile);
-		//			t.merge(context, writer);
-		//		} finally {
-		//			if (writer != null) {
-		//				writer.flush();
-		//				writer.close();
-		//			}
-		//		}
-
-		//read from file
-		FileInputStream inputStream = new FileInputStream(srcFile);
-		String content = IOUtils.toString(inputStream, StandardCharsets.UTF_8.toString());
-		Iterator iterator = contextParams.entrySet().iterator();
-		while (iterator.hasNext()) {
-			Map.Entry mapEntry = (Map.Entry) iterator.next();
-			content = content.replaceAll("\\$\\{" + mapEntry.getKey() + "\\}", mapEntry.getValue().toString());
-		}
-		if (inputStream != null) {
-			inputStream.close();
-		}
-		//write to file
-		FileOutputStream outputStream = new FileOutputStream(dstFile);
-		IOUtils.write(content, outputStream, StandardCharsets.UTF_8.toString());
-		if (outputStream != null) {
-			outputStream.close();
-		}
-	}
-
-	private static void copyFolder(File src, File dest, List<String> excludeFileNames) throws IOException {
-
-		if (src.isDirectory()) {
-
-			//if directory not exists, create it
-			if (!dest.exists() && !dest.mkdirs()) {
-				String message = "Could not create directory at path: " + dest;
-				log.error(message);
-				throw new IOException(message);
-			}
-
-			//list all the directory contents
-			String files[] = src.list();
-
-			if (files == null) {
-				log.warn("There are no files insides the directory " + src.getAbsolutePath());
-				return;
-			}
-
-			for (String file : files) {
-				//construct the src and dest file structure
-				File srcFile = new File(src, file);
-				File destFile = new File(dest, file);
-				//recursive copy
-				copyFolder(srcFile, destFile, excludeFileNames);
-			}
-
-		} else {
-			for (String fileName : excludeFileNames) {
-				if (src.getName().equals(fileName)) {
-					return;
-				}
-			}
-			//if file, then copy it
-			//Use bytes stream to support all file types
-			InputStream in = null;
-			OutputStream out = null;
-
-			try {
-				in = new FileInputStream(src);
-				out = new FileOutputStream(dest);
+	private static void readFolder(File src, String entryPrefix, List<String> excludeFileNames,
+								   Map<String, byte[]> resources) throws IOException {
+		//list all the directory contents
+		String files[] = src.list();
 
-				byte[] buffer = new byte[1024];
-
-				int length;
-				//copy the file content in bytes
-				while ((length = in.read(buffer)) > 0) {
-					out.write(buffer, 0, length);
-				}
-			} finally {
-				silentClose(in);
-				silentClose(out);
-			}
-		}
-	}
-
-	private static void silentClose(InputStream is) {
-		if (is == null) {
-			return;
-		}
-
-		try {
-			is.close();
-		} catch (IOException e) {
-			// do nothing
-		}
-
-	}
-
-	private static void silentClose(OutputStream os) {
-		if (os == null) {
+		if (files == null) {
+			log.warn("There are no files insides the directory " + src.getAbsolutePath());
 			return;
 		}
 
-		try {
-
-			os.close();
-		} catch (IOException e) {
-			// do nothing
+		for (String file : files) {
+			File srcFile = new File(src, file);
+			if (srcFile.isDirectory()) {
+				readFolder(srcFile, entryPrefix + file + "/", excludeFileNames, resources);
+			} else if (!excludeFileNames.contains(file)) {
+				resources.put(entryPrefix + file, FileUtils.readFileToByteArray(srcFile));
+			}
 		}
 	}
 
-	private static boolean createZipArchive(String srcFolder) throws IOException {
-		BufferedInputStream origin = null;
-		ZipOutputStream out = null;
-
-		try {
-			final int BUFFER = 2048;
-
-			FileOutputStream dest = new FileOutputStream(new File(srcFolder + ".zip"));
-
-			out = new ZipOutputStream(new BufferedOutputStream(dest));
-			byte data[] = new byte[BUFFER];
-
-			File subDir = new File(srcFolder);
-			String subdirList[] = subDir.list();
-
-			if (subdirList == null) {
-				log.warn("The sub directory " + subDir.getAbsolutePath() + " is empty");
-				return false;
-			}
-
-			for (String sd : subdirList) {
-				// get a list of files from current directory
-				File f = new File(srcFolder + "/" + sd);
-				if (f.isDirectory()) {
-					String files[] = f.list();
-
-					if (files == null) {
-						log.warn("The current directory " + f.getAbsolutePath() + " is empty. Has no files");
-						return false;
-					}
-
-					for (int i = 0; i < files.length; i++) {
-						FileInputStream fi = new FileInputStream(srcFolder + "/" + sd + "/" + files[i]);
-						origin = new BufferedInputStream(fi, BUFFER);
-						ZipEntry entry = new ZipEntry(sd + "/" + files[i]);
-						out.putNextEntry(entry);
-						int count;
-						while ((count = origin.read(data, 0, BUFFER)) != -1) {
-							out.write(data, 0, count);
-							out.flush();
-						}
-
-					}
-				} else //it is just a file
-				{
-					FileInputStream fi = new FileInputStream(f);
-					origin = new BufferedInputStream(fi, BUFFER);
-					ZipEntry entry = new ZipEntry(sd);
-					out.putNextEntry(entry);
-					int count;
-					while ((count = origin.read(data, 0, BUFFER)) != -1) {
-						out.write(data, 0, count);
-						out.flush();
-					}
+	/**
+	 * A sketch held in memory, along with the last modified time of its folder at the time it was read.
+	 */
+	private static class CachedSketchTemplate {
+		private final SketchTemplate sketchTemplate;
+		private final long lastModified;
 
-				}
-			}
-
-			out.flush();
-		} finally {
-			silentClose(origin);
-			silentClose(out);
+		CachedSketchTemplate(SketchTemplate sketchTemplate, long lastModified) {
+			this.sketchTemplate = sketchTemplate;
+			this.lastModified = lastModified;
 		}
-		return true;
 	}
 
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.util;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * In-memory representation of the agent sketch of a device-type. It holds the files of the sketch folder, split into
+ * the templates that get filled with device specific context parameters and the files that are shipped as they are.
+ * An instance is loaded once per sketch folder and is shared by all the downloads of that sketch. Hence, the
+ * templates are compiled up-front into a sequence of literal text and place-holder segments, so that filling a
+ * template is a single pass over its segments.
+ */
+public class SketchTemplate {
+
+    private static final String PLACEHOLDER_PREFIX = "${";
+    private static final String PLACEHOLDER_SUFFIX = "}";
+
+    private final Map<String, List<TemplateSegment>> templates;
+    private final Map<String, byte[]> resources;
+
+    /**
+     * @param templates the content of the template files against their path inside the archive.
+     * @param resources the content of the non-template files against their path inside the archive.
+     */
+    public SketchTemplate(Map<String, String> templates, Map<String, byte[]> resources) {
+        this.templates = new LinkedHashMap<>();
+        for (Map.Entry<String, String> template : templates.entrySet()) {
+            this.templates.put(template.getKey(), compile(template.getValue()));
+        }
+        this.resources = resources;
+    }
+
+    /**
+     * Writes the files of the sketch as entries of the given zip stream, with the templates filled using the given
+     * context parameters.
+     *
+     * @param zipOutputStream the stream to which the entries are to be written.
+     * @param contextParams   the values of the place-holders in the templates against their names.
+     * @throws IOException if writing to the stream fails.
+     */
+    public void writeTo(ZipOutputStream zipOutputStream, Map<String, String> contextParams) throws IOException {
+        Writer writer = new OutputStreamWriter(zipOutputStream, StandardCharsets.UTF_8);
+        for (Map.Entry<String, List<TemplateSegment>> template : templates.entrySet()) {
+            zipOutputStream.putNextEntry(new ZipEntry(template.getKey()));
+            render(template.getValue(), contextParams, writer);
+            writer.flush();
+            zipOutputStream.closeEntry();
+        }
+        for (Map.Entry<String, byte[]> resource : resources.entrySet()) {
+            zipOutputStream.putNextEntry(new ZipEntry(resource.getKey()));
+            zipOutputStream.write(resource.getValue());
+            zipOutputStream.closeEntry();
+        }
+    }
+
+    /**
+     * Writes the given compiled template to the writer, substituting each place-holder with its value from the
+     * context parameters. Place-holders without a value are written as they appear in the template.
+     */
+    private static void render(List<TemplateSegment> segments, Map<String, String> contextParams, Writer writer)
+            throws IOException {
+        for (TemplateSegment segment : segments) {
+            if (segment.isPlaceholder()) {
+                String value = contextParams.get(segment.getText());
+                if (value != null) {
+                    writer.write(value);
+                } else {
+                    writer.write(PLACEHOLDER_PREFIX + segment.getText() + PLACEHOLDER_SUFFIX);
+                }
+            } else {
+                writer.write(segment.getText());
+            }
+        }
+    }
+
+    /**
+     * Splits the given template content into literal text segments and the place-holders (of the form ${NAME})
+     * that appear between them.
+     */
+    private static List<TemplateSegment> compile(String content) {
+        List<TemplateSegment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < content.length()) {
+            int placeholderStart = content.indexOf(PLACEHOLDER_PREFIX, position);
+            if (placeholderStart == -1) {
+                literal.append(content, position, content.length());
+                break;
+            }
+            int nameStart = placeholderStart + PLACEHOLDER_PREFIX.length();
+            int placeholderEnd = content.indexOf(PLACEHOLDER_SUFFIX, nameStart);
+            if (placeholderEnd == -1 || !isPlaceholderName(content.substring(nameStart, placeholderEnd))) {
+                // not a place-holder, hence the prefix is kept as literal text and scanning continues after it.
+                literal.append(content, position, nameStart);
+                position = nameStart;
+                continue;
+            }
+            literal.append(content, position, placeholderStart);
+            if (literal.length() != 0) {
+                segments.add(new TemplateSegment(literal.toString(), false));
+                literal.setLength(0);
+            }
+            segments.add(new TemplateSegment(content.substring(nameStart, placeholderEnd), true));
+            position = placeholderEnd + PLACEHOLDER_SUFFIX.length();
+        }
+        if (literal.length() != 0) {
+            segments.add(new TemplateSegment(literal.toString(), false));
+        }
+        return segments;
+    }
+
+    private static boolean isPlaceholderName(String name) {
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char character = name.charAt(i);
+            if (!Character.isLetterOrDigit(character) && character != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A segment of a compiled template, being either literal text or the name of a place-holder.
+     */
+    private static class TemplateSegment {
+
+        private final String text;
+        private final boolean placeholder;
+
+        TemplateSegment(String text, boolean placeholder) {
+            this.text = text;
+            this.placeholder = placeholder;
+        }
+
+        String getText() {
+            return text;
+        }
+
+        boolean isPlaceholder() {
+            return placeholder;
+        }
+    }
+}
@@ -18,17 +18,26 @@
 
 package org.wso2.carbon.device.mgt.iot.util;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.ZipOutputStream;
 
+/**
+ * The agent archive of a single device. The archive is not materialized on disk; its content is generated from the
+ * cached sketch of the device-type whenever it is written out.
+ */
 public class ZipArchive {
 
-    private File zipFile = null;
+    private SketchTemplate sketchTemplate = null;
+    private Map<String, String> contextParams = null;
     private String fileName = null;
     private String deviceId = null;
 
-    public ZipArchive(String fileName, File zipFile) {
+    public ZipArchive(String fileName, SketchTemplate sketchTemplate, Map<String, String> contextParams) {
         this.fileName = fileName;
-        this.zipFile = zipFile;
+        this.sketchTemplate = sketchTemplate;
+        this.contextParams = contextParams;
     }
 
     public String getDeviceId() {
@@ -39,11 +48,21 @@ public class ZipArchive {
         this.deviceId = deviceId;
     }
 
-    public File getZipFile() {
-        return zipFile;
-    }
-
     public String getFileName() {
         return fileName;
     }
+
+    /**
+     * Writes the zipped content of the archive to the given stream. The stream itself is left open for the caller
+     * to close.
+     *
+     * @param outputStream the stream to which the archive is to be written.
+     * @throws IOException if writing to the stream fails.
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+        sketchTemplate.writeTo(zipOutputStream, contextParams);
+        zipOutputStream.finish();
+        zipOutputStream.flush();
+    }
 }
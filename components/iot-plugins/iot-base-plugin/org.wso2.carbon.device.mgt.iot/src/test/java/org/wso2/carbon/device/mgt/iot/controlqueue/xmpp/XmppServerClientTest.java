@@ -0,0 +1,339 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.controlqueue.xmpp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.binary.Base64;
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.iot.exception.DeviceControllerException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class for holding unit-tests related to XmppServerClient class. The REST API of the Openfire server is stubbed by
+ * an http server started by the tests, hence they do not need an XMPP server.
+ */
+public class XmppServerClientTest {
+
+    private static final String XMPP_USERNAME = "admin";
+    private static final String XMPP_PASSWORD = "admin";
+    private static final String USERS_API = "/plugins/restapi/v1/users";
+    private static final String SESSIONS_API = "/plugins/restapi/v1/sessions";
+    private static final int MAX_CONCURRENT_XMPP_REQUESTS = 10;
+    private static final long REQUEST_DELAY = 50;
+
+    private HttpServer xmppServer;
+    private ExecutorService xmppServerExecutor;
+    private String xmppEndpoint;
+
+    private volatile int accountCreationStatus;
+    private volatile String accountPayload;
+    private volatile String authorizationHeader;
+    private volatile int sessionCount;
+    private volatile String failingSession;
+    private volatile String rejectedAccount;
+    private final AtomicInteger receivedRequests = new AtomicInteger();
+    private final AtomicInteger requestsInProgress = new AtomicInteger();
+    private final AtomicInteger maxRequestsInProgress = new AtomicInteger();
+    private final Set<String> deletedSessions = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private final Set<String> createdAccounts = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    @BeforeClass
+    public void startXmppServer() throws IOException {
+        xmppServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        xmppServer.createContext(USERS_API, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                receivedRequests.incrementAndGet();
+                authorizationHeader = exchange.getRequestHeaders().getFirst("Authorization");
+                accountPayload = readRequest(exchange);
+                String username = new JSONObject(accountPayload).getString("username");
+                delayRequest();
+                if (accountCreationStatus == 201 && !username.equals(rejectedAccount)) {
+                    createdAccounts.add(username);
+                    respond(exchange, 201, "");
+                } else {
+                    respond(exchange, accountCreationStatus == 201 ? 409 : accountCreationStatus,
+                            "{\"exception\":\"UserAlreadyExistsException\"}");
+                }
+            }
+        });
+        xmppServer.createContext(SESSIONS_API, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                receivedRequests.incrementAndGet();
+                readRequest(exchange);
+                if ("GET".equals(exchange.getRequestMethod())) {
+                    StringBuilder sessions = new StringBuilder("{\"session\":[");
+                    for (int i = 0; i < sessionCount; i++) {
+                        sessions.append(i == 0 ? "" : ",").append("{\"username\":\"device-").append(i).append("\"}");
+                    }
+                    respond(exchange, 200, sessions.append("]}").toString());
+                } else {
+                    String sessionName = exchange.getRequestURI().getPath().substring(SESSIONS_API.length() + 1);
+                    delayRequest();
+                    if (sessionName.equals(failingSession)) {
+                        respond(exchange, 500, "");
+                    } else {
+                        deletedSessions.add(sessionName);
+                        respond(exchange, 200, "");
+                    }
+                }
+            }
+        });
+        xmppServerExecutor = Executors.newCachedThreadPool();
+        xmppServer.setExecutor(xmppServerExecutor);
+        xmppServer.start();
+        xmppEndpoint = "http://localhost:" + xmppServer.getAddress().getPort();
+    }
+
+    @AfterClass
+    public void stopXmppServer() {
+        xmppServer.stop(0);
+        xmppServerExecutor.shutdownNow();
+    }
+
+    @BeforeMethod
+    public void resetXmppServer() {
+        accountCreationStatus = 201;
+        accountPayload = null;
+        authorizationHeader = null;
+        sessionCount = 0;
+        failingSession = null;
+        rejectedAccount = null;
+        receivedRequests.set(0);
+        maxRequestsInProgress.set(0);
+        deletedSessions.clear();
+        createdAccounts.clear();
+    }
+
+    @Test
+    public void testCreateXMPPAccount() throws DeviceControllerException {
+        Assert.assertTrue(createXmppServerClient(xmppEndpoint, true).createXMPPAccount(createXmppAccount()));
+        JSONObject payload = new JSONObject(accountPayload);
+        Assert.assertEquals(payload.getString("username"), "device-0");
+        Assert.assertEquals(payload.getString("password"), "device-0-password");
+        Assert.assertEquals(payload.getString("name"), "device-0-account");
+        Assert.assertEquals(payload.getString("email"), "device-0@example.com");
+        String credentials = XMPP_USERNAME + ":" + XMPP_PASSWORD;
+        Assert.assertEquals(authorizationHeader, "Basic " + new String(
+                Base64.encodeBase64(credentials.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+    }
+
+    @Test(expectedExceptions = DeviceControllerException.class)
+    public void testCreateXMPPAccountRejectedByServer() throws DeviceControllerException {
+        accountCreationStatus = 409;
+        createXmppServerClient(xmppEndpoint, true).createXMPPAccount(createXmppAccount());
+    }
+
+    @Test
+    public void testCreateXMPPAccountWhenDisabled() throws DeviceControllerException {
+        Assert.assertFalse(createXmppServerClient(xmppEndpoint, false).createXMPPAccount(createXmppAccount()));
+        Assert.assertEquals(receivedRequests.get(), 0);
+    }
+
+    @Test(expectedExceptions = DeviceControllerException.class)
+    public void testCreateXMPPAccountWithMalformedEndpoint() throws DeviceControllerException {
+        createXmppServerClient("localhost:" + xmppServer.getAddress().getPort(), true).createXMPPAccount(
+                createXmppAccount());
+    }
+
+    @Test(expectedExceptions = DeviceControllerException.class)
+    public void testCreateXMPPAccountWithUnreachableServer() throws IOException, DeviceControllerException {
+        int unusedPort;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            unusedPort = serverSocket.getLocalPort();
+        }
+        createXmppServerClient("http://localhost:" + unusedPort, true).createXMPPAccount(createXmppAccount());
+    }
+
+    @Test
+    public void testCreateXMPPAccounts() throws DeviceControllerException {
+        List<XmppAccount> xmppAccounts = createXmppAccounts(25);
+        Map<String, Boolean> accountStatus = createXmppServerClient(xmppEndpoint, true).createXMPPAccounts(
+                xmppAccounts);
+        Assert.assertEquals(new ArrayList<>(accountStatus.keySet()), getUsernames(xmppAccounts));
+        Assert.assertFalse(accountStatus.containsValue(false));
+        Assert.assertEquals(createdAccounts, new HashSet<>(getUsernames(xmppAccounts)));
+        Assert.assertTrue(maxRequestsInProgress.get() > 1, "Accounts were not created in parallel.");
+        Assert.assertTrue(maxRequestsInProgress.get() <= MAX_CONCURRENT_XMPP_REQUESTS,
+                          maxRequestsInProgress.get() + " accounts were created in parallel.");
+    }
+
+    @Test
+    public void testCreateXMPPAccountsWithRejectedAccount() throws DeviceControllerException {
+        rejectedAccount = "device-3";
+        List<XmppAccount> xmppAccounts = createXmppAccounts(5);
+        Map<String, Boolean> accountStatus = createXmppServerClient(xmppEndpoint, true).createXMPPAccounts(
+                xmppAccounts);
+        for (Map.Entry<String, Boolean> status : accountStatus.entrySet()) {
+            Assert.assertEquals(status.getValue().booleanValue(), !rejectedAccount.equals(status.getKey()),
+                                "Unexpected creation status of " + status.getKey());
+        }
+        Assert.assertEquals(createdAccounts.size(), xmppAccounts.size() - 1);
+    }
+
+    @Test
+    public void testCreateXMPPAccountsWhenDisabled() throws DeviceControllerException {
+        List<XmppAccount> xmppAccounts = createXmppAccounts(3);
+        Map<String, Boolean> accountStatus = createXmppServerClient(xmppEndpoint, false).createXMPPAccounts(
+                xmppAccounts);
+        Assert.assertEquals(new ArrayList<>(accountStatus.keySet()), getUsernames(xmppAccounts));
+        Assert.assertFalse(accountStatus.containsValue(true));
+        Assert.assertEquals(receivedRequests.get(), 0);
+    }
+
+    @Test
+    public void testDeleteCurrentXmppSessions() throws DeviceControllerException {
+        sessionCount = 25;
+        createXmppServerClient(xmppEndpoint, true).deleteCurrentXmppSessions();
+        Assert.assertEquals(deletedSessions.size(), sessionCount);
+        Assert.assertTrue(maxRequestsInProgress.get() > 1, "Sessions were not deleted in parallel.");
+        Assert.assertTrue(maxRequestsInProgress.get() <= MAX_CONCURRENT_XMPP_REQUESTS,
+                          maxRequestsInProgress.get() + " sessions were deleted in parallel.");
+    }
+
+    @Test
+    public void testDeleteCurrentXmppSessionsSharesExecutor() throws DeviceControllerException {
+        sessionCount = 15;
+        for (int i = 0; i < 3; i++) {
+            createXmppServerClient(xmppEndpoint, true).deleteCurrentXmppSessions();
+        }
+        Set<String> executorThreads = new HashSet<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(XmppServerClient.class.getSimpleName() + "-")) {
+                executorThreads.add(thread.getName());
+                Assert.assertTrue(thread.isDaemon(), thread.getName() + " is not a daemon thread.");
+            }
+        }
+        Assert.assertFalse(executorThreads.isEmpty());
+        Assert.assertTrue(executorThreads.size() <= MAX_CONCURRENT_XMPP_REQUESTS,
+                          executorThreads.size() + " threads were created for bulk operations.");
+    }
+
+    @Test(expectedExceptions = DeviceControllerException.class)
+    public void testDeleteCurrentXmppSessionsWithFailedDeletion() throws DeviceControllerException {
+        sessionCount = 5;
+        failingSession = "device-3";
+        try {
+            createXmppServerClient(xmppEndpoint, true).deleteCurrentXmppSessions();
+        } finally {
+            Assert.assertEquals(deletedSessions.size(), sessionCount - 1);
+        }
+    }
+
+    private static XmppServerClient createXmppServerClient(String xmppEndpoint, boolean xmppEnabled) {
+        XmppServerClient xmppServerClient = new XmppServerClient();
+        xmppServerClient.initControlQueue(xmppEndpoint, XMPP_USERNAME, XMPP_PASSWORD, xmppEnabled);
+        return xmppServerClient;
+    }
+
+    private static XmppAccount createXmppAccount() {
+        return createXmppAccount("device-0");
+    }
+
+    private static XmppAccount createXmppAccount(String username) {
+        XmppAccount xmppAccount = new XmppAccount();
+        xmppAccount.setUsername(username);
+        xmppAccount.setPassword(username + "-password");
+        xmppAccount.setAccountName(username + "-account");
+        xmppAccount.setEmail(username + "@example.com");
+        return xmppAccount;
+    }
+
+    private static List<XmppAccount> createXmppAccounts(int count) {
+        List<XmppAccount> xmppAccounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            xmppAccounts.add(createXmppAccount("device-" + i));
+        }
+        return xmppAccounts;
+    }
+
+    private static List<String> getUsernames(List<XmppAccount> xmppAccounts) {
+        List<String> usernames = new ArrayList<>();
+        for (XmppAccount xmppAccount : xmppAccounts) {
+            usernames.add(xmppAccount.getUsername());
+        }
+        return usernames;
+    }
+
+    /**
+     * Holds a request for a while, recording how many requests are held at the same time.
+     */
+    private void delayRequest() {
+        int inProgress = requestsInProgress.incrementAndGet();
+        try {
+            synchronized (maxRequestsInProgress) {
+                maxRequestsInProgress.set(Math.max(maxRequestsInProgress.get(), inProgress));
+            }
+            Thread.sleep(REQUEST_DELAY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            requestsInProgress.decrementAndGet();
+        }
+    }
+
+    private static String readRequest(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                request.write(buffer, 0, length);
+            }
+        }
+        return new String(request.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String response) throws IOException {
+        byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        // the stub server may close an idle connection at any time, hence the client is not let to reuse it.
+        exchange.getResponseHeaders().add("Connection", "close");
+        exchange.sendResponseHeaders(status, responseBytes.length == 0 ? -1 : responseBytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(responseBytes);
+        }
+    }
+
+}
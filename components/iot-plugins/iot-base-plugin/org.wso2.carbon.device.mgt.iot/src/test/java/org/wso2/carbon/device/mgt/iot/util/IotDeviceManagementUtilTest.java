@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.util;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class for holding unit-tests related to the sketch cache of IotDeviceManagementUtil class. A sketch is created
+ * under a temporary carbon home, and is modified on disk between downloads.
+ */
+public class IotDeviceManagementUtilTest {
+
+    private static final String CARBON_HOME = "carbon.home";
+    private static final String SKETCH_PATH = "repository" + File.separator + "sketches" + File.separator + "test";
+    private static final String TEMPLATE_FILE = "deviceConfig.properties";
+
+    private String carbonHome;
+    private File carbonHomeFolder;
+    private File sketchFolder;
+
+    @BeforeClass
+    public void setUp() throws IOException {
+        carbonHome = System.getProperty(CARBON_HOME);
+        carbonHomeFolder = Files.createTempDirectory("carbon-home").toFile();
+        System.setProperty(CARBON_HOME, carbonHomeFolder.getAbsolutePath());
+        sketchFolder = new File(carbonHomeFolder, SKETCH_PATH);
+        Assert.assertTrue(sketchFolder.mkdirs());
+        write(new File(sketchFolder, "sketch.properties"), "templates=" + TEMPLATE_FILE + "\nzipfilename=test.zip");
+        write(new File(sketchFolder, TEMPLATE_FILE), "device-id=${DEVICE_ID}");
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        if (carbonHome != null) {
+            System.setProperty(CARBON_HOME, carbonHome);
+        } else {
+            System.clearProperty(CARBON_HOME);
+        }
+        FileUtils.deleteDirectory(carbonHomeFolder);
+    }
+
+    @Test
+    public void testModifiedTemplateIsReloaded() throws Exception {
+        Assert.assertEquals(getEntry(TEMPLATE_FILE), "device-id=device-1");
+        File template = new File(sketchFolder, TEMPLATE_FILE);
+        long lastModified = template.lastModified();
+        write(template, "device-id=${DEVICE_ID}\nversion=2");
+        Assert.assertTrue(template.setLastModified(lastModified + 10000));
+        Assert.assertEquals(getEntry(TEMPLATE_FILE), "device-id=device-1\nversion=2");
+    }
+
+    @Test(dependsOnMethods = "testModifiedTemplateIsReloaded")
+    public void testAddedFileIsReloaded() throws Exception {
+        Assert.assertNull(getEntry("lib/agent.sh"));
+        File resource = new File(sketchFolder, "lib" + File.separator + "agent.sh");
+        Assert.assertTrue(resource.getParentFile().mkdirs());
+        write(resource, "#!/bin/sh");
+        Assert.assertTrue(resource.setLastModified(new File(sketchFolder, TEMPLATE_FILE).lastModified() + 10000));
+        Assert.assertEquals(getEntry("lib/agent.sh"), "#!/bin/sh");
+    }
+
+    private static String getEntry(String name) throws DeviceManagementException, IOException {
+        Map<String, String> contextParams = new HashMap<>();
+        contextParams.put("DEVICE_NAME", "device");
+        contextParams.put("DEVICE_ID", "device-1");
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        IotDeviceManagementUtil.getSketchArchive(SKETCH_PATH, contextParams).writeTo(archive);
+        byte[] content = SketchTemplateTest.readEntries(archive.toByteArray()).get(name);
+        return content != null ? new String(content, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void write(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
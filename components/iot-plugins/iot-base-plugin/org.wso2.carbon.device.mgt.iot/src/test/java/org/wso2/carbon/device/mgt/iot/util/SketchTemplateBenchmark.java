@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Compares the time taken by SketchTemplate and the regex based rendering it replaced to write the templates of each
+ * bundled sketch to a zip archive, as done for every sketch download. The timings are logged rather than asserted,
+ * since they depend on the machine running the build. Hence, the benchmark is left out of the unit tests and is run
+ * with the "benchmark" profile, i.e. mvn test -Pbenchmark.
+ */
+public class SketchTemplateBenchmark {
+
+    private static final Log log = LogFactory.getLog(SketchTemplateBenchmark.class);
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 1000;
+
+    @Test
+    public void benchmarkBundledSketches() throws IOException {
+        for (File sketch : SketchTemplateTest.findBundledSketches()) {
+            Map<String, String> templates = SketchTemplateTest.loadTemplates(sketch);
+            Map<String, String> contextParams = SketchTemplateTest.createContextParams(templates);
+            SketchTemplate sketchTemplate = new SketchTemplate(templates, new HashMap<String, byte[]>());
+            Map<String, byte[]> rendered = SketchTemplateTest.renderWithSketchTemplate(templates, contextParams);
+            for (Map.Entry<String, String> template : templates.entrySet()) {
+                Assert.assertEquals(rendered.get(template.getKey()), SketchTemplateTest.renderWithRegex(
+                        template.getValue(), contextParams).getBytes(StandardCharsets.UTF_8));
+            }
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                writeWithRegex(templates, contextParams);
+                writeWithSketchTemplate(sketchTemplate, contextParams);
+            }
+            long regexStartTime = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                writeWithRegex(templates, contextParams);
+            }
+            long regexTime = System.nanoTime() - regexStartTime;
+            long sketchTemplateStartTime = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                writeWithSketchTemplate(sketchTemplate, contextParams);
+            }
+            long sketchTemplateTime = System.nanoTime() - sketchTemplateStartTime;
+            log.info("Writing the templates of " + sketch + " took " + (regexTime / MEASURED_ITERATIONS / 1000) +
+                             " us with the regex rendering and " + (sketchTemplateTime / MEASURED_ITERATIONS / 1000) +
+                             " us with SketchTemplate on average.");
+        }
+    }
+
+    private static byte[] writeWithRegex(Map<String, String> templates, Map<String, String> contextParams)
+            throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(archive)) {
+            for (Map.Entry<String, String> template : templates.entrySet()) {
+                zipOutputStream.putNextEntry(new ZipEntry(template.getKey()));
+                zipOutputStream.write(SketchTemplateTest.renderWithRegex(template.getValue(), contextParams)
+                                              .getBytes(StandardCharsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+        }
+        return archive.toByteArray();
+    }
+
+    private static byte[] writeWithSketchTemplate(SketchTemplate sketchTemplate, Map<String, String> contextParams)
+            throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(archive)) {
+            sketchTemplate.writeTo(zipOutputStream, contextParams);
+        }
+        return archive.toByteArray();
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.util;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Class for holding unit-tests related to SketchTemplate class. Every sketch bundled with the IoT plugin features is
+ * rendered with SketchTemplate and with the regex based rendering it replaced, and the outputs are compared byte by
+ * byte.
+ */
+public class SketchTemplateTest {
+
+    private static final String BUNDLED_SKETCHES_LOCATION = "../../../../features/iot-plugins-feature";
+    private static final String SKETCH_PROPERTIES = "sketch.properties";
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{([A-Za-z0-9_]+)\\}");
+
+    @DataProvider(name = "bundledSketches")
+    public Object[][] getBundledSketches() {
+        List<File> sketches = findBundledSketches();
+        Assert.assertFalse(sketches.isEmpty(), "No sketches are found under " + BUNDLED_SKETCHES_LOCATION);
+        Object[][] data = new Object[sketches.size()][];
+        for (int i = 0; i < sketches.size(); i++) {
+            data[i] = new Object[]{sketches.get(i)};
+        }
+        return data;
+    }
+
+    @Test(dataProvider = "bundledSketches")
+    public void testRenderingMatchesRegexRendering(File sketch) throws IOException {
+        Map<String, String> templates = loadTemplates(sketch);
+        Map<String, String> contextParams = createContextParams(templates);
+        Map<String, byte[]> rendered = renderWithSketchTemplate(templates, contextParams);
+        Assert.assertEquals(rendered.size(), templates.size());
+        for (Map.Entry<String, String> template : templates.entrySet()) {
+            byte[] expected = renderWithRegex(template.getValue(), contextParams).getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(rendered.get(template.getKey()), expected,
+                                "Rendering of " + sketch + File.separator + template.getKey() + " differs");
+        }
+    }
+
+    @Test(dataProvider = "bundledSketches")
+    public void testUnknownPlaceholdersAreKept(File sketch) throws IOException {
+        Map<String, String> templates = loadTemplates(sketch);
+        Map<String, String> contextParams = Collections.emptyMap();
+        Map<String, byte[]> rendered = renderWithSketchTemplate(templates, contextParams);
+        for (Map.Entry<String, String> template : templates.entrySet()) {
+            Assert.assertEquals(rendered.get(template.getKey()),
+                                template.getValue().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testValuesAreWrittenLiterally() throws IOException {
+        Map<String, String> templates = new LinkedHashMap<>();
+        templates.put("deviceConfig.properties", "auth-token=${DEVICE_TOKEN}\nprice=${PRICE} ${ UNKNOWN} ${");
+        Map<String, String> contextParams = new HashMap<>();
+        contextParams.put("DEVICE_TOKEN", "a$1\\b");
+        contextParams.put("PRICE", "$5");
+        Map<String, byte[]> rendered = renderWithSketchTemplate(templates, contextParams);
+        Assert.assertEquals(new String(rendered.get("deviceConfig.properties"), StandardCharsets.UTF_8),
+                            "auth-token=a$1\\b\nprice=$5 ${ UNKNOWN} ${");
+    }
+
+    static List<File> findBundledSketches() {
+        List<File> sketches = new ArrayList<>();
+        findBundledSketches(new File(BUNDLED_SKETCHES_LOCATION), sketches);
+        Collections.sort(sketches);
+        return sketches;
+    }
+
+    private static void findBundledSketches(File directory, List<File> sketches) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                if (!"target".equals(file.getName())) {
+                    findBundledSketches(file, sketches);
+                }
+            } else if (SKETCH_PROPERTIES.equals(file.getName())) {
+                sketches.add(directory);
+            }
+        }
+    }
+
+    /**
+     * Reads the templates of a sketch, as IotDeviceManagementUtil does when loading the sketch.
+     */
+    static Map<String, String> loadTemplates(File sketch) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = new FileInputStream(new File(sketch, SKETCH_PROPERTIES))) {
+            properties.load(inputStream);
+        }
+        Map<String, String> templates = new LinkedHashMap<>();
+        for (String templateFile : properties.getProperty("templates").split(",")) {
+            byte[] content = Files.readAllBytes(new File(sketch, templateFile).toPath());
+            templates.put(templateFile, new String(content, StandardCharsets.UTF_8));
+        }
+        return templates;
+    }
+
+    /**
+     * Creates a value for every place-holder in the templates, but for the last one found, which is left unfilled.
+     * The values contain non-ASCII characters, so that the encoding of the output is compared as well.
+     */
+    static Map<String, String> createContextParams(Map<String, String> templates) {
+        List<String> names = new ArrayList<>();
+        for (String template : templates.values()) {
+            Matcher matcher = PLACEHOLDER_PATTERN.matcher(template);
+            while (matcher.find()) {
+                if (!names.contains(matcher.group(1))) {
+                    names.add(matcher.group(1));
+                }
+            }
+        }
+        Map<String, String> contextParams = new LinkedHashMap<>();
+        for (int i = 0; i < names.size() - 1; i++) {
+            contextParams.put(names.get(i), names.get(i).toLowerCase() + "-v\u00e4rde-" + i);
+        }
+        contextParams.put("NOT_IN_TEMPLATE", "unused");
+        return contextParams;
+    }
+
+    /**
+     * The rendering SketchTemplate replaced, which ran a regex replacement over the template per context parameter.
+     */
+    static String renderWithRegex(String content, Map<String, String> contextParams) {
+        for (Map.Entry<String, String> contextParam : contextParams.entrySet()) {
+            content = content.replaceAll("\\$\\{" + contextParam.getKey() + "\\}", contextParam.getValue());
+        }
+        return content;
+    }
+
+    static Map<String, byte[]> renderWithSketchTemplate(Map<String, String> templates,
+                                                        Map<String, String> contextParams) throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(archive)) {
+            new SketchTemplate(templates, new LinkedHashMap<String, byte[]>()).writeTo(zipOutputStream,
+                                                                                       contextParams);
+        }
+        return readEntries(archive.toByteArray());
+    }
+
+    /**
+     * Reads the entries of a zip archive, as their content against their name.
+     */
+    static Map<String, byte[]> readEntries(byte[] archive) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            ZipEntry entry;
+            byte[] buffer = new byte[8192];
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                int length;
+                while ((length = zipInputStream.read(buffer)) != -1) {
+                    content.write(buffer, 0, length);
+                }
+                entries.put(entry.getName(), content.toByteArray());
+            }
+        }
+        return entries;
+    }
+
+}
@@ -47,6 +47,15 @@ public class RaspberryPiMQTTConnector extends MQTTTransportHandler {
 
     private static final String iotServerSubscriber = UUID.randomUUID().toString().substring(0, 5);
 
+    // the cached access-token is renewed this long before its actual expiry, so that a reconnect never presents a
+    // token that lapses whilst the broker is validating it.
+    private static final long TOKEN_RENEWAL_BUFFER_IN_MILLIS = 60 * 1000;
+    private static final String MQTT_CONNECTOR_SCOPE = "device_mqtt_connector";
+
+    private ApiApplicationKey apiApplicationKey;
+    private AccessTokenInfo accessTokenInfo;
+    private long accessTokenRenewalTime;
+
     private RaspberryPiMQTTConnector() {
         super(iotServerSubscriber, RaspberrypiConstants.DEVICE_TYPE,
               MqttConfig.getInstance().getMqttQueueEndpoint(), subscribeTopic);
@@ -64,19 +73,13 @@ public class RaspberryPiMQTTConnector extends MQTTTransportHandler {
 						String applicationUsername = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUserRealm()
 										.getRealmConfiguration().getAdminUserName();
                         PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(applicationUsername);
-                        APIManagementProviderService apiManagementProviderService = APIUtil.getAPIManagementProviderService();
-						String[] tags = {RaspberrypiConstants.DEVICE_TYPE};
-						ApiApplicationKey apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
-										RaspberrypiConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
-						JWTClient jwtClient = APIUtil.getJWTClientManagerService().getJWTClient();
-						String scopes = "device_type_" + RaspberrypiConstants.DEVICE_TYPE + " device_mqtt_connector";
-						AccessTokenInfo accessTokenInfo = jwtClient.getAccessToken(apiApplicationKey.getConsumerKey(),
-						    apiApplicationKey.getConsumerSecret(), applicationUsername, scopes);
-                        //create token
-                        String accessToken = accessTokenInfo.getAccessToken();
+                        String accessToken = getAccessToken(applicationUsername);
                         setUsernameAndPassword(accessToken, EMPTY_STRING);
                         connectToQueue();
 					} catch (TransportHandlerException e) {
+						if (isAuthenticationFailure(e)) {
+							invalidateAccessToken();
+						}
 						log.error("Connection/Subscription to MQTT Broker at: " + mqttBrokerEndPoint + " failed", e);
 						try {
 							Thread.sleep(timeoutInterval);
@@ -103,6 +106,62 @@ public class RaspberryPiMQTTConnector extends MQTTTransportHandler {
         connectorThread.start();
     }
 
+    /**
+     * Returns the access-token to be used as the username of the MQTT connection. The OAuth client credentials of the
+     * connector's API application are retrieved only once and the access-token minted with them is reused until it is
+     * about to expire. Hence, reconnect attempts to a flapping broker do not hit the key manager.
+     *
+     * @param applicationUsername the admin user of the device-type provider tenant.
+     * @return a valid access-token with the scopes required by the MQTT connector.
+     * @throws APIManagerException if registering the API application and generating its keys fails.
+     * @throws JWTClientException  if minting the access-token fails.
+     */
+    private synchronized String getAccessToken(String applicationUsername)
+            throws APIManagerException, JWTClientException {
+        if (apiApplicationKey == null) {
+            APIManagementProviderService apiManagementProviderService = APIUtil.getAPIManagementProviderService();
+            String[] tags = {RaspberrypiConstants.DEVICE_TYPE};
+            apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
+                    RaspberrypiConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
+        }
+        if (accessTokenInfo == null || System.currentTimeMillis() >= accessTokenRenewalTime) {
+            JWTClient jwtClient = APIUtil.getJWTClientManagerService().getJWTClient();
+            String scopes = "device_type_" + RaspberrypiConstants.DEVICE_TYPE + " " + MQTT_CONNECTOR_SCOPE;
+            accessTokenInfo = jwtClient.getAccessToken(apiApplicationKey.getConsumerKey(),
+                    apiApplicationKey.getConsumerSecret(), applicationUsername, scopes);
+            accessTokenRenewalTime = System.currentTimeMillis() + (accessTokenInfo.getExpiresIn() * 1000)
+                    - TOKEN_RENEWAL_BUFFER_IN_MILLIS;
+            if (log.isDebugEnabled()) {
+                log.debug("Renewed the access-token of the MQTT connector for device-type - " +
+                        RaspberrypiConstants.DEVICE_TYPE);
+            }
+        }
+        return accessTokenInfo.getAccessToken();
+    }
+
+    /**
+     * Discards the cached access-token so that a fresh one is minted on the next connect attempt. The client
+     * credentials are kept, since a rejected token does not invalidate the API application.
+     */
+    private synchronized void invalidateAccessToken() {
+        accessTokenInfo = null;
+    }
+
+    /**
+     * Checks whether a failed connect attempt was due to the broker rejecting the credentials of the connector.
+     *
+     * @param e the exception thrown whilst connecting to the broker.
+     * @return `true` if the broker refused the connection for authentication or authorization reasons.
+     */
+    private static boolean isAuthenticationFailure(TransportHandlerException e) {
+        if (e.getCause() instanceof MqttException) {
+            int reasonCode = ((MqttException) e.getCause()).getReasonCode();
+            return reasonCode == MqttException.REASON_CODE_FAILED_AUTHENTICATION ||
+                    reasonCode == MqttException.REASON_CODE_NOT_AUTHORIZED;
+        }
+        return false;
+    }
+
     @Override
     public void processIncomingMessage(MqttMessage message, String... messageParams) throws TransportHandlerException {
     }
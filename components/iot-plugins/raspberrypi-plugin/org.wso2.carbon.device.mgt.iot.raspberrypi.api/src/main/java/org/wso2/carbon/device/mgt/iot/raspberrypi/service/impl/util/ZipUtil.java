@@ -25,10 +25,8 @@ import org.wso2.carbon.device.mgt.iot.exception.IoTException;
 import org.wso2.carbon.device.mgt.iot.util.IoTUtil;
 import org.wso2.carbon.device.mgt.iot.util.IotDeviceManagementUtil;
 import org.wso2.carbon.device.mgt.iot.util.ZipArchive;
-import org.wso2.carbon.utils.CarbonUtils;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -49,8 +47,6 @@ public class ZipUtil {
                                     String refreshToken) throws DeviceManagementException {
 
         String sketchFolder = "repository" + File.separator + "resources" + File.separator + "sketches";
-        String archivesPath = CarbonUtils.getCarbonHome() + File.separator + sketchFolder + File.separator + "archives" +
-                        File.separator + deviceId;
         String templateSketchPath = sketchFolder + File.separator + deviceType;
         String iotServerIP;
 
@@ -86,12 +82,10 @@ public class ZipUtil {
             contextParams.put("DEVICE_REFRESH_TOKEN", refreshToken);
 
             ZipArchive zipFile;
-            zipFile = IotDeviceManagementUtil.getSketchArchive(archivesPath, templateSketchPath, contextParams);
+            zipFile = IotDeviceManagementUtil.getSketchArchive(templateSketchPath, contextParams);
             return zipFile;
         } catch (IoTException e) {
             throw new DeviceManagementException(e.getMessage());
-        } catch (IOException e) {
-            throw new DeviceManagementException("Zip File Creation Failed", e);
         }
     }
 }
@@ -36,6 +36,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.Inet4Address;
 import java.net.InetAddress;
@@ -44,7 +45,6 @@ import java.net.ProtocolException;
 import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.Enumeration;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -52,7 +52,7 @@ import java.util.concurrent.TimeUnit;
 public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
     private static final Log log = LogFactory.getLog(FireAlarmHTTPCommunicator.class);
 
-    private ScheduledExecutorService service = Executors.newScheduledThreadPool(2);
+    private ScheduledExecutorService service = AgentManager.getInstance().getAgentScheduler();
     private ScheduledFuture<?> dataPushServiceHandler;
     private ScheduledFuture<?> connectorServiceHandler;
 
@@ -164,6 +164,11 @@ public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
         int duration = 2 * 60;
         int frequency = 5;
 
+        if (dataPushServiceHandler != null) {
+            // a restart re-schedules the data push, hence the push scheduled on the previous start is stopped.
+            dataPushServiceHandler.cancel(false);
+        }
+
         Runnable pushDataRunnable = new Runnable() {
             @Override
             public void run() {
@@ -211,7 +216,8 @@ public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
             dataOutPutWriter.close();
 
             responseCode = httpConnection.getResponseCode();
-            httpConnection.disconnect();
+            // the connection is not disconnected, so that it is kept alive and reused for the next push.
+            consumeResponse(httpConnection);
 
             log.info(AgentConstants.LOG_APPENDER + "Message - '" + pushDataPayload +
                              "' was published to server at: " + httpConnection.getURL());
@@ -261,11 +267,48 @@ public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
         }
     }
 
+    /**
+     * Reads and closes the response of the given connection. The underlying socket is then returned to the
+     * keep-alive cache of the JVM, from where it is reused by the next request to the same server.
+     *
+     * @param httpConnection the connection whose response is to be consumed.
+     */
+    private static void consumeResponse(HttpURLConnection httpConnection) {
+        InputStream responseStream = null;
+        try {
+            if (httpConnection.getResponseCode() < HttpURLConnection.HTTP_BAD_REQUEST) {
+                responseStream = httpConnection.getInputStream();
+            } else {
+                responseStream = httpConnection.getErrorStream();
+            }
+            if (responseStream != null) {
+                byte[] buffer = new byte[1024];
+                while (responseStream.read(buffer) != -1) {
+                    // discard the response body.
+                }
+            }
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug(AgentConstants.LOG_APPENDER + "Error whilst reading the response from: " +
+                                  httpConnection.getURL());
+            }
+        } finally {
+            if (responseStream != null) {
+                try {
+                    responseStream.close();
+                } catch (IOException e) {
+                    log.warn(AgentConstants.LOG_APPENDER + "Error whilst closing the response stream from: " +
+                                     httpConnection.getURL());
+                }
+            }
+        }
+    }
+
     @Override
     public void disconnect() {
         Runnable stopConnection = new Runnable() {
             public void run() {
-                while (isConnected()) {
+                if (isConnected()) {
                     try {
                         dataPushServiceHandler.cancel(true);
                         connectorServiceHandler.cancel(true);
@@ -276,21 +319,15 @@ public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
                                              "Unable to 'STOP' HTTP server at port: " + port);
                         }
 
-                        try {
-                            Thread.sleep(timeoutInterval);
-                        } catch (InterruptedException e1) {
-                            log.error(AgentConstants.LOG_APPENDER +
-                                              "HTTP-Termination: Thread Sleep Interrupt " +
-                                              "Exception");
+                        if (!service.isShutdown()) {
+                            service.schedule(this, timeoutInterval, TimeUnit.MILLISECONDS);
                         }
                     }
                 }
             }
         };
 
-        Thread terminatorThread = new Thread(stopConnection);
-        terminatorThread.setDaemon(true);
-        terminatorThread.start();
+        service.execute(stopConnection);
     }
 
     @Override
@@ -310,7 +347,7 @@ public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
         final Runnable ipRegistration = new Runnable() {
             @Override
             public void run() {
-                while (isConnected()) {
+                if (isConnected()) {
                     try {
                         int responseCode = registerDeviceIP(
                                 agentManager.getAgentConfigs().getDeviceOwner(),
@@ -318,7 +355,7 @@ public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
 
                         if (responseCode == HttpStatus.OK_200) {
                             agentManager.updateAgentStatus(AgentConstants.REGISTERED);
-                            break;
+                            return;
                         } else {
                             log.error(AgentConstants.LOG_APPENDER +
                                               "Device Registration with IoT Server at:" + " " +
@@ -337,19 +374,14 @@ public class FireAlarmHTTPCommunicator extends HTTPTransportHandler {
                         agentManager.updateAgentStatus(AgentConstants.REGISTRATION_FAILED);
                     }
 
-                    try {
-                        Thread.sleep(timeoutInterval);
-                    } catch (InterruptedException e1) {
-                        log.error(AgentConstants.LOG_APPENDER +
-                                          "Device Registration: Thread Sleep Interrupt Exception");
+                    if (!service.isShutdown()) {
+                        service.schedule(this, timeoutInterval, TimeUnit.MILLISECONDS);
                     }
                 }
             }
         };
 
-        Thread ipRegisterThread = new Thread(ipRegistration);
-        ipRegisterThread.setDaemon(true);
-        ipRegisterThread.start();
+        service.execute(ipRegistration);
     }
 
 
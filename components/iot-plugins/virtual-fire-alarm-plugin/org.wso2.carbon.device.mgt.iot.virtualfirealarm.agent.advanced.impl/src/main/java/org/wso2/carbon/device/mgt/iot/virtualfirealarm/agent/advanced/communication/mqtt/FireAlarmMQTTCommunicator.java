@@ -31,7 +31,6 @@ import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.advanced.transport.
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.advanced.transport.mqtt.MQTTTransportHandler;
 
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -41,7 +40,7 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
     private static final Log log = LogFactory.getLog(FireAlarmMQTTCommunicator.class);
     private static final Gson gson = new Gson();
 
-    private ScheduledExecutorService service = Executors.newScheduledThreadPool(2);
+    private ScheduledExecutorService service = AgentManager.getInstance().getAgentScheduler();
     private ScheduledFuture<?> dataPushServiceHandler;
 
     public FireAlarmMQTTCommunicator(String deviceOwner, String deviceType,
@@ -67,9 +66,8 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
         final AgentManager agentManager = AgentManager.getInstance();
         Runnable connector = new Runnable() {
             public void run() {
-                while (!isConnected()) {
+                if (!isConnected()) {
                     try {
-
                         connectToQueue();
                         agentManager.updateAgentStatus("Connected to MQTT Queue");
                     } catch (TransportHandlerException e) {
@@ -88,18 +86,14 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                         agentManager.updateAgentStatus("Subscription to broker failed.");
                     }
 
-                    try {
-                        Thread.sleep(timeoutInterval);
-                    } catch (InterruptedException ex) {
-                        log.error(AgentConstants.LOG_APPENDER + "MQTT: Connect-Thread Sleep Interrupt Exception.");
+                    if (!isConnected() && !service.isShutdown()) {
+                        service.schedule(this, timeoutInterval, TimeUnit.MILLISECONDS);
                     }
                 }
             }
         };
 
-        Thread connectorThread = new Thread(connector);
-        connectorThread.setDaemon(true);
-        connectorThread.start();
+        service.execute(connector);
     }
 
 
@@ -187,6 +181,10 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
     public void publishDeviceData() {
         final AgentManager agentManager = AgentManager.getInstance();
         int publishInterval = agentManager.getPushInterval();
+        if (dataPushServiceHandler != null) {
+            // a reconnect re-schedules the data push, hence the push scheduled on the previous connect is stopped.
+            dataPushServiceHandler.cancel(false);
+        }
         Runnable pushDataRunnable = new Runnable() {
             @Override
             public void run() {
@@ -228,7 +226,7 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
     public void disconnect() {
         Runnable stopConnection = new Runnable() {
             public void run() {
-                while (isConnected()) {
+                if (isConnected()) {
 
                     if (dataPushServiceHandler != null) {
                         dataPushServiceHandler.cancel(true);
@@ -244,20 +242,15 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                                              mqttBrokerEndPoint);
                         }
 
-                        try {
-                            Thread.sleep(timeoutInterval);
-                        } catch (InterruptedException e1) {
-                            log.error(AgentConstants.LOG_APPENDER +
-                                              "MQTT-Terminator: Thread Sleep Interrupt Exception");
+                        if (!service.isShutdown()) {
+                            service.schedule(this, timeoutInterval, TimeUnit.MILLISECONDS);
                         }
                     }
                 }
             }
         };
 
-        Thread terminatorThread = new Thread(stopConnection);
-        terminatorThread.setDaemon(true);
-        terminatorThread.start();
+        service.execute(stopConnection);
     }
 
     @Override
@@ -23,6 +23,8 @@ public class AgentConstants {
 	public static final String LOG_APPENDER = "AGENT_LOG:: ";
 	public static final String PROPERTIES_FILE_PATH = "";
 	public static final int DEFAULT_RETRY_THREAD_INTERVAL = 5000;        // time in millis
+	public static final int AGENT_SCHEDULER_POOL_SIZE = 4;
+	public static final int AGENT_SHUTDOWN_TIMEOUT = 10;                 // time in seconds
 	/*	---------------------------------------------------------------------------------------
 								IoT-Server specific information
  		---------------------------------------------------------------------------------------	*/
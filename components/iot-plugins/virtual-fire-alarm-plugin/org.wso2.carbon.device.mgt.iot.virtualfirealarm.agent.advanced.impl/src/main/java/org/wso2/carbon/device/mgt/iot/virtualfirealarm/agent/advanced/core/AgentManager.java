@@ -36,6 +36,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class AgentManager {
 
@@ -57,6 +60,9 @@ public class AgentManager {
     private String networkInterface;
     private List<String> interfaceList, protocolList;
     private Map<String, TransportHandler> agentCommunicator;
+    // shared by all the communicators for their periodic and retried tasks.
+    private final ScheduledExecutorService agentScheduler =
+            Executors.newScheduledThreadPool(AgentConstants.AGENT_SCHEDULER_POOL_SIZE);
 
     private AgentConfiguration agentConfigs;
 
@@ -92,6 +98,12 @@ public class AgentManager {
     public void init() {
 
         agentCommunicator = new HashMap<>();
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        });
 
         // Read IoT-Server specific configurations from the 'deviceConfig.properties' file
         this.agentConfigs = AgentUtilOperations.readIoTServerConfigs();
@@ -232,6 +244,30 @@ public class AgentManager {
         this.agentStatus = status;
     }
 
+    /**
+     * Disconnects the communicator in use and stops the scheduler shared by the communicators, giving the tasks
+     * that are already running a grace period to complete.
+     */
+    public void shutdown() {
+        TransportHandler communicator = agentCommunicator.get(protocol);
+        if (communicator != null && communicator.isConnected()) {
+            communicator.disconnect();
+        }
+        agentScheduler.shutdown();
+        try {
+            if (!agentScheduler.awaitTermination(AgentConstants.AGENT_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                agentScheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            agentScheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public ScheduledExecutorService getAgentScheduler() {
+        return agentScheduler;
+    }
+
     public void addToPolicyLog(String policy) {
         VirtualHardwareManager.getInstance().addToPolicyLog(policy);
     }
@@ -352,12 +388,14 @@ public class AgentManager {
     }
 
     /**
-     * Get temperature reading from device
+     * Get temperature reading from device. Each reading is also fed to the local Sidhdhi query.
      *
      * @return Temperature
      */
     public int getTemperature() {
-        return VirtualHardwareManager.getInstance().getTemperature();
+        int temperature = VirtualHardwareManager.getInstance().getTemperature();
+        SidhdhiQuery.addReading(temperature);
+        return temperature;
     }
 
     /**
@@ -47,6 +47,7 @@ public class AgentUtilOperations {
     private static final String JSON_MESSAGE_KEY = "Msg";
     private static final String JSON_SIGNATURE_KEY = "Sig";
     private static final String JSON_SERIAL_KEY = "SerialNumber";
+    private static final String JSON_SIGNATURE_ALGORITHM_KEY = "Alg";
 
     /**
      * This method reads the agent specific configurations for the device from the
@@ -248,6 +249,11 @@ public class AgentUtilOperations {
         JSONObject jsonPayload = new JSONObject();
         jsonPayload.put(JSON_MESSAGE_KEY, encodedMessage);
         jsonPayload.put(JSON_SIGNATURE_KEY, signedPayload);
+        String signatureAlgorithm = CommunicationUtils.getSignatureAlgorithm(devicePrivateKey);
+        if (!CommunicationUtils.SIGNATURE_ALG.equals(signatureAlgorithm)) {
+            // the algorithm is advertised only when it is not the one understood by all the server versions.
+            jsonPayload.put(JSON_SIGNATURE_ALGORITHM_KEY, signatureAlgorithm);
+        }
         //below statements are temporary fix.
         jsonPayload.put(JSON_SERIAL_KEY, EnrollmentManager.getInstance().getSCEPCertificate().getSerialNumber());
 
@@ -262,12 +268,14 @@ public class AgentUtilOperations {
         JSONObject jsonPayload = new JSONObject(message);
         Object encodedMessage = jsonPayload.get(JSON_MESSAGE_KEY);
         Object signedPayload = jsonPayload.get(JSON_SIGNATURE_KEY);
+        String signatureAlgorithm = jsonPayload.has(JSON_SIGNATURE_ALGORITHM_KEY) ?
+                jsonPayload.getString(JSON_SIGNATURE_ALGORITHM_KEY) : null;
         boolean verification;
 
         if (encodedMessage != null && signedPayload != null) {
             try {
                 verification = CommunicationUtils.verifySignature(
-                        encodedMessage.toString(), signedPayload.toString(), serverPublicKey);
+                        encodedMessage.toString(), signedPayload.toString(), serverPublicKey, signatureAlgorithm);
             } catch (TransportHandlerException e) {
                 String errorMsg =
                         "Error occurred whilst trying to verify signature on received message: [" + message + "]";
@@ -29,6 +29,7 @@ import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.advanced.core.Agent
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.advanced.core.AgentUtilOperations;
 import org.wso2.siddhi.core.SiddhiManager;
 import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.event.in.InEvent;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.stream.output.StreamCallback;
 
@@ -42,19 +43,32 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
- * This class reads the humidity reading and injects values
- * to the siddhiEngine for processing on a routine basis
- * also if the siddhiquery is updated the class takes
- * care of re-initializing same.
+ * This class injects the temperature readings of the device to the siddhiEngine for processing. The readings are
+ * queued as they arrive and are injected in batches, hence the local CEP keeps up with the rate at which readings
+ * are taken. If no reading arrives within the sampling interval a reading is taken here, so that the policy is
+ * evaluated on a routine basis. If the siddhiquery is updated the class starts a new execution plan with it and
+ * swaps it in before shutting down the current one, so that no readings are lost whilst the policy is updated.
  */
 public class SidhdhiQuery implements Runnable {
     private static final Log log = LogFactory.getLog(SidhdhiQuery.class);
     public static final String sidhdhiQueryPath = AgentManager.getInstance().getRootPath() + AgentConstants.CEP_FILE_NAME;
+    private static final String INPUT_STREAM_ID = "fireAlarmEventStream";
+    private static final String SENSOR_ID = "FIRE_1";
+    private static final int SAMPLING_INTERVAL = 3000;
+    private static final int MAX_PENDING_READINGS = 1000;
+
+    // readings that are yet to be injected, as {timestamp, temperature}.
+    private static final BlockingQueue<long[]> pendingReadings = new ArrayBlockingQueue<>(MAX_PENDING_READINGS);
 
     //Bam data push client
-    private static SiddhiManager siddhiManager = new SiddhiManager();
+    private static volatile SiddhiManager siddhiManager = new SiddhiManager();
 
     public static SiddhiManager getSiddhiManager() {
         return siddhiManager;
@@ -64,6 +78,17 @@ public class SidhdhiQuery implements Runnable {
         SidhdhiQuery.siddhiManager = siddhiManager;
     }
 
+    /**
+     * Queues a temperature reading of the device to be injected to the execution plan.
+     *
+     * @param temperature the temperature reading.
+     */
+    public static void addReading(int temperature) {
+        if (!pendingReadings.offer(new long[]{System.currentTimeMillis(), temperature})) {
+            log.warn("Siddhi event queue is full, dropping temperature reading: " + temperature);
+        }
+    }
+
     public void run() {
 
         //Start the execution plan with pre-defined or previously persisted Siddhi query
@@ -73,24 +98,38 @@ public class SidhdhiQuery implements Runnable {
             AgentUtilOperations.writeToFile(AgentConstants.CEP_QUERY, sidhdhiQueryPath);
         }
 
-        StartExecutionPlan startExecutionPlan = new StartExecutionPlan().invoke();
+        InputHandler inputHandler = new StartExecutionPlan(siddhiManager).invoke().getInputHandler();
+        List<long[]> readings = new ArrayList<>();
 
         while (true) {
 
             //Check if there is new policy update available
             if (AgentManager.isUpdated()) {
                 System.out.print("### Policy Update Detected!");
-                //Restart execution plan with new query
-                restartSiddhi();
-                startExecutionPlan = new StartExecutionPlan().invoke();
+                //Swap in a new execution plan with the updated query
+                inputHandler = restartSiddhi(inputHandler);
             }
-            InputHandler inputHandler = startExecutionPlan.getInputHandler();
 
             //Sending events to Siddhi
             try {
-                int humidityReading = AgentManager.getInstance().getTemperature();
-                inputHandler.send(new Object[]{"FIRE_1", humidityReading});
-                Thread.sleep(3000);
+                long[] reading = pendingReadings.poll(SAMPLING_INTERVAL, TimeUnit.MILLISECONDS);
+                if (reading == null) {
+                    // taking a reading queues it for injection.
+                    AgentManager.getInstance().getTemperature();
+                    continue;
+                }
+                readings.add(reading);
+                pendingReadings.drainTo(readings);
+                // the drained readings are injected as a single batch. Events of Siddhi 2.x carry the id of their
+                // stream, hence they are created as InEvents of the input stream.
+                Event[] events = new Event[readings.size()];
+                for (int i = 0; i < events.length; i++) {
+                    long[] pendingReading = readings.get(i);
+                    events[i] = new InEvent(INPUT_STREAM_ID, pendingReading[0],
+                                            new Object[]{SENSOR_ID, (int) pendingReading[1]});
+                }
+                inputHandler.send(events);
+                readings.clear();
             } catch (InterruptedException e) {
                 e.printStackTrace();
                 break;
@@ -99,11 +138,26 @@ public class SidhdhiQuery implements Runnable {
     }
 
     /**
-     * Re-Initialize SiddhiManager
+     * Starts a new SiddhiManager with the updated execution plan and swaps it in for the current one, which is
+     * shut down only afterwards. If the updated execution plan fails to start, the current one is retained.
+     *
+     * @param inputHandler the input handler of the current execution plan.
+     * @return the input handler of the execution plan that is in effect.
      */
-    private void restartSiddhi() {
-        siddhiManager.shutdown();
-        siddhiManager = new SiddhiManager();
+    private InputHandler restartSiddhi(InputHandler inputHandler) {
+        SiddhiManager updatedSiddhiManager = new SiddhiManager();
+        InputHandler updatedInputHandler;
+        try {
+            updatedInputHandler = new StartExecutionPlan(updatedSiddhiManager).invoke().getInputHandler();
+        } catch (RuntimeException e) {
+            log.error("Error starting the updated Sidhdhi query, retaining the current query.", e);
+            updatedSiddhiManager.shutdown();
+            return inputHandler;
+        }
+        SiddhiManager currentSiddhiManager = siddhiManager;
+        siddhiManager = updatedSiddhiManager;
+        currentSiddhiManager.shutdown();
+        return updatedInputHandler;
     }
 
 
@@ -155,8 +209,13 @@ public class SidhdhiQuery implements Runnable {
      * Initialize SiddhiExecution plan
      */
     private static class StartExecutionPlan {
+        private final SiddhiManager siddhiManager;
         private InputHandler inputHandler;
 
+        StartExecutionPlan(SiddhiManager siddhiManager) {
+            this.siddhiManager = siddhiManager;
+        }
+
         public InputHandler getInputHandler() {
             return inputHandler;
         }
@@ -195,7 +254,7 @@ public class SidhdhiQuery implements Runnable {
             });
 
             //Retrieving InputHandler to push events into Siddhi
-            inputHandler = siddhiManager.getInputHandler("fireAlarmEventStream");
+            inputHandler = siddhiManager.getInputHandler(INPUT_STREAM_ID);
 
             //Starting event processing
             System.out.println("Execution Plan Started!");
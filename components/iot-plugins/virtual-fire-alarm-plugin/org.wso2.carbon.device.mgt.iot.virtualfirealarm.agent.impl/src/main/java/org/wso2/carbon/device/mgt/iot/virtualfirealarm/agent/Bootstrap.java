@@ -18,19 +18,25 @@
 
 package org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent;
 
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentConstants;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentManager;
 
 public class Bootstrap {
 
     /**
-     * @param args the command line arguments
+     * @param args the command line arguments. "--simulate &lt;device-list.csv&gt;" runs the agent headless, simulating
+     *             the devices listed in the given file.
      */
     public static void main(String[] args) {
 	    System.setProperty("org.apache.commons.logging.Log", "org.apache.commons.logging.impl.SimpleLog");
 	    System.setProperty("org.apache.commons.logging.simplelog.defaultlog", "info");
 	    System.setProperty("org.apache.commons.logging.simplelog.showdatetime", "true");
 	    System.setProperty("org.apache.commons.logging.simplelog.dateTimeFormat", "HH:mm:ss");
-        AgentManager.getInstance().init();
+        if (args.length == 2 && AgentConstants.SIMULATION_ARGUMENT.equals(args[0])) {
+            AgentManager.getInstance().initSimulation(args[1]);
+        } else {
+            AgentManager.getInstance().init();
+        }
     }
 
 }
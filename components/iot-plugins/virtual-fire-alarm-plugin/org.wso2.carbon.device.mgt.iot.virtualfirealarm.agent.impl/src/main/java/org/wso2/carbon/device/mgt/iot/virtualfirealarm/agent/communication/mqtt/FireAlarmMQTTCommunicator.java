@@ -30,7 +30,6 @@ import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.Transport
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.mqtt.MQTTTransportHandler;
 
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -40,12 +39,13 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
 
     private static final Log log = LogFactory.getLog(FireAlarmMQTTCommunicator.class);
 
-    private ScheduledExecutorService service = Executors.newScheduledThreadPool(2);
+    private ScheduledExecutorService service = AgentManager.getInstance().getAgentScheduler();
     private ScheduledFuture<?> dataPushServiceHandler;
 
     public FireAlarmMQTTCommunicator(String deviceOwner, String deviceType,
                                      String mqttBrokerEndPoint, String subscribeTopic) {
         super(deviceOwner, deviceType, mqttBrokerEndPoint, subscribeTopic);
+        setDisconnectionWillTopic();
     }
 
     @SuppressWarnings("unused")
@@ -53,6 +53,34 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                                      String mqttBrokerEndPoint, String subscribeTopic,
                                      int intervalInMillis) {
         super(deviceOwner, deviceType, mqttBrokerEndPoint, subscribeTopic, intervalInMillis);
+        setDisconnectionWillTopic();
+    }
+
+    /**
+     * Sets the will of the client on the disconnection topic of the device, to which the IoT-Server is subscribed.
+     * Hence, the server gets to know when the device drops off without disconnecting.
+     */
+    private void setDisconnectionWillTopic() {
+        AgentManager agentManager = AgentManager.getInstance();
+        setClientWillTopic(String.format(AgentConstants.MQTT_DISCONNECTION_TOPIC,
+                                         agentManager.getAgentConfigs().getTenantDomain(),
+                                         agentManager.getAgentConfigs().getDeviceId()));
+    }
+
+    /**
+     * Signs the will of the client with the key of the device, as the IoT-Server only accepts a disconnection
+     * message that it can verify to be from the device. The device is enrolled by the time it connects, hence the
+     * will is signed then rather than when the client is created.
+     */
+    private void signDisconnectionWill() {
+        String deviceId = AgentManager.getInstance().getAgentConfigs().getDeviceId();
+        try {
+            String willMessage = AgentConstants.DISCONNECTION_CONTROL + ":" + deviceId;
+            setClientWill(getClientWillTopic(), AgentUtilOperations.prepareSecurePayLoad(willMessage));
+        } catch (AgentCoreOperationException e) {
+            log.warn(AgentConstants.LOG_APPENDER + "Signing the disconnection message failed. The server will not " +
+                             "be notified should the connection be lost.", e);
+        }
     }
 
     public ScheduledFuture<?> getDataPushServiceHandler() {
@@ -64,9 +92,10 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
     @Override
     public void connect() {
         final AgentManager agentManager = AgentManager.getInstance();
+        signDisconnectionWill();
         Runnable connector = new Runnable() {
             public void run() {
-                while (!isConnected()) {
+                if (!isConnected()) {
                     try {
                         connectToQueue();
                         agentManager.updateAgentStatus("Connected to MQTT Queue");
@@ -78,6 +107,8 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                     try{
                         subscribeToQueue();
                         agentManager.updateAgentStatus("Subscribed to MQTT Queue");
+                        // an empty retained message clears the will retained from a previous lost connection.
+                        publishToQueue(getClientWillTopic(), "", AgentConstants.DEFAULT_MQTT_QUALITY_OF_SERVICE, true);
                         publishDeviceData();
 
                     } catch (TransportHandlerException e) {
@@ -86,18 +117,14 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                         agentManager.updateAgentStatus("Subscription to broker failed.");
                     }
 
-                    try {
-                        Thread.sleep(timeoutInterval);
-                    } catch (InterruptedException ex) {
-                        log.error(AgentConstants.LOG_APPENDER + "MQTT: Connect-Thread Sleep Interrupt Exception.");
+                    if (!isConnected() && !service.isShutdown()) {
+                        service.schedule(this, timeoutInterval, TimeUnit.MILLISECONDS);
                     }
                 }
             }
         };
 
-        Thread connectorThread = new Thread(connector);
-        connectorThread.setDaemon(true);
-        connectorThread.start();
+        service.execute(connector);
     }
 
 
@@ -158,6 +185,14 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                     publishToQueue(humidPublishTopic, securePayLoad);
                     break;
 
+                case AgentConstants.SESSION_CONTROL:
+                    if (controlSignal.length > 1 && AgentConstants.SESSION_RENEW.equals(controlSignal[1])) {
+                        // the server does not recognize the session key, hence a new key is agreed on the next push.
+                        AgentUtilOperations.renewSessionKey();
+                        log.info(AgentConstants.LOG_APPENDER + "Session key renewal was requested by the server");
+                    }
+                    break;
+
                 default:
                     log.warn(AgentConstants.LOG_APPENDER + "'" + controlSignal[0] +
                                      "' is invalid and not-supported for this device-type");
@@ -177,6 +212,10 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
     public void publishDeviceData() {
         final AgentManager agentManager = AgentManager.getInstance();
         int publishInterval = agentManager.getPushInterval();
+        if (dataPushServiceHandler != null) {
+            // a reconnect re-schedules the data push, hence the push scheduled on the previous connect is stopped.
+            dataPushServiceHandler.cancel(false);
+        }
         Runnable pushDataRunnable = new Runnable() {
             @Override
             public void run() {
@@ -184,17 +223,21 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                 String message = "PUBLISHER:" + AgentConstants.TEMPERATURE_CONTROL + ":" + currentTemperature;
 
                 try {
-                    String payLoad = AgentUtilOperations.prepareSecurePayLoad(message);
+                    String topic = String.format(AgentConstants.MQTT_PUBLISH_TOPIC,
+                                                 agentManager.getAgentConfigs().getTenantDomain(),
+                                                 agentManager.getAgentConfigs().getDeviceId());
+
+                    String handshake = AgentUtilOperations.prepareSessionHandshake();
+                    if (handshake != null) {
+                        publishToQueue(topic, handshake);
+                    }
+                    String payLoad = AgentUtilOperations.prepareSessionPayLoad(message);
 
                     MqttMessage pushMessage = new MqttMessage();
                     pushMessage.setPayload(payLoad.getBytes(StandardCharsets.UTF_8));
                     pushMessage.setQos(DEFAULT_MQTT_QUALITY_OF_SERVICE);
                     pushMessage.setRetained(false);
 
-                    String topic = String.format(AgentConstants.MQTT_PUBLISH_TOPIC,
-                                                 agentManager.getAgentConfigs().getTenantDomain(),
-                                                 agentManager.getAgentConfigs().getDeviceId());
-
                     publishToQueue(topic, pushMessage);
                     log.info(AgentConstants.LOG_APPENDER + "Message: '" + message + "' published to MQTT Queue at [" +
                                      agentManager.getAgentConfigs().getMqttBrokerEndpoint() + "] under topic [" +
@@ -218,7 +261,7 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
     public void disconnect() {
         Runnable stopConnection = new Runnable() {
             public void run() {
-                while (isConnected()) {
+                if (isConnected()) {
 
                     if (dataPushServiceHandler != null) {
                         dataPushServiceHandler.cancel(true);
@@ -234,20 +277,15 @@ public class FireAlarmMQTTCommunicator extends MQTTTransportHandler {
                                              mqttBrokerEndPoint);
                         }
 
-                        try {
-                            Thread.sleep(timeoutInterval);
-                        } catch (InterruptedException e1) {
-                            log.error(AgentConstants.LOG_APPENDER +
-                                              "MQTT-Terminator: Thread Sleep Interrupt Exception");
+                        if (!service.isShutdown()) {
+                            service.schedule(this, timeoutInterval, TimeUnit.MILLISECONDS);
                         }
                     }
                 }
             }
         };
 
-        Thread terminatorThread = new Thread(stopConnection);
-        terminatorThread.setDaemon(true);
-        terminatorThread.start();
+        service.execute(stopConnection);
     }
 
     @Override
@@ -28,7 +28,6 @@ import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.exception.AgentCore
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.TransportHandlerException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.xmpp.XMPPTransportHandler;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -37,7 +36,7 @@ public class FireAlarmXMPPCommunicator extends XMPPTransportHandler {
 
     private static final Log log = LogFactory.getLog(FireAlarmXMPPCommunicator.class);
 
-    private ScheduledExecutorService service = Executors.newScheduledThreadPool(2);
+    private ScheduledExecutorService service = AgentManager.getInstance().getAgentScheduler();
     private ScheduledFuture<?> dataPushServiceHandler;
     private ScheduledFuture<?> connectorServiceHandler;
 
@@ -183,6 +182,10 @@ public class FireAlarmXMPPCommunicator extends XMPPTransportHandler {
     public void publishDeviceData() {
         final AgentManager agentManager = AgentManager.getInstance();
         int publishInterval = agentManager.getPushInterval();
+        if (dataPushServiceHandler != null) {
+            // a reconnect re-schedules the data push, hence the push scheduled on the previous connect is stopped.
+            dataPushServiceHandler.cancel(false);
+        }
 
         Runnable pushDataRunnable = new Runnable() {
             @Override
@@ -228,27 +231,24 @@ public class FireAlarmXMPPCommunicator extends XMPPTransportHandler {
                     connectorServiceHandler.cancel(true);
                 }
 
-                while (isConnected()) {
+                if (isConnected()) {
                     closeConnection();
+                }
 
+                if (isConnected()) {
                     if (log.isDebugEnabled()) {
                         log.warn(AgentConstants.LOG_APPENDER +
                                          "Unable to 'STOP' connection to XMPP server at: " + server);
                     }
 
-                    try {
-                        Thread.sleep(timeoutInterval);
-                    } catch (InterruptedException e1) {
-                        log.error(AgentConstants.LOG_APPENDER + "XMPP-Terminator: Thread Sleep Interrupt Exception");
+                    if (!service.isShutdown()) {
+                        service.schedule(this, timeoutInterval, TimeUnit.MILLISECONDS);
                     }
-
                 }
             }
         };
 
-        Thread terminatorThread = new Thread(stopConnection);
-        terminatorThread.setDaemon(true);
-        terminatorThread.start();
+        service.execute(stopConnection);
     }
 
 
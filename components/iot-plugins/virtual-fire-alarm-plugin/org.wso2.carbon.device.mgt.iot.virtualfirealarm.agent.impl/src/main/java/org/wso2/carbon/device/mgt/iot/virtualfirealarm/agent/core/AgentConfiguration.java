@@ -39,6 +39,7 @@ public class AgentConfiguration {
 	private String authToken;
 	private String refreshToken;
 	private int dataPushInterval;
+	private int sessionKeyValidity;
 
 	public String getTenantDomain() {
 		return tenantDomain;
@@ -152,6 +153,18 @@ public class AgentConfiguration {
 		this.dataPushInterval = dataPushInterval;
 	}
 
+	/**
+	 * @return the time in seconds for which a session key agreed with the server is used, or 0 if the messages are
+	 * to be signed individually.
+	 */
+	public int getSessionKeyValidity() {
+		return sessionKeyValidity;
+	}
+
+	public void setSessionKeyValidity(int sessionKeyValidity) {
+		this.sessionKeyValidity = sessionKeyValidity;
+	}
+
 	public String getScepContext() {
 		return scepContext;
 	}
@@ -23,6 +23,8 @@ public class AgentConstants {
 	public static final String LOG_APPENDER = "AGENT_LOG:: ";
 	public static final String PROPERTIES_FILE_PATH = "";
 	public static final int DEFAULT_RETRY_THREAD_INTERVAL = 5000;        // time in millis
+	public static final int AGENT_SCHEDULER_POOL_SIZE = 4;
+	public static final int AGENT_SHUTDOWN_TIMEOUT = 10;                 // time in seconds
 	/*	---------------------------------------------------------------------------------------
 								IoT-Server specific information
  		---------------------------------------------------------------------------------------	*/
@@ -58,6 +60,18 @@ public class AgentConstants {
 	public static final int DEFAULT_MQTT_QUALITY_OF_SERVICE = 0;
 	public static final String MQTT_SUBSCRIBE_TOPIC = "wso2/%s/" + DEVICE_TYPE + "/%s";
 	public static final String MQTT_PUBLISH_TOPIC = "wso2/%s/" + DEVICE_TYPE + "/%s/publisher";
+	// the broker publishes the (retained) will of the device to this topic, should the device lose its connection.
+	public static final String MQTT_DISCONNECTION_TOPIC = "wso2/%s/" + DEVICE_TYPE + "/%s/disconnection";
+	/*	---------------------------------------------------------------------------------------
+						Headless multi-device simulation specific information
+ 		---------------------------------------------------------------------------------------	*/
+	public static final String SIMULATION_ARGUMENT = "--simulate";
+	public static final String SIMULATION_CLIENT_ID_PREFIX = "simulator:";
+	public static final int SIMULATION_QUALITY_OF_SERVICE = 1;
+	public static final int SIMULATION_REPORT_INTERVAL = 30;                 // time in seconds
+	public static final int SIMULATION_TEMPERATURE_MIN = 20;
+	public static final int SIMULATION_TEMPERATURE_MAX = 50;
+	public static final int SIMULATION_TEMPERATURE_SVF = 10;
 	/*	---------------------------------------------------------------------------------------
 								XMPP Connection specific information
  		---------------------------------------------------------------------------------------	*/
@@ -82,11 +96,13 @@ public class AgentConstants {
 	public static final String REFRESH_TOKEN_PROPERTY = "refresh-token";
 	public static final String NETWORK_INTERFACE_PROPERTY = "network-interface";
 	public static final String PUSH_INTERVAL_PROPERTY = "push-interval";
+	public static final String SESSION_KEY_VALIDITY_PROPERTY = "session-key-validity";
 	/*	---------------------------------------------------------------------------------------
 				Default values for the Device/Agent specific configurations listed above
 	 	---------------------------------------------------------------------------------------	*/
 	public static final String DEFAULT_NETWORK_INTERFACE = "en0";
 	public static final int DEFAULT_DATA_PUBLISH_INTERVAL = 15;                  // seconds
+	public static final int DEFAULT_SESSION_KEY_VALIDITY = 0;                    // seconds, 0 disables session keys
 	public static final String DEFAULT_PROTOCOL = "MQTT";
 	/*	---------------------------------------------------------------------------------------
 					Control Signal specific constants to match the request context
@@ -95,6 +111,9 @@ public class AgentConstants {
 	public static final String TEMPERATURE_CONTROL = "TEMPERATURE";
 	public static final String POLICY_SIGNAL = "POLICY";
 	public static final String HUMIDITY_CONTROL = "HUMIDITY";
+	public static final String SESSION_CONTROL = "SESSION";
+	public static final String SESSION_RENEW = "RENEW";
+	public static final String DISCONNECTION_CONTROL = "DISCONNECTION";
 	public static final String CONTROL_ON = "ON";
 	public static final String CONTROL_OFF = "OFF";
 	public static final String AUDIO_FILE_NAME = "fireAlarmSound.mid";
@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.enrollment.EnrollmentManager;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.exception.AgentCoreOperationException;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.simulation.DeviceSimulator;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.TransportHandler;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.TransportHandlerException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.TransportUtils;
@@ -34,6 +35,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class AgentManager {
 
@@ -53,8 +57,12 @@ public class AgentManager {
     private String networkInterface;
     private List<String> interfaceList, protocolList;
     private Map<String, TransportHandler> agentCommunicator;
+    // shared by all the communicators for their periodic and retried tasks.
+    private final ScheduledExecutorService agentScheduler =
+            Executors.newScheduledThreadPool(AgentConstants.AGENT_SCHEDULER_POOL_SIZE);
 
     private AgentConfiguration agentConfigs;
+    private DeviceSimulator deviceSimulator;
 
     private String deviceIP;
     private String enrollmentEP;
@@ -74,18 +82,8 @@ public class AgentManager {
     public void init() {
 
         agentCommunicator = new HashMap<>();
-
-        // Read IoT-Server specific configurations from the 'deviceConfig.properties' file
-        try {
-            this.agentConfigs = AgentUtilOperations.readIoTServerConfigs();
-        } catch (AgentCoreOperationException e) {
-            log.error("Reading device configuration from configd file failed:\n");
-            log.error(e);
-            System.exit(0);
-        }
-
-        // Initialise IoT-Server URL endpoints from the configuration read from file
-        AgentUtilOperations.initializeServerEndPoints();
+        registerShutdownHook();
+        loadAgentConfigs();
 
         String analyticsPageContext = String.format(AgentConstants.DEVICE_ANALYTICS_PAGE_URL,
                                                     agentConfigs.getDeviceId(),
@@ -165,6 +163,59 @@ public class AgentManager {
         agentCommunicator.get(protocol).connect();
     }
 
+    /**
+     * Initializes the agent to simulate the devices listed in the given file without the UI, instead of the single
+     * device of the agent configuration. The simulated devices sign their payloads with the credentials obtained by
+     * the enrollment of the agent.
+     *
+     * @param deviceListFile the path of the CSV file listing the "deviceId,authToken" of the devices to simulate.
+     */
+    public void initSimulation(String deviceListFile) {
+
+        agentCommunicator = new HashMap<>();
+        registerShutdownHook();
+        loadAgentConfigs();
+
+        this.agentStatus = AgentConstants.NOT_REGISTERED;
+        this.deviceName = this.agentConfigs.getDeviceName();
+        this.pushInterval = this.agentConfigs.getDataPushInterval();
+        this.protocol = AgentConstants.MQTT_PROTOCOL;
+
+        try {
+            EnrollmentManager.getInstance().beginEnrollmentFlow();
+            deviceSimulator = new DeviceSimulator(deviceListFile);
+        } catch (AgentCoreOperationException e) {
+            log.error("Device Simulation Failed:\n");
+            log.error(e);
+            System.exit(0);
+        }
+
+        deviceSimulator.start();
+    }
+
+    private void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        });
+    }
+
+    private void loadAgentConfigs() {
+        // Read IoT-Server specific configurations from the 'deviceConfig.properties' file
+        try {
+            this.agentConfigs = AgentUtilOperations.readIoTServerConfigs();
+        } catch (AgentCoreOperationException e) {
+            log.error("Reading device configuration from configd file failed:\n");
+            log.error(e);
+            System.exit(0);
+        }
+
+        // Initialise IoT-Server URL endpoints from the configuration read from file
+        AgentUtilOperations.initializeServerEndPoints();
+    }
+
     private void switchCommunicator(String stopProtocol, String startProtocol) {
         agentCommunicator.get(stopProtocol).disconnect();
 
@@ -216,6 +267,33 @@ public class AgentManager {
         this.agentStatus = status;
     }
 
+    /**
+     * Disconnects the communicator in use (or stops the simulation) and stops the scheduler shared by the communicators, giving the tasks
+     * that are already running a grace period to complete.
+     */
+    public void shutdown() {
+        if (deviceSimulator != null) {
+            deviceSimulator.stop();
+        }
+        TransportHandler communicator = agentCommunicator.get(protocol);
+        if (communicator != null && communicator.isConnected()) {
+            communicator.disconnect();
+        }
+        agentScheduler.shutdown();
+        try {
+            if (!agentScheduler.awaitTermination(AgentConstants.AGENT_SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                agentScheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            agentScheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public ScheduledExecutorService getAgentScheduler() {
+        return agentScheduler;
+    }
+
 	/*------------------------------------------------------------------------------------------*/
     /* 		            Getter and Setter Methods for the private variables                 	*/
 	/*------------------------------------------------------------------------------------------*/
@@ -27,6 +27,8 @@ import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.exception.AgentCore
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.CommunicationUtils;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.TransportHandlerException;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -37,6 +39,7 @@ import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.util.Properties;
 
 /**
@@ -51,6 +54,16 @@ public class AgentUtilOperations {
     private static final String JSON_MESSAGE_KEY = "Msg";
     private static final String JSON_SIGNATURE_KEY = "Sig";
     private static final String JSON_SERIAL_KEY = "SerialNumber";
+    private static final String JSON_SIGNATURE_ALGORITHM_KEY = "Alg";
+    private static final String JSON_MAC_KEY = "Mac";
+    private static final String JSON_MAC_KEY_ID_KEY = "Kid";
+    private static final int SESSION_KEY_LENGTH = 32;                      // bytes
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    // the session key agreed with the server, if any, along with its id and the time (in millis) it is to be rotated.
+    private static SecretKey sessionKey;
+    private static String sessionKeyId;
+    private static long sessionKeyRotationTime;
 
     /**
      * This method reads the agent specific configurations for the device from the
@@ -114,6 +127,9 @@ public class AgentUtilOperations {
                     AgentConstants.REFRESH_TOKEN_PROPERTY));
             iotServerConfigs.setDataPushInterval(Integer.parseInt(properties.getProperty(
                     AgentConstants.PUSH_INTERVAL_PROPERTY)));
+            iotServerConfigs.setSessionKeyValidity(Integer.parseInt(properties.getProperty(
+                    AgentConstants.SESSION_KEY_VALIDITY_PROPERTY,
+                    String.valueOf(AgentConstants.DEFAULT_SESSION_KEY_VALIDITY))));
 
             log.info(AgentConstants.LOG_APPENDER + "Tenant Domain: " +
                              iotServerConfigs.getTenantDomain());
@@ -142,6 +158,8 @@ public class AgentUtilOperations {
                              iotServerConfigs.getRefreshToken());
             log.info(AgentConstants.LOG_APPENDER + "Data Push Interval: " +
                              iotServerConfigs.getDataPushInterval());
+            log.info(AgentConstants.LOG_APPENDER + "Session Key Validity: " +
+                             iotServerConfigs.getSessionKeyValidity());
 
         } catch (FileNotFoundException ex) {
             String errorMsg = "[" + propertiesFileName + "] file not found at: " + AgentConstants.PROPERTIES_FILE_PATH;
@@ -221,12 +239,99 @@ public class AgentUtilOperations {
         JSONObject jsonPayload = new JSONObject();
         jsonPayload.put(JSON_MESSAGE_KEY, encodedMessage);
         jsonPayload.put(JSON_SIGNATURE_KEY, signedPayload);
+        String signatureAlgorithm = CommunicationUtils.getSignatureAlgorithm(devicePrivateKey);
+        if (!CommunicationUtils.SIGNATURE_ALG.equals(signatureAlgorithm)) {
+            // the algorithm is advertised only when it is not the one understood by all the server versions.
+            jsonPayload.put(JSON_SIGNATURE_ALGORITHM_KEY, signatureAlgorithm);
+        }
         //below statements are temporary fix.
         jsonPayload.put(JSON_SERIAL_KEY, EnrollmentManager.getInstance().getSCEPCertificate().getSerialNumber());
 
         return jsonPayload.toString();
     }
 
+    /**
+     * Prepares the handshake through which a new session key is agreed with the server, if session keys are enabled
+     * and the current key (if any) is due to be rotated. The key is encrypted with the public key of the server and
+     * the handshake is signed like any other payload. The new key is used from the next payload onwards.
+     *
+     * @return the handshake payload to be sent to the server, or null if no handshake is due.
+     * @throws AgentCoreOperationException if the key could not be encrypted or the handshake could not be signed.
+     */
+    public static synchronized String prepareSessionHandshake() throws AgentCoreOperationException {
+        int sessionKeyValidity = AgentManager.getInstance().getAgentConfigs().getSessionKeyValidity();
+        long now = System.currentTimeMillis();
+        if (sessionKeyValidity <= 0 || (sessionKey != null && now < sessionKeyRotationTime)) {
+            return null;
+        }
+
+        byte[] key = new byte[SESSION_KEY_LENGTH];
+        secureRandom.nextBytes(key);
+        String keyId = Long.toString(now, Character.MAX_RADIX);
+        String encryptedKey;
+        try {
+            encryptedKey = CommunicationUtils.encryptMessage(Base64.encodeBase64String(key),
+                                                             EnrollmentManager.getInstance().getServerPublicKey());
+        } catch (TransportHandlerException e) {
+            String errorMsg = "Error occurred whilst trying to encrypt the session key";
+            log.error(errorMsg);
+            throw new AgentCoreOperationException(errorMsg, e);
+        }
+        String handshake = prepareSecurePayLoad(AgentConstants.SESSION_CONTROL + ":" + keyId + ":" + encryptedKey +
+                                                        ":" + sessionKeyValidity);
+
+        sessionKey = new SecretKeySpec(key, CommunicationUtils.MAC_ALG);
+        sessionKeyId = keyId;
+        // the key is rotated ahead of its expiry, so that the messages sent until the rotation are still accepted.
+        sessionKeyRotationTime = now + sessionKeyValidity * 900L;
+        return handshake;
+    }
+
+    /**
+     * Discards the current session key, so that a new key is agreed on with the next handshake. This is done when
+     * the server does not recognize the key, i.e. when the handshake was lost or the server was restarted.
+     */
+    public static synchronized void renewSessionKey() {
+        sessionKey = null;
+        sessionKeyId = null;
+    }
+
+    /**
+     * Prepares the payload of a message that is authenticated with the session key agreed with the server, in the
+     * form {"Msg":<MESSAGE>, "Mac":<MAC>, "Kid":<KEY_ID>}. If no session key has been agreed, the message is signed
+     * as done by prepareSecurePayLoad.
+     *
+     * @param message the message to be sent.
+     * @return the payload to be sent to the server.
+     * @throws AgentCoreOperationException if the payload could not be authenticated.
+     */
+    public static String prepareSessionPayLoad(String message) throws AgentCoreOperationException {
+        SecretKey currentKey;
+        String currentKeyId;
+        synchronized (AgentUtilOperations.class) {
+            currentKey = sessionKey;
+            currentKeyId = sessionKeyId;
+        }
+        if (currentKey == null) {
+            return prepareSecurePayLoad(message);
+        }
+
+        String encodedMessage = Base64.encodeBase64String(message.getBytes(StandardCharsets.UTF_8));
+        String mac;
+        try {
+            mac = CommunicationUtils.computeMac(encodedMessage, currentKey);
+        } catch (TransportHandlerException e) {
+            String errorMsg = "Error occurred whilst trying to authenticate message of: [" + message + "]";
+            log.error(errorMsg);
+            throw new AgentCoreOperationException(errorMsg, e);
+        }
+        JSONObject jsonPayload = new JSONObject();
+        jsonPayload.put(JSON_MESSAGE_KEY, encodedMessage);
+        jsonPayload.put(JSON_MAC_KEY, mac);
+        jsonPayload.put(JSON_MAC_KEY_ID_KEY, currentKeyId);
+        return jsonPayload.toString();
+    }
+
     public static String extractMessageFromPayload(String message) throws AgentCoreOperationException {
         String actualMessage;
 
@@ -234,12 +339,14 @@ public class AgentUtilOperations {
         JSONObject jsonPayload = new JSONObject(message);
         Object encodedMessage = jsonPayload.get(JSON_MESSAGE_KEY);
         Object signedPayload = jsonPayload.get(JSON_SIGNATURE_KEY);
+        String signatureAlgorithm = jsonPayload.has(JSON_SIGNATURE_ALGORITHM_KEY) ?
+                jsonPayload.getString(JSON_SIGNATURE_ALGORITHM_KEY) : null;
         boolean verification;
 
         if (encodedMessage != null && signedPayload != null) {
             try {
                 verification = CommunicationUtils.verifySignature(
-                        encodedMessage.toString(), signedPayload.toString(), serverPublicKey);
+                        encodedMessage.toString(), signedPayload.toString(), serverPublicKey, signatureAlgorithm);
             } catch (TransportHandlerException e) {
                 String errorMsg =
                         "Error occurred whilst trying to verify signature on received message: [" + message + "]";
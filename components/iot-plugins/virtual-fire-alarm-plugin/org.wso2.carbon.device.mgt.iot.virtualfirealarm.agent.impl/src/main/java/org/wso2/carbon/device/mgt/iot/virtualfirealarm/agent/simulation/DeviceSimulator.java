@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.simulation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentConfiguration;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentConstants;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentManager;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentUtilOperations;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.exception.AgentCoreOperationException;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.TransportHandlerException;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates a number of virtual fire alarms within a single agent, without the UI. The devices are read from a CSV
+ * file with a "deviceId,authToken" line per device (empty lines and lines starting with '#' are ignored). Each
+ * device publishes its temperature at the push interval of the agent configuration, over the connections of a
+ * SimulationClientPool, and the publish rate and latency of all the devices are logged at a fixed interval.
+ */
+public class DeviceSimulator {
+
+    private static final Log log = LogFactory.getLog(DeviceSimulator.class);
+    private static final String DEVICE_LIST_SEPARATOR = ",";
+    private static final String COMMENT_PREFIX = "#";
+
+    private final List<SimulatedDevice> devices;
+    private final SimulationClientPool clientPool;
+    private final ScheduledExecutorService service = AgentManager.getInstance().getAgentScheduler();
+    private final List<ScheduledFuture<?>> publishHandlers = new ArrayList<>();
+    private ScheduledFuture<?> reportHandler;
+
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();     // nano-seconds
+    private final AtomicLong maxLatency = new AtomicLong();       // nano-seconds
+    private final AtomicLong lastReportTime = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param deviceListFile the path of the CSV file listing the devices to be simulated.
+     * @throws AgentCoreOperationException if the file could not be read or does not list any device.
+     */
+    public DeviceSimulator(String deviceListFile) throws AgentCoreOperationException {
+        this.devices = readDevices(deviceListFile);
+        this.clientPool = new SimulationClientPool(
+                AgentManager.getInstance().getAgentConfigs().getMqttBrokerEndpoint());
+    }
+
+    private static List<SimulatedDevice> readDevices(String deviceListFile) throws AgentCoreOperationException {
+        List<SimulatedDevice> devices = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(deviceListFile), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(COMMENT_PREFIX)) {
+                    continue;
+                }
+                String[] columns = line.split(DEVICE_LIST_SEPARATOR);
+                if (columns.length != 2 || columns[0].trim().isEmpty() || columns[1].trim().isEmpty()) {
+                    throw new AgentCoreOperationException("Invalid entry at line " + lineNumber + " of [" +
+                                                                  deviceListFile + "]. Expected 'deviceId,authToken'.");
+                }
+                devices.add(new SimulatedDevice(columns[0].trim(), columns[1].trim()));
+            }
+        } catch (IOException e) {
+            throw new AgentCoreOperationException("Error occurred whilst reading the device list [" +
+                                                          deviceListFile + "]", e);
+        }
+        if (devices.isEmpty()) {
+            throw new AgentCoreOperationException("The device list [" + deviceListFile + "] does not list any device.");
+        }
+        return devices;
+    }
+
+    /**
+     * Schedules the data push of all the devices and the periodic report. The first push of the devices is spread
+     * over the push interval, so that the devices do not publish in bursts.
+     */
+    public void start() {
+        long publishInterval = TimeUnit.SECONDS.toMillis(AgentManager.getInstance().getPushInterval());
+        for (int i = 0; i < devices.size(); i++) {
+            final SimulatedDevice device = devices.get(i);
+            Runnable pushDataRunnable = new Runnable() {
+                @Override
+                public void run() {
+                    publishTemperature(device);
+                }
+            };
+            long initialDelay = publishInterval * i / devices.size();
+            publishHandlers.add(service.scheduleAtFixedRate(pushDataRunnable, initialDelay, publishInterval,
+                                                            TimeUnit.MILLISECONDS));
+        }
+
+        Runnable reportRunnable = new Runnable() {
+            @Override
+            public void run() {
+                report();
+            }
+        };
+        reportHandler = service.scheduleAtFixedRate(reportRunnable, AgentConstants.SIMULATION_REPORT_INTERVAL,
+                                                    AgentConstants.SIMULATION_REPORT_INTERVAL, TimeUnit.SECONDS);
+        log.info(AgentConstants.LOG_APPENDER + "Simulating " + devices.size() + " devices, each publishing every " +
+                         publishInterval + " milli-seconds.");
+    }
+
+    /**
+     * Cancels the data push of all the devices, logs the final report and closes the connections of the pool.
+     */
+    public void stop() {
+        for (ScheduledFuture<?> publishHandler : publishHandlers) {
+            publishHandler.cancel(false);
+        }
+        publishHandlers.clear();
+        if (reportHandler != null) {
+            reportHandler.cancel(false);
+        }
+        report();
+        clientPool.closeAll();
+    }
+
+    private void publishTemperature(SimulatedDevice device) {
+        AgentConfiguration agentConfigs = AgentManager.getInstance().getAgentConfigs();
+        String message = "PUBLISHER:" + AgentConstants.TEMPERATURE_CONTROL + ":" + device.readTemperature();
+        String topic = String.format(AgentConstants.MQTT_PUBLISH_TOPIC, agentConfigs.getTenantDomain(),
+                                     device.getDeviceId());
+        try {
+            String payLoad = AgentUtilOperations.prepareSecurePayLoad(message);
+            MqttMessage pushMessage = new MqttMessage(payLoad.getBytes(StandardCharsets.UTF_8));
+            pushMessage.setQos(AgentConstants.SIMULATION_QUALITY_OF_SERVICE);
+            pushMessage.setRetained(false);
+
+            long startTime = System.nanoTime();
+            clientPool.getClient(device.getAuthToken()).publish(topic, pushMessage);
+            recordLatency(System.nanoTime() - startTime);
+        } catch (AgentCoreOperationException e) {
+            failedCount.incrementAndGet();
+            log.warn(AgentConstants.LOG_APPENDER + "Preparing Secure payload failed for device [" +
+                             device.getDeviceId() + "]", e);
+        } catch (TransportHandlerException | MqttException e) {
+            failedCount.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug(AgentConstants.LOG_APPENDER + "Data Publish attempt to topic - [" + topic +
+                                  "] failed for payload [" + message + "]", e);
+            }
+        }
+    }
+
+    private void recordLatency(long latency) {
+        publishedCount.incrementAndGet();
+        totalLatency.addAndGet(latency);
+        long currentMax;
+        do {
+            currentMax = maxLatency.get();
+        } while (latency > currentMax && !maxLatency.compareAndSet(currentMax, latency));
+    }
+
+    /**
+     * Logs the publish rate and latency of the interval since the previous report and starts a new interval.
+     */
+    private void report() {
+        long published = publishedCount.getAndSet(0);
+        long failed = failedCount.getAndSet(0);
+        long latency = totalLatency.getAndSet(0);
+        long max = maxLatency.getAndSet(0);
+        long now = System.nanoTime();
+        long elapsedTime = now - lastReportTime.getAndSet(now);
+
+        double publishRate = elapsedTime == 0 ? 0 : published * 1e9 / elapsedTime;
+        double averageLatency = published == 0 ? 0 : (double) latency / published / 1000000;
+        log.info(AgentConstants.LOG_APPENDER + String.format(
+                "Simulation of %d devices over %d connections: %d published (%.2f msg/s), %d failed, " +
+                        "latency avg %.2f ms, max %.2f ms", devices.size(), clientPool.size(), published,
+                publishRate, failed, averageLatency, (double) max / 1000000));
+    }
+}
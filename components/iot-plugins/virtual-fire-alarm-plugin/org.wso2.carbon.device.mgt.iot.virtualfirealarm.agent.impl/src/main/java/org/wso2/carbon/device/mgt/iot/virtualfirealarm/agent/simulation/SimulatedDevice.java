@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.simulation;
+
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentConstants;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.virtual.VirtualHardwareManager;
+
+/**
+ * A device emulated by the headless simulation. Each device keeps its own temperature, which is randomized the same
+ * way the VirtualHardwareManager randomizes the temperature of the virtual device.
+ */
+public class SimulatedDevice {
+
+    private final String deviceId;
+    private final String authToken;
+    private int temperature;
+
+    public SimulatedDevice(String deviceId, String authToken) {
+        this.deviceId = deviceId;
+        this.authToken = authToken;
+        this.temperature = VirtualHardwareManager.getRandom(AgentConstants.SIMULATION_TEMPERATURE_MAX,
+                                                            AgentConstants.SIMULATION_TEMPERATURE_MIN, 0, false, 0);
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getAuthToken() {
+        return authToken;
+    }
+
+    /**
+     * @return the next temperature reading of the device, kept close to the previous reading.
+     */
+    public synchronized int readTemperature() {
+        temperature = VirtualHardwareManager.getRandom(AgentConstants.SIMULATION_TEMPERATURE_MAX,
+                                                       AgentConstants.SIMULATION_TEMPERATURE_MIN, temperature, true,
+                                                       AgentConstants.SIMULATION_TEMPERATURE_SVF);
+        return temperature;
+    }
+}
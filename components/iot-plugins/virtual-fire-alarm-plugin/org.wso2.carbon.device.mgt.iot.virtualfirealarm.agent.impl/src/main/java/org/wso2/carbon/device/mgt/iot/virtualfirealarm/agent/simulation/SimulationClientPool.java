@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.simulation;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.core.AgentConstants;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.agent.transport.TransportHandlerException;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The MQTT connections used by the simulated devices. The broker authorizes a connection by the access token it was
+ * opened with, hence the devices listed with the same token (i.e. the devices of the same owner) share a single
+ * connection rather than each device holding a connection of its own. A connection is opened under the lock of its
+ * own token only, so that the devices of other tokens are not held up whilst the broker responds.
+ */
+public class SimulationClientPool {
+
+    private static final Log log = LogFactory.getLog(SimulationClientPool.class);
+    private static final String DEFAULT_PASSWORD = "";
+
+    private final String mqttBrokerEndPoint;
+    private final ConcurrentMap<String, PooledClient> clients = new ConcurrentHashMap<>();
+    private volatile boolean poolClosed;
+
+    public SimulationClientPool(String mqttBrokerEndPoint) {
+        this.mqttBrokerEndPoint = mqttBrokerEndPoint;
+    }
+
+    /**
+     * Returns the connection opened with the given token, opening it (or re-opening it if it was lost) if needed.
+     *
+     * @param authToken the access token of the device.
+     * @return a connected MQTT client.
+     * @throws TransportHandlerException if the connection to the broker could not be established.
+     */
+    public MqttClient getClient(String authToken) throws TransportHandlerException {
+        if (poolClosed) {
+            throw new TransportHandlerException("Simulation clients of MQTT Broker at: " + mqttBrokerEndPoint +
+                                                        " are closed");
+        }
+        PooledClient pooledClient = clients.get(authToken);
+        if (pooledClient == null) {
+            PooledClient newClient = new PooledClient(authToken);
+            pooledClient = clients.putIfAbsent(authToken, newClient);
+            if (pooledClient == null) {
+                pooledClient = newClient;
+            }
+        }
+        return pooledClient.connect();
+    }
+
+    /**
+     * @return the number of connections opened so far.
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    /**
+     * Disconnects and closes all the connections of the pool.
+     */
+    public void closeAll() {
+        poolClosed = true;
+        for (PooledClient pooledClient : clients.values()) {
+            pooledClient.close();
+        }
+        clients.clear();
+    }
+
+    /**
+     * The connection of a token. Its client id is unique across agents, as the broker drops the connection of a
+     * client when another one connects with the same id.
+     */
+    private class PooledClient {
+
+        private final String authToken;
+        private final String clientId = AgentConstants.SIMULATION_CLIENT_ID_PREFIX + UUID.randomUUID();
+        private MqttClient client;
+        private boolean closed;
+
+        private PooledClient(String authToken) {
+            this.authToken = authToken;
+        }
+
+        private synchronized MqttClient connect() throws TransportHandlerException {
+            if (closed) {
+                throw new TransportHandlerException("Simulation client '" + clientId + "' is closed");
+            }
+            try {
+                if (client == null) {
+                    client = new MqttClient(mqttBrokerEndPoint, clientId, null);
+                }
+                if (!client.isConnected()) {
+                    MqttConnectOptions options = new MqttConnectOptions();
+                    options.setCleanSession(true);
+                    options.setUserName(authToken);
+                    options.setPassword(DEFAULT_PASSWORD.toCharArray());
+                    client.connect(options);
+                    log.info(AgentConstants.LOG_APPENDER + "Simulation client '" + clientId +
+                                     "' connected to MQTT Broker at: " + mqttBrokerEndPoint);
+                }
+            } catch (MqttException e) {
+                throw new TransportHandlerException("Connection to MQTT Broker at: " + mqttBrokerEndPoint +
+                                                            " failed", e);
+            }
+            return client;
+        }
+
+        private synchronized void close() {
+            closed = true;
+            if (client == null) {
+                return;
+            }
+            try {
+                if (client.isConnected()) {
+                    client.disconnect();
+                }
+                client.close();
+            } catch (MqttException e) {
+                log.warn(AgentConstants.LOG_APPENDER + "Unable to close the simulation client '" + clientId + "'", e);
+            }
+        }
+    }
+}
@@ -25,7 +25,9 @@ import org.apache.commons.logging.LogFactory;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.Mac;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -34,6 +36,10 @@ import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.Signature;
 import java.security.SignatureException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This is a utility class which contains methods common to the communication process of a client and the server. The
@@ -42,10 +48,60 @@ import java.security.SignatureException;
 public class CommunicationUtils {
     private static final Log log = LogFactory.getLog(TransportUtils.class);
 
-    // The Signature Algorithm used.
-    private static final String SIGNATURE_ALG = "SHA1withRSA";
+    // The Signature Algorithm used with RSA keys.
+    public static final String SIGNATURE_ALG = "SHA1withRSA";
+    // The Signature Algorithm used with EC keys.
+    public static final String ECDSA_SIGNATURE_ALG = "SHA256withECDSA";
+    // The Signature Algorithms accepted on the payloads received.
+    private static final List<String> SUPPORTED_SIGNATURE_ALGS =
+            Arrays.asList(SIGNATURE_ALG, "SHA256withRSA", ECDSA_SIGNATURE_ALG);
+    private static final String EC_KEY_ALG = "EC";
+    private static final String ECDSA_SIGNATURE_SUFFIX = "withECDSA";
     // The Encryption Algorithm and the Padding used.
     private static final String CIPHER_PADDING = "RSA/ECB/PKCS1Padding";
+    // The MAC Algorithm used with session keys.
+    public static final String MAC_ALG = "HmacSHA256";
+
+    // Signature and Cipher instances are costly to create but are not thread-safe, hence each thread reuses its own.
+    private static final ThreadLocal<Map<String, Signature>> signatures = new ThreadLocal<Map<String, Signature>>() {
+        @Override
+        protected Map<String, Signature> initialValue() {
+            return new HashMap<>();
+        }
+    };
+    private static final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+    private static final ThreadLocal<Mac> macs = new ThreadLocal<>();
+
+    /**
+     * Returns the Signature Algorithm with which payloads are signed using the given key. Payloads are signed with
+     * SHA1withRSA when the key is a RSA key (as done by the devices and the server prior to the support for EC keys)
+     * and with SHA256withECDSA when the key is an EC key.
+     *
+     * @param key the key with which the payload is signed or verified.
+     * @return the name of the Signature Algorithm.
+     */
+    public static String getSignatureAlgorithm(Key key) {
+        return EC_KEY_ALG.equals(key.getAlgorithm()) ? ECDSA_SIGNATURE_ALG : SIGNATURE_ALG;
+    }
+
+    private static Signature getSignature(String algorithm) throws NoSuchAlgorithmException {
+        Map<String, Signature> threadSignatures = signatures.get();
+        Signature signature = threadSignatures.get(algorithm);
+        if (signature == null) {
+            signature = Signature.getInstance(algorithm);
+            threadSignatures.put(algorithm, signature);
+        }
+        return signature;
+    }
+
+    private static Cipher getCipher() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(CIPHER_PADDING);
+            ciphers.set(cipher);
+        }
+        return cipher;
+    }
 
 
     /**
@@ -62,7 +118,7 @@ public class CommunicationUtils {
         byte[] cipherData;
 
         try {
-            encrypter = Cipher.getInstance(CIPHER_PADDING);
+            encrypter = getCipher();
             encrypter.init(Cipher.ENCRYPT_MODE, encryptionKey);
             cipherData = encrypter.doFinal(message.getBytes(StandardCharsets.UTF_8));
 
@@ -105,9 +161,10 @@ public class CommunicationUtils {
 
         Signature signature;
         String signedEncodedString;
+        String signatureAlgorithm = getSignatureAlgorithm(signatureKey);
 
         try {
-            signature = Signature.getInstance(SIGNATURE_ALG);
+            signature = getSignature(signatureAlgorithm);
             signature.initSign(signatureKey);
             signature.update(Base64.decodeBase64(message));
 
@@ -115,12 +172,12 @@ public class CommunicationUtils {
             signedEncodedString = Base64.encodeBase64String(signatureBytes);
 
         } catch (NoSuchAlgorithmException e) {
-            String errorMsg =
-                    "Algorithm not found exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Algorithm not found exception occurred for Signature instance of [" +
+                    signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new TransportHandlerException(errorMsg, e);
         } catch (SignatureException e) {
-            String errorMsg = "Signature exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Signature exception occurred for Signature instance of [" + signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new TransportHandlerException(errorMsg, e);
         } catch (InvalidKeyException e) {
@@ -133,6 +190,37 @@ public class CommunicationUtils {
     }
 
 
+    /**
+     * Computes the MAC of a given message using a session key, which is a far cheaper alternative to signing the
+     * message when the key has been agreed with the receiving party.
+     *
+     * @param message    the Base64 encoded message to be authenticated.
+     * @param sessionKey the session key agreed with the receiving party.
+     * @return the Base64Encoded String of the MAC.
+     * @throws TransportHandlerException if the MAC algorithm is unrecognizable or the key is invalid.
+     */
+    public static String computeMac(String message, SecretKey sessionKey) throws TransportHandlerException {
+        Mac mac;
+        try {
+            mac = macs.get();
+            if (mac == null) {
+                mac = Mac.getInstance(MAC_ALG);
+                macs.set(mac);
+            }
+            mac.init(sessionKey);
+        } catch (NoSuchAlgorithmException e) {
+            String errorMsg = "Algorithm not found exception occurred for Mac instance of [" + MAC_ALG + "]";
+            log.error(errorMsg);
+            throw new TransportHandlerException(errorMsg, e);
+        } catch (InvalidKeyException e) {
+            String errorMsg = "InvalidKey exception occurred for the session key";
+            log.error(errorMsg);
+            throw new TransportHandlerException(errorMsg, e);
+        }
+        return Base64.encodeBase64String(mac.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+
     /**
      * Verifies some signed-data against the a Public-Key to ensure that it was produced by the holder of the
      * corresponding Private Key.
@@ -147,24 +235,54 @@ public class CommunicationUtils {
      */
     public static boolean verifySignature(String data, String signedData, PublicKey verificationKey)
             throws TransportHandlerException {
+        return verifySignature(data, signedData, verificationKey, null);
+    }
+
+
+    /**
+     * Verifies some signed-data against the a Public-Key using the given Signature Algorithm, as advertised by the
+     * party that signed the data.
+     *
+     * @param data               the actual payoad which was signed by some Private Key.
+     * @param signedData         the signed data produced by signing the payload using a Private Key.
+     * @param verificationKey    the corresponding Public Key which is an exact pair of the Private-Key with we expect
+     *                           the data to be signed by.
+     * @param signatureAlgorithm the Signature Algorithm with which the data was signed, or null if the default
+     *                           algorithm of the key was used.
+     * @return true if the signed data verifies to be signed by the corresponding Private Key.
+     * @throws TransportHandlerException if the algorithm is not supported or does not match the key, or if some error
+     *                                   occurs with the verification process.
+     */
+    public static boolean verifySignature(String data, String signedData, PublicKey verificationKey,
+                                          String signatureAlgorithm) throws TransportHandlerException {
 
         Signature signature;
         boolean verified;
+        if (signatureAlgorithm == null) {
+            signatureAlgorithm = getSignatureAlgorithm(verificationKey);
+        } else if (!SUPPORTED_SIGNATURE_ALGS.contains(signatureAlgorithm) ||
+                EC_KEY_ALG.equals(verificationKey.getAlgorithm()) !=
+                        signatureAlgorithm.endsWith(ECDSA_SIGNATURE_SUFFIX)) {
+            String errorMsg = "Signature Algorithm [" + signatureAlgorithm + "] is not supported for a [" +
+                    verificationKey.getAlgorithm() + "] key";
+            log.error(errorMsg);
+            throw new TransportHandlerException(errorMsg);
+        }
 
         try {
-            signature = Signature.getInstance(SIGNATURE_ALG);
+            signature = getSignature(signatureAlgorithm);
             signature.initVerify(verificationKey);
             signature.update(Base64.decodeBase64(data));
 
             verified = signature.verify(Base64.decodeBase64(signedData));
 
         } catch (NoSuchAlgorithmException e) {
-            String errorMsg =
-                    "Algorithm not found exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Algorithm not found exception occurred for Signature instance of [" +
+                    signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new TransportHandlerException(errorMsg, e);
         } catch (SignatureException e) {
-            String errorMsg = "Signature exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Signature exception occurred for Signature instance of [" + signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new TransportHandlerException(errorMsg, e);
         } catch (InvalidKeyException e) {
@@ -193,7 +311,7 @@ public class CommunicationUtils {
 
         try {
 
-            decrypter = Cipher.getInstance(CIPHER_PADDING);
+            decrypter = getCipher();
             decrypter.init(Cipher.DECRYPT_MODE, decryptKey);
             decryptedMessage = new String(decrypter.doFinal(Base64.decodeBase64(encryptedMessage)),
                                           StandardCharsets.UTF_8);
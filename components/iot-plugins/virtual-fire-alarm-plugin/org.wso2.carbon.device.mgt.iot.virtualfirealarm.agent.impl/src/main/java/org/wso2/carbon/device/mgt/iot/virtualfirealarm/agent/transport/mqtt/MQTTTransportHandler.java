@@ -116,6 +116,32 @@ public abstract class MQTTTransportHandler
         this.timeoutInterval = timeoutInterval;
     }
 
+    /**
+     * Sets the topic to which the broker publishes the will-message of this client, should the client lose its
+     * connection without disconnecting. The change takes effect from the next connection to the broker.
+     *
+     * @param willTopic the topic to which the will-message is to be published.
+     */
+    protected void setClientWillTopic(String willTopic) {
+        setClientWill(willTopic, "Connection-Lost");
+    }
+
+    /**
+     * Sets the will of this client, which the broker publishes should the client lose its connection without
+     * disconnecting. The change takes effect from the next connection to the broker.
+     *
+     * @param willTopic   the topic to which the will-message is to be published.
+     * @param willMessage the will-message.
+     */
+    protected void setClientWill(String willTopic, String willMessage) {
+        this.clientWillTopic = willTopic;
+        options.setWill(clientWillTopic, willMessage.getBytes(StandardCharsets.UTF_8), 2, true);
+    }
+
+    protected String getClientWillTopic() {
+        return clientWillTopic;
+    }
+
     /**
      * Initializes the MQTT-Client. Creates a client using the given MQTT-broker endpoint and the
      * clientId (which is constructed by a concatenation of [deviceOwner]:[deviceType]). Also sets
@@ -173,7 +173,18 @@ public class VirtualHardwareManager {
         }
     }
 
-    private int getRandom(int max, int min, int current, boolean isSmoothed, int svf) {
+    /**
+     * Generates the next emulated reading. This is also used by the headless simulation to emulate the readings of
+     * the simulated devices.
+     *
+     * @param max        the upper bound of the reading.
+     * @param min        the lower bound of the reading.
+     * @param current    the current reading.
+     * @param isSmoothed whether the reading is to be kept within a fraction of the range around the current reading.
+     * @param svf        the percentage of the range within which a smoothed reading is to be kept.
+     * @return the next reading.
+     */
+    public static int getRandom(int max, int min, int current, boolean isSmoothed, int svf) {
 
         if (isSmoothed) {
             int offset = (max - min) * svf / 100;
@@ -22,6 +22,7 @@ import org.wso2.carbon.apimgt.annotations.api.API;
 import org.wso2.carbon.apimgt.annotations.api.Permission;
 import org.wso2.carbon.device.mgt.extensions.feature.mgt.annotations.DeviceType;
 import org.wso2.carbon.device.mgt.extensions.feature.mgt.annotations.Feature;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.dto.BuzzerCommand;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.dto.DeviceData;
 
 import javax.servlet.http.HttpServletRequest;
@@ -80,6 +81,21 @@ public interface VirtualFireAlarmControllerService {
     Response switchBuzzer(@PathParam("deviceId") String deviceId, @QueryParam("protocol") String protocol,
                              @FormParam("state") String state);
 
+    /**
+     * This is an API called/used from within the Server(Front-End) or by a device Owner. It sends a control command to
+     * a number of VirtualFirealarm devices to switch `ON` or `OFF` their buzzers. The command is sent via MQTT and is
+     * signed only once for all the devices. The response maps each of the requested device IDs to the outcome of the
+     * command on that device, being one of "SENT", "UNAUTHORIZED" or "FAILED".
+     *
+     * @param command the IDs of the VirtualFirealarm devices and the state to which their buzzers need to be changed.
+     */
+    @POST
+    @Path("device/buzz")
+    @Permission(scope = "virtual_firealarm_user", permissions = {"device-mgt/virtual_firealarm/user"})
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    Response switchBuzzers(BuzzerCommand command);
+
     /**
      * This is an API called/used by the VirtualFirealarm device to publish its temperature to the IoT-Server. The
      * received data from the device is stored in a 'DeviceRecord' under the device's ID in the 'SensorDataManager'
@@ -31,6 +31,7 @@ import org.wso2.carbon.device.mgt.iot.controlqueue.mqtt.MqttConfig;
 import org.wso2.carbon.device.mgt.iot.controlqueue.xmpp.XmppConfig;
 import org.wso2.carbon.device.mgt.iot.service.IoTServerStartupListener;
 import org.wso2.carbon.device.mgt.iot.transport.TransportHandlerException;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.dto.BuzzerCommand;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.dto.DeviceData;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.transport.VirtualFireAlarmXMPPConnector;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.SecurityManager;
@@ -53,7 +54,9 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("Non-Annoted WebService")
@@ -62,6 +65,10 @@ public class VirtualFireAlarmControllerServiceImpl implements VirtualFireAlarmCo
     private static final String XMPP_PROTOCOL = "XMPP";
     private static final String HTTP_PROTOCOL = "HTTP";
     private static final String MQTT_PROTOCOL = "MQTT";
+    private static final String COMMAND_SENT = "SENT";
+    private static final String COMMAND_UNAUTHORIZED = "UNAUTHORIZED";
+    private static final String COMMAND_FAILED = "FAILED";
+    private static final int MAX_BUZZER_COMMAND_DEVICES = 1000;
     private static Log log = LogFactory.getLog(VirtualFireAlarmControllerServiceImpl.class);
     // consists of utility methods related to encrypting and decrypting messages
     private org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.SecurityManager securityManager;
@@ -138,6 +145,77 @@ public class VirtualFireAlarmControllerServiceImpl implements VirtualFireAlarmCo
         }
     }
 
+    @POST
+    @Path("device/buzz")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response switchBuzzers(BuzzerCommand command) {
+        if (command == null || command.deviceIds == null || command.deviceIds.isEmpty() || command.state == null) {
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        if (command.deviceIds.size() > MAX_BUZZER_COMMAND_DEVICES) {
+            log.error("A buzzer command can be sent to at most " + MAX_BUZZER_COMMAND_DEVICES + " devices at once");
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        String switchToState = command.state.toUpperCase();
+        if (!switchToState.equals(VirtualFireAlarmConstants.STATE_ON) && !switchToState.equals(
+                VirtualFireAlarmConstants.STATE_OFF)) {
+            log.error("The requested state change shoud be either - 'ON' or 'OFF'");
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        // keeps the outcome of each of the requested devices, in the order they were requested.
+        Map<String, String> outcomes = new LinkedHashMap<>();
+        List<String> authorizedDeviceIds = new ArrayList<>();
+        try {
+            for (String deviceId : command.deviceIds) {
+                if (deviceId == null || outcomes.containsKey(deviceId)) {
+                    continue;
+                }
+                if (APIUtil.getDeviceAccessAuthorizationService().isUserAuthorized(new DeviceIdentifier(deviceId,
+                        VirtualFireAlarmConstants.DEVICE_TYPE))) {
+                    authorizedDeviceIds.add(deviceId);
+                    outcomes.put(deviceId, COMMAND_FAILED);
+                } else {
+                    outcomes.put(deviceId, COMMAND_UNAUTHORIZED);
+                }
+            }
+        } catch (DeviceAccessAuthorizationException e) {
+            log.error(e.getErrorMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        }
+        if (authorizedDeviceIds.isEmpty()) {
+            return Response.ok().entity(outcomes).build();
+        }
+        // if the broker is not reachable the devices are reported as failed, rather than attempting to reconnect for
+        // each of them in turn.
+        if (!virtualFireAlarmMQTTConnector.isConnected()) {
+            log.error("Failed to send switch-bulb request to " + authorizedDeviceIds.size() + " devices as the " +
+                      "MQTT broker is not connected");
+            return Response.ok().entity(outcomes).build();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Sending request to switch-bulb of " + authorizedDeviceIds.size() + " devices via " +
+                      MQTT_PROTOCOL);
+        }
+        try {
+            String mqttResource = VirtualFireAlarmConstants.BULB_CONTEXT.replace("/", "");
+            List<String> failedDeviceIds = virtualFireAlarmMQTTConnector.publishDeviceData(authorizedDeviceIds,
+                                                                                            mqttResource,
+                                                                                            switchToState);
+            for (String deviceId : authorizedDeviceIds) {
+                outcomes.put(deviceId, COMMAND_SENT);
+            }
+            for (String deviceId : failedDeviceIds) {
+                outcomes.put(deviceId, COMMAND_FAILED);
+            }
+        } catch (TransportHandlerException e) {
+            log.error("Failed to send switch-bulb request to " + authorizedDeviceIds.size() + " devices via " +
+                      MQTT_PROTOCOL, e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        }
+        return Response.ok().entity(outcomes).build();
+    }
+
     @POST
     @Path("device/temperature")
     @Consumes(MediaType.APPLICATION_JSON)
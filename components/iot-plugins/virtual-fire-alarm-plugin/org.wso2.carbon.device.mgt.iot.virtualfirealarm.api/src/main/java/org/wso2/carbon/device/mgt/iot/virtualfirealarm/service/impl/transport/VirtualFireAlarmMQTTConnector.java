@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.json.JSONException;
 import org.json.JSONObject;
 import org.wso2.carbon.apimgt.application.extension.APIManagementProviderService;
 import org.wso2.carbon.apimgt.application.extension.dto.ApiApplicationKey;
@@ -37,8 +38,10 @@ import org.wso2.carbon.device.mgt.iot.transport.mqtt.MQTTTransportHandler;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.SecurityManager;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.exception.VirtualFireAlarmException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.APIUtil;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.SessionKeyManager;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.VirtualFireAlarmServiceUtils;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.constants.VirtualFireAlarmConstants;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util.DeviceConnectionTracker;
 import org.wso2.carbon.identity.jwt.client.extension.JWTClient;
 import org.wso2.carbon.identity.jwt.client.extension.dto.AccessTokenInfo;
 import org.wso2.carbon.identity.jwt.client.extension.exception.JWTClientException;
@@ -48,6 +51,8 @@ import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -67,14 +72,27 @@ import java.util.UUID;
 public class VirtualFireAlarmMQTTConnector extends MQTTTransportHandler {
     
 	private static Log log = LogFactory.getLog(VirtualFireAlarmMQTTConnector.class);
-	// subscription topic: <SERVER_NAME>/+/virtual_firealarm/+/publisher
-	// wildcard (+) is in place for device_owner & device_id
-	private static String subscribeTopic = "wso2/+/"+ VirtualFireAlarmConstants.DEVICE_TYPE + "/+/publisher";
+	// subscription topic: <SERVER_NAME>/+/virtual_firealarm/+/+
+	// wildcard (+) is in place for device_owner, device_id & the message type ("publisher" or "disconnection")
+	private static String subscribeTopic = "wso2/+/"+ VirtualFireAlarmConstants.DEVICE_TYPE + "/+/+";
+	private static final String PUBLISHER_TOPIC_SUFFIX = "publisher";
+	// the devices set a retained will on this topic, which they clear with an empty message upon connecting.
+	private static final String DISCONNECTION_TOPIC_SUFFIX = "disconnection";
+	// the will of a device is signed like its other payloads, with the message "DISCONNECTION:<DEVICE_ID>".
+	private static final String DISCONNECTION_MESSAGE_PREFIX = "DISCONNECTION:";
 	private static String iotServerSubscriber = UUID.randomUUID().toString().substring(0, 5);
 	private static final String KEY_TYPE = "PRODUCTION";
 	private static final String EMPTY_STRING = "";
 	private static final String JSON_SERIAL_KEY = "SerialNumber";
 	private static final String JSON_TENANT_KEY = "Tenant";
+	// the cached access-token is renewed this long before its actual expiry, so that a reconnect never presents a
+	// token that lapses whilst the broker is validating it.
+	private static final long TOKEN_RENEWAL_BUFFER_IN_MILLIS = 60 * 1000;
+	private static final String MQTT_CONNECTOR_SCOPE = "device_mqtt_connector";
+
+	private ApiApplicationKey apiApplicationKey;
+	private AccessTokenInfo accessTokenInfo;
+	private long accessTokenRenewalTime;
 
 	/**
 	 * Default constructor for the VirtualFirealarmMQTTConnector.
@@ -101,21 +119,14 @@ public class VirtualFireAlarmMQTTConnector extends MQTTTransportHandler {
 						String applicationUsername = PrivilegedCarbonContext.getThreadLocalCarbonContext().getUserRealm()
 								.getRealmConfiguration().getAdminUserName();
 						PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(applicationUsername);
-						APIManagementProviderService apiManagementProviderService = APIUtil
-								.getAPIManagementProviderService();
-						String[] tags = {VirtualFireAlarmConstants.DEVICE_TYPE};
-						ApiApplicationKey apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
-								VirtualFireAlarmConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
-						JWTClient jwtClient = APIUtil.getJWTClientManagerService().getJWTClient();
-						String scopes = "device_type_" + VirtualFireAlarmConstants.DEVICE_TYPE + " device_mqtt_connector";
-						AccessTokenInfo accessTokenInfo = jwtClient.getAccessToken(apiApplicationKey.getConsumerKey(),
-							apiApplicationKey.getConsumerSecret(), applicationUsername, scopes);
-						//create token
-						String accessToken = accessTokenInfo.getAccessToken();
+						String accessToken = getAccessToken(applicationUsername);
 						setUsernameAndPassword(accessToken, EMPTY_STRING);
 						connectToQueue();
 						subscribeToQueue();
 					} catch (TransportHandlerException e) {
+						if (isAuthenticationFailure(e)) {
+							invalidateAccessToken();
+						}
 						log.error("Connection/Subscription to MQTT Broker at: " + mqttBrokerEndPoint + " failed", e);
 						try {
 							Thread.sleep(timeoutInterval);
@@ -142,6 +153,62 @@ public class VirtualFireAlarmMQTTConnector extends MQTTTransportHandler {
 		connectorThread.start();
 	}
 
+	/**
+	 * Returns the access-token to be used as the username of the MQTT connection. The OAuth client credentials of the
+	 * connector's API application are retrieved only once and the access-token minted with them is reused until it is
+	 * about to expire. Hence, reconnect attempts to a flapping broker do not hit the key manager.
+	 *
+	 * @param applicationUsername the admin user of the device-type provider tenant.
+	 * @return a valid access-token with the scopes required by the MQTT connector.
+	 * @throws APIManagerException if registering the API application and generating its keys fails.
+	 * @throws JWTClientException  if minting the access-token fails.
+	 */
+	private synchronized String getAccessToken(String applicationUsername)
+			throws APIManagerException, JWTClientException {
+		if (apiApplicationKey == null) {
+			APIManagementProviderService apiManagementProviderService = APIUtil.getAPIManagementProviderService();
+			String[] tags = {VirtualFireAlarmConstants.DEVICE_TYPE};
+			apiApplicationKey = apiManagementProviderService.generateAndRetrieveApplicationKeys(
+					VirtualFireAlarmConstants.DEVICE_TYPE, tags, KEY_TYPE, applicationUsername, true);
+		}
+		if (accessTokenInfo == null || System.currentTimeMillis() >= accessTokenRenewalTime) {
+			JWTClient jwtClient = APIUtil.getJWTClientManagerService().getJWTClient();
+			String scopes = "device_type_" + VirtualFireAlarmConstants.DEVICE_TYPE + " " + MQTT_CONNECTOR_SCOPE;
+			accessTokenInfo = jwtClient.getAccessToken(apiApplicationKey.getConsumerKey(),
+					apiApplicationKey.getConsumerSecret(), applicationUsername, scopes);
+			accessTokenRenewalTime = System.currentTimeMillis() + (accessTokenInfo.getExpiresIn() * 1000)
+					- TOKEN_RENEWAL_BUFFER_IN_MILLIS;
+			if (log.isDebugEnabled()) {
+				log.debug("Renewed the access-token of the MQTT connector for device-type - " +
+						VirtualFireAlarmConstants.DEVICE_TYPE);
+			}
+		}
+		return accessTokenInfo.getAccessToken();
+	}
+
+	/**
+	 * Discards the cached access-token so that a fresh one is minted on the next connect attempt. The client
+	 * credentials are kept, since a rejected token does not invalidate the API application.
+	 */
+	private synchronized void invalidateAccessToken() {
+		accessTokenInfo = null;
+	}
+
+	/**
+	 * Checks whether a failed connect attempt was due to the broker rejecting the credentials of the connector.
+	 *
+	 * @param e the exception thrown whilst connecting to the broker.
+	 * @return `true` if the broker refused the connection for authentication or authorization reasons.
+	 */
+	private static boolean isAuthenticationFailure(TransportHandlerException e) {
+		if (e.getCause() instanceof MqttException) {
+			int reasonCode = ((MqttException) e.getCause()).getReasonCode();
+			return reasonCode == MqttException.REASON_CODE_FAILED_AUTHENTICATION ||
+					reasonCode == MqttException.REASON_CODE_NOT_AUTHORIZED;
+		}
+		return false;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * VirtualFirealarm device-type specific implementation to process incoming messages. This is the specific
@@ -155,8 +222,21 @@ public class VirtualFireAlarmMQTTConnector extends MQTTTransportHandler {
 			// <Topic> = [ServerName/Owner/DeviceType/DeviceId/"publisher"]
 			String topic = messageParams[0];
 			String[] topicParams = topic.split("/");
+			if (topicParams.length != 5) {
+				log.warn("MQTT message received on the unexpected topic [" + topic + "] was dropped.");
+				return;
+			}
 			String tenantDomain = topicParams[1];
 			String deviceId = topicParams[3];
+			if (DISCONNECTION_TOPIC_SUFFIX.equals(topicParams[4])) {
+				if (mqttMessage.getPayload().length != 0) {
+					processDisconnectionMessage(mqttMessage.toString(), tenantDomain, deviceId);
+				}
+				return;
+			} else if (!PUBLISHER_TOPIC_SUFFIX.equals(topicParams[4])) {
+				log.warn("MQTT message received on the unexpected topic [" + topic + "] was dropped.");
+				return;
+			}
 			if (log.isDebugEnabled()) {
 				log.debug("Received MQTT message for: [DEVICE.ID-" + deviceId + "]");
 			}
@@ -180,14 +260,34 @@ public class VirtualFireAlarmMQTTConnector extends MQTTTransportHandler {
 						return;
 					}
 				}
-				Long serialNo = (Long)jsonPayload.get(JSON_SERIAL_KEY);
-				// the hash-code of the deviceId is used as the alias for device certificates during SCEP enrollment.
-				// hence, the same is used here to fetch the device-specific-certificate from the key store.
-				PublicKey clientPublicKey = VirtualFireAlarmServiceUtils.getDevicePublicKey("" + serialNo);
-
-				// the MQTT-messages from VirtualFireAlarm devices are in the form {"Msg":<MESSAGE>, "Sig":<SIGNATURE>}
-				actualMessage = VirtualFireAlarmServiceUtils.extractMessageFromPayload(mqttMessage.toString(),
-																					   clientPublicKey);
+				if (VirtualFireAlarmServiceUtils.isSessionPayload(jsonPayload)) {
+					// devices that agreed on a session key send {"Msg":<MESSAGE>, "Mac":<MAC>, "Kid":<KEY_ID>}.
+					actualMessage = VirtualFireAlarmServiceUtils.extractMessageFromSessionPayload(
+							mqttMessage.toString(), deviceId);
+					if (actualMessage == null) {
+						// the key is unknown (i.e. the handshake was lost or the server restarted) or has expired.
+						requestSessionKeyRenewal(deviceId);
+						return;
+					}
+				} else {
+					Long serialNo = (Long) jsonPayload.get(JSON_SERIAL_KEY);
+					// the serial number sent along is the alias of the certificate in the key store. the certificate
+					// is only used if it was issued to the device of the topic.
+					PublicKey clientPublicKey =
+							VirtualFireAlarmServiceUtils.getDevicePublicKey(deviceId, "" + serialNo);
+
+					// the MQTT-messages from VirtualFireAlarm devices are in the form
+					// {"Msg":<MESSAGE>, "Sig":<SIGNATURE>}
+					actualMessage = VirtualFireAlarmServiceUtils.extractMessageFromPayload(mqttMessage.toString(),
+																						   clientPublicKey);
+					if (actualMessage.startsWith(SessionKeyManager.SESSION_CONTROL + ":")) {
+						// a session key is accepted only in a payload signed with the certificate issued to the device.
+						SessionKeyManager.registerSessionKey(deviceId, actualMessage);
+						return;
+					}
+				}
+				// only the messages that were verified to be from the device count towards its last-seen time.
+				DeviceConnectionTracker.deviceSeen(deviceId);
 				if (log.isDebugEnabled()) {
 					log.debug("MQTT: Received Message [" + actualMessage + "] topic: [" + topic + "]");
 				}
@@ -221,6 +321,77 @@ public class VirtualFireAlarmMQTTConnector extends MQTTTransportHandler {
 		}
 	}
 
+	/**
+	 * Marks a device as disconnected upon the will-message the broker published on its behalf. Since any client
+	 * that may publish to the disconnection topic could otherwise mark any device offline, the message is only
+	 * accepted if the device is enrolled in the tenant of the topic and the message names the device of the topic
+	 * and is signed with the certificate issued to that device. Hence, a device cannot mark another device offline by
+	 * signing its will with its own certificate.
+	 *
+	 * @param payload      the will-message.
+	 * @param tenantDomain the tenant domain from the topic of the message.
+	 * @param deviceId     the id of the device from the topic of the message.
+	 */
+	private void processDisconnectionMessage(String payload, String tenantDomain, String deviceId) {
+		try {
+			PrivilegedCarbonContext.startTenantFlow();
+			PrivilegedCarbonContext ctx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+			ctx.setTenantDomain(tenantDomain, true);
+			DeviceManagementProviderService deviceManagementProviderService =
+					(DeviceManagementProviderService) ctx.getOSGiService(DeviceManagementProviderService.class, null);
+			if (deviceManagementProviderService == null) {
+				log.error("Disconnection message of device [" + deviceId + "] was dropped as the device " +
+								  "management service is not available.");
+				return;
+			}
+			DeviceIdentifier identifier = new DeviceIdentifier(deviceId, VirtualFireAlarmConstants.DEVICE_TYPE);
+			if (deviceManagementProviderService.getDevice(identifier) == null) {
+				log.warn("Disconnection message for the unknown device [" + deviceId + "] of tenant [" +
+								 tenantDomain + "] was dropped.");
+				return;
+			}
+			JSONObject jsonPayload = new JSONObject(payload);
+			Long serialNo = (Long) jsonPayload.get(JSON_SERIAL_KEY);
+			PublicKey clientPublicKey = VirtualFireAlarmServiceUtils.getDevicePublicKey(deviceId, "" + serialNo);
+			String actualMessage = VirtualFireAlarmServiceUtils.extractMessageFromPayload(payload, clientPublicKey);
+			if (!(DISCONNECTION_MESSAGE_PREFIX + deviceId).equals(actualMessage)) {
+				log.warn("Disconnection message that does not name the device [" + deviceId + "] of its topic " +
+								 "was dropped.");
+				return;
+			}
+			if (log.isDebugEnabled()) {
+				log.debug("Device [" + deviceId + "] has lost its connection to the MQTT broker");
+			}
+			DeviceConnectionTracker.deviceDisconnected(deviceId);
+		} catch (JSONException | ClassCastException e) {
+			log.warn("Unsigned disconnection message of device [" + deviceId + "] was dropped.");
+		} catch (VirtualFireAlarmException e) {
+			log.warn("Disconnection message of device [" + deviceId + "] was dropped as its signature could not " +
+							 "be verified.", e);
+		} catch (DeviceManagementException e) {
+			log.error("Failed to retrieve the device [" + deviceId + "] of the disconnection message.", e);
+		} finally {
+			PrivilegedCarbonContext.endTenantFlow();
+		}
+	}
+
+	/**
+	 * Asks the device to agree on a new session key, unless it was asked to recently. Until it does, the messages it
+	 * authenticates with its current key are dropped.
+	 *
+	 * @param deviceId the id of the device.
+	 */
+	private void requestSessionKeyRenewal(String deviceId) {
+		if (!SessionKeyManager.isRenewRequestDue(deviceId)) {
+			return;
+		}
+		try {
+			publishDeviceData(deviceId, SessionKeyManager.SESSION_CONTROL, SessionKeyManager.SESSION_RENEW);
+		} catch (TransportHandlerException e) {
+			log.warn("Requesting device [" + deviceId + "] to renew its session key failed", e);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * VirtualFirealarm device-type specific implementation to publish data to the device. This method calls the
@@ -259,6 +430,49 @@ public class VirtualFireAlarmMQTTConnector extends MQTTTransportHandler {
 	}
 
 
+	/**
+	 * Publishes the same control message to a number of devices. The signed payload does not depend on the device,
+	 * hence it is prepared once and published to the topic of each of the devices in turn, rather than being signed
+	 * once per device as done when publishing to the devices one at a time.
+	 *
+	 * @param deviceIds the ids of the devices to which the message is to be published.
+	 * @param resource  the resource of the devices to be controlled (i.e. BULB).
+	 * @param state     the state to which the resource is to be changed.
+	 * @return the ids of the devices to which the message could not be published.
+	 * @throws TransportHandlerException if the payload could not be prepared.
+	 */
+	public List<String> publishDeviceData(List<String> deviceIds, String resource, String state)
+			throws TransportHandlerException {
+		byte[] payload;
+		try {
+			String actualMessage = resource + ":" + state;
+			payload = VirtualFireAlarmServiceUtils.prepareSecurePayLoad(
+					actualMessage, SecurityManager.getServerPrivateKey()).getBytes(StandardCharsets.UTF_8);
+		} catch (VirtualFireAlarmException e) {
+			String errorMsg = "Preparing Secure payload failed for [" + resource + ":" + state + "]";
+			log.error(errorMsg);
+			throw new TransportHandlerException(errorMsg, e);
+		}
+
+		String topicPrefix = "wso2/" + APIUtil.getTenantDomainOftheUser() + "/" + VirtualFireAlarmConstants.DEVICE_TYPE +
+				"/";
+		List<String> failedDeviceIds = new ArrayList<>();
+		for (String deviceId : deviceIds) {
+			MqttMessage pushMessage = new MqttMessage(payload);
+			pushMessage.setQos(DEFAULT_MQTT_QUALITY_OF_SERVICE);
+			pushMessage.setRetained(false);
+			try {
+				publishToQueue(topicPrefix + deviceId, pushMessage);
+			} catch (TransportHandlerException e) {
+				if (log.isDebugEnabled()) {
+					log.debug("Publishing [" + resource + ":" + state + "] to device [" + deviceId + "] failed", e);
+				}
+				failedDeviceIds.add(deviceId);
+			}
+		}
+		return failedDeviceIds;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 * VirtualFirealarm device-type specific implementation to disconnect from the MQTT broker.
@@ -30,6 +30,7 @@ import org.wso2.carbon.device.mgt.iot.exception.DeviceControllerException;
 import org.wso2.carbon.device.mgt.iot.transport.TransportHandlerException;
 import org.wso2.carbon.device.mgt.iot.transport.xmpp.XMPPTransportHandler;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.constants.VirtualFireAlarmConstants;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util.DeviceConnectionTracker;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.SecurityManager;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.exception.VirtualFireAlarmException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util.VirtualFireAlarmServiceUtils;
@@ -163,9 +164,10 @@ public class VirtualFireAlarmXMPPConnector extends XMPPTransportHandler {
 
                 JSONObject jsonPayload = new JSONObject(message);
                 Long serialNo = (Long)jsonPayload.get(JSON_SERIAL_KEY);
-                PublicKey clientPublicKey = VirtualFireAlarmServiceUtils.getDevicePublicKey("" + serialNo);
+                PublicKey clientPublicKey = VirtualFireAlarmServiceUtils.getDevicePublicKey(deviceId, "" + serialNo);
                 String actualMessage = VirtualFireAlarmServiceUtils.extractMessageFromPayload(message,
                                                                                        clientPublicKey);
+                DeviceConnectionTracker.deviceSeen(deviceId);
                 if (log.isDebugEnabled()) {
                     log.debug("XMPP: Received Message [" + actualMessage + "] from: [" + from + "]");
                 }
@@ -45,22 +45,47 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class SecurityManager {
     private static final Log log = LogFactory.getLog(SecurityManager.class);
 
-    private static PrivateKey serverPrivateKey;
-    private static final String SIGNATURE_ALG = "SHA1withRSA";
+    private static volatile PrivateKey serverPrivateKey;
+    // the algorithm used with RSA keys, as signed by the devices and the server prior to the support for EC keys.
+    public static final String SIGNATURE_ALG = "SHA1withRSA";
+    public static final String ECDSA_SIGNATURE_ALG = "SHA256withECDSA";
+    private static final List<String> SUPPORTED_SIGNATURE_ALGS =
+            Arrays.asList(SIGNATURE_ALG, "SHA256withRSA", ECDSA_SIGNATURE_ALG);
+    private static final String EC_KEY_ALG = "EC";
+    private static final String ECDSA_SIGNATURE_SUFFIX = "withECDSA";
     private static final String CIPHER_PADDING = "RSA/ECB/PKCS1Padding";
 
+    // Signature and Cipher instances are costly to create but are not thread-safe, hence each thread reuses its own.
+    private static final ThreadLocal<Map<String, Signature>> signatures = new ThreadLocal<Map<String, Signature>>() {
+        @Override
+        protected Map<String, Signature> initialValue() {
+            return new HashMap<>();
+        }
+    };
+    private static final ThreadLocal<Cipher> ciphers = new ThreadLocal<>();
+
     private SecurityManager() {
 
     }
 
     public void initVerificationManager() {
-        serverPrivateKey = retrievePrivateKey(ConfigurationUtil.CA_CERT_ALIAS,
-                                              ConfigurationUtil.KEYSTORE_CA_CERT_PRIV_PASSWORD);
+        loadServerPrivateKey();
+    }
+
+    private static synchronized void loadServerPrivateKey() {
+        if (serverPrivateKey == null) {
+            serverPrivateKey = retrievePrivateKey(ConfigurationUtil.CA_CERT_ALIAS,
+                                                  ConfigurationUtil.KEYSTORE_CA_CERT_PRIV_PASSWORD);
+        }
     }
 
     public static PrivateKey retrievePrivateKey(String alias, String password){
@@ -113,16 +138,49 @@ public class SecurityManager {
         return privateKey;
     }
 
+    /**
+     * @return the private key of the server, which is read from the key-store once and reused thereafter.
+     */
     public static PrivateKey getServerPrivateKey() {
+        if (serverPrivateKey == null) {
+            loadServerPrivateKey();
+        }
         return serverPrivateKey;
     }
 
+    /**
+     * @param key the key with which the payload is signed or verified.
+     * @return SHA256withECDSA if the key is an EC key, SHA1withRSA otherwise.
+     */
+    public static String getSignatureAlgorithm(Key key) {
+        return EC_KEY_ALG.equals(key.getAlgorithm()) ? ECDSA_SIGNATURE_ALG : SIGNATURE_ALG;
+    }
+
+    private static Signature getSignature(String algorithm) throws NoSuchAlgorithmException {
+        Map<String, Signature> threadSignatures = signatures.get();
+        Signature signature = threadSignatures.get(algorithm);
+        if (signature == null) {
+            signature = Signature.getInstance(algorithm);
+            threadSignatures.put(algorithm, signature);
+        }
+        return signature;
+    }
+
+    private static Cipher getCipher() throws NoSuchAlgorithmException, NoSuchPaddingException {
+        Cipher cipher = ciphers.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(CIPHER_PADDING);
+            ciphers.set(cipher);
+        }
+        return cipher;
+    }
+
     public static String encryptMessage(String message, Key encryptionKey) throws VirtualFireAlarmException {
         Cipher encrypter;
         byte[] cipherData;
 
         try {
-            encrypter = Cipher.getInstance(CIPHER_PADDING);
+            encrypter = getCipher();
             encrypter.init(Cipher.ENCRYPT_MODE, encryptionKey);
             cipherData = encrypter.doFinal(message.getBytes(StandardCharsets.UTF_8));
 
@@ -156,9 +214,10 @@ public class SecurityManager {
 
         Signature signature;
         String signedEncodedString;
+        String signatureAlgorithm = getSignatureAlgorithm(signatureKey);
 
         try {
-            signature = Signature.getInstance(SIGNATURE_ALG);
+            signature = getSignature(signatureAlgorithm);
             signature.initSign(signatureKey);
             signature.update(Base64.decodeBase64(encryptedData));
 
@@ -166,11 +225,12 @@ public class SecurityManager {
             signedEncodedString = Base64.encodeBase64String(signatureBytes);
 
         } catch (NoSuchAlgorithmException e) {
-            String errorMsg = "Algorithm not found exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Algorithm not found exception occurred for Signature instance of [" +
+                    signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new VirtualFireAlarmException(errorMsg, e);
         } catch (SignatureException e) {
-            String errorMsg = "Signature exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Signature exception occurred for Signature instance of [" + signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new VirtualFireAlarmException(errorMsg, e);
         } catch (InvalidKeyException e) {
@@ -185,23 +245,49 @@ public class SecurityManager {
 
     public static boolean verifySignature(String data, String signedData, PublicKey verificationKey)
             throws VirtualFireAlarmException {
+        return verifySignature(data, signedData, verificationKey, null);
+    }
+
+    /**
+     * @param data               the payload that was signed.
+     * @param signedData         the signature of the payload.
+     * @param verificationKey    the public key of the party that signed the payload.
+     * @param signatureAlgorithm the algorithm advertised by the party that signed the payload, or null if the payload
+     *                           was signed with the default algorithm of the key.
+     * @return true if the signature is valid.
+     * @throws VirtualFireAlarmException if the algorithm is not supported or does not match the key, or if the
+     *                                   verification fails with an error.
+     */
+    public static boolean verifySignature(String data, String signedData, PublicKey verificationKey,
+                                          String signatureAlgorithm) throws VirtualFireAlarmException {
 
         Signature signature;
         boolean verified;
+        if (signatureAlgorithm == null) {
+            signatureAlgorithm = getSignatureAlgorithm(verificationKey);
+        } else if (!SUPPORTED_SIGNATURE_ALGS.contains(signatureAlgorithm) ||
+                EC_KEY_ALG.equals(verificationKey.getAlgorithm()) !=
+                        signatureAlgorithm.endsWith(ECDSA_SIGNATURE_SUFFIX)) {
+            String errorMsg = "Signature Algorithm [" + signatureAlgorithm + "] is not supported for a [" +
+                    verificationKey.getAlgorithm() + "] key";
+            log.error(errorMsg);
+            throw new VirtualFireAlarmException(errorMsg);
+        }
 
         try {
-            signature = Signature.getInstance(SIGNATURE_ALG);
+            signature = getSignature(signatureAlgorithm);
             signature.initVerify(verificationKey);
             signature.update(Base64.decodeBase64(data));
 
             verified = signature.verify(Base64.decodeBase64(signedData));
 
         } catch (NoSuchAlgorithmException e) {
-            String errorMsg = "Algorithm not found exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Algorithm not found exception occurred for Signature instance of [" +
+                    signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new VirtualFireAlarmException(errorMsg, e);
         } catch (SignatureException e) {
-            String errorMsg = "Signature exception occurred for Signature instance of [" + SIGNATURE_ALG + "]";
+            String errorMsg = "Signature exception occurred for Signature instance of [" + signatureAlgorithm + "]";
             log.error(errorMsg);
             throw new VirtualFireAlarmException(errorMsg, e);
         } catch (InvalidKeyException e) {
@@ -221,7 +307,7 @@ public class SecurityManager {
 
         try {
 
-            decrypter = Cipher.getInstance(CIPHER_PADDING);
+            decrypter = getCipher();
             decrypter.init(Cipher.DECRYPT_MODE, decryptKey);
             decryptedMessage = new String(decrypter.doFinal(Base64.decodeBase64(encryptedMessage)), StandardCharsets.UTF_8);
 
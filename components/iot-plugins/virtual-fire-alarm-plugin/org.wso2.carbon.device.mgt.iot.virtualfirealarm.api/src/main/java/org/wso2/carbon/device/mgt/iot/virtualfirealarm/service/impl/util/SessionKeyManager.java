@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.util;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.exception.VirtualFireAlarmException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the HMAC-SHA256 session keys agreed with the VirtualFirealarm devices. A device that opts in sends a
+ * "SESSION:&lt;KEY_ID&gt;:&lt;ENCRYPTED_KEY&gt;:&lt;VALIDITY&gt;" message in the usual RSA signed payload, with the
+ * key encrypted using the public key of the server. Thereafter, until the key expires, the device authenticates its
+ * messages with a MAC computed with that key instead of a RSA signature. The previous key of a device stays valid
+ * until its expiry, so that the messages in flight whilst the device rotates its key are still accepted.
+ */
+public class SessionKeyManager {
+
+    private static final Log log = LogFactory.getLog(SessionKeyManager.class);
+
+    public static final String SESSION_CONTROL = "SESSION";
+    public static final String SESSION_RENEW = "RENEW";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 32;                                // bytes
+    private static final long MAX_KEY_VALIDITY = 24 * 60 * 60;                  // seconds
+    // a device is asked to renew its key at most once within this interval, however many messages it sends meanwhile.
+    private static final long RENEW_REQUEST_INTERVAL_IN_MILLIS = 60 * 1000;
+
+    private static final Map<String, SessionKey[]> sessionKeys = new ConcurrentHashMap<>();
+    private static final Map<String, Long> renewRequestTimes = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Mac> macs = new ThreadLocal<>();
+
+    private SessionKeyManager() {
+    }
+
+    /**
+     * Registers the session key sent by a device. The handshake message is expected to be extracted from a payload
+     * whose signature was verified with the certificate of the device.
+     *
+     * @param deviceId         the id of the device that sent the key.
+     * @param handshakeMessage the message in the form "SESSION:&lt;KEY_ID&gt;:&lt;ENCRYPTED_KEY&gt;:&lt;VALIDITY&gt;",
+     *                         where the validity is in seconds.
+     * @throws VirtualFireAlarmException if the message is malformed or the key could not be decrypted.
+     */
+    public static void registerSessionKey(String deviceId, String handshakeMessage) throws VirtualFireAlarmException {
+        String[] handshakeParams = handshakeMessage.split(":");
+        if (handshakeParams.length != 4 || !SESSION_CONTROL.equals(handshakeParams[0])) {
+            throw new VirtualFireAlarmException("Invalid session key handshake [" + handshakeMessage + "] received " +
+                                                        "from device [" + deviceId + "]");
+        }
+        long validity;
+        try {
+            validity = Math.min(Long.parseLong(handshakeParams[3]), MAX_KEY_VALIDITY);
+        } catch (NumberFormatException e) {
+            throw new VirtualFireAlarmException("Invalid session key validity [" + handshakeParams[3] + "] received " +
+                                                        "from device [" + deviceId + "]", e);
+        }
+        String encodedKey = SecurityManager.decryptMessage(handshakeParams[2], SecurityManager.getServerPrivateKey());
+        byte[] key = Base64.decodeBase64(encodedKey);
+        if (key.length < MIN_KEY_LENGTH || validity <= 0) {
+            throw new VirtualFireAlarmException("Session key received from device [" + deviceId + "] is too short " +
+                                                        "or has expired");
+        }
+
+        SessionKey sessionKey = new SessionKey(handshakeParams[1], new SecretKeySpec(key, MAC_ALGORITHM),
+                                               System.currentTimeMillis() + validity * 1000);
+        SessionKey[] previousKeys = sessionKeys.get(deviceId);
+        sessionKeys.put(deviceId, new SessionKey[]{sessionKey, previousKeys == null ? null : previousKeys[0]});
+        renewRequestTimes.remove(deviceId);
+        if (log.isDebugEnabled()) {
+            log.debug("Session key [" + sessionKey.getKeyId() + "] of device [" + deviceId + "] registered, valid for " +
+                              validity + " seconds");
+        }
+    }
+
+    /**
+     * @param deviceId the id of the device.
+     * @param keyId    the id of the key, as sent by the device along with the MAC.
+     * @return the key, or null if no such key was agreed with the device or if the key has expired.
+     */
+    public static SessionKey getSessionKey(String deviceId, String keyId) {
+        SessionKey[] deviceKeys = sessionKeys.get(deviceId);
+        if (deviceKeys == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        for (SessionKey sessionKey : deviceKeys) {
+            if (sessionKey != null && sessionKey.getKeyId().equals(keyId) && sessionKey.getExpiryTime() > now) {
+                return sessionKey;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param sessionKey the key agreed with the device.
+     * @param data       the payload on which the MAC was computed.
+     * @param mac        the Base64 encoded MAC sent along with the payload.
+     * @return true if the MAC matches the payload.
+     * @throws VirtualFireAlarmException if the MAC could not be computed.
+     */
+    public static boolean verifyMac(SessionKey sessionKey, String data, String mac) throws VirtualFireAlarmException {
+        Mac hmac;
+        try {
+            hmac = macs.get();
+            if (hmac == null) {
+                hmac = Mac.getInstance(MAC_ALGORITHM);
+                macs.set(hmac);
+            }
+            hmac.init(sessionKey.getKey());
+        } catch (NoSuchAlgorithmException e) {
+            String errorMsg = "Algorithm not found exception occurred for Mac instance of [" + MAC_ALGORITHM + "]";
+            log.error(errorMsg);
+            throw new VirtualFireAlarmException(errorMsg, e);
+        } catch (InvalidKeyException e) {
+            String errorMsg = "InvalidKey exception occurred for session key [" + sessionKey.getKeyId() + "]";
+            log.error(errorMsg);
+            throw new VirtualFireAlarmException(errorMsg, e);
+        }
+        byte[] expectedMac = hmac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        return MessageDigest.isEqual(expectedMac, Base64.decodeBase64(mac));
+    }
+
+    /**
+     * Records a request to the device to agree on a new session key, unless one was made recently.
+     *
+     * @param deviceId the id of the device.
+     * @return true if the device is to be asked to renew its key.
+     */
+    public static boolean isRenewRequestDue(String deviceId) {
+        long now = System.currentTimeMillis();
+        Long lastRequestTime = renewRequestTimes.get(deviceId);
+        if (lastRequestTime != null && now - lastRequestTime < RENEW_REQUEST_INTERVAL_IN_MILLIS) {
+            return false;
+        }
+        renewRequestTimes.put(deviceId, now);
+        return true;
+    }
+
+    /**
+     * Drops the session keys agreed with a device, e.g. once the device is removed.
+     *
+     * @param deviceId the id of the device.
+     */
+    public static void removeSessionKeys(String deviceId) {
+        sessionKeys.remove(deviceId);
+        renewRequestTimes.remove(deviceId);
+    }
+
+    /**
+     * A session key agreed with a device.
+     */
+    public static class SessionKey {
+
+        private final String keyId;
+        private final SecretKeySpec key;
+        private final long expiryTime;
+
+        SessionKey(String keyId, SecretKeySpec key, long expiryTime) {
+            this.keyId = keyId;
+            this.key = key;
+            this.expiryTime = expiryTime;
+        }
+
+        public String getKeyId() {
+            return keyId;
+        }
+
+        SecretKeySpec getKey() {
+            return key;
+        }
+
+        public long getExpiryTime() {
+            return expiryTime;
+        }
+    }
+}
@@ -36,6 +36,10 @@ import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.constants.VirtualFireAlarmConstants;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.service.impl.exception.VirtualFireAlarmException;
 
+import javax.naming.InvalidNameException;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
+import javax.security.auth.x500.X500Principal;
 import javax.ws.rs.HttpMethod;
 import java.io.BufferedReader;
 import java.io.IOException;
@@ -45,10 +49,14 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.ProtocolException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 
@@ -61,6 +69,25 @@ public class VirtualFireAlarmServiceUtils {
     private static final String TEMPERATURE_STREAM_DEFINITION = "org.wso2.iot.devices.temperature";
     private static final String JSON_MESSAGE_KEY = "Msg";
     private static final String JSON_SIGNATURE_KEY = "Sig";
+    private static final String JSON_SIGNATURE_ALGORITHM_KEY = "Alg";
+    private static final String JSON_MAC_KEY = "Mac";
+    private static final String JSON_MAC_KEY_ID_KEY = "Kid";
+    private static final int MAX_CACHED_DEVICE_KEYS = 10000;
+    private static final long DEVICE_KEY_CACHE_TTL_IN_MILLIS = 10 * 60 * 1000;
+    // the agents request their certificates with the deviceId as the serial number (2.5.4.5) of the subject.
+    private static final String SUBJECT_SERIAL_NUMBER_OID = "2.5.4.5";
+    private static final String SUBJECT_SERIAL_NUMBER_KEYWORD = "SERIALNUMBER";
+    // the public key of a device is read from the key store once in a while rather than on every message received
+    // from the device. the key is dropped when the device is enrolled or removed and when the device sends a payload
+    // signed with another certificate, and expires in case the certificate is revoked by some other means. the least
+    // recently used keys are dropped once the cache is full.
+    private static final Map<String, DevicePublicKey> devicePublicKeys =
+            new LinkedHashMap<String, DevicePublicKey>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, DevicePublicKey> eldest) {
+                    return size() > MAX_CACHED_DEVICE_KEYS;
+                }
+            };
 
     /**
      *
@@ -273,6 +300,11 @@ public class VirtualFireAlarmServiceUtils {
         JSONObject jsonPayload = new JSONObject();
         jsonPayload.put(JSON_MESSAGE_KEY, message);
         jsonPayload.put(JSON_SIGNATURE_KEY, signedPayload);
+        String signatureAlgorithm = SecurityManager.getSignatureAlgorithm(signatureKey);
+        if (!SecurityManager.SIGNATURE_ALG.equals(signatureAlgorithm)) {
+            // the algorithm is advertised only when it is not the one understood by all the devices.
+            jsonPayload.put(JSON_SIGNATURE_ALGORITHM_KEY, signatureAlgorithm);
+        }
         return jsonPayload.toString();
     }
 
@@ -290,10 +322,12 @@ public class VirtualFireAlarmServiceUtils {
         JSONObject jsonPayload = new JSONObject(message);
         Object encodedMessage = jsonPayload.get(JSON_MESSAGE_KEY);
         Object signedPayload = jsonPayload.get(JSON_SIGNATURE_KEY);
+        String signatureAlgorithm = jsonPayload.has(JSON_SIGNATURE_ALGORITHM_KEY) ?
+                jsonPayload.getString(JSON_SIGNATURE_ALGORITHM_KEY) : null;
 
         if (encodedMessage != null && signedPayload != null) {
             if (SecurityManager.verifySignature(
-                    encodedMessage.toString(), signedPayload.toString(), verifySignatureKey)) {
+                    encodedMessage.toString(), signedPayload.toString(), verifySignatureKey, signatureAlgorithm)) {
                 actualMessage = new String(Base64.decodeBase64(encodedMessage.toString()));
                         //SecurityManager.decryptMessage(encryptedMessage.toString(), decryptionKey);
             } else {
@@ -310,20 +344,69 @@ public class VirtualFireAlarmServiceUtils {
     }
 
     /**
+     * @param jsonPayload the payload received from a device.
+     * @return true if the payload is authenticated with a session key MAC rather than a signature.
+     */
+    public static boolean isSessionPayload(JSONObject jsonPayload) {
+        return jsonPayload.has(JSON_MAC_KEY);
+    }
+
+    /**
+     * Extracts the message from a payload of the form {"Msg":<MESSAGE>, "Mac":<MAC>, "Kid":<KEY_ID>}, authenticated
+     * with a session key previously agreed with the device.
      *
-     * @param alias
-     * @return
-     * @throws VirtualFireAlarmException
+     * @param message  the payload received from the device.
+     * @param deviceId the id of the device that sent the payload.
+     * @return the message, or null if the key is not known (or has expired) and hence the device is to renew it.
+     * @throws VirtualFireAlarmException if the payload is malformed or the MAC does not match the message.
+     */
+    public static String extractMessageFromSessionPayload(String message, String deviceId)
+            throws VirtualFireAlarmException {
+        JSONObject jsonPayload = new JSONObject(message);
+        String encodedMessage = jsonPayload.optString(JSON_MESSAGE_KEY, null);
+        String mac = jsonPayload.optString(JSON_MAC_KEY, null);
+        String keyId = jsonPayload.optString(JSON_MAC_KEY_ID_KEY, null);
+        if (encodedMessage == null || mac == null || keyId == null) {
+            String errorMsg = "The received message is in an INVALID format. " +
+                    "Need to be JSON - {\"Msg\":\"<MSG>\", \"Mac\":\"<MAC>\", \"Kid\":\"<KEY_ID>\"}.";
+            throw new VirtualFireAlarmException(errorMsg);
+        }
+
+        SessionKeyManager.SessionKey sessionKey = SessionKeyManager.getSessionKey(deviceId, keyId);
+        if (sessionKey == null) {
+            return null;
+        }
+        if (!SessionKeyManager.verifyMac(sessionKey, encodedMessage, mac)) {
+            String errorMsg = "The message was not sent by a valid client. Could not verify MAC on payload";
+            throw new VirtualFireAlarmException(errorMsg);
+        }
+        return new String(Base64.decodeBase64(encodedMessage), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the public key of the certificate of a device. The certificate is looked up by the alias sent along
+     * with the payload, which any device may set, hence it is only trusted if it was issued to the device in concern,
+     * i.e. if the serial number in its subject is the id of the device.
+     *
+     * @param deviceId the id of the device that sent the payload.
+     * @param alias    the alias of the certificate of the device, i.e. the serial number sent along with the payload.
+     * @return the public key of the certificate.
+     * @throws VirtualFireAlarmException if the certificate could not be retrieved or was not issued to the device.
      */
-    public static PublicKey getDevicePublicKey(String alias) throws VirtualFireAlarmException {
-        PublicKey clientPublicKey;
+    public static PublicKey getDevicePublicKey(String deviceId, String alias) throws VirtualFireAlarmException {
+        DevicePublicKey devicePublicKey;
+        synchronized (devicePublicKeys) {
+            devicePublicKey = devicePublicKeys.get(deviceId);
+        }
+        if (devicePublicKey != null && devicePublicKey.alias.equals(alias) &&
+                devicePublicKey.expiryTime > System.currentTimeMillis()) {
+            return devicePublicKey.publicKey;
+        }
+        X509Certificate clientCertificate;
         try {
             CertificateManagementService certificateManagementService =
                     VirtualFireAlarmServiceUtils.getCertificateManagementService();
-            X509Certificate clientCertificate = (X509Certificate) certificateManagementService.getCertificateByAlias(
-                    alias);
-            clientPublicKey = clientCertificate.getPublicKey();
-
+            clientCertificate = (X509Certificate) certificateManagementService.getCertificateByAlias(alias);
         } catch (VirtualFireAlarmException e) {
             String errorMsg = "Could not retrieve CertificateManagementService from the runtime.";
             if(log.isDebugEnabled()){
@@ -339,7 +422,7 @@ public class VirtualFireAlarmServiceUtils {
                 }
                 throw new VirtualFireAlarmException(errorMsg, e);
             } else {
-                errorMsg = "An error occurred whilst trying to retrieve certificate for alias [" + alias +
+                errorMsg = "An error occurred whilst trying to retrieve certificate for deviceId [" + deviceId +
                         "] with alias: [" + alias + "]";
                 if(log.isDebugEnabled()){
                     log.debug(errorMsg);
@@ -347,7 +430,72 @@ public class VirtualFireAlarmServiceUtils {
                 throw new VirtualFireAlarmException(errorMsg, e);
             }
         }
+        if (!isCertificateOfDevice(clientCertificate, deviceId)) {
+            String errorMsg = "The certificate with alias [" + alias + "] is not issued to the device [" + deviceId +
+                    "]";
+            log.warn(errorMsg);
+            throw new VirtualFireAlarmException(errorMsg);
+        }
+        PublicKey clientPublicKey = clientCertificate.getPublicKey();
+        devicePublicKey = new DevicePublicKey(alias, clientPublicKey,
+                                              System.currentTimeMillis() + DEVICE_KEY_CACHE_TTL_IN_MILLIS);
+        synchronized (devicePublicKeys) {
+            devicePublicKeys.put(deviceId, devicePublicKey);
+        }
         return clientPublicKey;
     }
 
+    /**
+     * @param certificate a certificate from the key store.
+     * @param deviceId    the id of a device.
+     * @return true if the subject of the certificate carries the id of the device as its serial number.
+     */
+    private static boolean isCertificateOfDevice(X509Certificate certificate, String deviceId) {
+        if (certificate == null) {
+            return false;
+        }
+        String subject = certificate.getSubjectX500Principal().getName(
+                X500Principal.RFC2253, Collections.singletonMap(SUBJECT_SERIAL_NUMBER_OID,
+                                                                SUBJECT_SERIAL_NUMBER_KEYWORD));
+        try {
+            for (Rdn rdn : new LdapName(subject).getRdns()) {
+                if (SUBJECT_SERIAL_NUMBER_KEYWORD.equalsIgnoreCase(rdn.getType()) &&
+                        deviceId.equals(String.valueOf(rdn.getValue()))) {
+                    return true;
+                }
+            }
+        } catch (InvalidNameException e) {
+            log.warn("Subject [" + subject + "] of the device certificate could not be parsed.", e);
+        }
+        return false;
+    }
+
+    /**
+     * Drops the cached public key of a device, so that the key is read again from the key store when the device
+     * next sends a signed payload.
+     *
+     * @param deviceId the id of the device.
+     */
+    public static void evictDevicePublicKey(String deviceId) {
+        synchronized (devicePublicKeys) {
+            devicePublicKeys.remove(deviceId);
+        }
+    }
+
+    /**
+     * A public key of a device, as read from the certificate with the given alias.
+     */
+    private static class DevicePublicKey {
+
+        private final String alias;
+        private final PublicKey publicKey;
+        private final long expiryTime;
+
+        private DevicePublicKey(String alias, PublicKey publicKey, long expiryTime) {
+            this.alias = alias;
+            this.publicKey = publicKey;
+            this.expiryTime = expiryTime;
+        }
+    }
+
 }
@@ -22,6 +22,8 @@ public class VirtualFireAlarmConstants {
     public final static String DEVICE_TYPE = "virtual_firealarm";
     public final static String DEVICE_PLUGIN_DEVICE_NAME = "DEVICE_NAME";
     public final static String DEVICE_PLUGIN_DEVICE_ID = "VIRTUAL_FIREALARM_DEVICE_ID";
+    public final static String DEVICE_PLUGIN_LAST_SEEN = "LAST_SEEN";
+    public final static String DEVICE_PLUGIN_IS_CONNECTED = "IS_CONNECTED";
     public final static String STATE_ON = "ON";
     public final static String STATE_OFF = "OFF";
 
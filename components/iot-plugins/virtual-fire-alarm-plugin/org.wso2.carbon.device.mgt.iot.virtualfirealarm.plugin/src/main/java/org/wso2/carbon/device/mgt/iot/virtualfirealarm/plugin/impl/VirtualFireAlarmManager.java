@@ -32,6 +32,7 @@ import org.wso2.carbon.device.mgt.common.license.mgt.LicenseManagementException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.exception.VirtualFirealarmDeviceMgtPluginException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.dao.VirtualFireAlarmDAOUtil;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.feature.VirtualFirealarmFeatureManager;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util.DeviceConnectionTracker;
 import java.util.List;
 
 
@@ -119,6 +120,7 @@ public class VirtualFireAlarmManager implements DeviceManager {
             VirtualFireAlarmDAOUtil.beginTransaction();
             status = virtualFireAlarmDAO.getDeviceDAO().deleteDevice(deviceId.getId());
             VirtualFireAlarmDAOUtil.commitTransaction();
+            DeviceConnectionTracker.removeDevice(deviceId.getId());
         } catch (VirtualFirealarmDeviceMgtPluginException e) {
             try {
                 VirtualFireAlarmDAOUtil.rollbackTransaction();
@@ -155,7 +157,14 @@ public class VirtualFireAlarmManager implements DeviceManager {
 
     @Override
     public boolean isActive(DeviceIdentifier deviceId) throws DeviceManagementException {
-        return true;
+        try {
+            return DeviceConnectionTracker.isConnected(deviceId.getId());
+        } catch (VirtualFirealarmDeviceMgtPluginException e) {
+            String msg = "Error while checking the connection state of Virtual Firealarm device : " +
+                    deviceId.getId();
+            log.error(msg, e);
+            throw new DeviceManagementException(msg, e);
+        }
     }
 
     @Override
@@ -23,13 +23,18 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.constants.VirtualFireAlarmConstants;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.exception.VirtualFirealarmDeviceMgtPluginException;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util.DeviceConnectionState;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util.VirtualFireAlarmUtils;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implements CRUD for virtual firealarm Devices.
@@ -37,6 +42,7 @@ import java.util.List;
 public class VirtualFireAlarmDeviceDAO {
 
 	private static final Log log = LogFactory.getLog(VirtualFireAlarmDeviceDAO.class);
+	private static final String DEVICE_TABLE = "VIRTUAL_FIREALARM_DEVICE";
 
 	public Device getDevice(String deviceId) throws VirtualFirealarmDeviceMgtPluginException {
 		Connection conn = null;
@@ -192,4 +198,153 @@ public class VirtualFireAlarmDeviceDAO {
 			VirtualFireAlarmDAOUtil.closeConnection();
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @return `true` if the device table has the LAST_SEEN and IS_CONNECTED columns, which databases created before
+	 * the connection states were tracked lack until the migration script is run.
+	 * @throws VirtualFirealarmDeviceMgtPluginException if the columns could not be checked for any other reason than
+	 *                                                  their absence, i.e. if the database could not be reached.
+	 */
+	public boolean hasConnectionStateColumns() throws VirtualFirealarmDeviceMgtPluginException {
+		Connection conn;
+		PreparedStatement stmt = null;
+		ResultSet resultSet = null;
+		try {
+			conn = VirtualFireAlarmDAOUtil.getConnection();
+			String selectDBQuery = "SELECT LAST_SEEN, IS_CONNECTED FROM VIRTUAL_FIREALARM_DEVICE WHERE 1 = 0";
+			stmt = conn.prepareStatement(selectDBQuery);
+			resultSet = stmt.executeQuery();
+			return true;
+		} catch (SQLException e) {
+			// the databases report a missing column with differing error codes, hence the columns of the table are
+			// looked up to tell it apart from the other failures of the query.
+			if (isMissingConnectionStateColumns()) {
+				if (log.isDebugEnabled()) {
+					log.debug("Connection state columns are not available in the Virtual Firealarm device table", e);
+				}
+				return false;
+			}
+			String msg = "Error occurred while checking the Virtual Firealarm device table for the connection state " +
+						 "columns";
+			log.error(msg, e);
+			throw new VirtualFirealarmDeviceMgtPluginException(msg, e);
+		} finally {
+			VirtualFireAlarmUtils.cleanupResources(stmt, resultSet);
+			VirtualFireAlarmDAOUtil.closeConnection();
+		}
+	}
+
+	/**
+	 * @return `true` only if the columns of the device table could be read and the connection state columns are not
+	 * among them.
+	 */
+	private boolean isMissingConnectionStateColumns() {
+		Set<String> columns = new HashSet<>();
+		ResultSet resultSet = null;
+		try {
+			DatabaseMetaData metaData = VirtualFireAlarmDAOUtil.getConnection().getMetaData();
+			// the databases differ in the case in which they keep unquoted table names.
+			for (String tableName : new String[]{DEVICE_TABLE, DEVICE_TABLE.toLowerCase()}) {
+				resultSet = metaData.getColumns(null, null, tableName, null);
+				while (resultSet.next()) {
+					columns.add(resultSet.getString("COLUMN_NAME").toUpperCase());
+				}
+				VirtualFireAlarmUtils.cleanupResources(null, resultSet);
+				resultSet = null;
+			}
+		} catch (SQLException | VirtualFirealarmDeviceMgtPluginException e) {
+			log.warn("Unable to read the columns of the Virtual Firealarm device table", e);
+			return false;
+		} finally {
+			VirtualFireAlarmUtils.cleanupResources(null, resultSet);
+		}
+		return !columns.isEmpty() && !(columns.contains(VirtualFireAlarmConstants.DEVICE_PLUGIN_LAST_SEEN) &&
+				columns.contains(VirtualFireAlarmConstants.DEVICE_PLUGIN_IS_CONNECTED));
+	}
+
+	public DeviceConnectionState getConnectionState(String deviceId) throws VirtualFirealarmDeviceMgtPluginException {
+		Connection conn;
+		PreparedStatement stmt = null;
+		ResultSet resultSet = null;
+		DeviceConnectionState connectionState = null;
+		try {
+			conn = VirtualFireAlarmDAOUtil.getConnection();
+			String selectDBQuery =
+					"SELECT LAST_SEEN, IS_CONNECTED FROM VIRTUAL_FIREALARM_DEVICE WHERE VIRTUAL_FIREALARM_DEVICE_ID = ?";
+			stmt = conn.prepareStatement(selectDBQuery);
+			stmt.setString(1, deviceId);
+			resultSet = stmt.executeQuery();
+			if (resultSet.next()) {
+				long lastSeen = resultSet.getLong(VirtualFireAlarmConstants.DEVICE_PLUGIN_LAST_SEEN);
+				boolean connected = resultSet.getInt(VirtualFireAlarmConstants.DEVICE_PLUGIN_IS_CONNECTED) == 1;
+				connectionState = new DeviceConnectionState(lastSeen, connected);
+			}
+		} catch (SQLException e) {
+			String msg = "Error occurred while fetching the connection state of Virtual Firealarm device : '" +
+						 deviceId + "'";
+			log.error(msg, e);
+			throw new VirtualFirealarmDeviceMgtPluginException(msg, e);
+		} finally {
+			VirtualFireAlarmUtils.cleanupResources(stmt, resultSet);
+			VirtualFireAlarmDAOUtil.closeConnection();
+		}
+		return connectionState;
+	}
+
+	/**
+	 * Updates the last-seen time and the connection state of a number of devices as JDBC batches. The last-seen time
+	 * of a device is left as it is if it is not known in the given state. It is to be called within a transaction.
+	 *
+	 * @param connectionStates the connection states to be stored against the ids of the devices.
+	 * @throws VirtualFirealarmDeviceMgtPluginException if the update fails.
+	 */
+	public void updateConnectionStates(Map<String, DeviceConnectionState> connectionStates)
+			throws VirtualFirealarmDeviceMgtPluginException {
+		Connection conn;
+		PreparedStatement stmt = null;
+		PreparedStatement connectedStmt = null;
+		try {
+			conn = VirtualFireAlarmDAOUtil.getConnection();
+			String updateDBQuery =
+					"UPDATE VIRTUAL_FIREALARM_DEVICE SET LAST_SEEN = ?, IS_CONNECTED = ? WHERE " +
+					"VIRTUAL_FIREALARM_DEVICE_ID = ?";
+			String updateConnectedDBQuery =
+					"UPDATE VIRTUAL_FIREALARM_DEVICE SET IS_CONNECTED = ? WHERE VIRTUAL_FIREALARM_DEVICE_ID = ?";
+			stmt = conn.prepareStatement(updateDBQuery);
+			connectedStmt = conn.prepareStatement(updateConnectedDBQuery);
+			boolean hasUpdates = false;
+			boolean hasConnectedUpdates = false;
+			for (Map.Entry<String, DeviceConnectionState> connectionState : connectionStates.entrySet()) {
+				if (connectionState.getValue().isLastSeenKnown()) {
+					stmt.setLong(1, connectionState.getValue().getLastSeen());
+					stmt.setInt(2, connectionState.getValue().isConnected() ? 1 : 0);
+					stmt.setString(3, connectionState.getKey());
+					stmt.addBatch();
+					hasUpdates = true;
+				} else {
+					connectedStmt.setInt(1, connectionState.getValue().isConnected() ? 1 : 0);
+					connectedStmt.setString(2, connectionState.getKey());
+					connectedStmt.addBatch();
+					hasConnectedUpdates = true;
+				}
+			}
+			if (hasUpdates) {
+				stmt.executeBatch();
+			}
+			if (hasConnectedUpdates) {
+				connectedStmt.executeBatch();
+			}
+			if (log.isDebugEnabled()) {
+				log.debug("Connection states of " + connectionStates.size() + " Virtual Firealarm devices have " +
+						  "been updated.");
+			}
+		} catch (SQLException e) {
+			String msg = "Error occurred while updating the connection states of Virtual Firealarm devices";
+			log.error(msg, e);
+			throw new VirtualFirealarmDeviceMgtPluginException(msg, e);
+		} finally {
+			VirtualFireAlarmUtils.cleanupResources(stmt, null);
+			VirtualFireAlarmUtils.cleanupResources(connectedStmt, null);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util;
+
+/**
+ * The last time a message was received from a VirtualFirealarm device and whether the device is currently connected
+ * to the broker.
+ */
+public class DeviceConnectionState {
+
+    private final long lastSeen;
+    private final boolean connected;
+
+    /**
+     * @param lastSeen  the time in milliseconds at which a message was last received from the device, or 0 if none.
+     * @param connected whether the device is connected to the broker.
+     */
+    public DeviceConnectionState(long lastSeen, boolean connected) {
+        this.lastSeen = lastSeen;
+        this.connected = connected;
+    }
+
+    public long getLastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * @return `false` if the time at which a message was last received from the device is not known, in which case
+     * the stored last-seen time is to be retained.
+     */
+    public boolean isLastSeenKnown() {
+        return lastSeen > 0;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.exception.VirtualFirealarmDeviceMgtPluginException;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.dao.VirtualFireAlarmDAOUtil;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.dao.VirtualFireAlarmDeviceDAO;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the connection state of the VirtualFirealarm devices as observed by the transport connectors. The
+ * connectors report each message received from a device and each disconnection (will) message published on behalf
+ * of a device by the broker. The states are held in memory and the ones that changed are written to the device table
+ * as a single batch at a fixed interval, so that the ingest path does not make a database call per message.
+ */
+public class DeviceConnectionTracker {
+
+    private static final Log log = LogFactory.getLog(DeviceConnectionTracker.class);
+    private static final long FLUSH_INTERVAL_IN_SECONDS = 60;
+    private static final VirtualFireAlarmDeviceDAO deviceDAO = new VirtualFireAlarmDeviceDAO();
+    // the latest known state of the devices, against their ids.
+    private static final Map<String, DeviceConnectionState> connectionStates = new ConcurrentHashMap<>();
+    // the states that are yet to be written to the device table, against the ids of the devices.
+    private static final Map<String, DeviceConnectionState> pendingUpdates = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService flushService;
+    // whether the device table has the connection state columns, or null if the table is yet to be checked.
+    private static volatile Boolean persistenceEnabled;
+
+    private DeviceConnectionTracker() {
+    }
+
+    /**
+     * Records that a message was received from the device, marking it as connected.
+     *
+     * @param deviceId the id of the device from which the message was received.
+     */
+    public static void deviceSeen(String deviceId) {
+        DeviceConnectionState connectionState = new DeviceConnectionState(System.currentTimeMillis(), true);
+        connectionStates.put(deviceId, connectionState);
+        pendingUpdates.put(deviceId, connectionState);
+    }
+
+    /**
+     * Records that the device lost its connection to the broker. The last-seen time of the device is retained.
+     *
+     * @param deviceId the id of the device on behalf of which the broker published the disconnection message.
+     */
+    public static void deviceDisconnected(String deviceId) {
+        DeviceConnectionState currentState = connectionStates.get(deviceId);
+        DeviceConnectionState connectionState;
+        if (currentState != null) {
+            connectionState = new DeviceConnectionState(currentState.getLastSeen(), false);
+            connectionStates.put(deviceId, connectionState);
+        } else {
+            // the device has not been seen since the server started. hence, its last-seen time is not known and only
+            // the connection state is written, retaining the last-seen time stored in the device table.
+            connectionState = new DeviceConnectionState(0, false);
+        }
+        pendingUpdates.put(deviceId, connectionState);
+    }
+
+    /**
+     * @param deviceId the id of the device.
+     * @return `true` if the device is connected to the broker, `false` if it is not or has never been seen. If the
+     * device table lacks the connection state columns, a device that has not been seen since the server started is
+     * taken to be connected, as it was before the connection states were tracked.
+     * @throws VirtualFirealarmDeviceMgtPluginException if the state of the device could not be read from the table.
+     */
+    public static boolean isConnected(String deviceId) throws VirtualFirealarmDeviceMgtPluginException {
+        DeviceConnectionState connectionState = connectionStates.get(deviceId);
+        if (connectionState == null) {
+            connectionState = pendingUpdates.get(deviceId);
+        }
+        if (connectionState == null) {
+            if (!isPersistenceEnabled()) {
+                return true;
+            }
+            connectionState = deviceDAO.getConnectionState(deviceId);
+            if (connectionState == null) {
+                return false;
+            }
+            DeviceConnectionState existingState = connectionStates.putIfAbsent(deviceId, connectionState);
+            if (existingState != null) {
+                connectionState = existingState;
+            }
+        }
+        return connectionState.isConnected();
+    }
+
+    /**
+     * Discards the state of a device that is no longer enrolled.
+     *
+     * @param deviceId the id of the device.
+     */
+    public static void removeDevice(String deviceId) {
+        connectionStates.remove(deviceId);
+        pendingUpdates.remove(deviceId);
+    }
+
+    /**
+     * Starts writing the changed states to the device table at a fixed interval.
+     */
+    public static synchronized void start() {
+        if (flushService != null) {
+            return;
+        }
+        flushService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "virtual-firealarm-connection-tracker");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flushService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL_IN_SECONDS, FLUSH_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic writes, writing the states that changed since the last write.
+     */
+    public static synchronized void stop() {
+        if (flushService == null) {
+            return;
+        }
+        flushService.shutdown();
+        try {
+            flushService.awaitTermination(FLUSH_INTERVAL_IN_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushService = null;
+        flush();
+    }
+
+    /**
+     * Writes the states that changed since the last write to the device table as a single batch. A state is removed
+     * from the pending updates only if it was not replaced whilst being written, and the failed updates are retained
+     * unless a newer state has been recorded in the meantime.
+     */
+    private static synchronized void flush() {
+        if (pendingUpdates.isEmpty()) {
+            return;
+        }
+        if (!isPersistenceEnabled()) {
+            // the states are only kept in memory until the device table is migrated, rather than failing the
+            // update on every flush.
+            if (Boolean.FALSE.equals(persistenceEnabled)) {
+                pendingUpdates.clear();
+            }
+            return;
+        }
+        Map<String, DeviceConnectionState> updates = new HashMap<>(pendingUpdates);
+        for (Map.Entry<String, DeviceConnectionState> update : updates.entrySet()) {
+            pendingUpdates.remove(update.getKey(), update.getValue());
+        }
+        try {
+            VirtualFireAlarmDAOUtil.beginTransaction();
+            deviceDAO.updateConnectionStates(updates);
+            VirtualFireAlarmDAOUtil.commitTransaction();
+        } catch (VirtualFirealarmDeviceMgtPluginException e) {
+            try {
+                VirtualFireAlarmDAOUtil.rollbackTransaction();
+            } catch (VirtualFirealarmDeviceMgtPluginException iotDAOEx) {
+                log.warn("Error occurred while roll back the device connection state update transaction", iotDAOEx);
+            }
+            log.error("Failed to update the connection states of " + updates.size() + " Virtual Firealarm " +
+                      "devices. The update will be retried.", e);
+            for (Map.Entry<String, DeviceConnectionState> update : updates.entrySet()) {
+                pendingUpdates.putIfAbsent(update.getKey(), update.getValue());
+            }
+        }
+    }
+
+    /**
+     * Checks once whether the device table has the connection state columns. The check is retried later if the
+     * database could not be reached.
+     */
+    private static boolean isPersistenceEnabled() {
+        Boolean enabled = persistenceEnabled;
+        if (enabled == null) {
+            try {
+                enabled = deviceDAO.hasConnectionStateColumns();
+            } catch (VirtualFirealarmDeviceMgtPluginException e) {
+                log.warn("Unable to check the Virtual Firealarm device table for the connection state columns. " +
+                         "The check will be retried.", e);
+                return false;
+            }
+            if (!enabled) {
+                log.warn("LAST_SEEN and IS_CONNECTED columns are missing in the VIRTUAL_FIREALARM_DEVICE table. " +
+                         "The connection states of the Virtual Firealarm devices are kept in memory only. Run the " +
+                         "script for the database in dbscripts/cdm/plugins/virtual_firealarm/migration and restart " +
+                         "the server to persist them.");
+            }
+            persistenceEnabled = enabled;
+        }
+        return enabled;
+    }
+}
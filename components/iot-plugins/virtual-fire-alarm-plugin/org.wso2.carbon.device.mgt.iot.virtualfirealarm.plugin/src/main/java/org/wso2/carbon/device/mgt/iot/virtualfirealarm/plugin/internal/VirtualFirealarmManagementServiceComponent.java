@@ -26,6 +26,7 @@ import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.device.mgt.common.spi.DeviceManagementService;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.exception.VirtualFirealarmDeviceMgtPluginException;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.VirtualFireAlarmManagerService;
+import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util.DeviceConnectionTracker;
 import org.wso2.carbon.device.mgt.iot.virtualfirealarm.plugin.impl.util.VirtualFireAlarmUtils;
 
 /**
@@ -58,6 +59,7 @@ public class VirtualFirealarmManagementServiceComponent {
                     log.error("Exception occurred while initializing device management database schema", e);
                 }
             }
+            DeviceConnectionTracker.start();
             if (log.isDebugEnabled()) {
                 log.debug("Virtual Firealarm Device Management Service Component has been successfully activated");
             }
@@ -74,6 +76,7 @@ public class VirtualFirealarmManagementServiceComponent {
             if (firealarmServiceRegRef != null) {
                 firealarmServiceRegRef.unregister();
             }
+            DeviceConnectionTracker.stop();
             if (log.isDebugEnabled()) {
                 log.debug("Virtual Firealarm Device Management Service Component has been successfully de-activated");
             }
@@ -126,6 +126,13 @@ public final class PluginConstants {
         public static final String PARM = "parm";
         public static final String TYPE = "type";
         public static final String VALUE = "value";
+        public static final String NAME = "name";
+        public static final String DATATYPE = "datatype";
+        public static final String DATATYPE_STRING = "string";
+        public static final String CHARACTERISTIC = "characteristic";
+        public static final String DM_SERVER_PROVIDER = "MobiCDMServer";
+        public static final String PUSH = "Push";
+        public static final String PFN = "PFN";
         public static final String VALUE_TYPE =
                 "http://schemas.microsoft.com/5.0.0" +
                         ".0/ConfigurationManager/Enrollment/DeviceEnrollmentProvisionDoc";
@@ -202,6 +209,7 @@ public final class PluginConstants {
         public static final String MANUFACTURER = "MANUFACTURER";
         public static final String LANGUAGE = "LANGUAGE";
         public static final String RESOLUTION = "RESOLUTION";
+        public static final String CHANNEL_URI = "CHANNEL_URI";
     }
 
     /**
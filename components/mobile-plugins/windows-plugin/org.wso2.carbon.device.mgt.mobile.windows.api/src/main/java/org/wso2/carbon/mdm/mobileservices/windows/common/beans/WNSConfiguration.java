@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.common.beans;
+
+/**
+ * Bean class for storing the WNS push notification settings read from the property file.
+ */
+public class WNSConfiguration {
+
+    private boolean enabled;
+    private String packageFamilyName;
+    private String packageSID;
+    private String clientSecret;
+    private String clientClass;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return package family name of the application registered with WNS, which is provisioned to the devices.
+     */
+    public String getPackageFamilyName() {
+        return packageFamilyName;
+    }
+
+    public void setPackageFamilyName(String packageFamilyName) {
+        this.packageFamilyName = packageFamilyName;
+    }
+
+    public String getPackageSID() {
+        return packageSID;
+    }
+
+    public void setPackageSID(String packageSID) {
+        this.packageSID = packageSID;
+    }
+
+    public String getClientSecret() {
+        return clientSecret;
+    }
+
+    public void setClientSecret(String clientSecret) {
+        this.clientSecret = clientSecret;
+    }
+
+    /**
+     * @return fully qualified name of the WNSClient implementation, or null if the default client is to be used.
+     */
+    public String getClientClass() {
+        return clientClass;
+    }
+
+    public void setClientClass(String clientClass) {
+        this.clientClass = clientClass;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.common.push;
+
+import org.wso2.carbon.mdm.mobileservices.windows.common.beans.WNSConfiguration;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WNSException;
+
+/**
+ * Client used to send raw notifications to the channels of the Windows devices. An implementation other than
+ * WNSClientImpl, such as one that talks to a mock WNS endpoint, can be plugged in through the ClientClass
+ * property of the WNS configuration. Implementations must have a public no-argument constructor and be thread-safe.
+ */
+public interface WNSClient {
+
+    /**
+     * @param configuration WNS settings read from the property file.
+     * @throws WNSException if the client could not be initialized with the given settings.
+     */
+    void init(WNSConfiguration configuration) throws WNSException;
+
+    /**
+     * @param channelURI channel URI reported by the device.
+     * @param payload    content of the raw notification.
+     * @throws WNSException if the notification was not accepted by WNS.
+     */
+    void sendRawNotification(String channelURI, byte[] payload) throws WNSException;
+}
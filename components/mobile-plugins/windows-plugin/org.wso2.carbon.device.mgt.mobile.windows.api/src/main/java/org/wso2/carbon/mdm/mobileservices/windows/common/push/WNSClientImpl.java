@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.common.push;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.mdm.mobileservices.windows.common.beans.WNSConfiguration;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WNSException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * WNSClient that authenticates against the Live access token service with the package SID and client secret of the
+ * application, and posts the raw notifications to the channel URIs of the devices. The access token is reused
+ * until it expires or is rejected by WNS.
+ */
+public class WNSClientImpl implements WNSClient {
+
+    private static final Log log = LogFactory.getLog(WNSClientImpl.class);
+    private static final String ACCESS_TOKEN_URL = "https://login.live.com/accesstoken.srf";
+    private static final String NOTIFICATION_HOST_SUFFIX = ".notify.windows.com";
+    private static final String SCOPE = "notify.windows.com";
+    private static final String HTTPS = "https";
+    private static final String POST = "POST";
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String AUTHORIZATION = "Authorization";
+    private static final String BEARER = "Bearer ";
+    private static final String WNS_TYPE = "X-WNS-Type";
+    private static final String WNS_TYPE_RAW = "wns/raw";
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+    private static final String RAW_CONTENT_TYPE = "application/octet-stream";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String EXPIRES_IN = "expires_in";
+    private static final int CONNECT_TIMEOUT = 10000;
+    private static final int READ_TIMEOUT = 10000;
+    // the token is renewed a minute ahead of its expiry, so that it does not expire whilst a notification is sent.
+    private static final long EXPIRY_MARGIN = 60 * 1000;
+
+    private String tokenRequest;
+    private String accessToken;
+    private long accessTokenExpiryTime;
+
+    @Override
+    public void init(WNSConfiguration configuration) throws WNSException {
+        if (configuration.getPackageSID() == null || configuration.getClientSecret() == null) {
+            throw new WNSException("Package SID and client secret are required to authenticate with WNS.");
+        }
+        try {
+            tokenRequest = "grant_type=client_credentials&client_id=" +
+                    URLEncoder.encode(configuration.getPackageSID(), StandardCharsets.UTF_8.name()) +
+                    "&client_secret=" +
+                    URLEncoder.encode(configuration.getClientSecret(), StandardCharsets.UTF_8.name()) +
+                    "&scope=" + SCOPE;
+        } catch (UnsupportedEncodingException e) {
+            throw new WNSException("Error occurred in while encoding the WNS credentials.", e);
+        }
+    }
+
+    @Override
+    public void sendRawNotification(String channelURI, byte[] payload) throws WNSException {
+        URL channelURL = getChannelURL(channelURI);
+        int status = post(channelURL, getAccessToken(false), payload);
+        if (status == HttpURLConnection.HTTP_UNAUTHORIZED) {
+            // the token has been revoked or has expired before its stated expiry.
+            status = post(channelURL, getAccessToken(true), payload);
+        }
+        if (status != HttpURLConnection.HTTP_OK) {
+            throw new WNSException("WNS rejected the notification to channel " + channelURI + " with status " +
+                    status + ".");
+        }
+    }
+
+    private int post(URL channelURL, String token, byte[] payload) throws WNSException {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) channelURL.openConnection();
+            connection.setRequestMethod(POST);
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setDoOutput(true);
+            connection.setRequestProperty(CONTENT_TYPE, RAW_CONTENT_TYPE);
+            connection.setRequestProperty(WNS_TYPE, WNS_TYPE_RAW);
+            connection.setRequestProperty(AUTHORIZATION, BEARER + token);
+            OutputStream outputStream = connection.getOutputStream();
+            try {
+                outputStream.write(payload);
+            } finally {
+                outputStream.close();
+            }
+            return connection.getResponseCode();
+        } catch (IOException e) {
+            throw new WNSException("Error occurred in while sending the notification to WNS.", e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private synchronized String getAccessToken(boolean isRenewal) throws WNSException {
+        if (!isRenewal && accessToken != null && System.currentTimeMillis() < accessTokenExpiryTime) {
+            return accessToken;
+        }
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(ACCESS_TOKEN_URL).openConnection();
+            connection.setRequestMethod(POST);
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            connection.setDoOutput(true);
+            connection.setRequestProperty(CONTENT_TYPE, FORM_CONTENT_TYPE);
+            OutputStream outputStream = connection.getOutputStream();
+            try {
+                outputStream.write(tokenRequest.getBytes(StandardCharsets.UTF_8));
+            } finally {
+                outputStream.close();
+            }
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new WNSException("WNS access token request failed with status " + status + ".");
+            }
+            InputStream inputStream = connection.getInputStream();
+            JSONObject tokenResponse;
+            try {
+                tokenResponse = new JSONObject(IOUtils.toString(inputStream, StandardCharsets.UTF_8.name()));
+            } finally {
+                inputStream.close();
+            }
+            accessToken = tokenResponse.getString(ACCESS_TOKEN);
+            accessTokenExpiryTime = System.currentTimeMillis() + tokenResponse.getLong(EXPIRES_IN) * 1000 -
+                    EXPIRY_MARGIN;
+            if (log.isDebugEnabled()) {
+                log.debug("Obtained a WNS access token valid for " + tokenResponse.getLong(EXPIRES_IN) + " seconds.");
+            }
+            return accessToken;
+        } catch (IOException e) {
+            throw new WNSException("Error occurred in while obtaining the WNS access token.", e);
+        } catch (JSONException e) {
+            throw new WNSException("Invalid WNS access token response.", e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * The channel URI is reported by the device, hence only the WNS endpoints are accepted, so that the server can
+     * not be made to post the access token to an arbitrary host.
+     */
+    private URL getChannelURL(String channelURI) throws WNSException {
+        try {
+            URL channelURL = new URL(channelURI);
+            if (!HTTPS.equalsIgnoreCase(channelURL.getProtocol()) ||
+                    !channelURL.getHost().toLowerCase().endsWith(NOTIFICATION_HOST_SUFFIX)) {
+                throw new WNSException("Channel URI " + channelURI + " is not a WNS endpoint.");
+            }
+            return channelURL;
+        } catch (MalformedURLException e) {
+            throw new WNSException("Invalid channel URI " + channelURI + ".", e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.common.push;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.mdm.mobileservices.windows.common.beans.WNSConfiguration;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WNSException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wakes up the Windows devices through WNS so that they start an OMA-DM session as soon as a command operation is
+ * added to them, instead of at their next scheduled poll. Push is optional and best effort; a device that could not
+ * be notified still receives the operation when it polls. The notifications are sent asynchronously so that adding
+ * an operation does not wait on WNS.
+ */
+public class WNSPushNotifier {
+
+    private static final Log log = LogFactory.getLog(WNSPushNotifier.class);
+    // the raw notification only needs to reach the DM client; its content is not interpreted.
+    private static final byte[] WAKE_UP_PAYLOAD = "sync".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_THREADS = 4;
+    private static final int MAX_QUEUED_NOTIFICATIONS = 10000;
+    private static volatile WNSConfiguration configuration;
+    private static volatile WNSClient client;
+    private static volatile ThreadPoolExecutor executor;
+
+    private WNSPushNotifier() {
+    }
+
+    /**
+     * Sets up the WNS client if push is enabled in the configuration.
+     *
+     * @param wnsConfiguration WNS settings read from the property file.
+     */
+    public static synchronized void init(WNSConfiguration wnsConfiguration) {
+        destroy();
+        if (wnsConfiguration == null || !wnsConfiguration.isEnabled()) {
+            return;
+        }
+        WNSClient wnsClient;
+        try {
+            if (wnsConfiguration.getClientClass() != null && !wnsConfiguration.getClientClass().isEmpty()) {
+                wnsClient = (WNSClient) Class.forName(wnsConfiguration.getClientClass()).newInstance();
+            } else {
+                wnsClient = new WNSClientImpl();
+            }
+            wnsClient.init(wnsConfiguration);
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | ClassCastException e) {
+            log.error("WNS client " + wnsConfiguration.getClientClass() + " can not be loaded. Push notifications " +
+                    "are disabled.", e);
+            return;
+        } catch (WNSException e) {
+            log.error("WNS client can not be initialized. Push notifications are disabled.", e);
+            return;
+        }
+        if (wnsConfiguration.getPackageFamilyName() == null) {
+            log.warn("WNS package family name is not configured. Devices enrolled henceforth will not be " +
+                    "provisioned with a push channel.");
+        }
+        ThreadPoolExecutor pushExecutor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(MAX_QUEUED_NOTIFICATIONS), new PushThreadFactory());
+        pushExecutor.allowCoreThreadTimeOut(true);
+        executor = pushExecutor;
+        client = wnsClient;
+        configuration = wnsConfiguration;
+    }
+
+    /**
+     * Stops sending push notifications, discarding the notifications yet to be sent.
+     */
+    public static synchronized void destroy() {
+        configuration = null;
+        client = null;
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return configuration != null;
+    }
+
+    /**
+     * @return WNS settings in effect, or null if push is disabled.
+     */
+    public static WNSConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @param operation operation added to the devices.
+     * @return true if the devices are to be woken up to receive the operation.
+     */
+    public static boolean isHighPriority(Operation operation) {
+        return operation != null && Operation.Type.COMMAND.equals(operation.getType());
+    }
+
+    /**
+     * Wakes up the devices to which the given operation was added, if the operation is of high priority. A failed
+     * notification is only logged, hence this never fails the addition of the operation.
+     *
+     * @param operation   operation added to the devices.
+     * @param channelURIs channel URIs of the devices to which the operation was added, keyed by device id.
+     */
+    public static void operationAdded(Operation operation, Map<String, String> channelURIs) {
+        if (isHighPriority(operation)) {
+            wakeUp(channelURIs);
+        }
+    }
+
+    /**
+     * Queues a raw notification to each of the given channels.
+     *
+     * @param channelURIs channel URIs of the devices to be woken up, keyed by device id.
+     */
+    public static void wakeUp(Map<String, String> channelURIs) {
+        final WNSClient wnsClient = client;
+        ThreadPoolExecutor pushExecutor = executor;
+        if (wnsClient == null || pushExecutor == null || channelURIs == null) {
+            return;
+        }
+        for (final Map.Entry<String, String> channelURI : channelURIs.entrySet()) {
+            try {
+                pushExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            wnsClient.sendRawNotification(channelURI.getValue(), WAKE_UP_PAYLOAD);
+                        } catch (WNSException | RuntimeException e) {
+                            log.warn("Device " + channelURI.getKey() + " could not be woken up through WNS. The " +
+                                    "operation will be delivered on its next poll.", e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                log.warn("Push notification queue is full. Device " + channelURI.getKey() + " will receive the " +
+                        "operation on its next poll.");
+            }
+        }
+    }
+
+    private static class PushThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "windows-wns-push-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -21,8 +21,12 @@ package org.wso2.carbon.mdm.mobileservices.windows.common.util;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
+import org.wso2.carbon.mdm.mobileservices.windows.common.beans.WNSConfiguration;
 import org.wso2.carbon.mdm.mobileservices.windows.common.beans.WindowsPluginProperties;
+import org.wso2.carbon.mdm.mobileservices.windows.common.push.WNSPushNotifier;
 import org.xml.sax.SAXException;
 
 import javax.servlet.ServletContext;
@@ -49,7 +53,14 @@ public class ConfigInitializerContextListener implements ServletContextListener
         PROPERTY_PASSWORD("Password"),
         PROPERTY_PRIVATE_KEY_PASSWORD("PrivateKeyPassword"),
         AUTH_POLICY("AuthPolicy"),
-        DOMAIN("domain");
+        DOMAIN("domain"),
+        TOKEN_CACHE_DURATION("TokenCacheDuration"),
+        WNS("WNS"),
+        WNS_ENABLED("Enabled"),
+        WNS_PACKAGE_FAMILY_NAME("PackageFamilyName"),
+        WNS_PACKAGE_SID("PackageSID"),
+        WNS_CLIENT_SECRET("ClientSecret"),
+        WNS_CLIENT_CLASS("ClientClass");
 
         private final String propertyName;
 
@@ -113,7 +124,23 @@ public class ConfigInitializerContextListener implements ServletContextListener
             signedCertNotAfterDate = Integer.valueOf(document.getElementsByTagName(
                     PropertyName.PROPERTY_SIGNED_CERT_NOT_AFTER.getValue()).item(0).getTextContent());
             domain = document.getElementsByTagName(PropertyName.DOMAIN.getValue()).item(0).getTextContent();
-
+            WNSPushNotifier.init(getWNSConfiguration(document));
+            Node tokenCacheDuration =
+                    document.getElementsByTagName(PropertyName.TOKEN_CACHE_DURATION.getValue()).item(0);
+            if (tokenCacheDuration != null) {
+                long duration = INITIAL_VALUE;
+                try {
+                    duration = Long.parseLong(tokenCacheDuration.getTextContent().trim());
+                } catch (NumberFormatException e) {
+                    // handled below along with the non-positive durations.
+                }
+                if (duration > INITIAL_VALUE) {
+                    DeviceUtil.setCacheDuration(duration);
+                } else {
+                    log.error("Invalid token cache duration in properties.xml. Default duration of " +
+                            DeviceUtil.DEFAULT_CACHE_DURATION + " minutes is used.");
+                }
+            }
         }
 
         WindowsPluginProperties properties = new WindowsPluginProperties();
@@ -133,6 +160,35 @@ public class ConfigInitializerContextListener implements ServletContextListener
 
     @Override
     public void contextDestroyed(ServletContextEvent servletContextEvent) {
+        WNSPushNotifier.destroy();
+    }
+
+    /**
+     * @param document - Parsed property file.
+     * @return - WNS push notification settings, or null if they are not configured.
+     */
+    private WNSConfiguration getWNSConfiguration(Document document) {
+        Node wnsNode = document.getElementsByTagName(PropertyName.WNS.getValue()).item(0);
+        if (wnsNode == null) {
+            return null;
+        }
+        Element wnsElement = (Element) wnsNode;
+        WNSConfiguration configuration = new WNSConfiguration();
+        configuration.setEnabled(Boolean.parseBoolean(getChildText(wnsElement, PropertyName.WNS_ENABLED)));
+        configuration.setPackageFamilyName(getChildText(wnsElement, PropertyName.WNS_PACKAGE_FAMILY_NAME));
+        configuration.setPackageSID(getChildText(wnsElement, PropertyName.WNS_PACKAGE_SID));
+        configuration.setClientSecret(getChildText(wnsElement, PropertyName.WNS_CLIENT_SECRET));
+        configuration.setClientClass(getChildText(wnsElement, PropertyName.WNS_CLIENT_CLASS));
+        return configuration;
+    }
+
+    private String getChildText(Element element, PropertyName propertyName) {
+        Node node = element.getElementsByTagName(propertyName.getValue()).item(0);
+        if (node == null) {
+            return null;
+        }
+        String text = node.getTextContent().trim();
+        return text.isEmpty() ? null : text;
     }
 
 }
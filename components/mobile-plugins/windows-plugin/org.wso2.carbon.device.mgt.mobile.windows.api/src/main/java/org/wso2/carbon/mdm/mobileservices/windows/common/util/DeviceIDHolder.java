@@ -21,6 +21,7 @@ package org.wso2.carbon.mdm.mobileservices.windows.common.util;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class for holding device ids.
@@ -29,6 +30,7 @@ public class DeviceIDHolder {
 
     private List<String> errorDeviceIdList;
     private List<DeviceIdentifier> validDeviceIDList;
+    private Map<String, String> channelURIs;
 
     public List<String> getErrorDeviceIdList() {
         return errorDeviceIdList;
@@ -45,4 +47,15 @@ public class DeviceIDHolder {
     public void setValidDeviceIDList(List<DeviceIdentifier> validDeviceIDList) {
         this.validDeviceIDList = validDeviceIDList;
     }
+
+    /**
+     * @return WNS channel URIs of the valid devices that have a push channel, keyed by device id.
+     */
+    public Map<String, String> getChannelURIs() {
+        return channelURIs;
+    }
+
+    public void setChannelURIs(Map<String, String> channelURIs) {
+        this.channelURIs = channelURIs;
+    }
 }
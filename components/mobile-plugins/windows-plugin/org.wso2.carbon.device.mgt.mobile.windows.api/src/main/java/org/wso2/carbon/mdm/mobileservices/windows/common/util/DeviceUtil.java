@@ -15,28 +15,41 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.wso2.carbon.mdm.mobileservices.windows.common.util;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.mdm.mobileservices.windows.common.beans.CacheEntry;
 
 import javax.cache.Cache;
 import javax.cache.CacheConfiguration;
+import javax.cache.CacheException;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
+import java.util.Collections;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Class for generate random token for XCEP and WSTEP
  */
 public class DeviceUtil {
 
+    public static final long DEFAULT_CACHE_DURATION = 15l;
+    private static final Log log = LogFactory.getLog(DeviceUtil.class);
     private static final String TOKEN_CACHE_MANAGER = "TOKEN_CACHE_MANAGER";
     private static final String TOKEN_CACHE = "TOKEN_CACHE";
-    private static final long CACHE_DURATION = 15l;
-    private static boolean isContextCacheInitialized = false;
+    private static volatile long cacheDuration = DEFAULT_CACHE_DURATION;
+    // the cache managers are tenant scoped, hence the token cache is created once per tenant.
+    private static final Set<Integer> initializedTenants =
+            Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+    private static final AtomicLong cacheHits = new AtomicLong();
+    private static final AtomicLong cacheMisses = new AtomicLong();
 
     public static String generateRandomToken() {
         return String.valueOf(UUID.randomUUID());
@@ -44,18 +57,16 @@ public class DeviceUtil {
 
     public static void persistChallengeToken(String token, String deviceID, String username) throws DeviceManagementException {
 
-        Object objCacheEntry = getCacheEntry(token);
-        CacheEntry cacheEntry;
-        if (objCacheEntry == null) {
+        Cache<String, CacheEntry> tokenCache = getTokenCache();
+        CacheEntry cacheEntry = tokenCache.get(token);
+        if (cacheEntry == null) {
             cacheEntry = new CacheEntry();
             cacheEntry.setUsername(username);
-        } else {
-            cacheEntry = (CacheEntry) objCacheEntry;
         }
         if (deviceID != null) {
             cacheEntry.setDeviceID(deviceID);
         }
-        getTokenCache().put(token, cacheEntry);
+        tokenCache.put(token, cacheEntry);
     }
 
     public static void removeToken(String token) {
@@ -63,19 +74,63 @@ public class DeviceUtil {
     }
 
     public static Object getCacheEntry(String token) {
-        return getTokenCache().get(token);
+        CacheEntry cacheEntry = getTokenCache().get(token);
+        if (cacheEntry != null) {
+            cacheHits.incrementAndGet();
+        } else {
+            cacheMisses.incrementAndGet();
+            if (log.isDebugEnabled()) {
+                log.debug("Token not found in the token cache. Hits: " + cacheHits.get() + ", misses: " +
+                        cacheMisses.get());
+            }
+        }
+        return cacheEntry;
     }
 
-    private static Cache getTokenCache() {
-        CacheManager contextCacheManager = Caching.getCacheManager(TOKEN_CACHE_MANAGER).
-                getCache(TOKEN_CACHE).getCacheManager();
-        if (!isContextCacheInitialized) {
-            isContextCacheInitialized = true;
-            return contextCacheManager.createCacheBuilder(TOKEN_CACHE_MANAGER).setExpiry(
-                    CacheConfiguration.ExpiryType.MODIFIED,
-                    new CacheConfiguration.Duration(TimeUnit.MINUTES, CACHE_DURATION)).setStoreByValue(false).build();
-        } else {
-            return Caching.getCacheManager(TOKEN_CACHE_MANAGER).getCache(TOKEN_CACHE);
+    /**
+     * Sets the time for which an issued token remains valid after it is last modified. This only applies to the
+     * token caches created afterwards, hence it is to be set before the first token is issued.
+     *
+     * @param duration - Token validity period in minutes.
+     */
+    public static void setCacheDuration(long duration) {
+        cacheDuration = duration;
+    }
+
+    /**
+     * @return - Number of token lookups that found a valid token since startup.
+     */
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return - Number of token lookups that found no token, either unknown or expired, since startup.
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    private static Cache<String, CacheEntry> getTokenCache() {
+        CacheManager contextCacheManager = Caching.getCacheManager(TOKEN_CACHE_MANAGER);
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        if (!initializedTenants.contains(tenantId)) {
+            synchronized (initializedTenants) {
+                if (!initializedTenants.contains(tenantId)) {
+                    try {
+                        contextCacheManager.<String, CacheEntry>createCacheBuilder(TOKEN_CACHE).setExpiry(
+                                CacheConfiguration.ExpiryType.MODIFIED,
+                                new CacheConfiguration.Duration(TimeUnit.MINUTES, cacheDuration)).
+                                setStoreByValue(false).build();
+                    } catch (CacheException e) {
+                        // the cache outlives the web app, hence it may have been created before a redeployment.
+                        log.warn("Token cache of tenant " + tenantId + " could not be created. The existing " +
+                                "cache is used.", e);
+                    }
+                    initializedTenants.add(tenantId);
+                }
+            }
         }
+        return contextCacheManager.getCache(TOKEN_CACHE);
     }
 }
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.mdm.mobileservices.windows.common.util;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.ws.security.WSSecurityException;
@@ -32,16 +33,53 @@ import org.wso2.carbon.user.api.UserStoreException;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
- * Validator class for user authentication checking the default carbon user store.
+ * Validator class for user authentication checking the default carbon user store. Successful authentications are
+ * cached for a short while, so that the bulk enrollment of devices with the same credentials does not bind to the
+ * user store (i.e. LDAP or Active Directory) on every WS-Security request. Failed authentications are counted per
+ * user, whatever the password tried, and once a user fails too often the further attempts are rejected without
+ * reaching the user store until the failure window ends. The caches are keyed by salted hashes, hence neither the
+ * passwords nor the usernames are held in memory.
  */
 public class UsernameTokenValidator implements Validator {
 
     private static final int USER_SEGMENT = 0;
     private static final int DOMAIN_SEGMENT = 1;
     private static final String DELIMITER = "@";
+    private static final String CREDENTIAL_HASH_ALGORITHM = "SHA-256";
+    private static final int CREDENTIAL_SALT_LENGTH = 32;
+    private static final long AUTHENTICATED_CACHE_DURATION_IN_MILLIS = 5 * 60 * 1000;
+    private static final int MAX_AUTHENTICATED_CACHE_SIZE = 10000;
+    static final int MAX_FAILED_ATTEMPTS = 5;
+    static final long FAILED_ATTEMPTS_WINDOW_IN_MILLIS = 30 * 1000;
+    private static final int MAX_FAILED_USERS_CACHE_SIZE = 10000;
+    private static final byte[] credentialSalt = new byte[CREDENTIAL_SALT_LENGTH];
+    // expiry times of the successful authentications, against the salted hash of the credentials.
+    private static final Map<String, Long> authenticatedCredentials = new ConcurrentHashMap<>();
+    // failed authentications against the salted hash of the tenant domain and the username. The entries are kept in
+    // the order their windows started, hence the eldest one evicted once the cache is full is the first to expire.
+    private static final Map<String, FailedAttempts> failedUsers =
+            new LinkedHashMap<String, FailedAttempts>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FailedAttempts> eldest) {
+                    return size() > MAX_FAILED_USERS_CACHE_SIZE;
+                }
+            };
     private static Log log = LogFactory.getLog(UsernameTokenValidator.class);
 
+    static {
+        new SecureRandom().nextBytes(credentialSalt);
+    }
+
     /**
      * This method validates the username token in SOAP message coming from the device.
      *
@@ -84,7 +122,8 @@ public class UsernameTokenValidator implements Validator {
     }
 
     /**
-     * This method authenticate the user checking the carbon default user store.
+     * This method authenticate the user checking the carbon default user store, unless the same credentials were
+     * recently authenticated, or the user has recently failed to authenticate too many times.
      *
      * @param username     - Username in username token
      * @param password     - Password in username token
@@ -95,6 +134,40 @@ public class UsernameTokenValidator implements Validator {
     public boolean authenticate(String username, String password, String tenantDomain) throws
             AuthenticationException {
 
+        String credentialHash = getHash(tenantDomain, username, password);
+        long currentTime = getCurrentTime();
+        if (isCached(authenticatedCredentials, credentialHash, currentTime)) {
+            return true;
+        }
+        String userHash = getHash(tenantDomain, username);
+        if (isThrottled(userHash, currentTime)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Authentication of user " + username + " was rejected as it failed " + MAX_FAILED_ATTEMPTS +
+                                  " times within " + FAILED_ATTEMPTS_WINDOW_IN_MILLIS + " ms.");
+            }
+            return false;
+        }
+        boolean authenticated = authenticateWithUserStore(username, password, tenantDomain);
+        if (authenticated) {
+            cache(authenticatedCredentials, MAX_AUTHENTICATED_CACHE_SIZE, credentialHash,
+                  currentTime + AUTHENTICATED_CACHE_DURATION_IN_MILLIS);
+            synchronized (failedUsers) {
+                failedUsers.remove(userHash);
+            }
+        } else if (recordFailure(userHash, currentTime) == MAX_FAILED_ATTEMPTS) {
+            log.warn("User " + username + " failed to authenticate " + MAX_FAILED_ATTEMPTS + " times, hence the " +
+                             "further attempts are rejected for " + FAILED_ATTEMPTS_WINDOW_IN_MILLIS + " ms.");
+        }
+        return authenticated;
+    }
+
+    long getCurrentTime() {
+        return System.currentTimeMillis();
+    }
+
+    boolean authenticateWithUserStore(String username, String password, String tenantDomain) throws
+            AuthenticationException {
+
         try {
             PrivilegedCarbonContext.startTenantFlow();
             PrivilegedCarbonContext ctx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
@@ -131,4 +204,94 @@ public class UsernameTokenValidator implements Validator {
             PrivilegedCarbonContext.endTenantFlow();
         }
     }
+
+    private static boolean isCached(Map<String, Long> cache, String credentialHash, long currentTime) {
+        Long expiryTime = cache.get(credentialHash);
+        if (expiryTime == null) {
+            return false;
+        }
+        if (expiryTime <= currentTime) {
+            cache.remove(credentialHash, expiryTime);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Caches a successful authentication. Once the cache is full the expired entries are evicted, and if that does
+     * not make room the cache is cleared, which at worst costs a user store call per distinct credential.
+     */
+    private static void cache(Map<String, Long> cache, int maxSize, String credentialHash, long expiryTime) {
+        if (cache.size() >= maxSize) {
+            long currentTime = System.currentTimeMillis();
+            for (Iterator<Long> iterator = cache.values().iterator(); iterator.hasNext(); ) {
+                if (iterator.next() <= currentTime) {
+                    iterator.remove();
+                }
+            }
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+        }
+        cache.put(credentialHash, expiryTime);
+    }
+
+    private static boolean isThrottled(String userHash, long currentTime) {
+        synchronized (failedUsers) {
+            FailedAttempts failedAttempts = failedUsers.get(userHash);
+            if (failedAttempts == null) {
+                return false;
+            }
+            if (failedAttempts.windowExpiryTime <= currentTime) {
+                failedUsers.remove(userHash);
+                return false;
+            }
+            return failedAttempts.count >= MAX_FAILED_ATTEMPTS;
+        }
+    }
+
+    /**
+     * Counts a failed authentication of a user, in the window started by the first failure that is not expired.
+     *
+     * @return the number of failures of the user in the current window.
+     */
+    private static int recordFailure(String userHash, long currentTime) {
+        synchronized (failedUsers) {
+            FailedAttempts failedAttempts = failedUsers.get(userHash);
+            if (failedAttempts == null || failedAttempts.windowExpiryTime <= currentTime) {
+                // removed first, so that the new window is the youngest entry of the cache.
+                failedUsers.remove(userHash);
+                failedAttempts = new FailedAttempts(currentTime + FAILED_ATTEMPTS_WINDOW_IN_MILLIS);
+                failedUsers.put(userHash, failedAttempts);
+            }
+            return ++failedAttempts.count;
+        }
+    }
+
+    private static String getHash(String... fields) throws AuthenticationException {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance(CREDENTIAL_HASH_ALGORITHM);
+            messageDigest.update(credentialSalt);
+            // the lengths are included so that the boundaries between the fields cannot be shifted.
+            StringBuilder value = new StringBuilder();
+            for (String field : fields) {
+                value.append(String.valueOf(field).length()).append(':').append(field).append(':');
+            }
+            return Hex.encodeHexString(messageDigest.digest(value.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            String msg = "Hashing algorithm " + CREDENTIAL_HASH_ALGORITHM + " is not available.";
+            log.error(msg, e);
+            throw new AuthenticationException(msg, e);
+        }
+    }
+
+    private static class FailedAttempts {
+
+        private final long windowExpiryTime;
+        private int count;
+
+        private FailedAttempts(long windowExpiryTime) {
+            this.windowExpiryTime = windowExpiryTime;
+        }
+    }
 }
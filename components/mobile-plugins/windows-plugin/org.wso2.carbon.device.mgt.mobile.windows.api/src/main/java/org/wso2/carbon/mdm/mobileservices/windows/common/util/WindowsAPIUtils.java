@@ -36,6 +36,7 @@ import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 import org.wso2.carbon.identity.oauth2.OAuth2TokenValidationService;
 import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.MDMAPIException;
+import org.wso2.carbon.mdm.mobileservices.windows.common.push.WNSPushNotifier;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
 import org.wso2.carbon.user.api.TenantManager;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -135,6 +136,7 @@ public class WindowsAPIUtils {
         DeviceIDHolder deviceIDHolder = deviceUtils.validateDeviceIdentifiers(deviceIDs,
                 message, responseMediaType);
         getDeviceManagementService().addOperation(operation, deviceIDHolder.getValidDeviceIDList());
+        WNSPushNotifier.operationAdded(operation, deviceIDHolder.getChannelURIs());
         if (!deviceIDHolder.getErrorDeviceIdList().isEmpty()) {
             return javax.ws.rs.core.Response.status(PluginConstants.StatusCodes.
                     MULTI_STATUS_HTTP_CODE).type(
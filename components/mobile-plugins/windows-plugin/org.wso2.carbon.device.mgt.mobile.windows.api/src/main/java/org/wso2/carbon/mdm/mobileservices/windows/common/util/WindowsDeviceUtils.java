@@ -23,12 +23,18 @@ import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.BadRequestException;
+import org.wso2.carbon.mdm.mobileservices.windows.common.push.WNSPushNotifier;
 
 import javax.ws.rs.core.MediaType;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Class for get windows device utilities.
@@ -37,6 +43,30 @@ public class WindowsDeviceUtils {
 
     private static final String COMMA_SEPARATION_PATTERN = ", ";
 
+    private DeviceManagementProviderService deviceManagementService;
+
+    public WindowsDeviceUtils() {
+    }
+
+    /**
+     * @param deviceManagementService service to look up the devices with, rather than the one of the runtime.
+     */
+    WindowsDeviceUtils(DeviceManagementProviderService deviceManagementService) {
+        this.deviceManagementService = deviceManagementService;
+    }
+
+    /**
+     * Validates the device ids received with an operation. Each distinct device id is looked up once, as the device
+     * management service has no lookup of a set of devices and retrieving all the enrolled Windows devices would load
+     * the whole fleet. The number of device ids is not limited, hence an operation can still be added to any number
+     * of devices at the cost of a lookup per distinct device.
+     *
+     * @param deviceIDs         device ids received with the operation.
+     * @param message           message to be returned if the device ids are rejected.
+     * @param responseMediaType media type of the response.
+     * @return the valid device identifiers, without duplicates, an error for each invalid device id and the push
+     * channels of the valid devices if push notifications are enabled.
+     */
     public DeviceIDHolder validateDeviceIdentifiers(List<String> deviceIDs,
                                                     Message message, MediaType responseMediaType) {
         if (deviceIDs == null) {
@@ -45,6 +75,10 @@ public class WindowsDeviceUtils {
         }
         List<String> errorDeviceIdList = new ArrayList<String>();
         List<DeviceIdentifier> validDeviceIDList = new ArrayList<DeviceIdentifier>();
+        Set<String> validDeviceIDs = new HashSet<String>();
+        Set<String> invalidDeviceIDs = new HashSet<String>();
+        Map<String, String> channelURIs = new HashMap<String, String>();
+        boolean isPushEnabled = WNSPushNotifier.isEnabled();
         int deviceIDCounter = 0;
 
         for (String deviceID : deviceIDs) {
@@ -54,31 +88,69 @@ public class WindowsDeviceUtils {
                         deviceIDCounter));
                 continue;
             }
+            // the operation is added only once to a device that is listed more than once.
+            if (validDeviceIDs.contains(deviceID)) {
+                continue;
+            }
+            if (invalidDeviceIDs.contains(deviceID)) {
+                errorDeviceIdList.add(String.format(PluginConstants.DeviceConstants.DEVICE_ID_NOT_FOUND,
+                        deviceIDCounter));
+                continue;
+            }
+            DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
+            deviceIdentifier.setId(deviceID);
+            deviceIdentifier.setType(DeviceManagementConstants.MobileDeviceTypes.
+                    MOBILE_DEVICE_TYPE_WINDOWS);
+            Device device;
             try {
-                DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
-                deviceIdentifier.setId(deviceID);
-                deviceIdentifier.setType(DeviceManagementConstants.MobileDeviceTypes.
-                        MOBILE_DEVICE_TYPE_WINDOWS);
-                Device device = WindowsAPIUtils.getDeviceManagementService().
-                        getDevice(deviceIdentifier);
-                if (device == null || device.getDeviceIdentifier() == null ||
-                        device.getDeviceIdentifier().isEmpty()) {
-                    errorDeviceIdList.add(String.format(PluginConstants.DeviceConstants.DEVICE_ID_NOT_FOUND,
-                            deviceIDCounter));
-                    continue;
-                }
-                validDeviceIDList.add(deviceIdentifier);
+                device = getEnrolledDevice(deviceIdentifier);
             } catch (DeviceManagementException e) {
                 errorDeviceIdList.add(String.format(PluginConstants.DeviceConstants.DEVICE_ID_SERVICE_NOT_FOUND,
                         deviceIDCounter));
+                continue;
+            }
+            if (device == null) {
+                invalidDeviceIDs.add(deviceID);
+                errorDeviceIdList.add(String.format(PluginConstants.DeviceConstants.DEVICE_ID_NOT_FOUND,
+                        deviceIDCounter));
+                continue;
+            }
+            validDeviceIDs.add(deviceID);
+            validDeviceIDList.add(deviceIdentifier);
+            String channelURI = isPushEnabled ? getChannelURI(device) : null;
+            if (channelURI != null) {
+                channelURIs.put(deviceID, channelURI);
             }
         }
         DeviceIDHolder deviceIDHolder = new DeviceIDHolder();
         deviceIDHolder.setValidDeviceIDList(validDeviceIDList);
         deviceIDHolder.setErrorDeviceIdList(errorDeviceIdList);
+        deviceIDHolder.setChannelURIs(channelURIs);
         return deviceIDHolder;
     }
 
+    private Device getEnrolledDevice(DeviceIdentifier deviceIdentifier) throws DeviceManagementException {
+        DeviceManagementProviderService deviceManagementService = this.deviceManagementService != null ?
+                this.deviceManagementService : WindowsAPIUtils.getDeviceManagementService();
+        Device device = deviceManagementService.getDevice(deviceIdentifier);
+        if (device != null && device.getDeviceIdentifier() != null && !device.getDeviceIdentifier().isEmpty()) {
+            return device;
+        }
+        return null;
+    }
+
+    private String getChannelURI(Device device) {
+        if (device.getProperties() != null) {
+            for (Device.Property property : device.getProperties()) {
+                if (PluginConstants.SyncML.CHANNEL_URI.equals(property.getName()) && property.getValue() != null &&
+                        !property.getValue().isEmpty()) {
+                    return property.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
     public String convertErrorMapIntoErrorMessage(List<String> errorDeviceIdList) {
         return StringUtils.join(errorDeviceIdList.iterator(), COMMA_SEPARATION_PATTERN);
     }
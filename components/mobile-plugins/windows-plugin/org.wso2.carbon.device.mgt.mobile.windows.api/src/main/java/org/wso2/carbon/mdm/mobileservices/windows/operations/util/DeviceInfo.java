@@ -20,6 +20,7 @@ package org.wso2.carbon.mdm.mobileservices.windows.operations.util;
 
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
+import org.wso2.carbon.mdm.mobileservices.windows.common.push.WNSPushNotifier;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -87,6 +88,14 @@ public class DeviceInfo {
         deviceName.setType(Operation.Type.INFO);
         deviceInfoOperations.add(deviceName);
 
+        // the channel URI is requested last, since the results of the other operations are read by position.
+        if (WNSPushNotifier.isEnabled()) {
+            Operation channelURI = new Operation();
+            channelURI.setCode(PluginConstants.SyncML.CHANNEL_URI);
+            channelURI.setType(Operation.Type.INFO);
+            deviceInfoOperations.add(channelURI);
+        }
+
         return deviceInfoOperations;
     }
 }
@@ -18,8 +18,12 @@
 
 package org.wso2.carbon.mdm.mobileservices.windows.operations.util;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
- * Maps operation codes to device specific format.
+ * Maps operation codes to device specific format. Each mapping can be looked up by the operation code and by the
+ * LocURI through indexes built when the enum is loaded, rather than by scanning its constants.
  */
 public class OperationCode {
     public static enum Info {
@@ -47,6 +51,15 @@ public class OperationCode {
         LATITUDE("./Vendor/MSFT/RemoteFind/Location/Latitude");
 
         private final String code;
+        private static final Map<String, Info> infoByOperationCode = new HashMap<>();
+        private static final Map<String, Info> infoByLocURI = new HashMap<>();
+
+        static {
+            for (Info info : values()) {
+                infoByOperationCode.put(info.name(), info);
+                infoByLocURI.put(info.getCode(), info);
+            }
+        }
 
         Info(String code) {
             this.code = code;
@@ -56,6 +69,22 @@ public class OperationCode {
             return this.code;
         }
 
+        /**
+         * @param operationCode operation code of the operation.
+         * @return the mapping of the operation code, or null if the operation code is not mapped.
+         */
+        public static Info fromOperationCode(String operationCode) {
+            return operationCode != null ? infoByOperationCode.get(operationCode) : null;
+        }
+
+        /**
+         * @param locURI LocURI received from the device.
+         * @return the mapping of the LocURI, or null if the LocURI is not mapped.
+         */
+        public static Info fromLocURI(String locURI) {
+            return locURI != null ? infoByLocURI.get(locURI) : null;
+        }
+
     }
 
     public static enum Command {
@@ -71,6 +100,13 @@ public class OperationCode {
         DEVICE_PASSWORD_ENABLE("./Vendor/MSFT/PolicyManager/My/DeviceLock/DevicePasswordEnabled");
 
         private final String code;
+        private static final Map<String, Command> commandByOperationCode = new HashMap<>();
+
+        static {
+            for (Command command : values()) {
+                commandByOperationCode.put(command.name(), command);
+            }
+        }
 
         Command(String code) {
             this.code = code;
@@ -80,6 +116,14 @@ public class OperationCode {
             return this.code;
         }
 
+        /**
+         * @param operationCode operation code of the operation.
+         * @return the mapping of the operation code, or null if the operation code is not mapped.
+         */
+        public static Command fromOperationCode(String operationCode) {
+            return operationCode != null ? commandByOperationCode.get(operationCode) : null;
+        }
+
     }
 
     public static enum Configure {
@@ -99,6 +143,13 @@ public class OperationCode {
         MIN_PASSWORD_COMPLEX_CHARACTERS("./Vendor/MSFT/PolicyManager/My/DeviceLock/MinDevicePasswordComplexCharacters");
 
         private final String code;
+        private static final Map<String, Configure> configureByOperationCode = new HashMap<>();
+
+        static {
+            for (Configure configure : values()) {
+                configureByOperationCode.put(configure.name(), configure);
+            }
+        }
 
         Configure(String code) {
             this.code = code;
@@ -108,5 +159,13 @@ public class OperationCode {
             return this.code;
         }
 
+        /**
+         * @param operationCode operation code of the operation.
+         * @return the mapping of the operation code, or null if the operation code is not mapped.
+         */
+        public static Configure fromOperationCode(String operationCode) {
+            return operationCode != null ? configureByOperationCode.get(operationCode) : null;
+        }
+
     }
 }
@@ -27,10 +27,10 @@ import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
 import org.wso2.carbon.mdm.mobileservices.windows.common.SyncmlCommandType;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.SyncmlMessageFormatException;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.SyncmlOperationException;
-import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
 import org.wso2.carbon.mdm.mobileservices.windows.operations.*;
 import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.beans.PasscodePolicy;
 import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.beans.Wifi;
+import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.util.EffectivePolicyCache;
 import org.wso2.carbon.policy.mgt.common.FeatureManagementException;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.common.ProfileFeature;
@@ -278,8 +278,7 @@ public class OperationReply {
                                     DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(
                                             syncmlDocument.getHeader().getSource().getLocURI());
                                     try {
-                                        profileFeatures = WindowsAPIUtils.getPolicyManagerService().
-                                                getEffectiveFeatures(deviceIdentifier);
+                                        profileFeatures = EffectivePolicyCache.getEffectiveFeatures(deviceIdentifier);
                                     } catch (FeatureManagementException e) {
                                         throw new SyncmlOperationException("Error in getting effective policy.", e);
                                     }
@@ -317,20 +316,18 @@ public class OperationReply {
 
     private Item appendExecInfo(Operation operation) {
         Item item = new Item();
-        String operationCode = operation.getCode();
-        for (Command command : Command.values()) {
-            if (operationCode != null && operationCode.equals(command.name())) {
-                Target target = new Target();
-                target.setLocURI(command.getCode());
-                if (operation.getCode().equals(PluginConstants
-                        .OperationCodes.DISENROLL)) {
-                    MetaTag meta = new MetaTag();
-                    meta.setFormat(Constants.META_FORMAT_CHARACTER);
-                    item.setMeta(meta);
-                    item.setData(Constants.PROVIDER_ID);
-                }
-                item.setTarget(target);
+        Command command = Command.fromOperationCode(operation.getCode());
+        if (command != null) {
+            Target target = new Target();
+            target.setLocURI(command.getCode());
+            if (operation.getCode().equals(PluginConstants
+                    .OperationCodes.DISENROLL)) {
+                MetaTag meta = new MetaTag();
+                meta.setFormat(Constants.META_FORMAT_CHARACTER);
+                item.setMeta(meta);
+                item.setData(Constants.PROVIDER_ID);
             }
+            item.setTarget(target);
         }
         return item;
     }
@@ -338,22 +335,20 @@ public class OperationReply {
     private Item appendGetInfo(Operation operation) {
         Item item = new Item();
         String operationCode = operation.getCode();
-        for (Info info : Info.values()) {
-            if (operationCode != null && operationCode.equals(info.name())) {
-                Target target = new Target();
-                target.setLocURI(info.getCode());
-                item.setTarget(target);
-            }
+        Info info = Info.fromOperationCode(operationCode);
+        if (info != null) {
+            Target target = new Target();
+            target.setLocURI(info.getCode());
+            item.setTarget(target);
         }
         if ((operationCode != null) && operationCode.equals(
                 PluginConstants.OperationCodes.LOCK_RESET)) {
             operation.setCode(PluginConstants.OperationCodes.PIN_CODE);
-            for (Info getInfo : Info.values()) {
-                if (operation.getCode().equals(getInfo.name())) {
-                    Target target = new Target();
-                    target.setLocURI(getInfo.getCode());
-                    item.setTarget(target);
-                }
+            Info pinInfo = Info.fromOperationCode(operation.getCode());
+            if (pinInfo != null) {
+                Target target = new Target();
+                target.setLocURI(pinInfo.getCode());
+                item.setTarget(target);
             }
         }
         return item;
@@ -364,46 +359,43 @@ public class OperationReply {
         String policyDisallowData = "0";
         Item item = new Item();
         Target target = new Target();
-        String operationCode = operation.getCode();
         JSONObject payload = new JSONObject(operation.getPayLoad().toString());
-        for (Command command : Command.values()) {
+        Command command = Command.fromOperationCode(operation.getCode());
+        if (command != null) {
+            target.setLocURI(command.getCode());
 
-            if (operationCode != null && operationCode.equals(command.name())) {
-                target.setLocURI(command.getCode());
+            if (operation.getCode().equals(PluginConstants
+                    .OperationCodes.CAMERA)) {
 
-                if (operation.getCode().equals(PluginConstants
-                        .OperationCodes.CAMERA)) {
-
-                    if (payload.getBoolean("enabled")) {
-                        MetaTag meta = new MetaTag();
-                        meta.setFormat(Constants.META_FORMAT_INT);
-                        item.setTarget(target);
-                        item.setMeta(meta);
-                        item.setData(policyAllowData);
-                    } else {
-                        MetaTag meta = new MetaTag();
-                        meta.setFormat(Constants.META_FORMAT_INT);
-                        item.setTarget(target);
-                        item.setMeta(meta);
-                        item.setData(policyDisallowData);
-                    }
+                if (payload.getBoolean("enabled")) {
+                    MetaTag meta = new MetaTag();
+                    meta.setFormat(Constants.META_FORMAT_INT);
+                    item.setTarget(target);
+                    item.setMeta(meta);
+                    item.setData(policyAllowData);
+                } else {
+                    MetaTag meta = new MetaTag();
+                    meta.setFormat(Constants.META_FORMAT_INT);
+                    item.setTarget(target);
+                    item.setMeta(meta);
+                    item.setData(policyDisallowData);
                 }
-                if (operation.getCode().equals(PluginConstants
-                        .OperationCodes.ENCRYPT_STORAGE)) {
-
-                    if (payload.getBoolean("encrypted")) {
-                        MetaTag meta = new MetaTag();
-                        meta.setFormat(Constants.META_FORMAT_INT);
-                        item.setTarget(target);
-                        item.setMeta(meta);
-                        item.setData(policyAllowData);
-                    } else {
-                        MetaTag meta = new MetaTag();
-                        meta.setFormat(Constants.META_FORMAT_INT);
-                        item.setTarget(target);
-                        item.setMeta(meta);
-                        item.setData(policyDisallowData);
-                    }
+            }
+            if (operation.getCode().equals(PluginConstants
+                    .OperationCodes.ENCRYPT_STORAGE)) {
+
+                if (payload.getBoolean("encrypted")) {
+                    MetaTag meta = new MetaTag();
+                    meta.setFormat(Constants.META_FORMAT_INT);
+                    item.setTarget(target);
+                    item.setMeta(meta);
+                    item.setData(policyAllowData);
+                } else {
+                    MetaTag meta = new MetaTag();
+                    meta.setFormat(Constants.META_FORMAT_INT);
+                    item.setTarget(target);
+                    item.setMeta(meta);
+                    item.setData(policyDisallowData);
                 }
             }
         }
@@ -490,16 +482,17 @@ public class OperationReply {
             MetaTag meta = new MetaTag();
             meta.setFormat(Constants.META_FORMAT_CHARACTER);
             List<Item> items = new ArrayList<>();
+            Item item = new Item();
 
-            for (Configure configure : Configure.values()) {
-                if (operationCode != null && operationCode.equals(configure.name())) {
-                    Target target = new Target();
-                    target.setLocURI(configure.getCode());
-                    items.get(0).setTarget(target);
-                }
+            Configure configure = Configure.fromOperationCode(operationCode);
+            if (configure != null) {
+                Target target = new Target();
+                target.setLocURI(configure.getCode());
+                item.setTarget(target);
             }
-            items.get(0).setMeta(meta);
-            items.get(0).setData(data);
+            item.setMeta(meta);
+            item.setData(data);
+            items.add(item);
 
             add.setCommandId(301);
             add.setItems(items);
@@ -646,12 +639,10 @@ public class OperationReply {
         String operationCode = operation.getCode();
         if (operation.getCode().equals(PluginConstants.OperationCodes.PASSCODE_POLICY)) {
             operation.setCode(PluginConstants.OperationCodes.DEVICE_PASSCODE_DELETE);
-            for (Command command : Command.values()) {
-
-                if (operationCode != null && operationCode.equals(command.name())) {
-                    target.setLocURI(command.getCode());
-                    deleteItem.setTarget(target);
-                }
+            Command command = Command.fromOperationCode(operationCode);
+            if (command != null) {
+                target.setLocURI(command.getCode());
+                deleteItem.setTarget(target);
             }
         }
         return deleteItems;
@@ -35,6 +35,7 @@ import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WindowsDevic
 import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
 import org.wso2.carbon.mdm.mobileservices.windows.operations.*;
 import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.beans.Profile;
+import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.util.EffectivePolicyCache;
 import org.wso2.carbon.policy.mgt.common.ProfileFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
@@ -248,6 +249,9 @@ public class OperationUtils {
         generateComplianceFeatureStatus(syncmlDocument);
 
         pendingOperations = WindowsAPIUtils.getDeviceManagementService().getPendingOperations(deviceIdentifier);
+        // a policy operation carries a newly published or re-evaluated policy, hence the effective features of the
+        // device cached so far are no longer valid.
+        EffectivePolicyCache.invalidate(deviceIdentifier, pendingOperations);
         return pendingOperations;
     }
 
@@ -348,72 +352,62 @@ public class OperationUtils {
 
         DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(
                 syncmlDocument.getHeader().getSource().getLocURI());
-        String lockUri = null;
         Results result = syncmlDocument.getBody().getResults();
 
         List<Profile> profiles = new ArrayList<>();
         if (result != null) {
             List<Item> results = result.getItem();
-            for (OperationCode.Info info : OperationCode.Info.values()) {
-                if (PluginConstants.OperationCodes.PIN_CODE.equals(info
-                        .name())) {
-                    lockUri = info.getCode();
-                }
-            }
+            OperationCode.Info lockInfo = OperationCode.Info.fromOperationCode(PluginConstants.OperationCodes.PIN_CODE);
+            String lockUri = lockInfo != null ? lockInfo.getCode() : null;
             for (Item item : results) {
-                for (OperationCode.Info info : OperationCode.Info.values()) {
-                    if (item.getSource().getLocURI().equals(info.getCode()) && info.name().equals(
-                            PluginConstants.OperationCodes.CAMERA_STATUS)) {
-                        Profile cameraProfile = new Profile();
-                        cameraProfile.setFeatureCode(PluginConstants.OperationCodes.CAMERA);
-                        cameraProfile.setData(item.getData());
-                        if (item.getData().equals(PluginConstants.SyncML.SYNCML_DATA_ONE)) {
-                            cameraProfile.setEnable(true);
-                        } else {
-                            cameraProfile.setEnable(false);
-                        }
-                        profiles.add(cameraProfile);
+                OperationCode.Info info = OperationCode.Info.fromLocURI(item.getSource().getLocURI());
+                if (info != null && info.name().equals(PluginConstants.OperationCodes.CAMERA_STATUS)) {
+                    Profile cameraProfile = new Profile();
+                    cameraProfile.setFeatureCode(PluginConstants.OperationCodes.CAMERA);
+                    cameraProfile.setData(item.getData());
+                    if (item.getData().equals(PluginConstants.SyncML.SYNCML_DATA_ONE)) {
+                        cameraProfile.setEnable(true);
+                    } else {
+                        cameraProfile.setEnable(false);
                     }
-                    if (item.getSource().getLocURI().equals(info.getCode()) && info.name().equals(
-                            PluginConstants.OperationCodes.ENCRYPT_STORAGE_STATUS)) {
-                        Profile encryptStorage = new Profile();
-                        encryptStorage.setFeatureCode(PluginConstants.OperationCodes.ENCRYPT_STORAGE);
-                        encryptStorage.setData(item.getData());
-                        if (item.getData().equals(PluginConstants.SyncML.SYNCML_DATA_ONE)) {
-                            encryptStorage.setEnable(true);
-                        } else {
-                            encryptStorage.setEnable(false);
-                        }
-                        profiles.add(encryptStorage);
+                    profiles.add(cameraProfile);
+                }
+                if (info != null && info.name().equals(PluginConstants.OperationCodes.ENCRYPT_STORAGE_STATUS)) {
+                    Profile encryptStorage = new Profile();
+                    encryptStorage.setFeatureCode(PluginConstants.OperationCodes.ENCRYPT_STORAGE);
+                    encryptStorage.setData(item.getData());
+                    if (item.getData().equals(PluginConstants.SyncML.SYNCML_DATA_ONE)) {
+                        encryptStorage.setEnable(true);
+                    } else {
+                        encryptStorage.setEnable(false);
                     }
-                    if (item.getSource().getLocURI().equals(info.getCode()) && info.name().equals(
-                            PluginConstants.OperationCodes.DEVICE_PASSWORD_STATUS)) {
-                        Profile encryptStorage = new Profile();
-                        encryptStorage.setFeatureCode(PluginConstants.OperationCodes.PASSCODE_POLICY);
-                        encryptStorage.setData(item.getData());
-                        if (item.getData().equals(PluginConstants.SyncML.SYNCML_DATA_ZERO)) {
-                            encryptStorage.setEnable(true);
-                        } else {
-                            encryptStorage.setEnable(false);
-                        }
-                        profiles.add(encryptStorage);
+                    profiles.add(encryptStorage);
+                }
+                if (info != null && info.name().equals(PluginConstants.OperationCodes.DEVICE_PASSWORD_STATUS)) {
+                    Profile encryptStorage = new Profile();
+                    encryptStorage.setFeatureCode(PluginConstants.OperationCodes.PASSCODE_POLICY);
+                    encryptStorage.setData(item.getData());
+                    if (item.getData().equals(PluginConstants.SyncML.SYNCML_DATA_ZERO)) {
+                        encryptStorage.setEnable(true);
+                    } else {
+                        encryptStorage.setEnable(false);
                     }
-                    if (!item.getData().isEmpty() && item.getSource().getLocURI().equals(lockUri)) {
-                        String pinValue = item.getData();
-                        NotificationManagementService nmService = WindowsAPIUtils.getNotificationManagementService();
-                        Notification notification = new Notification();
-                        notification.setDescription("Auto generated DevicePin : " + pinValue);
-                        notification.setOperationId(result.getCommandReference());
-                        notification.setDeviceIdentifier(deviceIdentifier);
-                        notification.setStatus(String.valueOf(Notification.Status.NEW));
-                        try {
-                            nmService.addNotification(notification);
-                        } catch (NotificationManagementException e) {
-                            String msg = "Failure Occurred in getting notification service.";
-                            log.error(msg, e);
-                            throw new WindowsOperationException(msg, e);
-                        }
-                        break;
+                    profiles.add(encryptStorage);
+                }
+                if (!item.getData().isEmpty() && item.getSource().getLocURI().equals(lockUri)) {
+                    String pinValue = item.getData();
+                    NotificationManagementService nmService = WindowsAPIUtils.getNotificationManagementService();
+                    Notification notification = new Notification();
+                    notification.setDescription("Auto generated DevicePin : " + pinValue);
+                    notification.setOperationId(result.getCommandReference());
+                    notification.setDeviceIdentifier(deviceIdentifier);
+                    notification.setStatus(String.valueOf(Notification.Status.NEW));
+                    try {
+                        nmService.addNotification(notification);
+                    } catch (NotificationManagementException e) {
+                        String msg = "Failure Occurred in getting notification service.";
+                        log.error(msg, e);
+                        throw new WindowsOperationException(msg, e);
                     }
                 }
             }
@@ -438,8 +432,7 @@ public class OperationUtils {
         boolean isCompliance = false;
         if (profiles.size() != Constants.EMPTY) {
             try {
-                List<ProfileFeature> profileFeatures = WindowsAPIUtils.getPolicyManagerService().getEffectiveFeatures(
-                        deviceIdentifier);
+                List<ProfileFeature> profileFeatures = EffectivePolicyCache.getEffectiveFeatures(deviceIdentifier);
                 List<ComplianceFeature> complianceFeatures = new ArrayList<>();
                 for (ProfileFeature activeFeature : profileFeatures) {
                     JSONObject policyContent = new JSONObject(activeFeature.getContent().toString());
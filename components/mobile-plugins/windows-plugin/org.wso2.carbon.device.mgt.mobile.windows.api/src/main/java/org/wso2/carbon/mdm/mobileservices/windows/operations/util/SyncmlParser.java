@@ -18,27 +18,29 @@
 
 package org.wso2.carbon.mdm.mobileservices.windows.operations.util;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.SyncmlMessageFormatException;
 import org.wso2.carbon.mdm.mobileservices.windows.operations.*;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.IllegalFormatCodePointException;
 import java.util.List;
 
 /**
- * Parses the receiving SyncML payload and generates the SyncML document object from it.
+ * Parses the receiving SyncML payload and generates the SyncML document object from it. The payload is read in a
+ * single pass with a StAX reader, so that only the values which make up the SyncML document object are held in
+ * memory, rather than a DOM tree of the whole payload. This matters for the responses to inventory queries, which
+ * can run into several megabytes.
  */
 public class SyncmlParser {
 
-    private static String commandId;
-    private static String messageReference;
-    private static String commandReference;
     private static final String SYNC_HEADER = "SyncHdr";
     private static final String SYNC_BODY = "SyncBody";
+    private static final XMLInputFactory inputFactory = createInputFactory();
 
     private enum SyncMLHeaderParameter {
         MSG_ID("MsgID"),
@@ -73,38 +75,68 @@ public class SyncmlParser {
         }
     }
 
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // SyncML payloads do not carry a DTD, hence DTDs and external entities are not processed at all.
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
 
     /**
      * Parses the raw SyncML payload and generates a SyncmlDocument object using the parsed XML contents.
      *
      * @param syncmlPayload - Received SyncML XML payload
      * @return - SyncmlDocument object generated from the received payload
+     * @throws SyncmlMessageFormatException if the payload is not well-formed or lacks the SyncML header.
      */
-    public static SyncmlDocument parseSyncmlPayload(Document syncmlPayload) throws SyncmlMessageFormatException {
-        SyncmlDocument syncmlDocument = new SyncmlDocument();
-        if (syncmlPayload.getElementsByTagName(SYNC_HEADER) == null) {
-            throw new SyncmlMessageFormatException();
+    public static SyncmlDocument parseSyncmlPayload(InputStream syncmlPayload) throws SyncmlMessageFormatException {
+        SyncmlHeader header = null;
+        SyncmlBody body = null;
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(syncmlPayload);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String elementName = reader.getLocalName();
+                    if (SYNC_HEADER.equals(elementName) && header == null) {
+                        header = generateSyncmlHeader(reader);
+                    } else if (SYNC_BODY.equals(elementName) && body == null) {
+                        body = generateSyncmlBody(reader);
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new SyncmlMessageFormatException("Error occurred while reading the syncml payload.", e);
+        } catch (NumberFormatException e) {
+            throw new SyncmlMessageFormatException("Invalid numeric value in the syncml payload.", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing to do, the payload has already been read.
+                }
+            }
         }
-        NodeList syncHeaderList = syncmlPayload.getElementsByTagName(SYNC_HEADER);
-        Node syncHeader = syncHeaderList.item(0);
-        SyncmlHeader header = generateSyncmlHeader(syncHeader);
-
-        NodeList syncBodyList = syncmlPayload.getElementsByTagName(SYNC_BODY);
-        Node syncBody = syncBodyList.item(0);
-        SyncmlBody body = generateSyncmlBody(syncBody);
-
+        if (header == null) {
+            throw new SyncmlMessageFormatException("SyncML header is not found in the syncml payload.");
+        }
+        SyncmlDocument syncmlDocument = new SyncmlDocument();
         syncmlDocument.setHeader(header);
         syncmlDocument.setBody(body);
         return syncmlDocument;
     }
 
     /**
-     * Generates SyncmlHeader object by extracting properties of passed XML node.
+     * Generates SyncmlHeader object by reading the child elements of the SyncML header.
      *
-     * @param syncHeader - XML node which represents SyncML header
+     * @param reader - reader positioned at the start of the SyncML header
      * @return - SyncmlHeader object
      */
-    private static SyncmlHeader generateSyncmlHeader(Node syncHeader) {
+    private static SyncmlHeader generateSyncmlHeader(XMLStreamReader reader) throws XMLStreamException,
+            SyncmlMessageFormatException {
 
         String sessionID = null;
         String messageID = null;
@@ -113,46 +145,26 @@ public class SyncmlParser {
         Credential credential = null;
         SyncmlHeader header = new SyncmlHeader();
 
-        NodeList headerElements = syncHeader.getChildNodes();
-        for (int i = 0; i < headerElements.getLength(); i++) {
-            Node node = headerElements.item(i);
-
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                String nodeName = node.getNodeName();
-
-                if (SyncMLHeaderParameter.MSG_ID.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalFormatCodePointException(2);
-                    } else {
-                        messageID = node.getTextContent().trim();
-                    }
-                } else if (SyncMLHeaderParameter.SESSION_ID.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalFormatCodePointException(2);
-                    } else {
-                        sessionID = node.getTextContent().trim();
-                    }
-                } else if (SyncMLHeaderParameter.TARGET.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalFormatCodePointException(2);
-                    } else {
-                        target = generateTarget(node);
-                    }
-                } else if (SyncMLHeaderParameter.SOURCE.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalFormatCodePointException(2);
-                    } else {
-                        source = generateSource(node);
-                    }
-                } else if (SyncMLHeaderParameter.CRED.getValue().equals(nodeName)) {
-                    if (node.getTextContent().trim() == null) {
-                        throw new IllegalFormatCodePointException(2);
-                    } else {
-                        credential = generateCredential(node);
-                    }
-                }
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+
+            if (SyncMLHeaderParameter.MSG_ID.getValue().equals(elementName)) {
+                messageID = readText(reader);
+            } else if (SyncMLHeaderParameter.SESSION_ID.getValue().equals(elementName)) {
+                sessionID = readText(reader);
+            } else if (SyncMLHeaderParameter.TARGET.getValue().equals(elementName)) {
+                target = generateTarget(reader);
+            } else if (SyncMLHeaderParameter.SOURCE.getValue().equals(elementName)) {
+                source = generateSource(reader);
+            } else if (SyncMLHeaderParameter.CRED.getValue().equals(elementName)) {
+                credential = generateCredential(reader);
+            } else {
+                skipElement(reader);
             }
         }
+        if (messageID == null || sessionID == null) {
+            throw new SyncmlMessageFormatException("Message ID or session ID is not found in the syncml header.");
+        }
         header.setMsgID(Integer.valueOf(messageID));
         // Syncml message contains a sessionID which is Hexadecimal value.Hexadecimal sessionID parse as a integer value.
         header.setSessionId(Integer.valueOf(sessionID, 16));
@@ -163,34 +175,31 @@ public class SyncmlParser {
     }
 
     /**
-     * Generates SyncmlBody object by extracting properties of passed XML node.
+     * Generates SyncmlBody object by reading the commands of the SyncML body.
      *
-     * @param syncBody - XML node which represents SyncML body
+     * @param reader - reader positioned at the start of the SyncML body
      * @return - SyncmlBody object
      */
-    private static SyncmlBody generateSyncmlBody(Node syncBody) {
+    private static SyncmlBody generateSyncmlBody(XMLStreamReader reader) throws XMLStreamException {
 
         Alert alert = null;
         Replace replace = null;
         Results results = null;
         List<Status> status = new ArrayList<>();
-        NodeList bodyElements = syncBody.getChildNodes();
-
-        for (int i = 0; i < bodyElements.getLength(); i++) {
-            Node node = bodyElements.item(i);
-
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                String nodeName = node.getNodeName();
-
-                if (SycMLCommandType.ALERT.getValue().equals(nodeName)) {
-                    alert = generateAlert(node);
-                } else if (SycMLCommandType.REPLACE.getValue().equals(nodeName)) {
-                    replace = generateReplace(node);
-                } else if (SycMLCommandType.STATUS.getValue().equals(nodeName)) {
-                    status.add(generateStatus(node));
-                } else if (SycMLCommandType.RESULTS.getValue().equals(nodeName)) {
-                    results = generateResults(node);
-                }
+
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+
+            if (SycMLCommandType.ALERT.getValue().equals(elementName)) {
+                alert = generateAlert(reader);
+            } else if (SycMLCommandType.REPLACE.getValue().equals(elementName)) {
+                replace = generateReplace(reader);
+            } else if (SycMLCommandType.STATUS.getValue().equals(elementName)) {
+                status.add(generateStatus(reader));
+            } else if (SycMLCommandType.RESULTS.getValue().equals(elementName)) {
+                results = generateResults(reader);
+            } else {
+                skipElement(reader);
             }
         }
         SyncmlBody body = new SyncmlBody();
@@ -202,163 +211,178 @@ public class SyncmlParser {
     }
 
     /**
-     * Generates Source object by extracting properties of passed XML node.
+     * Generates Source object by reading the child elements of a Source element.
      *
-     * @param node - XML node which represents Source
+     * @param reader - reader positioned at the start of the Source element
      * @return - Source object
      */
-    private static Source generateSource(Node node) {
+    private static Source generateSource(XMLStreamReader reader) throws XMLStreamException {
 
         Source source = new Source();
-        Node sourceURIItem = node.getChildNodes().item(0);
-        Node sourceNameItem = node.getChildNodes().item(1);
-        String sourceURI = null;
-        String sourceName = null;
-
-        if (sourceURIItem != null) {
-            sourceURI = sourceURIItem.getTextContent().trim();
-        }
-        if (sourceNameItem != null) {
-            sourceName = sourceNameItem.getTextContent().trim();
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.LOC_URI.equals(elementName)) {
+                source.setLocURI(readText(reader));
+            } else if (Constants.LOC_NAME.equals(elementName)) {
+                source.setLocName(readText(reader));
+            } else {
+                skipElement(reader);
+            }
         }
-        source.setLocURI(sourceURI);
-        source.setLocName(sourceName);
         return source;
     }
 
     /**
-     * Generates Target object by extracting properties of passed XML node.
+     * Generates Target object by reading the child elements of a Target element.
      *
-     * @param node - XML node which represents Target
+     * @param reader - reader positioned at the start of the Target element
      * @return - Target object
      */
-    private static Target generateTarget(Node node) {
+    private static Target generateTarget(XMLStreamReader reader) throws XMLStreamException {
 
         Target target = new Target();
-        Node targetURIItem = node.getChildNodes().item(0);
-        Node targetNameItem = node.getChildNodes().item(1);
-        String targetURI = null;
-        String targetName = null;
-
-        if (targetURIItem != null) {
-            targetURI = targetURIItem.getTextContent().trim();
-        }
-        if (targetNameItem != null) {
-            targetName = targetNameItem.getTextContent().trim();
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.LOC_URI.equals(elementName)) {
+                target.setLocURI(readText(reader));
+            } else if (Constants.LOC_NAME.equals(elementName)) {
+                target.setLocName(readText(reader));
+            } else {
+                skipElement(reader);
+            }
         }
-        target.setLocURI(targetURI);
-        target.setLocName(targetName);
         return target;
     }
 
     /**
-     * Generates Results object by extracting properties of passed XML node.
+     * Generates Results object by reading the child elements of a Results command.
      *
-     * @param node - XML node which represents Results
+     * @param reader - reader positioned at the start of the Results command
      * @return - Results object
      */
-    private static Results generateResults(Node node) {
+    private static Results generateResults(XMLStreamReader reader) throws XMLStreamException {
 
         Results results = new Results();
-        List<Item> item = new ArrayList<>();
-
-        if (node.getNodeType() == Node.ELEMENT_NODE) {
-
-            NodeList nodelist = node.getChildNodes();
-
-            for (int i = 0; i < nodelist.getLength(); i++) {
-                String nodeName = nodelist.item(i).getNodeName();
-
-                switch (nodeName) {
-                    case Constants.COMMAND_ID:
-                        commandId = node.getChildNodes().item(i).getTextContent().trim();
-                        break;
-                    case Constants.MESSAGE_REFERENCE:
-                        messageReference = node.getChildNodes().item(i).getTextContent().trim();
-                        break;
-                    case Constants.COMMAND_REFERENCE:
-                        commandReference = node.getChildNodes().item(i).getTextContent().trim();
-                        break;
-                    case Constants.ITEM:
-                        item.add(generateItem(node.getChildNodes().item(i)));
-                        break;
-                }
+        List<Item> items = new ArrayList<>();
+        String commandId = null;
+        String messageReference = null;
+        String commandReference = null;
+
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
+                case Constants.COMMAND_ID:
+                    commandId = readText(reader);
+                    break;
+                case Constants.MESSAGE_REFERENCE:
+                    messageReference = readText(reader);
+                    break;
+                case Constants.COMMAND_REFERENCE:
+                    commandReference = readText(reader);
+                    break;
+                case Constants.ITEM:
+                    items.add(generateItem(reader));
+                    break;
+                default:
+                    skipElement(reader);
             }
-            results.setCommandId(Integer.valueOf(commandId));
-            results.setMessageReference(Integer.valueOf(messageReference));
-            results.setCommandReference(Integer.valueOf(commandReference));
-            results.setItem(item);
         }
+        results.setCommandId(Integer.valueOf(commandId));
+        results.setMessageReference(Integer.valueOf(messageReference));
+        results.setCommandReference(Integer.valueOf(commandReference));
+        results.setItem(items);
         return results;
     }
 
     /**
-     * Generates Status object by extracting properties of passed XML node.
+     * Generates Status object by reading the child elements of a Status command.
      *
-     * @param node - XML node which represents Status
+     * @param reader - reader positioned at the start of the Status command
      * @return - Status object
      */
-    private static Status generateStatus(Node node) {
+    private static Status generateStatus(XMLStreamReader reader) throws XMLStreamException {
 
         Status status = new Status();
-        for (int x = 0; x < node.getChildNodes().getLength(); x++) {
-            String nodeName = node.getChildNodes().item(x).getNodeName();
-            switch (nodeName) {
+        while (nextChildElement(reader)) {
+            switch (reader.getLocalName()) {
                 case PluginConstants.SyncML.SYNCML_CMD_ID:
-                    String commandId = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setCommandId(Integer.valueOf(commandId));
+                    status.setCommandId(Integer.valueOf(readText(reader)));
                     break;
                 case PluginConstants.SyncML.SYNCML_MESSAGE_REF:
-                    String messageReference = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setMessageReference(Integer.valueOf(messageReference));
+                    status.setMessageReference(Integer.valueOf(readText(reader)));
                     break;
                 case PluginConstants.SyncML.SYNCML_CMD_REF:
-                    String commandReference = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setCommandReference(Integer.valueOf(commandReference));
+                    status.setCommandReference(Integer.valueOf(readText(reader)));
                     break;
                 case PluginConstants.SyncML.SYNCML_CMD:
-                    String command = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setCommand(command);
+                    status.setCommand(readText(reader));
                     break;
                 case PluginConstants.SyncML.SYNCML_CHAL:
-                    NodeList chalNodes = node.getChildNodes().item(x).getChildNodes();
-                    MetaTag meta = new MetaTag();
                     ChallengeTag chal = new ChallengeTag();
-                    String format = chalNodes.item(0).getFirstChild().getTextContent();
-                    meta.setFormat(format);
-                    String type = chalNodes.item(0).getFirstChild().getNextSibling().getTextContent();
-                    meta.setType(type);
-                    String nonce = chalNodes.item(0).getFirstChild().getNextSibling().getNextSibling().getTextContent();
-                    meta.setNextNonce(nonce);
-                    chal.setMeta(meta);
+                    chal.setMeta(generateChallengeMeta(reader));
                     status.setChallenge(chal);
                     break;
                 case PluginConstants.SyncML.SYNCML_DATA:
-                    String data = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setData(data);
+                    status.setData(readText(reader));
                     break;
                 case PluginConstants.SyncML.SYNCML_TARGET_REF:
-                    String targetReference = node.getChildNodes().item(x).getTextContent().trim();
-                    status.setTargetReference(targetReference);
+                    status.setTargetReference(readText(reader));
                     break;
+                default:
+                    skipElement(reader);
             }
         }
         return status;
     }
 
     /**
-     * Generates Replace object by extracting properties of passed XML node.
+     * Generates MetaTag object of a challenge by reading the Meta element within it.
+     *
+     * @param reader - reader positioned at the start of the challenge
+     * @return - MetaTag object
+     */
+    private static MetaTag generateChallengeMeta(XMLStreamReader reader) throws XMLStreamException {
+        MetaTag meta = new MetaTag();
+        while (nextChildElement(reader)) {
+            if (Constants.META.equals(reader.getLocalName())) {
+                while (nextChildElement(reader)) {
+                    String elementName = reader.getLocalName();
+                    if (Constants.FORMAT.equals(elementName)) {
+                        meta.setFormat(readText(reader));
+                    } else if (Constants.TYPE.equals(elementName)) {
+                        meta.setType(readText(reader));
+                    } else if (Constants.NEXTNONCE.equals(elementName)) {
+                        meta.setNextNonce(readText(reader));
+                    } else {
+                        skipElement(reader);
+                    }
+                }
+            } else {
+                skipElement(reader);
+            }
+        }
+        return meta;
+    }
+
+    /**
+     * Generates Replace object by reading the child elements of a Replace command.
      *
-     * @param node - XML node which represents Replace
+     * @param reader - reader positioned at the start of the Replace command
      * @return - Replace object
      */
-    private static Replace generateReplace(Node node) {
+    private static Replace generateReplace(XMLStreamReader reader) throws XMLStreamException {
 
         Replace replace = new Replace();
-        String commandId = node.getChildNodes().item(0).getTextContent().trim();
+        String commandId = null;
         List<Item> items = new ArrayList<>();
-        for (int i = 0; i < node.getChildNodes().getLength() - 1; i++) {
-            items.add(generateItem(node.getChildNodes().item(i + 1)));
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.COMMAND_ID.equals(elementName)) {
+                commandId = readText(reader);
+            } else if (Constants.ITEM.equals(elementName)) {
+                items.add(generateItem(reader));
+            } else {
+                skipElement(reader);
+            }
         }
         replace.setCommandId(Integer.valueOf(commandId));
         replace.setItems(items);
@@ -366,93 +390,162 @@ public class SyncmlParser {
     }
 
     /**
-     * Generates Alert object by extracting properties of passed XML node.
+     * Generates Alert object by reading the child elements of an Alert command.
      *
-     * @param node - XML node which represents Alert
+     * @param reader - reader positioned at the start of the Alert command
      * @return - Alert object
      */
-    private static Alert generateAlert(Node node) {
+    private static Alert generateAlert(XMLStreamReader reader) throws XMLStreamException {
         Alert alert = new Alert();
-        String commandID = node.getChildNodes().item(0).getTextContent().trim();
-        String data = node.getChildNodes().item(1).getTextContent().trim();
+        String commandID = null;
+        String data = null;
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.COMMAND_ID.equals(elementName)) {
+                commandID = readText(reader);
+            } else if (Constants.DATA.equals(elementName)) {
+                data = readText(reader);
+            } else {
+                skipElement(reader);
+            }
+        }
         alert.setCommandId(Integer.valueOf(commandID));
         alert.setData(data);
         return alert;
     }
 
     /**
-     * Generates Item object by extracting properties of passed XML node.
+     * Generates Item object by reading the child elements of an Item element.
      *
-     * @param node - XML node which represents Item
+     * @param reader - reader positioned at the start of the Item element
      * @return - Item object
      */
-    private static Item generateItem(Node node) {
+    private static Item generateItem(XMLStreamReader reader) throws XMLStreamException {
         Item item = new Item();
-        Source source = new Source();
-        String data;
-        String nodeName;
-        String childNodeName;
-        String locUri;
-        for (int x = 0; x < node.getChildNodes().getLength(); x++) {
-            if (node.getChildNodes().item(x).getNodeName() != null) {
-                nodeName = node.getChildNodes().item(x).getNodeName();
-            } else {
-                throw new IllegalFormatCodePointException(2);
-            }
-            if (nodeName == PluginConstants.SyncML.SYNCML_SOURCE) {
-                if (node.getChildNodes().item(x).getChildNodes().item(x).getNodeName() != null) {
-                    childNodeName = node.getChildNodes().item(x).getChildNodes().item(x).getNodeName();
-                } else {
-                    throw new IllegalFormatCodePointException(2);
-                }
-                if (childNodeName == PluginConstants.SyncML.SYNCML_LOCATION_URI) {
-                    if (node.getChildNodes().item(x).getChildNodes().item(x).getTextContent().trim() != null) {
-                        locUri = node.getChildNodes().item(x).getChildNodes().item(x).getTextContent().trim();
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (PluginConstants.SyncML.SYNCML_SOURCE.equals(elementName)) {
+                Source source = new Source();
+                while (nextChildElement(reader)) {
+                    if (PluginConstants.SyncML.SYNCML_LOCATION_URI.equals(reader.getLocalName())) {
+                        source.setLocURI(readText(reader));
+                        item.setSource(source);
                     } else {
-                        throw new IllegalFormatCodePointException(2);
+                        skipElement(reader);
                     }
-                    source.setLocURI(locUri);
-                    item.setSource(source);
-                }
-            } else if (nodeName == PluginConstants.SyncML.SYNCML_DATA) {
-                if (node.getChildNodes().item(x).getTextContent().trim() != null) {
-                    data = node.getChildNodes().item(x).getTextContent().trim();
-                } else {
-                    throw new IllegalFormatCodePointException(2);
                 }
-                item.setData(data);
+            } else if (PluginConstants.SyncML.SYNCML_DATA.equals(elementName)) {
+                item.setData(readText(reader));
+            } else {
+                skipElement(reader);
             }
         }
         return item;
     }
 
     /**
-     * Generates Credential object by extracting properties of passed XML node.
+     * Generates Credential object by reading the child elements of a Cred element.
      *
-     * @param node - XML node which represents Credential
+     * @param reader - reader positioned at the start of the Cred element
      * @return - Credential object
      */
-    private static Credential generateCredential(Node node) {
+    private static Credential generateCredential(XMLStreamReader reader) throws XMLStreamException {
         Credential credential = new Credential();
-        MetaTag meta = generateMeta(node.getChildNodes().item(0));
-        String data = node.getChildNodes().item(1).getTextContent().trim();
-        credential.setMeta(meta);
-        credential.setData(data);
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.META.equals(elementName)) {
+                credential.setMeta(generateMeta(reader));
+            } else if (Constants.DATA.equals(elementName)) {
+                credential.setData(readText(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
         return credential;
     }
 
     /**
-     * Generates MetaTag object by extracting properties of passed XML node.
+     * Generates MetaTag object by reading the child elements of a Meta element.
      *
-     * @param node - XML node which represents MetaTag
+     * @param reader - reader positioned at the start of the Meta element
      * @return - MetaTag object
      */
-    private static MetaTag generateMeta(Node node) {
+    private static MetaTag generateMeta(XMLStreamReader reader) throws XMLStreamException {
         MetaTag meta = new MetaTag();
-        String format = node.getChildNodes().item(0).getTextContent().trim();
-        String type = node.getChildNodes().item(1).getTextContent().trim();
-        meta.setFormat(format);
-        meta.setType(type);
+        while (nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (Constants.FORMAT.equals(elementName)) {
+                meta.setFormat(readText(reader));
+            } else if (Constants.TYPE.equals(elementName)) {
+                meta.setType(readText(reader));
+            } else {
+                skipElement(reader);
+            }
+        }
         return meta;
     }
+
+    /**
+     * Moves the reader to the start of the next child element of the current element.
+     *
+     * @param reader - reader positioned within the parent element
+     * @return - true if the reader is at the start of a child element, false if the end of the parent element has
+     * been reached
+     */
+    private static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the text content of the current element, including the text of any nested elements, and moves the
+     * reader to the end of the element.
+     *
+     * @param reader - reader positioned at the start of the element
+     * @return - trimmed text content of the element
+     */
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+            }
+        }
+        return text.toString().trim();
+    }
+
+    /**
+     * Moves the reader to the end of the current element without retaining any of its content.
+     *
+     * @param reader - reader positioned at the start of the element
+     */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
 }
@@ -21,20 +21,21 @@ package org.wso2.carbon.mdm.mobileservices.windows.services.adminoperations.util
 import com.google.gson.Gson;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
-import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
-import org.wso2.carbon.device.mgt.common.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.ConfigOperation;
-import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.mdm.mobileservices.windows.common.SyncmlCommandType;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WindowsDeviceEnrolmentException;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WindowsOperationsException;
+import org.wso2.carbon.mdm.mobileservices.windows.common.util.Message;
+import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
 import org.wso2.carbon.mdm.mobileservices.windows.services.adminoperations.beans.Device;
 import org.wso2.carbon.mdm.mobileservices.windows.services.adminoperations.beans.OperationRequest;
 import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.beans.Wifi;
 
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -42,49 +43,42 @@ public class OperationStore {
 
     private static Log log = LogFactory.getLog(OperationStore.class);
 
-    public static boolean storeOperation(OperationRequest operationRequest, Operation.Type type,
-                                         String commandType) throws
-                                                             WindowsDeviceEnrolmentException {
-
-        List<Device> devices = operationRequest.getDeviceList();
-        List<DeviceIdentifier> deviceIdentifiers = new ArrayList<DeviceIdentifier>();
-        DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
-
-        Operation operation = transformBasicOperation(operationRequest, type, commandType);
-
-        for (int i = 0; i < devices.size(); i++) {
-            try {
-                deviceIdentifier.setType(DeviceManagementConstants.MobileDeviceTypes.MOBILE_DEVICE_TYPE_WINDOWS);
-                deviceIdentifier.setId(devices.get(i).getID());
-                deviceIdentifiers.add(deviceIdentifier);
-                getDeviceManagementServiceProvider().getDevice(deviceIdentifier);
-
-            } catch (DeviceManagementException e) {
-                log.error("Cannot validate device ID: " + devices.get(i).getID());
-                deviceIdentifiers.remove(i);
-            }
+    /**
+     * Adds an operation to the devices of a request, as the operation endpoints do.
+     *
+     * @param operationRequest the operation and the devices to add it to.
+     * @param type             type of the operation.
+     * @param commandType      code of the operation.
+     * @return the response of the operation endpoints, i.e. a multi-status response that lists the invalid device ids
+     * if there are any.
+     * @throws WindowsDeviceEnrolmentException
+     */
+    public static Response storeOperation(OperationRequest operationRequest, Operation.Type type,
+                                          String commandType) throws
+                                                              WindowsDeviceEnrolmentException {
+
+        List<String> deviceIDs = new ArrayList<String>();
+        for (Device device : operationRequest.getDeviceList()) {
+            deviceIDs.add(device.getID());
         }
+        Operation operation = transformBasicOperation(operationRequest, type, commandType);
+        MediaType responseMediaType = MediaType.APPLICATION_JSON_TYPE;
+        Message message = new Message();
         try {
-            getDeviceManagementServiceProvider().addOperation(operation, deviceIdentifiers);
+            return WindowsAPIUtils.getOperationResponse(deviceIDs, operation, message, responseMediaType);
         } catch (OperationManagementException e) {
-            String msg = "Failure occurred while storing command operation.";
-            log.error(msg);
-            return false;
-        }
-        return true;
-    }
-
-    private static DeviceManagementProviderService getDeviceManagementServiceProvider() {
-        DeviceManagementProviderService deviceManager;
-        PrivilegedCarbonContext ctx = PrivilegedCarbonContext.getThreadLocalCarbonContext();
-        deviceManager =
-                (DeviceManagementProviderService) ctx.getOSGiService(DeviceManagementProviderService.class, null);
-
-        if (deviceManager == null) {
-            String msg = "Device management service is not initialized.";
-            log.error(msg);
+            String errorMessage = "Failure occurred while storing command operation.";
+            message.setResponseMessage(errorMessage);
+            message.setResponseCode(Response.Status.INTERNAL_SERVER_ERROR.toString());
+            log.error(errorMessage, e);
+            throw new WindowsOperationsException(message, responseMediaType);
+        } catch (DeviceManagementException e) {
+            String errorMessage = "Issue in retrieving device management service instance";
+            message.setResponseMessage(errorMessage);
+            message.setResponseCode(Response.Status.INTERNAL_SERVER_ERROR.toString());
+            log.error(errorMessage, e);
+            throw new WindowsOperationsException(message, responseMediaType);
         }
-        return deviceManager;
     }
 
     private static Operation transformBasicOperation(OperationRequest operationRequest, Operation.Type type,
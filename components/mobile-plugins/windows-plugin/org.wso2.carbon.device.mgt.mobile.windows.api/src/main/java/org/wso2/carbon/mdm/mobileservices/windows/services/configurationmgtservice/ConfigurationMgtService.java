@@ -29,6 +29,7 @@ import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WindowsConfigurationException;
 import org.wso2.carbon.mdm.mobileservices.windows.common.util.Message;
 import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
+import org.wso2.carbon.mdm.mobileservices.windows.services.wstep.util.WapProvisioningCache;
 
 import javax.jws.WebService;
 import javax.ws.rs.*;
@@ -81,6 +82,7 @@ public class ConfigurationMgtService {
                 }
                 configuration.setConfiguration(configs);
                 WindowsAPIUtils.getDeviceManagementService().saveConfiguration(configuration);
+                WapProvisioningCache.invalidate();
                 Response.status(Response.Status.CREATED);
                 responseMsg.setResponseMessage("Windows platform configuration saved successfully.");
                 responseMsg.setResponseCode(Response.Status.CREATED.toString());
@@ -168,6 +170,7 @@ public class ConfigurationMgtService {
             }
             configuration.setConfiguration(configs);
             WindowsAPIUtils.getDeviceManagementService().saveConfiguration(configuration);
+            WapProvisioningCache.invalidate();
             Response.status(Response.Status.CREATED);
             responseMsg.setResponseMessage("Windows platform configuration succeeded.");
             responseMsg.setResponseCode(Response.Status.CREATED.toString());
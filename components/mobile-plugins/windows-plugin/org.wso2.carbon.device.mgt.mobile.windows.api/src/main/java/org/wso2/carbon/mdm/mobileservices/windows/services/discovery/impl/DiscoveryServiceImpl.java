@@ -49,6 +49,9 @@ public class DiscoveryServiceImpl implements DiscoveryService {
 
     public static final String FEDERATED = "Federated";
     private static Log log = LogFactory.getLog(DiscoveryServiceImpl.class);
+    // the response only depends on the plugin properties, hence it is shared by all the devices until the
+    // properties are read again.
+    private static volatile PreparedResponse preparedResponse;
     @Resource
     private WebServiceContext context;
 
@@ -67,6 +70,26 @@ public class DiscoveryServiceImpl implements DiscoveryService {
         WindowsPluginProperties windowsPluginProperties = (WindowsPluginProperties) ctx.getAttribute(
                 PluginConstants.WINDOWS_PLUGIN_PROPERTIES);
 
+        PreparedResponse cachedResponse = preparedResponse;
+        if (cachedResponse == null || cachedResponse.getProperties() != windowsPluginProperties) {
+            cachedResponse = new PreparedResponse(windowsPluginProperties,
+                    createDiscoveryResponse(windowsPluginProperties));
+            preparedResponse = cachedResponse;
+        }
+        response.value = cachedResponse.getResponse();
+
+        if (log.isDebugEnabled()) {
+            log.debug("Discovery service end point was triggered via POST method");
+        }
+    }
+
+    /**
+     * Builds the discovery response for the authentication policy and the domain in the plugin properties.
+     *
+     * @param windowsPluginProperties - Windows plugin properties read from the property file
+     * @return - DiscoveryResponse bean for response
+     */
+    private DiscoveryResponse createDiscoveryResponse(WindowsPluginProperties windowsPluginProperties) {
         DiscoveryResponse discoveryResponse = new DiscoveryResponse();
         if (FEDERATED.equals(windowsPluginProperties.getAuthPolicy())) {
             discoveryResponse.setAuthPolicy(windowsPluginProperties.getAuthPolicy());
@@ -88,11 +111,7 @@ public class DiscoveryServiceImpl implements DiscoveryService {
                     ONPREMISE_CERTIFICATE_ENROLLMENT_SERVICE_URL);
             discoveryResponse.setAuthenticationServiceUrl(null);
         }
-        response.value = discoveryResponse;
-
-        if (log.isDebugEnabled()) {
-            log.debug("Discovery service end point was triggered via POST method");
-        }
+        return discoveryResponse;
     }
 
     /**
@@ -109,4 +128,27 @@ public class DiscoveryServiceImpl implements DiscoveryService {
         }
         return Response.ok().build();
     }
+
+    /**
+     * Discovery response along with the plugin properties it was built from. The response is only ever read once
+     * built, hence it is safe to be marshalled concurrently.
+     */
+    private static class PreparedResponse {
+
+        private final WindowsPluginProperties properties;
+        private final DiscoveryResponse response;
+
+        PreparedResponse(WindowsPluginProperties properties, DiscoveryResponse response) {
+            this.properties = properties;
+            this.response = response;
+        }
+
+        WindowsPluginProperties getProperties() {
+            return properties;
+        }
+
+        DiscoveryResponse getResponse() {
+            return response;
+        }
+    }
 }
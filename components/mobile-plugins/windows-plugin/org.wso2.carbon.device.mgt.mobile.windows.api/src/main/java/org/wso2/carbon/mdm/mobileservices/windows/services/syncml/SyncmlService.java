@@ -18,7 +18,6 @@
 
 package org.wso2.carbon.mdm.mobileservices.windows.services.syncml;
 
-import org.w3c.dom.Document;
 import org.wso2.carbon.device.mgt.common.notification.mgt.NotificationManagementException;
 import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WindowsConfigurationException;
@@ -31,6 +30,7 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
 
 /**
  * Interface for Syncml message flow.
@@ -42,7 +42,7 @@ public interface SyncmlService {
     @POST
     @Consumes({PluginConstants.SYNCML_MEDIA_TYPE, MediaType.APPLICATION_XML})
     @Produces(PluginConstants.SYNCML_MEDIA_TYPE)
-    Response getResponse(Document request) throws WindowsDeviceEnrolmentException, WindowsOperationException,
+    Response getResponse(InputStream request) throws WindowsDeviceEnrolmentException, WindowsOperationException,
             NotificationManagementException, WindowsConfigurationException;
 
 }
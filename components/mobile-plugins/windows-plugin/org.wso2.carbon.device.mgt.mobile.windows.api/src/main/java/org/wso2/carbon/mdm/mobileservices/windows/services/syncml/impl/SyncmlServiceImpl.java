@@ -21,7 +21,6 @@ package org.wso2.carbon.mdm.mobileservices.windows.services.syncml.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.JSONException;
-import org.w3c.dom.Document;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.*;
 import org.wso2.carbon.device.mgt.common.notification.mgt.NotificationManagementException;
@@ -38,11 +37,13 @@ import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
 import org.wso2.carbon.mdm.mobileservices.windows.operations.*;
 import org.wso2.carbon.mdm.mobileservices.windows.operations.util.*;
 import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.SyncmlService;
+import org.wso2.carbon.mdm.mobileservices.windows.services.syncml.util.EffectivePolicyCache;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
 
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -122,7 +123,7 @@ public class SyncmlServiceImpl implements SyncmlService {
      * @throws WindowsDeviceEnrolmentException
      */
     @Override
-    public Response getResponse(Document request)
+    public Response getResponse(InputStream request)
             throws WindowsDeviceEnrolmentException, WindowsOperationException, NotificationManagementException,
             WindowsConfigurationException {
         int msgId;
@@ -137,14 +138,8 @@ public class SyncmlServiceImpl implements SyncmlService {
         DeviceInfo deviceInfo = new DeviceInfo();
 
         try {
-            if (SyncmlParser.parseSyncmlPayload(request) != null) {
-                try {
-                    syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
-                } catch (SyncmlMessageFormatException e) {
-                    String msg = "Error occurred due to bad syncml format.";
-                    log.error(msg, e);
-                    throw new SyncmlMessageFormatException(msg, e);
-                }
+            syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
+            if (syncmlDocument != null) {
                 SyncmlHeader syncmlHeader = syncmlDocument.getHeader();
                 sessionId = syncmlHeader.getSessionId();
                 user = syncmlHeader.getSource().getLocName();
@@ -158,12 +153,13 @@ public class SyncmlServiceImpl implements SyncmlService {
 
                     if (cacheToken.getUsername().equals(user)) {
 
-                        if (enrollDevice(request)) {
+                        if (enrollDevice(syncmlDocument)) {
                             deviceInfoOperations = deviceInfo.getDeviceInfo();
                             try {
                                 response = generateReply(syncmlDocument, deviceInfoOperations);
                                 PolicyManagerService policyManagerService = WindowsAPIUtils.getPolicyManagerService();
                                 policyManagerService.getEffectivePolicy(deviceIdentifier);
+                                EffectivePolicyCache.invalidate(deviceIdentifier);
                                 return Response.status(Response.Status.OK).entity(response).build();
                             } catch (PolicyManagementException e) {
                                 String msg = "Error occurred in while getting effective policy.";
@@ -188,7 +184,7 @@ public class SyncmlServiceImpl implements SyncmlService {
                 } else if (PluginConstants.SyncML.SYNCML_SECOND_MESSAGE_ID == msgId &&
                         PluginConstants.SyncML.SYNCML_FIRST_SESSION_ID == sessionId) {
 
-                    if (enrollDevice(request)) {
+                    if (enrollDevice(syncmlDocument)) {
                         try {
                             return Response.ok().entity(generateReply(syncmlDocument, null)).build();
                         } catch (SyncmlOperationException e) {
@@ -235,6 +231,7 @@ public class SyncmlServiceImpl implements SyncmlService {
                             try {
                                 if (WindowsAPIUtils.getDeviceManagementService().getDevice(deviceIdentifier) != null) {
                                     WindowsAPIUtils.getDeviceManagementService().disenrollDevice(deviceIdentifier);
+                                    EffectivePolicyCache.invalidate(deviceIdentifier);
                                     return Response.ok().entity(generateReply(syncmlDocument, null)).build();
                                 } else {
                                     String msg = "Enrolled device can not be found in the server.";
@@ -299,12 +296,12 @@ public class SyncmlServiceImpl implements SyncmlService {
     /**
      * Enroll phone device
      *
-     * @param request Device syncml request for the server side.
+     * @param syncmlDocument parsed syncml request of the device.
      * @return enroll state
      * @throws WindowsDeviceEnrolmentException
      * @throws WindowsOperationException
      */
-    private boolean enrollDevice(Document request) throws WindowsDeviceEnrolmentException,
+    private boolean enrollDevice(SyncmlDocument syncmlDocument) throws WindowsDeviceEnrolmentException,
             WindowsOperationException {
 
         String osVersion;
@@ -321,11 +318,10 @@ public class SyncmlServiceImpl implements SyncmlService {
         boolean status = false;
         String user;
         String deviceName;
+        String channelURI;
         int msgID;
-        SyncmlDocument syncmlDocument;
 
         try {
-            syncmlDocument = SyncmlParser.parseSyncmlPayload(request);
             msgID = syncmlDocument.getHeader().getMsgID();
             if (msgID == PluginConstants.SyncML.SYNCML_FIRST_MESSAGE_ID) {
                 Replace replace = syncmlDocument.getBody().getReplace();
@@ -358,6 +354,7 @@ public class SyncmlServiceImpl implements SyncmlService {
                 macAddress = itemList.get(PluginConstants.SyncML.MACADDRESS_POSITION).getData();
                 resolution = itemList.get(PluginConstants.SyncML.RESOLUTION_POSITION).getData();
                 deviceName = itemList.get(PluginConstants.SyncML.DEVICE_NAME_POSITION).getData();
+                channelURI = getChannelURI(itemList);
                 DeviceIdentifier deviceIdentifier = convertToDeviceIdentifierObject(syncmlDocument.
                         getHeader().getSource().getLocURI());
                 Device existingDevice = WindowsAPIUtils.getDeviceManagementService().getDevice(deviceIdentifier);
@@ -405,6 +402,11 @@ public class SyncmlServiceImpl implements SyncmlService {
                     deviceNameProperty.setValue(devMod);
                     existingProperties.add(deviceModelProperty);
 
+                    Device.Property channelURIProperty = new Device.Property();
+                    channelURIProperty.setName(PluginConstants.SyncML.CHANNEL_URI);
+                    channelURIProperty.setValue(channelURI);
+                    existingProperties.add(channelURIProperty);
+
                     existingDevice.setProperties(existingProperties);
                     existingDevice.setDeviceIdentifier(syncmlDocument.getHeader().getSource().getLocURI());
                     existingDevice.setType(DeviceManagementConstants.MobileDeviceTypes.MOBILE_DEVICE_TYPE_WINDOWS);
@@ -412,6 +414,7 @@ public class SyncmlServiceImpl implements SyncmlService {
                     // call effective policy for the enrolling device.
                     PolicyManagerService policyManagerService = WindowsAPIUtils.getPolicyManagerService();
                     policyManagerService.getEffectivePolicy(deviceIdentifier);
+                    EffectivePolicyCache.invalidate(deviceIdentifier);
                     return status;
                 }
             }
@@ -419,10 +422,6 @@ public class SyncmlServiceImpl implements SyncmlService {
             String msg = "Failure occurred in enrolling device.";
             log.error(msg, e);
             throw new WindowsDeviceEnrolmentException(msg, e);
-        } catch (SyncmlMessageFormatException e) {
-            String msg = "Error occurred in bad format of the syncml payload.";
-            log.error(msg, e);
-            throw new WindowsOperationException(msg, e);
         } catch (PolicyManagementException e) {
             String msg = "Error occurred in getting effective policy.";
             log.error(msg, e);
@@ -433,6 +432,20 @@ public class SyncmlServiceImpl implements SyncmlService {
         return status;
     }
 
+    /**
+     * @param itemList results of the device info operations.
+     * @return the WNS channel URI reported by the device, or null if the device has no push channel.
+     */
+    private String getChannelURI(List<Item> itemList) {
+        for (Item item : itemList) {
+            if (item.getSource() != null &&
+                    OperationCode.Info.CHANNEL_URI.getCode().equals(item.getSource().getLocURI())) {
+                return item.getData();
+            }
+        }
+        return null;
+    }
+
     /**
      * Generate Device payloads.
      *
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.services.syncml.util;
+
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
+import org.wso2.carbon.policy.mgt.common.FeatureManagementException;
+import org.wso2.carbon.policy.mgt.common.ProfileFeature;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds the effective features of the Windows devices of each tenant, which are otherwise evaluated afresh by the
+ * policy decision point on every check-in that carries monitoring results. The features of a device are evaluated
+ * again once the device is handed a policy operation, which is how a published policy reaches the device, when the
+ * effective policy of the device is enforced or when the cached features expire.
+ */
+public class EffectivePolicyCache {
+
+    private static final long EXPIRY_TIME = 15 * 60 * 1000;
+    private static final ConcurrentMap<Integer, Map<String, CachedFeatures>> effectiveFeatures =
+            new ConcurrentHashMap<>();
+
+    private EffectivePolicyCache() {
+    }
+
+    /**
+     * @param deviceIdentifier identifier of the device.
+     * @return the features of the policy effective on the device, or null if no policy is effective on the device.
+     * @throws FeatureManagementException if the effective features could not be evaluated.
+     */
+    public static List<ProfileFeature> getEffectiveFeatures(DeviceIdentifier deviceIdentifier)
+            throws FeatureManagementException {
+        Map<String, CachedFeatures> tenantFeatures = getTenantFeatures();
+        CachedFeatures cachedFeatures = tenantFeatures.get(deviceIdentifier.getId());
+        if (cachedFeatures != null && !cachedFeatures.isExpired()) {
+            return cachedFeatures.getFeatures();
+        }
+        List<ProfileFeature> features = WindowsAPIUtils.getPolicyManagerService().getEffectiveFeatures(
+                deviceIdentifier);
+        if (features == null) {
+            tenantFeatures.remove(deviceIdentifier.getId());
+            return null;
+        }
+        cachedFeatures = new CachedFeatures(features);
+        tenantFeatures.put(deviceIdentifier.getId(), cachedFeatures);
+        return cachedFeatures.getFeatures();
+    }
+
+    /**
+     * Discards the cached features of the device if any of the operations handed to it is a policy operation.
+     *
+     * @param deviceIdentifier identifier of the device.
+     * @param operations       operations pending on the device.
+     */
+    public static void invalidate(DeviceIdentifier deviceIdentifier, List<? extends Operation> operations) {
+        if (operations == null) {
+            return;
+        }
+        for (Operation operation : operations) {
+            if (Operation.Type.POLICY.equals(operation.getType())) {
+                invalidate(deviceIdentifier);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Discards the cached features of the device, so that they are evaluated again on the next check-in.
+     *
+     * @param deviceIdentifier identifier of the device.
+     */
+    public static void invalidate(DeviceIdentifier deviceIdentifier) {
+        getTenantFeatures().remove(deviceIdentifier.getId());
+    }
+
+    private static Map<String, CachedFeatures> getTenantFeatures() {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Map<String, CachedFeatures> tenantFeatures = effectiveFeatures.get(tenantId);
+        if (tenantFeatures == null) {
+            tenantFeatures = new ConcurrentHashMap<>();
+            Map<String, CachedFeatures> existingFeatures = effectiveFeatures.putIfAbsent(tenantId, tenantFeatures);
+            if (existingFeatures != null) {
+                tenantFeatures = existingFeatures;
+            }
+        }
+        return tenantFeatures;
+    }
+
+    private static class CachedFeatures {
+
+        private final List<ProfileFeature> features;
+        private final long expiryTime;
+
+        CachedFeatures(List<ProfileFeature> features) {
+            this.features = Collections.unmodifiableList(features);
+            this.expiryTime = System.currentTimeMillis() + EXPIRY_TIME;
+        }
+
+        List<ProfileFeature> getFeatures() {
+            return features;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiryTime;
+        }
+    }
+}
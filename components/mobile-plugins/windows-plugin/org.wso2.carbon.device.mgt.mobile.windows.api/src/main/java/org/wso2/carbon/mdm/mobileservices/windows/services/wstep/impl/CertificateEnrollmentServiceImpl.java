@@ -31,33 +31,30 @@ import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
 import org.wso2.carbon.certificate.mgt.core.service.CertificateManagementServiceImpl;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
-import org.wso2.carbon.device.mgt.common.configuration.mgt.ConfigurationEntry;
-import org.wso2.carbon.device.mgt.common.configuration.mgt.TenantConfiguration;
 import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
 import org.wso2.carbon.mdm.mobileservices.windows.common.beans.CacheEntry;
+import org.wso2.carbon.mdm.mobileservices.windows.common.beans.WNSConfiguration;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.CertificateGenerationException;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.SyncmlMessageFormatException;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WAPProvisioningException;
 import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WindowsDeviceEnrolmentException;
+import org.wso2.carbon.mdm.mobileservices.windows.common.push.WNSPushNotifier;
 import org.wso2.carbon.mdm.mobileservices.windows.common.util.DeviceUtil;
-import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
 import org.wso2.carbon.mdm.mobileservices.windows.operations.util.SyncmlCredentials;
 import org.wso2.carbon.mdm.mobileservices.windows.services.wstep.CertificateEnrollmentService;
 import org.wso2.carbon.mdm.mobileservices.windows.services.wstep.beans.AdditionalContext;
 import org.wso2.carbon.mdm.mobileservices.windows.services.wstep.beans.BinarySecurityToken;
 import org.wso2.carbon.mdm.mobileservices.windows.services.wstep.beans.RequestSecurityTokenResponse;
 import org.wso2.carbon.mdm.mobileservices.windows.services.wstep.beans.RequestedSecurityToken;
+import org.wso2.carbon.mdm.mobileservices.windows.services.wstep.util.WapProvisioningCache;
 import org.xml.sax.SAXException;
 
 import javax.annotation.Resource;
 import javax.jws.WebService;
 import javax.servlet.ServletContext;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.ws.BindingType;
@@ -91,8 +88,6 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
     private static final int APPAUTH_PASSWORD_POSITION = 22;
     private static final int POLLING_FREQUENCY_POSITION = 27;
     private static Log log = LogFactory.getLog(CertificateEnrollmentServiceImpl.class);
-    private X509Certificate rootCACertificate;
-    private String pollingFrequency;
 
     @Resource
     private WebServiceContext context;
@@ -122,28 +117,6 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
                 headerBinarySecurityToken = element.getFirstChild().getNextSibling().getFirstChild().getTextContent();
             }
         }
-        List<ConfigurationEntry> tenantConfigurations = null;
-        try {
-            if (getTenantConfigurationData() != null) {
-                tenantConfigurations = getTenantConfigurationData();
-                for (ConfigurationEntry configurationEntry : tenantConfigurations) {
-                    if (configurationEntry.getName().equals(PluginConstants.TenantConfigProperties.
-                            NOTIFIER_FREQUENCY)) {
-                        pollingFrequency = configurationEntry.getValue().toString();
-                    } else {
-                        pollingFrequency = PluginConstants.TenantConfigProperties.DEFAULT_FREQUENCY;
-                    }
-                }
-            } else {
-                pollingFrequency = PluginConstants.TenantConfigProperties.DEFAULT_FREQUENCY;
-                String msg = "Tenant configurations are not initialized yet.";
-                log.error(msg);
-            }
-        } catch (DeviceManagementException e) {
-            String msg = "Error occurred in while getting tenant configurations.";
-            log.error(msg);
-            throw new WindowsDeviceEnrolmentException(msg, e);
-        }
         ServletContext ctx =
                 (ServletContext) context.getMessageContext().get(MessageContext.SERVLET_CONTEXT);
         File wapProvisioningFile = (File) ctx.getAttribute(PluginConstants.CONTEXT_WAP_PROVISIONING_FILE);
@@ -192,15 +165,16 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
         DOMSource DOMSource = new DOMSource(document);
         StringWriter stringWriter = new StringWriter();
         StreamResult streamResult = new StreamResult(stringWriter);
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
+        Transformer transformer = WapProvisioningCache.getTransformer();
         transformer.transform(DOMSource, streamResult);
 
         return stringWriter.toString();
     }
 
     /**
-     * This method prepares the wap-provisioning file by including relevant certificates etc
+     * This method prepares the wap-provisioning file by including relevant certificates etc. The parsed template,
+     * the CA certificate and the polling frequency of the tenant are taken from the WapProvisioningCache, hence only
+     * the device specific fields are computed per enrollment.
      *
      * @param binarySecurityToken     - CSR from device
      * @param wapProvisioningFilePath - File path of wap-provisioning file
@@ -213,15 +187,14 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
             String wapProvisioningFilePath, String headerBst) throws CertificateGenerationException,
             WAPProvisioningException, WindowsDeviceEnrolmentException {
 
-        String rootCertEncodedString;
+        WapProvisioningCache.CACertificate rootCACertificate;
         String signedCertEncodedString;
         X509Certificate signedCertificate;
 
         CertificateManagementServiceImpl impl = CertificateManagementServiceImpl.getInstance();
         Base64 base64Encoder = new Base64();
         try {
-            rootCACertificate = (X509Certificate) impl.getCACertificate();
-            rootCertEncodedString = base64Encoder.encodeToString(rootCACertificate.getEncoded());
+            rootCACertificate = WapProvisioningCache.getCACertificate();
         } catch (KeystoreException e) {
             String msg = "CA certificate cannot be generated";
             log.error(msg, e);
@@ -244,30 +217,24 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
             log.error(msg, e);
             throw new CertificateGenerationException(msg, e);
         }
-        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder builder;
         String wapProvisioningString = null;
         try {
-            builder = domFactory.newDocumentBuilder();
-
-            Document document = builder.parse(wapProvisioningFilePath);
+            Document document = WapProvisioningCache.getTemplate(wapProvisioningFilePath);
             NodeList wapParm = document.getElementsByTagName(PluginConstants.CertificateEnrolment.PARM);
             Node caCertificatePosition = wapParm.item(CA_CERTIFICATE_POSITION);
 
             //Adding SHA1 CA certificate finger print to wap-provisioning xml.
             caCertificatePosition.getParentNode().getAttributes().getNamedItem(PluginConstants.
-                    CertificateEnrolment.TYPE).setTextContent(String.valueOf(
-                    DigestUtils.sha512Hex(rootCACertificate.getEncoded())).toUpperCase());
+                    CertificateEnrolment.TYPE).setTextContent(rootCACertificate.getFingerprint());
             //Adding encoded CA certificate to wap-provisioning file after removing new line
             // characters.
             NamedNodeMap rootCertAttributes = caCertificatePosition.getAttributes();
             Node rootCertNode =
                     rootCertAttributes.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
-            rootCertEncodedString = rootCertEncodedString.replaceAll("\n", "");
-            rootCertNode.setTextContent(rootCertEncodedString);
+            rootCertNode.setTextContent(rootCACertificate.getEncodedCertificate());
 
             if (log.isDebugEnabled()) {
-                log.debug("Root certificate: " + rootCertEncodedString);
+                log.debug("Root certificate: " + rootCACertificate.getEncodedCertificate());
             }
 
             Node signedCertificatePosition = wapParm.item(SIGNED_CERTIFICATE_POSITION);
@@ -309,7 +276,8 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
             Node numberOfFirstRetries = wapParm.item(POLLING_FREQUENCY_POSITION);
             NamedNodeMap pollingAttributes = numberOfFirstRetries.getAttributes();
             Node pollValue = pollingAttributes.getNamedItem(PluginConstants.CertificateEnrolment.VALUE);
-            pollValue.setTextContent(pollingFrequency);
+            pollValue.setTextContent(WapProvisioningCache.getPollingFrequency());
+            addPushProvisioning(document);
             if (log.isDebugEnabled()) {
                 log.debug("Username: " + userName + "Password: " + requestSecurityTokenResponse);
             }
@@ -350,6 +318,36 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
         return base64Encoder.encodeToString(wapProvisioningString.getBytes());
     }
 
+    /**
+     * Provisions the package family name of the WNS application to the DM client, so that the device opens a push
+     * channel and reports its channel URI. Nothing is added if push notifications are disabled.
+     *
+     * @param document - Wap provisioning XML document
+     */
+    private void addPushProvisioning(Document document) {
+        WNSConfiguration wnsConfiguration = WNSPushNotifier.getConfiguration();
+        if (wnsConfiguration == null || wnsConfiguration.getPackageFamilyName() == null) {
+            return;
+        }
+        NodeList characteristics = document.getElementsByTagName(PluginConstants.CertificateEnrolment.CHARACTERISTIC);
+        for (int i = 0; i < characteristics.getLength(); i++) {
+            Element characteristic = (Element) characteristics.item(i);
+            if (PluginConstants.CertificateEnrolment.DM_SERVER_PROVIDER.equals(
+                    characteristic.getAttribute(PluginConstants.CertificateEnrolment.TYPE))) {
+                Element push = document.createElement(PluginConstants.CertificateEnrolment.CHARACTERISTIC);
+                push.setAttribute(PluginConstants.CertificateEnrolment.TYPE, PluginConstants.CertificateEnrolment.PUSH);
+                Element pfn = document.createElement(PluginConstants.CertificateEnrolment.PARM);
+                pfn.setAttribute(PluginConstants.CertificateEnrolment.NAME, PluginConstants.CertificateEnrolment.PFN);
+                pfn.setAttribute(PluginConstants.CertificateEnrolment.VALUE, wnsConfiguration.getPackageFamilyName());
+                pfn.setAttribute(PluginConstants.CertificateEnrolment.DATATYPE,
+                        PluginConstants.CertificateEnrolment.DATATYPE_STRING);
+                push.appendChild(pfn);
+                characteristic.appendChild(push);
+                return;
+            }
+        }
+    }
+
     /**
      * This method get the soap request header contents
      *
@@ -363,19 +361,4 @@ public class CertificateEnrollmentServiceImpl implements CertificateEnrollmentSe
         Message message = ((WrappedMessageContext) messageContext).getWrappedMessage();
         return CastUtils.cast((List<?>) message.get(Header.HEADER_LIST));
     }
-
-    /**
-     * This method is used to get tenant configurations.
-     *
-     * @return List of Configurations entries.
-     * @throws DeviceManagementException
-     */
-    private List<ConfigurationEntry> getTenantConfigurationData() throws DeviceManagementException {
-        if (WindowsAPIUtils.getTenantConfiguration() != null) {
-            TenantConfiguration configuration = WindowsAPIUtils.getTenantConfiguration();
-            return configuration.getConfiguration();
-        } else {
-            return null;
-        }
-    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.services.wstep.util;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.w3c.dom.Document;
+import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
+import org.wso2.carbon.certificate.mgt.core.service.CertificateManagementServiceImpl;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.configuration.mgt.ConfigurationEntry;
+import org.wso2.carbon.device.mgt.common.configuration.mgt.TenantConfiguration;
+import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
+import org.wso2.carbon.mdm.mobileservices.windows.common.util.WindowsAPIUtils;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the artifacts that are common to all the WSTEP enrollments, so that an enrollment only has to sign the CSR
+ * of the device and fill in the device specific fields of the wap-provisioning document. These are the parsed
+ * wap-provisioning template, the encoded root CA certificate along with its fingerprint and the polling frequency
+ * of each tenant. The CA material and the polling frequencies are discarded whenever the Windows platform
+ * configuration is saved, and the template is parsed again if the file is modified.
+ */
+public class WapProvisioningCache {
+
+    private static final Map<Integer, String> pollingFrequencies = new ConcurrentHashMap<>();
+    private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+    // a Transformer is not thread-safe, hence one is kept per thread instead of creating one per enrollment.
+    private static final ThreadLocal<Transformer> transformers = new ThreadLocal<>();
+    private static volatile CACertificate caCertificate;
+    private static Document template;
+    private static String templatePath;
+    private static long templateLastModified;
+
+    private WapProvisioningCache() {
+    }
+
+    /**
+     * @param wapProvisioningFilePath the path of the wap-provisioning template.
+     * @return a copy of the parsed template, which the caller is free to modify.
+     */
+    public static synchronized Document getTemplate(String wapProvisioningFilePath)
+            throws ParserConfigurationException, SAXException, IOException {
+        long lastModified = new File(wapProvisioningFilePath).lastModified();
+        if (template == null || !wapProvisioningFilePath.equals(templatePath) || lastModified != templateLastModified) {
+            template = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(wapProvisioningFilePath);
+            templatePath = wapProvisioningFilePath;
+            templateLastModified = lastModified;
+        }
+        // the DOM implementation does not guarantee thread-safety even for reads. hence, the template is cloned
+        // whilst holding the lock.
+        return (Document) template.cloneNode(true);
+    }
+
+    /**
+     * @return the root CA certificate that signs the certificates of the devices.
+     */
+    public static CACertificate getCACertificate() throws KeystoreException, CertificateEncodingException {
+        CACertificate certificate = caCertificate;
+        if (certificate == null) {
+            X509Certificate rootCACertificate =
+                    (X509Certificate) CertificateManagementServiceImpl.getInstance().getCACertificate();
+            certificate = new CACertificate(rootCACertificate);
+            caCertificate = certificate;
+        }
+        return certificate;
+    }
+
+    /**
+     * @return the polling frequency configured for the tenant of the current request, or the default frequency.
+     * @throws DeviceManagementException if the tenant configuration could not be retrieved.
+     */
+    public static String getPollingFrequency() throws DeviceManagementException {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        String pollingFrequency = pollingFrequencies.get(tenantId);
+        if (pollingFrequency == null) {
+            pollingFrequency = PluginConstants.TenantConfigProperties.DEFAULT_FREQUENCY;
+            TenantConfiguration configuration = WindowsAPIUtils.getTenantConfiguration();
+            if (configuration != null && configuration.getConfiguration() != null) {
+                for (ConfigurationEntry configurationEntry : configuration.getConfiguration()) {
+                    if (PluginConstants.TenantConfigProperties.NOTIFIER_FREQUENCY.equals(
+                            configurationEntry.getName()) && configurationEntry.getValue() != null) {
+                        pollingFrequency = configurationEntry.getValue().toString();
+                        break;
+                    }
+                }
+            }
+            pollingFrequencies.put(tenantId, pollingFrequency);
+        }
+        return pollingFrequency;
+    }
+
+    /**
+     * @return the Transformer of the current thread, used to serialize the wap-provisioning documents.
+     */
+    public static Transformer getTransformer() throws TransformerConfigurationException {
+        Transformer transformer = transformers.get();
+        if (transformer == null) {
+            synchronized (transformerFactory) {
+                transformer = transformerFactory.newTransformer();
+            }
+            transformers.set(transformer);
+        } else {
+            transformer.reset();
+        }
+        return transformer;
+    }
+
+    /**
+     * Discards the cached CA material and polling frequencies, so that they are read afresh by the next enrollment.
+     */
+    public static void invalidate() {
+        caCertificate = null;
+        pollingFrequencies.clear();
+    }
+
+    /**
+     * The root CA certificate in the forms in which it is added to the wap-provisioning document.
+     */
+    public static class CACertificate {
+
+        private final X509Certificate certificate;
+        private final String encodedCertificate;
+        private final String fingerprint;
+
+        private CACertificate(X509Certificate certificate) throws CertificateEncodingException {
+            this.certificate = certificate;
+            this.encodedCertificate = new Base64().encodeToString(certificate.getEncoded()).replaceAll("\n", "");
+            this.fingerprint = DigestUtils.sha512Hex(certificate.getEncoded()).toUpperCase();
+        }
+
+        public X509Certificate getCertificate() {
+            return certificate;
+        }
+
+        /**
+         * @return the base64 encoded certificate, without line breaks.
+         */
+        public String getEncodedCertificate() {
+            return encodedCertificate;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+    }
+}
@@ -41,6 +41,11 @@ import javax.xml.ws.soap.SOAPBinding;
 public class CertificateEnrollmentPolicyServiceImpl implements CertificateEnrollmentPolicyService {
 
     private static Log log = LogFactory.getLog(CertificateEnrollmentPolicyServiceImpl.class);
+    // the enrollment policy is made up of constants only, hence the response is built once and shared by all the
+    // requests. the shared elements are only ever read by the marshaller and must not be modified.
+    private static final Response POLICY_RESPONSE = createPolicyResponse();
+    private static final CACollection CA_COLLECTION = new CACollection();
+    private static final OIDCollection OID_COLLECTION = createOIDCollection();
 
     /**
      * This method implements the MS-XCEP protocol for certificate enrollment policy service.
@@ -61,10 +66,19 @@ public class CertificateEnrollmentPolicyServiceImpl implements CertificateEnroll
             log.debug("Enrolment certificate policy end point was triggered by device.");
         }
 
-        Response responseElement = new Response();
-        OIDCollection oidCollectionElement = new OIDCollection();
-        CACollection caCollectionElement = new CACollection();
+        response.value = POLICY_RESPONSE;
+        caCollection.value = CA_COLLECTION;
+        oidCollection.value = OID_COLLECTION;
 
+        PrivilegedCarbonContext.endTenantFlow();
+
+    }
+
+    /**
+     * @return - Response which includes minimal key length, hash algorithm, policy schema and policy OID reference
+     */
+    private static Response createPolicyResponse() {
+        Response responseElement = new Response();
         PolicyCollection policyCollectionElement = new PolicyCollection();
 
         CertificateEnrollmentPolicy certEnrollmentPolicyElement = new CertificateEnrollmentPolicy();
@@ -83,19 +97,20 @@ public class CertificateEnrollmentPolicyServiceImpl implements CertificateEnroll
         certEnrollmentPolicyElement.setAttributes(attributeElement);
         policyCollectionElement.getPolicy().add(certEnrollmentPolicyElement);
         responseElement.setPolicies(policyCollectionElement);
-        response.value = responseElement;
+        return responseElement;
+    }
 
+    /**
+     * @return - Collection of OIDs referred to by the enrollment policy
+     */
+    private static OIDCollection createOIDCollection() {
+        OIDCollection oidCollectionElement = new OIDCollection();
         OID oidElement = new OID();
         oidElement.setValue(PluginConstants.CertificateEnrolmentPolicy.OID);
         oidElement.setGroup(PluginConstants.CertificateEnrolmentPolicy.OID_GROUP);
         oidElement.setOIDReferenceID(PluginConstants.CertificateEnrolmentPolicy.OID_REFERENCE_ID);
         oidElement.setDefaultName(PluginConstants.CertificateEnrolmentPolicy.OID_DEFAULT_NAME);
-
         oidCollectionElement.getOID().add(oidElement);
-        caCollection.value = caCollectionElement;
-        oidCollection.value = oidCollectionElement;
-
-        PrivilegedCarbonContext.endTenantFlow();
-
+        return oidCollectionElement;
     }
 }
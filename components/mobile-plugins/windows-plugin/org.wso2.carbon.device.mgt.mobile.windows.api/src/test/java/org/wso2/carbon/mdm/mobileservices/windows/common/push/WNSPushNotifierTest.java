@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.common.push;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.mdm.mobileservices.windows.common.beans.WNSConfiguration;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.WNSException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class for holding unit-tests related to WNSPushNotifier class. WNS is stubbed by a WNSClient plugged in through the
+ * ClientClass property of the WNS configuration, which records the notifications instead of sending them.
+ */
+public class WNSPushNotifierTest {
+
+    private static final String CHANNEL_URI_PREFIX = "https://db5.notify.windows.com/?token=";
+    private static final String FAILING_CHANNEL_URI = CHANNEL_URI_PREFIX + "rejected";
+    private static final String BROKEN_CHANNEL_URI = CHANNEL_URI_PREFIX + "broken";
+    private static final long NOTIFICATION_TIMEOUT = 5000;
+    private static final long NO_NOTIFICATION_TIMEOUT = 500;
+
+    @BeforeMethod
+    public void initPushNotifier() {
+        StubWNSClient.notifications.clear();
+        WNSPushNotifier.init(createConfiguration(true, StubWNSClient.class.getName()));
+        Assert.assertTrue(WNSPushNotifier.isEnabled());
+    }
+
+    @AfterMethod
+    public void destroyPushNotifier() {
+        WNSPushNotifier.destroy();
+    }
+
+    @Test
+    public void testCommandWakesUpDevices() throws InterruptedException {
+        Map<String, String> channelURIs = new LinkedHashMap<>();
+        channelURIs.put("device-1", CHANNEL_URI_PREFIX + "1");
+        channelURIs.put("device-2", CHANNEL_URI_PREFIX + "2");
+        WNSPushNotifier.operationAdded(createOperation(Operation.Type.COMMAND), channelURIs);
+        Set<String> notifiedChannelURIs = new HashSet<>();
+        for (int i = 0; i < channelURIs.size(); i++) {
+            Notification notification = StubWNSClient.notifications.poll(NOTIFICATION_TIMEOUT, TimeUnit.MILLISECONDS);
+            Assert.assertNotNull(notification, "Device was not woken up.");
+            Assert.assertEquals(new String(notification.payload, StandardCharsets.UTF_8), "sync");
+            notifiedChannelURIs.add(notification.channelURI);
+        }
+        Assert.assertEquals(notifiedChannelURIs, new HashSet<>(channelURIs.values()));
+    }
+
+    @Test
+    public void testPolicyDoesNotWakeUpDevices() throws InterruptedException {
+        Map<String, String> channelURIs = new LinkedHashMap<>();
+        channelURIs.put("device-1", CHANNEL_URI_PREFIX + "1");
+        WNSPushNotifier.operationAdded(createOperation(Operation.Type.POLICY), channelURIs);
+        Assert.assertNull(StubWNSClient.notifications.poll(NO_NOTIFICATION_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFailedPushDoesNotFailOperation() throws InterruptedException {
+        Map<String, String> channelURIs = new LinkedHashMap<>();
+        channelURIs.put("device-1", FAILING_CHANNEL_URI);
+        channelURIs.put("device-2", BROKEN_CHANNEL_URI);
+        channelURIs.put("device-3", CHANNEL_URI_PREFIX + "3");
+        WNSPushNotifier.operationAdded(createOperation(Operation.Type.COMMAND), channelURIs);
+        Set<String> notifiedChannelURIs = new HashSet<>();
+        for (int i = 0; i < channelURIs.size(); i++) {
+            Notification notification = StubWNSClient.notifications.poll(NOTIFICATION_TIMEOUT, TimeUnit.MILLISECONDS);
+            Assert.assertNotNull(notification, "Notification was not attempted.");
+            notifiedChannelURIs.add(notification.channelURI);
+        }
+        Assert.assertEquals(notifiedChannelURIs, new HashSet<>(channelURIs.values()));
+
+        // the failures do not stop the devices from being woken up for the operations that follow.
+        channelURIs.clear();
+        channelURIs.put("device-4", CHANNEL_URI_PREFIX + "4");
+        WNSPushNotifier.operationAdded(createOperation(Operation.Type.COMMAND), channelURIs);
+        Notification notification = StubWNSClient.notifications.poll(NOTIFICATION_TIMEOUT, TimeUnit.MILLISECONDS);
+        Assert.assertNotNull(notification, "Device was not woken up after a failed push.");
+        Assert.assertEquals(notification.channelURI, CHANNEL_URI_PREFIX + "4");
+    }
+
+    @Test
+    public void testDisabledPushSendsNothing() throws InterruptedException {
+        WNSPushNotifier.init(createConfiguration(false, StubWNSClient.class.getName()));
+        Assert.assertFalse(WNSPushNotifier.isEnabled());
+        Map<String, String> channelURIs = new LinkedHashMap<>();
+        channelURIs.put("device-1", CHANNEL_URI_PREFIX + "1");
+        WNSPushNotifier.operationAdded(createOperation(Operation.Type.COMMAND), channelURIs);
+        Assert.assertNull(StubWNSClient.notifications.poll(NO_NOTIFICATION_TIMEOUT, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testUnknownClientClassDisablesPush() {
+        WNSPushNotifier.init(createConfiguration(true, "org.wso2.carbon.mdm.mobileservices.windows.NoSuchClient"));
+        Assert.assertFalse(WNSPushNotifier.isEnabled());
+        Map<String, String> channelURIs = new LinkedHashMap<>();
+        channelURIs.put("device-1", CHANNEL_URI_PREFIX + "1");
+        WNSPushNotifier.operationAdded(createOperation(Operation.Type.COMMAND), channelURIs);
+    }
+
+    private static WNSConfiguration createConfiguration(boolean isEnabled, String clientClass) {
+        WNSConfiguration configuration = new WNSConfiguration();
+        configuration.setEnabled(isEnabled);
+        configuration.setPackageFamilyName("WSO2.Agent_8wekyb3d8bbwe");
+        configuration.setPackageSID("ms-app://s-1-15-2-0000000000-0000000000-0000000000");
+        configuration.setClientSecret("secret");
+        configuration.setClientClass(clientClass);
+        return configuration;
+    }
+
+    private static Operation createOperation(Operation.Type type) {
+        Operation operation = new Operation();
+        operation.setCode("DEVICE_LOCK");
+        operation.setType(type);
+        return operation;
+    }
+
+    private static class Notification {
+
+        private final String channelURI;
+        private final byte[] payload;
+
+        private Notification(String channelURI, byte[] payload) {
+            this.channelURI = channelURI;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * WNSClient that records the notifications it is asked to send. It rejects the notifications to
+     * FAILING_CHANNEL_URI, as WNS does to an expired channel, and fails unexpectedly on BROKEN_CHANNEL_URI.
+     */
+    public static class StubWNSClient implements WNSClient {
+
+        private static final BlockingQueue<Notification> notifications = new LinkedBlockingQueue<>();
+
+        @Override
+        public void init(WNSConfiguration configuration) throws WNSException {
+        }
+
+        @Override
+        public void sendRawNotification(String channelURI, byte[] payload) throws WNSException {
+            notifications.add(new Notification(channelURI, payload));
+            if (FAILING_CHANNEL_URI.equals(channelURI)) {
+                throw new WNSException("WNS rejected the notification to channel " + channelURI + " with status 410.");
+            }
+            if (BROKEN_CHANNEL_URI.equals(channelURI)) {
+                throw new IllegalStateException("Unexpected failure of the WNS client.");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.common.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.AuthenticationException;
+
+import java.util.UUID;
+
+/**
+ * Class for holding unit-tests related to UsernameTokenValidator class. The user store and the clock are stubbed, and
+ * every test authenticates a user of its own, as the authentication caches are shared by all the validators.
+ */
+public class UsernameTokenValidatorTest {
+
+    private static final String TENANT_DOMAIN = "carbon.super";
+    private static final String PASSWORD = "admin-password";
+
+    @Test
+    public void testFailuresWithDifferentPasswordsAreThrottled() throws AuthenticationException {
+        StubUsernameTokenValidator validator = new StubUsernameTokenValidator();
+        String username = createUsername();
+        for (int i = 0; i < UsernameTokenValidator.MAX_FAILED_ATTEMPTS; i++) {
+            Assert.assertFalse(validator.authenticate(username, "guess-" + i, TENANT_DOMAIN));
+        }
+        Assert.assertEquals(validator.userStoreCalls, UsernameTokenValidator.MAX_FAILED_ATTEMPTS);
+        Assert.assertFalse(validator.authenticate(username, "guess-next", TENANT_DOMAIN));
+        Assert.assertFalse(validator.authenticate(username, PASSWORD, TENANT_DOMAIN));
+        Assert.assertEquals(validator.userStoreCalls, UsernameTokenValidator.MAX_FAILED_ATTEMPTS);
+    }
+
+    @Test
+    public void testThrottlingEndsWithFailureWindow() throws AuthenticationException {
+        StubUsernameTokenValidator validator = new StubUsernameTokenValidator();
+        String username = createUsername();
+        for (int i = 0; i <= UsernameTokenValidator.MAX_FAILED_ATTEMPTS; i++) {
+            validator.authenticate(username, "guess-" + i, TENANT_DOMAIN);
+        }
+        validator.currentTime += UsernameTokenValidator.FAILED_ATTEMPTS_WINDOW_IN_MILLIS;
+        Assert.assertTrue(validator.authenticate(username, PASSWORD, TENANT_DOMAIN));
+        Assert.assertEquals(validator.userStoreCalls, UsernameTokenValidator.MAX_FAILED_ATTEMPTS + 1);
+    }
+
+    @Test
+    public void testThrottlingIsPerUser() throws AuthenticationException {
+        StubUsernameTokenValidator validator = new StubUsernameTokenValidator();
+        String username = createUsername();
+        for (int i = 0; i < UsernameTokenValidator.MAX_FAILED_ATTEMPTS; i++) {
+            validator.authenticate(username, "guess-" + i, TENANT_DOMAIN);
+        }
+        Assert.assertTrue(validator.authenticate(createUsername(), PASSWORD, TENANT_DOMAIN));
+        Assert.assertTrue(validator.authenticate(username, PASSWORD, "wso2.com"));
+        Assert.assertEquals(validator.userStoreCalls, UsernameTokenValidator.MAX_FAILED_ATTEMPTS + 2);
+    }
+
+    @Test
+    public void testSuccessResetsFailures() throws AuthenticationException {
+        StubUsernameTokenValidator validator = new StubUsernameTokenValidator();
+        String username = createUsername();
+        for (int i = 0; i < UsernameTokenValidator.MAX_FAILED_ATTEMPTS - 1; i++) {
+            validator.authenticate(username, "guess-" + i, TENANT_DOMAIN);
+        }
+        Assert.assertTrue(validator.authenticate(username, PASSWORD, TENANT_DOMAIN));
+        for (int i = 0; i < UsernameTokenValidator.MAX_FAILED_ATTEMPTS - 1; i++) {
+            validator.authenticate(username, "guess-" + i, TENANT_DOMAIN);
+        }
+        Assert.assertFalse(validator.authenticate(username, "guess-last", TENANT_DOMAIN));
+        Assert.assertEquals(validator.userStoreCalls, 2 * UsernameTokenValidator.MAX_FAILED_ATTEMPTS);
+    }
+
+    @Test
+    public void testSuccessfulAuthenticationIsCached() throws AuthenticationException {
+        StubUsernameTokenValidator validator = new StubUsernameTokenValidator();
+        String username = createUsername();
+        Assert.assertTrue(validator.authenticate(username, PASSWORD, TENANT_DOMAIN));
+        for (int i = 0; i < UsernameTokenValidator.MAX_FAILED_ATTEMPTS; i++) {
+            validator.authenticate(username, "guess-" + i, TENANT_DOMAIN);
+        }
+        // the devices enrolling with the cached credentials are not locked out by the throttled guesses.
+        Assert.assertTrue(validator.authenticate(username, PASSWORD, TENANT_DOMAIN));
+        Assert.assertEquals(validator.userStoreCalls, UsernameTokenValidator.MAX_FAILED_ATTEMPTS + 1);
+    }
+
+    private static String createUsername() {
+        return "user-" + UUID.randomUUID();
+    }
+
+    /**
+     * Validator accepting PASSWORD for every user, which counts the calls to the user store and lets the tests move
+     * its clock.
+     */
+    private static class StubUsernameTokenValidator extends UsernameTokenValidator {
+
+        private int userStoreCalls;
+        private long currentTime = System.currentTimeMillis();
+
+        @Override
+        boolean authenticateWithUserStore(String username, String password, String tenantDomain) {
+            userStoreCalls++;
+            return PASSWORD.equals(password);
+        }
+
+        @Override
+        long getCurrentTime() {
+            return currentTime;
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.common.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.mdm.mobileservices.windows.common.PluginConstants;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.BadRequestException;
+
+import javax.ws.rs.core.MediaType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Class for holding unit-tests related to WindowsDeviceUtils class. The device management service is stubbed by a
+ * proxy that knows a fixed set of enrolled devices and counts the lookups.
+ */
+public class WindowsDeviceUtilsTest {
+
+    private static final String FAILING_DEVICE_ID = "failing-device";
+
+    @Test
+    public void testDuplicateDeviceIdsAreLookedUpOnce() {
+        StubDeviceManagementService deviceManagementService = new StubDeviceManagementService("device-1", "device-2");
+        DeviceIDHolder deviceIDHolder = validate(deviceManagementService,
+                                                 "device-1", "device-2", "device-1", "device-2", "device-1");
+        Assert.assertEquals(getIds(deviceIDHolder.getValidDeviceIDList()), Arrays.asList("device-1", "device-2"));
+        Assert.assertTrue(deviceIDHolder.getErrorDeviceIdList().isEmpty());
+        Assert.assertEquals(deviceManagementService.lookups, Arrays.asList("device-1", "device-2"));
+    }
+
+    @Test
+    public void testUnknownDeviceIdsAreReported() {
+        StubDeviceManagementService deviceManagementService = new StubDeviceManagementService();
+        DeviceIDHolder deviceIDHolder = validate(deviceManagementService, "unknown-1", "unknown-2", "unknown-1");
+        Assert.assertTrue(deviceIDHolder.getValidDeviceIDList().isEmpty());
+        Assert.assertEquals(deviceIDHolder.getErrorDeviceIdList(),
+                            Arrays.asList(notFound(1), notFound(2), notFound(3)));
+        Assert.assertEquals(deviceManagementService.lookups, Arrays.asList("unknown-1", "unknown-2"));
+    }
+
+    @Test
+    public void testMixedDeviceIds() {
+        StubDeviceManagementService deviceManagementService = new StubDeviceManagementService("device-1", "device-2");
+        DeviceIDHolder deviceIDHolder = validate(deviceManagementService, "device-1", "unknown", null, "",
+                                                 FAILING_DEVICE_ID, "device-2", "device-1");
+        Assert.assertEquals(getIds(deviceIDHolder.getValidDeviceIDList()), Arrays.asList("device-1", "device-2"));
+        for (DeviceIdentifier deviceIdentifier : deviceIDHolder.getValidDeviceIDList()) {
+            Assert.assertEquals(deviceIdentifier.getType(), "windows");
+        }
+        Assert.assertEquals(deviceIDHolder.getErrorDeviceIdList(), Arrays.asList(
+                notFound(2), notFound(3), notFound(4),
+                String.format(PluginConstants.DeviceConstants.DEVICE_ID_SERVICE_NOT_FOUND, 5)));
+        Assert.assertTrue(deviceIDHolder.getChannelURIs().isEmpty());
+    }
+
+    @Test
+    public void testNumberOfDevicesIsNotLimited() {
+        List<String> deviceIDs = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            deviceIDs.add("device-" + i);
+        }
+        StubDeviceManagementService deviceManagementService =
+                new StubDeviceManagementService(deviceIDs.toArray(new String[deviceIDs.size()]));
+        DeviceIDHolder deviceIDHolder = validate(deviceManagementService,
+                                                 deviceIDs.toArray(new String[deviceIDs.size()]));
+        Assert.assertEquals(deviceIDHolder.getValidDeviceIDList().size(), deviceIDs.size());
+        Assert.assertTrue(deviceIDHolder.getErrorDeviceIdList().isEmpty());
+    }
+
+    @Test(expectedExceptions = BadRequestException.class)
+    public void testMissingDeviceIdsAreRejected() {
+        new WindowsDeviceUtils(new StubDeviceManagementService().proxy).validateDeviceIdentifiers(
+                null, new Message(), MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    private static DeviceIDHolder validate(StubDeviceManagementService deviceManagementService, String... deviceIDs) {
+        return new WindowsDeviceUtils(deviceManagementService.proxy).validateDeviceIdentifiers(
+                Arrays.asList(deviceIDs), new Message(), MediaType.APPLICATION_JSON_TYPE);
+    }
+
+    private static List<String> getIds(List<DeviceIdentifier> deviceIdentifiers) {
+        List<String> ids = new ArrayList<>();
+        for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+            ids.add(deviceIdentifier.getId());
+        }
+        return ids;
+    }
+
+    private static String notFound(int position) {
+        return String.format(PluginConstants.DeviceConstants.DEVICE_ID_NOT_FOUND, position);
+    }
+
+    /**
+     * Device management service that returns the enrolled devices it was created with, fails the lookup of
+     * FAILING_DEVICE_ID and records the ids it is asked for.
+     */
+    private static class StubDeviceManagementService implements InvocationHandler {
+
+        private final Set<String> enrolledDeviceIDs;
+        private final List<String> lookups = new ArrayList<>();
+        private final DeviceManagementProviderService proxy;
+
+        private StubDeviceManagementService(String... enrolledDeviceIDs) {
+            this.enrolledDeviceIDs = new HashSet<>(Arrays.asList(enrolledDeviceIDs));
+            this.proxy = (DeviceManagementProviderService) Proxy.newProxyInstance(
+                    getClass().getClassLoader(), new Class<?>[]{DeviceManagementProviderService.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws DeviceManagementException {
+            if (!"getDevice".equals(method.getName()) || args == null || args.length != 1 ||
+                    !(args[0] instanceof DeviceIdentifier)) {
+                throw new UnsupportedOperationException(method.getName());
+            }
+            DeviceIdentifier deviceIdentifier = (DeviceIdentifier) args[0];
+            lookups.add(deviceIdentifier.getId());
+            if (FAILING_DEVICE_ID.equals(deviceIdentifier.getId())) {
+                throw new DeviceManagementException("Device lookup failed");
+            }
+            if (!enrolledDeviceIDs.contains(deviceIdentifier.getId())) {
+                return null;
+            }
+            Device device = new Device();
+            device.setDeviceIdentifier(deviceIdentifier.getId());
+            device.setProperties(Collections.<Device.Property>emptyList());
+            return device;
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.operations.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.wso2.carbon.mdm.mobileservices.windows.operations.SyncmlDocument;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compares the time taken by SyncmlParser and the DOM based parser it replaced to parse a large inventory response.
+ * The DOM parser is timed together with building the DOM from the request body, as CXF did for the SyncML endpoint.
+ * The timings are logged rather than asserted, since they depend on the machine running the build. Hence, the
+ * benchmark is left out of the unit tests and is run with the "benchmark" profile, i.e. mvn test -Pbenchmark.
+ */
+public class SyncmlParserBenchmark {
+
+    private static final Log log = LogFactory.getLog(SyncmlParserBenchmark.class);
+    private static final int INVENTORY_ITEMS = 2000;
+    private static final int WARM_UP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+
+    private byte[] payload;
+
+    @BeforeClass
+    public void createInventoryResponse() {
+        StringBuilder syncml = new StringBuilder();
+        syncml.append("<SyncML xmlns=\"SYNCML:SYNCML1.2\"><SyncHdr><VerDTD>1.2</VerDTD><VerProto>DM/1.2</VerProto>")
+                .append("<SessionID>2</SessionID><MsgID>3</MsgID><Target><LocURI>https://mdm.example.com/</LocURI>")
+                .append("</Target><Source><LocURI>6CAF8D6F-DF2A-4A52-8B34-5A2C3D1B1F10</LocURI>")
+                .append("<LocName>8d7c5a3e-2f41-4b0e-9a6d-0f1c2b3a4d5e</LocName></Source></SyncHdr><SyncBody>")
+                .append("<Status><CmdID>1</CmdID><MsgRef>2</MsgRef><CmdRef>0</CmdRef><Cmd>SyncHdr</Cmd>")
+                .append("<Data>200</Data></Status><Results><CmdID>2</CmdID><MsgRef>2</MsgRef><CmdRef>5</CmdRef>");
+        for (int i = 0; i < INVENTORY_ITEMS; i++) {
+            syncml.append("<Item><Source><LocURI>./Vendor/MSFT/EnterpriseModernAppManagement/AppInventoryResults/")
+                    .append(i).append("</LocURI></Source><Data>Microsoft.Application").append(i)
+                    .append("_10.0.").append(i).append(".0_x64__8wekyb3d8bbwe</Data></Item>");
+        }
+        syncml.append("</Results><Final/></SyncBody></SyncML>");
+        payload = syncml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void benchmarkInventoryResponse() throws Exception {
+        Assert.assertEquals(SyncmlParserTest.describe(parseWithStreamingParser()),
+                            SyncmlParserTest.describe(parseWithDOMParser()));
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            parseWithDOMParser();
+            parseWithStreamingParser();
+        }
+        long domStartTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            parseWithDOMParser();
+        }
+        long domTime = System.nanoTime() - domStartTime;
+        long streamingStartTime = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            parseWithStreamingParser();
+        }
+        long streamingTime = System.nanoTime() - streamingStartTime;
+        log.info("Parsing a SyncML inventory response of " + INVENTORY_ITEMS + " items (" + payload.length +
+                         " bytes) took " + (domTime / MEASURED_ITERATIONS / 1000) + " us with the DOM parser and " +
+                         (streamingTime / MEASURED_ITERATIONS / 1000) + " us with the streaming parser on average.");
+    }
+
+    private SyncmlDocument parseWithDOMParser() throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+                new ByteArrayInputStream(payload));
+        return DOMSyncmlParser.parseSyncmlPayload(document);
+    }
+
+    private SyncmlDocument parseWithStreamingParser() throws Exception {
+        return SyncmlParser.parseSyncmlPayload(new ByteArrayInputStream(payload));
+    }
+
+}
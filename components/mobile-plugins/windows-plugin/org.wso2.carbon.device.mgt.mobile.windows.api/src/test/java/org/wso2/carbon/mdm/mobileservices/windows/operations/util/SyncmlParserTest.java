@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mdm.mobileservices.windows.operations.util;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.wso2.carbon.mdm.mobileservices.windows.common.exceptions.SyncmlMessageFormatException;
+import org.wso2.carbon.mdm.mobileservices.windows.operations.SyncmlDocument;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Class for holding unit-tests related to SyncmlParser class. The parsed documents are compared with those of the
+ * DOM based parser that SyncmlParser replaced.
+ */
+public class SyncmlParserTest {
+
+    private static final String SYNCML_FIXTURE_LOCATION = "./src/test/resources/syncml/";
+    private static final String OPERATIONS_PACKAGE = SyncmlDocument.class.getPackage().getName();
+
+    @DataProvider(name = "syncmlFixtures")
+    public Object[][] getSyncmlFixtures() {
+        File[] fixtures = new File(SYNCML_FIXTURE_LOCATION).listFiles();
+        Assert.assertNotNull(fixtures, "SyncML fixtures are not found at " + SYNCML_FIXTURE_LOCATION);
+        Arrays.sort(fixtures);
+        Object[][] data = new Object[fixtures.length][];
+        for (int i = 0; i < fixtures.length; i++) {
+            data[i] = new Object[]{fixtures[i]};
+        }
+        return data;
+    }
+
+    @Test(dataProvider = "syncmlFixtures")
+    public void testParsedDocumentMatchesBaseline(File fixture) throws Exception {
+        SyncmlDocument expected = DOMSyncmlParser.parseSyncmlPayload(parseDocument(fixture));
+        SyncmlDocument actual;
+        try (InputStream payload = new FileInputStream(fixture)) {
+            actual = SyncmlParser.parseSyncmlPayload(payload);
+        }
+        Assert.assertEquals(describe(actual), describe(expected),
+                            "Parsed document of " + fixture.getName() + " differs from that of the DOM parser");
+    }
+
+    @Test
+    public void testIndentedPayloadMatchesCompactPayload() throws Exception {
+        File fixture = new File(SYNCML_FIXTURE_LOCATION + "enrollment-second-message.xml");
+        String compact = new String(readFixture(fixture), StandardCharsets.UTF_8);
+        String indented = compact.replace("><", ">\n    <");
+        SyncmlDocument expected = SyncmlParser.parseSyncmlPayload(
+                new ByteArrayInputStream(compact.getBytes(StandardCharsets.UTF_8)));
+        SyncmlDocument actual = SyncmlParser.parseSyncmlPayload(
+                new ByteArrayInputStream(indented.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(describe(actual), describe(expected));
+    }
+
+    @Test(expectedExceptions = SyncmlMessageFormatException.class)
+    public void testMalformedPayloadIsRejected() throws Exception {
+        String payload = "<SyncML xmlns=\"SYNCML:SYNCML1.2\"><SyncHdr><SessionID>1</SessionID><MsgID>1</MsgID>";
+        SyncmlParser.parseSyncmlPayload(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test(expectedExceptions = SyncmlMessageFormatException.class)
+    public void testPayloadWithoutHeaderIsRejected() throws Exception {
+        String payload = "<SyncML xmlns=\"SYNCML:SYNCML1.2\"><SyncBody><Final/></SyncBody></SyncML>";
+        SyncmlParser.parseSyncmlPayload(new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    static Document parseDocument(File fixture) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(fixture);
+    }
+
+    static byte[] readFixture(File fixture) throws IOException {
+        return Files.readAllBytes(fixture.toPath());
+    }
+
+    /**
+     * Describes a parsed SyncML object and everything it refers to as a string, through its getters. Hence, two
+     * documents are equal if their descriptions are, as the SyncML beans do not implement equals.
+     *
+     * @param object the parsed SyncML object.
+     * @return the description of the object.
+     */
+    static String describe(Object object) throws Exception {
+        StringBuilder description = new StringBuilder();
+        describe(object, description);
+        return description.toString();
+    }
+
+    private static void describe(Object object, StringBuilder description) throws Exception {
+        if (object == null) {
+            description.append("null");
+        } else if (object instanceof List) {
+            description.append('[');
+            for (Object element : (List<?>) object) {
+                describe(element, description);
+                description.append(',');
+            }
+            description.append(']');
+        } else if (object.getClass().getPackage() != null &&
+                OPERATIONS_PACKAGE.equals(object.getClass().getPackage().getName())) {
+            description.append(object.getClass().getSimpleName()).append('{');
+            Method[] methods = object.getClass().getMethods();
+            Arrays.sort(methods, new Comparator<Method>() {
+                @Override
+                public int compare(Method first, Method second) {
+                    return first.getName().compareTo(second.getName());
+                }
+            });
+            for (Method method : methods) {
+                if (method.getName().startsWith("get") && method.getParameterTypes().length == 0 &&
+                        method.getDeclaringClass() != Object.class) {
+                    description.append(method.getName().substring(3)).append('=');
+                    describe(method.invoke(object), description);
+                    description.append(';');
+                }
+            }
+            description.append('}');
+        } else {
+            description.append('"').append(object).append('"');
+        }
+    }
+
+}
@@ -0,0 +1,6 @@
+-- -----------------------------------------------------
+-- Adds the connection state columns to a `VIRTUAL_FIREALARM_DEVICE` table created
+-- before the connection states of the devices were tracked.
+-- -----------------------------------------------------
+ALTER TABLE VIRTUAL_FIREALARM_DEVICE ADD COLUMN IF NOT EXISTS LAST_SEEN BIGINT NULL DEFAULT NULL;
+ALTER TABLE VIRTUAL_FIREALARM_DEVICE ADD COLUMN IF NOT EXISTS IS_CONNECTED INT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- -----------------------------------------------------
+-- Adds the connection state columns to a `VIRTUAL_FIREALARM_DEVICE` table created
+-- before the connection states of the devices were tracked.
+-- -----------------------------------------------------
+ALTER TABLE VIRTUAL_FIREALARM_DEVICE ADD (
+  LAST_SEEN NUMBER(19) NULL,
+  IS_CONNECTED NUMBER(1) DEFAULT 0 NOT NULL);
@@ -0,0 +1,7 @@
+-- -----------------------------------------------------
+-- Adds the connection state columns to a `VIRTUAL_FIREALARM_DEVICE` table created
+-- before the connection states of the devices were tracked.
+-- -----------------------------------------------------
+ALTER TABLE VIRTUAL_FIREALARM_DEVICE
+  ADD COLUMN LAST_SEEN BIGINT NULL DEFAULT NULL,
+  ADD COLUMN IS_CONNECTED INT NOT NULL DEFAULT 0;
@@ -4,6 +4,8 @@
 CREATE  TABLE IF NOT EXISTS `VIRTUAL_FIREALARM_DEVICE` (
   `VIRTUAL_FIREALARM_DEVICE_ID` VARCHAR(45) NOT NULL ,
   `DEVICE_NAME` VARCHAR(100) NULL DEFAULT NULL,
+  `LAST_SEEN` BIGINT NULL DEFAULT NULL,
+  `IS_CONNECTED` INT NOT NULL DEFAULT 0,
   PRIMARY KEY (`VIRTUAL_FIREALARM_DEVICE_ID`) )
 ENGINE = InnoDB;
 
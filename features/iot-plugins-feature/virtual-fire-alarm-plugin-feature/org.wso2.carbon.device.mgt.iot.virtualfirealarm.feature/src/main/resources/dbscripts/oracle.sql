@@ -5,4 +5,6 @@
 CREATE  TABLE IF NOT EXISTS VIRTUAL_FIREALARM_DEVICE (
   VIRTUAL_FIREALARM_DEVICE_ID VARCHAR(45) NOT NULL ,
   DEVICE_NAME VARCHAR(100) NULL DEFAULT NULL,
+  LAST_SEEN NUMBER(19) NULL,
+  IS_CONNECTED NUMBER(1) DEFAULT 0 NOT NULL,
   PRIMARY KEY (VIRTUAL_FIREALARM_DEVICE_ID) );